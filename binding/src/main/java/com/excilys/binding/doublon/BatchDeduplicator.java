@@ -0,0 +1,196 @@
+package com.excilys.binding.doublon;
+
+import com.excilys.core.conflict.Conflict;
+import com.excilys.core.conflict.doublon.Doublon;
+import com.excilys.core.conflict.doublon.Fingerprint;
+import com.excilys.core.dto.ComputerDTO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Find the duplicates inside a list of imported computers (sorted neighbourhood method).
+ * <p>
+ * The rows are sorted on their normalized name, then on their normalized company and their dates, so the duplicates
+ * end up next to each other, then each row is only compared with the last rows kept in a sliding window. This is
+ * O(n log n) instead of comparing every pair. Sorting on the whole row keeps the exact duplicates side by side : many
+ * rows with the same name but other companies or dates cannot push them out of the window.
+ * <p>
+ * An import read by chunks passes a DeduplicationWindow, so the rows of a chunk are also compared with the rows kept
+ * from the previous chunks, up to its capacity.
+ *
+ * @author excilys
+ */
+public class BatchDeduplicator {
+
+    // list of the variables
+    private final SimilarityCalculator calculator;
+    private final int windowSize;
+    private final double threshold;
+
+    /**
+     * Constructor.
+     *
+     * @param calculator to compare the names
+     * @param windowSize number of kept rows each row is compared with
+     * @param threshold  minimal name similarity (in percent) to collapse two rows
+     */
+    public BatchDeduplicator(SimilarityCalculator calculator, int windowSize, double threshold) {
+        this.calculator = calculator;
+        this.windowSize = windowSize;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Remove the rows which are duplicates of another row of the list.
+     * <p>
+     * Two rows are duplicates when their names are similar enough and their dates and company are the same.
+     * The first row of the file is kept.
+     *
+     * @param rows      to deduplicate
+     * @param collapsed where the removed rows are added, each with the row kept in its place
+     * @return the rows kept, in the original order
+     */
+    public List<ComputerDTO> deduplicate(List<ComputerDTO> rows, List<Conflict> collapsed) {
+        return this.deduplicate(rows, collapsed, null);
+    }
+
+    /**
+     * Remove the rows which are duplicates of another row of the list or of a row kept by the previous lists of
+     * the same import, then add the rows kept to the window.
+     *
+     * @param rows      to deduplicate
+     * @param collapsed where the removed rows are added, each with the row kept in its place
+     * @param recent    rows kept from the previous lists, null to only look inside the list
+     * @return the rows kept, in the original order
+     */
+    public List<ComputerDTO> deduplicate(List<ComputerDTO> rows, List<Conflict> collapsed, DeduplicationWindow recent) {
+        int size = rows.size();
+        String[] keys = new String[size];
+        String[] companies = new String[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = Fingerprint.normalize(rows.get(i).getName());
+            companies[i] = Fingerprint.normalize(rows.get(i).getCompanyName());
+            order[i] = i;
+        }
+
+        // stable on the file order so the first occurrence is the one kept
+        Arrays.sort(order, Comparator.<Integer, String>comparing(i -> keys[i])
+                .thenComparing(i -> companies[i])
+                .thenComparing(i -> Objects.toString(rows.get(i).getIntroduced(), ""))
+                .thenComparing(i -> Objects.toString(rows.get(i).getDiscontinued(), ""))
+                .thenComparing(i -> i));
+
+        boolean[] removed = new boolean[size];
+        Deque<Integer> window = new ArrayDeque<>(this.windowSize);
+        for (Integer current : order) {
+            Integer keeper = this.findKeeper(window, current, keys, rows);
+            if (keeper == null) {
+                if (window.size() == this.windowSize) {
+                    window.removeFirst();
+                }
+                window.addLast(current);
+            } else {
+                removed[current] = true;
+                collapsed.add(new Doublon(rows.get(current), Collections.singletonList(rows.get(keeper))));
+            }
+        }
+
+        List<ComputerDTO> retVal = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (removed[i]) {
+                continue;
+            }
+            if (recent != null) {
+                ComputerDTO keeper = this.findKeeper(recent, keys[i], rows.get(i));
+                if (keeper != null) {
+                    collapsed.add(new Doublon(rows.get(i), Collections.singletonList(keeper)));
+                    continue;
+                }
+            }
+            retVal.add(rows.get(i));
+        }
+        if (recent != null) {
+            for (ComputerDTO row : retVal) {
+                recent.add(Fingerprint.normalize(row.getName()), row);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Look in the window for a row the current row is a duplicate of.
+     *
+     * @param window  of the last kept rows
+     * @param current index of the row to check
+     * @param keys    normalized names
+     * @param rows    all the rows
+     * @return index of the duplicate or null if there is none
+     */
+    private Integer findKeeper(Deque<Integer> window, int current, String[] keys, List<ComputerDTO> rows) {
+        for (Integer kept : window) {
+            if (this.isDuplicate(rows.get(current), keys[current], rows.get(kept), keys[kept])) {
+                return kept;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Look in the rows of the previous lists for a row the given row is a duplicate of.
+     *
+     * @param recent rows kept from the previous lists
+     * @param key    normalized name of the row
+     * @param row    to check
+     * @return the duplicate or null if there is none
+     */
+    private ComputerDTO findKeeper(DeduplicationWindow recent, String key, ComputerDTO row) {
+        for (Map.Entry<String, ComputerDTO> kept : recent.neighbours(key, this.windowSize)) {
+            if (this.isDuplicate(row, key, kept.getValue(), kept.getKey())) {
+                return kept.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compare two rows.
+     *
+     * @param row      to check
+     * @param key      normalized name of the row
+     * @param other    row kept
+     * @param otherKey normalized name of the other row
+     * @return true if the dates and the company are the same and the names similar enough
+     */
+    private boolean isDuplicate(ComputerDTO row, String key, ComputerDTO other, String otherKey) {
+        return Objects.equals(row.getIntroduced(), other.getIntroduced())
+                && Objects.equals(row.getDiscontinued(), other.getDiscontinued())
+                && Fingerprint.normalize(row.getCompanyName()).equals(Fingerprint.normalize(other.getCompanyName()))
+                && this.isSimilar(key, otherKey);
+    }
+
+    /**
+     * Compare two normalized names.
+     *
+     * @param left  name
+     * @param right name
+     * @return true if the names are similar enough
+     */
+    private boolean isSimilar(String left, String right) {
+        if (left.equals(right)) {
+            return true;
+        }
+        if (left.isEmpty() || right.isEmpty()) {
+            return false;
+        }
+        return this.calculator.getPercentSimilarity(left, right) >= this.threshold;
+    }
+}
@@ -0,0 +1,100 @@
+package com.excilys.binding.doublon;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of long keys (the computers fingerprints).
+ * <p>
+ * mightContain() never returns false for a key that was put, but can return true for a key that was not.
+ * The bits are stored in an AtomicLongArray so concurrent puts cannot lose each other bits.
+ *
+ * @author excilys
+ */
+public class BloomFilter {
+
+    // list of the variables
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+
+    /**
+     * Constructor.
+     *
+     * @param expectedInsertions number of keys the filter is sized for
+     * @param falsePositiveRate  wanted false positive rate when expectedInsertions keys are in the filter
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive : " + expectedInsertions);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be in ]0, 1[ : " + falsePositiveRate);
+        }
+
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / expectedInsertions * Math.log(2)));
+        this.capacity = expectedInsertions;
+    }
+
+    /**
+     * Add a key in the filter.
+     *
+     * @param key to add
+     */
+    public void put(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, this.bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = this.bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!this.bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * Check if a key might have been put in the filter.
+     *
+     * @param key to check
+     * @return false if the key was never put, true if it probably was
+     */
+    public boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, this.bitCount);
+            if ((this.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * splitmix64 finalizer, spreads the bits of the key.
+     *
+     * @param key to mix
+     * @return mixed value
+     */
+    private static long mix(long key) {
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
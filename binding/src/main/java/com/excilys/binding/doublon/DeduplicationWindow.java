@@ -0,0 +1,94 @@
+package com.excilys.binding.doublon;
+
+import com.excilys.core.dto.ComputerDTO;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Rows kept by the previous lists of the same import, so the BatchDeduplicator also collapses the duplicates which
+ * are not in the same chunk.
+ * <p>
+ * The rows are sorted on their normalized name like in a list, a row is compared with its neighbours on each side.
+ * Only the last capacity rows are kept : a duplicate further away in the file than that is left to the database
+ * check. Used by one thread at a time.
+ *
+ * @author excilys
+ */
+public class DeduplicationWindow {
+
+    // list of the variables
+    private final int capacity;
+    private final NavigableMap<String, List<ComputerDTO>> rows = new TreeMap<>();
+    private final Deque<String> added = new ArrayDeque<>();
+
+    /**
+     * Constructor.
+     *
+     * @param capacity number of rows kept
+     */
+    public DeduplicationWindow(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the rows whose normalized name is next to a name, the nearest first on each side.
+     *
+     * @param key   normalized name
+     * @param count maximum number of rows on each side
+     * @return the rows with the same name, then the ones before and the ones after
+     */
+    List<Map.Entry<String, ComputerDTO>> neighbours(String key, int count) {
+        List<Map.Entry<String, ComputerDTO>> retVal = new ArrayList<>();
+        this.collect(this.rows.headMap(key, true).descendingMap(), count, retVal);
+        this.collect(this.rows.tailMap(key, false), count, retVal);
+        return retVal;
+    }
+
+    private void collect(NavigableMap<String, List<ComputerDTO>> side, int count, List<Map.Entry<String, ComputerDTO>> target) {
+        int taken = 0;
+        for (Map.Entry<String, List<ComputerDTO>> entry : side.entrySet()) {
+            for (ComputerDTO row : entry.getValue()) {
+                if (taken++ == count) {
+                    return;
+                }
+                target.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), row));
+            }
+        }
+    }
+
+    /**
+     * Add a kept row, the oldest one is forgotten when the window is full.
+     *
+     * @param key normalized name of the row
+     * @param row kept
+     */
+    void add(String key, ComputerDTO row) {
+        this.rows.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+        this.added.addLast(key);
+        if (this.added.size() > this.capacity) {
+            String oldest = this.added.removeFirst();
+            List<ComputerDTO> same = this.rows.get(oldest);
+            // the rows of a name are in the order they were added
+            same.remove(0);
+            if (same.isEmpty()) {
+                this.rows.remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * Get the number of kept rows.
+     *
+     * @return the size of the window
+     */
+    public int size() {
+        return this.added.size();
+    }
+}
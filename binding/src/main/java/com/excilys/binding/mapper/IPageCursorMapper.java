@@ -0,0 +1,30 @@
+package com.excilys.binding.mapper;
+
+import com.excilys.core.model.PageCursor;
+
+/**
+ * Convert a PageCursor to an opaque token given to the clients, and back.
+ *
+ * @author excilys
+ */
+public interface IPageCursorMapper {
+
+    /**
+     * Get the token of a cursor.
+     *
+     * @param cursor to convert
+     * @param scope  list the cursor belongs to, a token is only accepted back for the same scope
+     * @return the token, url safe
+     */
+    String toToken(PageCursor cursor, String scope);
+
+    /**
+     * Get the cursor of a token.
+     *
+     * @param token given by toToken
+     * @param scope list the cursor belongs to
+     * @return the cursor
+     * @throws MapperException if the token is malformed, was not signed by this application or is for another scope
+     */
+    PageCursor fromToken(String token, String scope);
+}
@@ -1,6 +1,7 @@
 package com.excilys.binding.mapper.impl;
 
 import com.excilys.binding.mapper.IComputerMapper;
+import com.excilys.binding.validation.ComputerRowValidator;
 import com.excilys.core.dto.ComputerDTO;
 import com.excilys.core.model.Company;
 import com.excilys.core.model.Computer;
@@ -35,13 +36,8 @@ public class ComputerMapper implements IComputerMapper {
             builder.id(Long.parseLong(computer.getId()));
         }
 
-        if ((computer.getIntroduced() != null) && !"".equals(computer.getIntroduced()) && !"null".equals(computer.getIntroduced())) {
-            builder.introduced(LocalDate.parse(computer.getIntroduced()));
-        }
-
-        if ((computer.getDiscontinued() != null) && !"".equals(computer.getDiscontinued()) && !"null".equals(computer.getIntroduced())) {
-            builder.discontinued(LocalDate.parse(computer.getDiscontinued()));
-        }
+        builder.introduced(toLocalDate(computer.getIntroduced()));
+        builder.discontinued(toLocalDate(computer.getDiscontinued()));
 
         if ((computer.getCompanyId() != null) && !"".equals(computer.getCompanyId())) {
             builder.company(new Company(Long.parseLong(computer.getCompanyId()), computer.getCompanyName()));
@@ -50,6 +46,22 @@ public class ComputerMapper implements IComputerMapper {
         return builder.build();
     }
 
+    /**
+     * Parse a date of a dto without the formatter of LocalDate.
+     *
+     * @param date yyyy-mm-dd, empty or "null" when there is none
+     * @return the date or null
+     * @throws java.time.format.DateTimeParseException if the date is malformed
+     */
+    private static LocalDate toLocalDate(String date) {
+        int parsed = ComputerRowValidator.parseDate(date);
+        if (parsed == ComputerRowValidator.INVALID) {
+            // the formatter gives the detail of the error
+            return LocalDate.parse(date);
+        }
+        return ComputerRowValidator.toLocalDate(parsed);
+    }
+
     @Override
     public Page<ComputerDTO> map(Page<Computer> page) {
         return new Page.Builder<ComputerDTO>()
@@ -0,0 +1,176 @@
+package com.excilys.binding.mapper.impl;
+
+import com.excilys.binding.validation.ComputerRowValidator;
+import com.excilys.core.dto.ComputerDTO;
+import com.excilys.core.model.Company;
+import com.excilys.core.model.Computer;
+
+/**
+ * Parse a csv record (name, introduced, discontinued, company name) from a char buffer directly in the fields of a
+ * Computer.
+ * <p>
+ * The fields are views on the buffer and the dates are parsed without building a String, so nothing is allocated
+ * for a valid row until the Computer itself is built. A quoted field with doubled quotes is unescaped in the buffer.
+ * An instance is reused from one row to the next and must not be shared between threads.
+ *
+ * @author excilys
+ */
+public class ComputerRowParser {
+
+    // list of the variables
+    public static final int NAME = 0;
+    public static final int INTRODUCED = 1;
+    public static final int DISCONTINUED = 2;
+    public static final int COMPANY_NAME = 3;
+    private static final int COLUMNS = 4;
+
+    private final Slice[] fields = new Slice[COLUMNS];
+    private int introduced;
+    private int discontinued;
+
+    /**
+     * Constructor.
+     */
+    public ComputerRowParser() {
+        for (int i = 0; i < COLUMNS; i++) {
+            this.fields[i] = new Slice();
+        }
+    }
+
+    /**
+     * Parse and validate a record, the columns after the fourth are ignored.
+     *
+     * @param buffer holding the record, changed if a quoted field has doubled quotes
+     * @param from   offset of the first char of the record
+     * @param to     offset after the last char, without the new line
+     * @return the errors of the row as bits of ComputerRowValidator, 0 if the row is valid
+     */
+    public int parse(char[] buffer, int from, int to) {
+        for (Slice field : this.fields) {
+            field.set(buffer, 0, 0);
+        }
+
+        int column = 0;
+        int i = from;
+        while (i <= to) {
+            int start = i;
+            int end;
+            if (i < to && buffer[i] == '"') {
+                // unescape in place : the chars of the field move back over the doubled quotes
+                start = ++i;
+                end = start;
+                while (i < to) {
+                    if (buffer[i] == '"') {
+                        if (i + 1 < to && buffer[i + 1] == '"') {
+                            buffer[end++] = '"';
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    buffer[end++] = buffer[i++];
+                }
+                while (i < to && buffer[i] != ',') {
+                    i++;
+                }
+            } else {
+                while (i < to && buffer[i] != ',') {
+                    i++;
+                }
+                end = i;
+            }
+            if (column < COLUMNS) {
+                this.fields[column].set(buffer, start, end);
+            }
+            column++;
+            i++;
+        }
+
+        this.introduced = ComputerRowValidator.parseDate(this.fields[INTRODUCED]);
+        this.discontinued = ComputerRowValidator.parseDate(this.fields[DISCONTINUED]);
+        return ComputerRowValidator.validate(this.fields[NAME], this.introduced, this.discontinued);
+    }
+
+    /**
+     * Get a field of the last record, trimmed. The view changes with the next record.
+     *
+     * @param column NAME, INTRODUCED, DISCONTINUED or COMPANY_NAME
+     * @return the field, empty if the record was shorter
+     */
+    public CharSequence field(int column) {
+        return this.fields[column];
+    }
+
+    /**
+     * Build the Computer of the last record, which has to be valid.
+     *
+     * @param company of the computer, resolved from the company name by the caller, may be null
+     * @return the computer
+     */
+    public Computer toComputer(Company company) {
+        return new Computer.ComputerBuilder()
+                .name(this.fields[NAME].toString())
+                .introduced(ComputerRowValidator.toLocalDate(this.introduced))
+                .discontinued(ComputerRowValidator.toLocalDate(this.discontinued))
+                .company(company)
+                .build();
+    }
+
+    /**
+     * Build the DTO of the last record, to report it when it is refused.
+     *
+     * @return the dto
+     */
+    public ComputerDTO toDTO() {
+        return new ComputerDTO.Builder()
+                .name(this.fields[NAME].toString())
+                .introduced(this.fields[INTRODUCED].toString())
+                .discontinued(this.fields[DISCONTINUED].toString())
+                .companyName(this.fields[COMPANY_NAME].toString())
+                .build();
+    }
+
+    /**
+     * Trimmed view on a part of a char buffer.
+     */
+    static final class Slice implements CharSequence {
+
+        // list of the variables
+        private char[] buffer;
+        private int start;
+        private int end;
+
+        void set(char[] buffer, int start, int end) {
+            while (start < end && buffer[start] <= ' ') {
+                start++;
+            }
+            while (end > start && buffer[end - 1] <= ' ') {
+                end--;
+            }
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return this.end - this.start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return this.buffer[this.start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return this.toString().subSequence(from, to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(this.buffer, this.start, this.end - this.start);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.excilys.binding.mapper.impl;
+
+import com.excilys.binding.mapper.IPageCursorMapper;
+import com.excilys.binding.mapper.MapperException;
+import com.excilys.core.model.PageCursor;
+import com.excilys.core.model.PageParameters.Direction;
+import com.excilys.core.model.PageParameters.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Tokens of the page cursors : the fields of the cursor followed by their HMAC-SHA256, in base64url.
+ * <p>
+ * The signature covers the scope as well, so a token cannot be edited by a client nor replayed on another list.
+ * The key is the cursor.secret property, all the nodes of a cluster need the same one. Without it a random key is
+ * drawn at the start and the tokens given before a restart are refused.
+ *
+ * @author excilys
+ */
+@Component
+public class PageCursorMapper implements IPageCursorMapper {
+
+    // list of the variables
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int VERSION = 1;
+    private static final int MAC_LENGTH = 16;
+    private static final int RANDOM_KEY_LENGTH = 32;
+    private final SecretKeySpec key;
+
+    /**
+     * Constructor.
+     *
+     * @param secret key of the signatures, a random one if empty
+     */
+    @Autowired
+    public PageCursorMapper(@Value("${cursor.secret:}") String secret) {
+        byte[] bytes;
+        if (secret == null || secret.isEmpty()) {
+            bytes = new byte[RANDOM_KEY_LENGTH];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(bytes, ALGORITHM);
+    }
+
+    @Override
+    public String toToken(PageCursor cursor, String scope) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(cursor.getOrder().ordinal());
+            out.writeByte(cursor.getDirection().ordinal());
+            out.writeLong(cursor.getSize());
+            out.writeLong(cursor.getLastId());
+            out.writeBoolean(cursor.getLastKey() != null);
+            if (cursor.getLastKey() != null) {
+                out.writeUTF(cursor.getLastKey());
+            }
+            out.write(this.sign(scope, bytes.toByteArray()));
+        } catch (IOException e) {
+            throw new MapperException("Cannot write the cursor", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    @Override
+    public PageCursor fromToken(String token, String scope) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new MapperException("Invalid cursor", e);
+        }
+        if (bytes.length <= MAC_LENGTH) {
+            throw new MapperException("Invalid cursor");
+        }
+        byte[] payload = Arrays.copyOf(bytes, bytes.length - MAC_LENGTH);
+        byte[] mac = Arrays.copyOfRange(bytes, payload.length, bytes.length);
+        // constant time, the comparison does not tell how many bytes of a forged signature are right
+        if (!MessageDigest.isEqual(mac, this.sign(scope, payload))) {
+            throw new MapperException("Invalid cursor signature");
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (in.readUnsignedByte() != VERSION) {
+                throw new MapperException("Unknown cursor version");
+            }
+            Order order = Order.values()[in.readUnsignedByte()];
+            Direction direction = Direction.values()[in.readUnsignedByte()];
+            long size = in.readLong();
+            long lastId = in.readLong();
+            String lastKey = in.readBoolean() ? in.readUTF() : null;
+            return new PageCursor(order, direction, size, lastKey, lastId);
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            throw new MapperException("Invalid cursor", e);
+        }
+    }
+
+    private byte[] sign(String scope, byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(this.key);
+            mac.update(scope.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Arrays.copyOf(mac.doFinal(payload), MAC_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new MapperException("Cannot sign the cursor", e);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.excilys.binding.validation;
+
+import com.excilys.core.conflict.format.ErrorMessage;
+import com.excilys.core.conflict.format.Fields;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validation of an imported row without any allocation when the row is valid.
+ * <p>
+ * The dates are parsed by hand in an int yyyymmdd, which keeps the order of the dates, and the errors are the bits
+ * of an int. The map of the errors, with the same codes as ComputerValidator, is only built for a refused row.
+ *
+ * @author excilys
+ */
+public final class ComputerRowValidator {
+
+    // list of the variables
+    public static final int EMPTY = 0;
+    public static final int INVALID = -1;
+
+    public static final int NAME_NULL = 1;
+    public static final int INTRODUCED_FORMAT = 1 << 1;
+    public static final int INTRODUCED_BEFORE_TIMESTAMP = 1 << 2;
+    public static final int INTRODUCED_AFTER_TIMESTAMP = 1 << 3;
+    public static final int DISCONTINUED_FORMAT = 1 << 4;
+    public static final int DISCONTINUED_BEFORE_TIMESTAMP = 1 << 5;
+    public static final int DISCONTINUED_AFTER_TIMESTAMP = 1 << 6;
+    public static final int INTRODUCED_AFTER_DISCONTINUED = 1 << 7;
+
+    private static final int MIN_TIMESTAMP = 19700101;
+    private static final int MAX_TIMESTAMP = 20371231;
+
+    private ComputerRowValidator() {
+    }
+
+    /**
+     * Validate a row.
+     *
+     * @param name         of the computer, may be null
+     * @param introduced   date yyyy-mm-dd, empty or "null" when there is none, may be null
+     * @param discontinued date yyyy-mm-dd, empty or "null" when there is none, may be null
+     * @return the errors of the row as bits, 0 if the row is valid
+     */
+    public static int validate(CharSequence name, CharSequence introduced, CharSequence discontinued) {
+        return validate(name, parseDate(introduced), parseDate(discontinued));
+    }
+
+    /**
+     * Validate a row whose dates are already parsed.
+     *
+     * @param name of the computer, may be null
+     * @param from introduced date returned by parseDate
+     * @param to   discontinued date returned by parseDate
+     * @return the errors of the row as bits, 0 if the row is valid
+     */
+    public static int validate(CharSequence name, int from, int to) {
+        int errors = isBlank(name) ? NAME_NULL : 0;
+
+        if (from == INVALID) {
+            errors |= INTRODUCED_FORMAT;
+        } else if (from != EMPTY) {
+            errors |= checkRange(from, INTRODUCED_BEFORE_TIMESTAMP, INTRODUCED_AFTER_TIMESTAMP);
+        }
+
+        if (to == INVALID) {
+            errors |= DISCONTINUED_FORMAT;
+        } else if (to != EMPTY) {
+            errors |= checkRange(to, DISCONTINUED_BEFORE_TIMESTAMP, DISCONTINUED_AFTER_TIMESTAMP);
+            if (from != EMPTY && from != INVALID && from > to) {
+                errors |= INTRODUCED_AFTER_DISCONTINUED;
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Parse a date yyyy-m-d, the month and the day have one or two digits and the year starts with 19 or 20, like
+     * the regex of ValidatorUtil. The day has to exist in the month. Blanks around the date are ignored.
+     *
+     * @param s the date, may be null
+     * @return the date as yyyymmdd, EMPTY if there is no date or INVALID
+     */
+    public static int parseDate(CharSequence s) {
+        if (s == null) {
+            return EMPTY;
+        }
+        int start = 0;
+        int end = s.length();
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end || isNull(s, start, end)) {
+            return EMPTY;
+        }
+        if (end - start < 8 || s.charAt(start + 4) != '-') {
+            return INVALID;
+        }
+
+        int year = 0;
+        for (int i = start; i < start + 4; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            year = year * 10 + digit;
+        }
+        if (year < 1900 || year > 2099) {
+            return INVALID;
+        }
+
+        int i = start + 5;
+        int month = 0;
+        int digits = 0;
+        while (i < end && s.charAt(i) != '-') {
+            int digit = s.charAt(i++) - '0';
+            if (digit < 0 || digit > 9 || ++digits > 2) {
+                return INVALID;
+            }
+            month = month * 10 + digit;
+        }
+        if (digits == 0 || i == end || month < 1 || month > 12) {
+            return INVALID;
+        }
+
+        i++;
+        int day = 0;
+        digits = 0;
+        while (i < end) {
+            int digit = s.charAt(i++) - '0';
+            if (digit < 0 || digit > 9 || ++digits > 2) {
+                return INVALID;
+            }
+            day = day * 10 + digit;
+        }
+        if (digits == 0 || day < 1 || day > daysInMonth(year, month)) {
+            return INVALID;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Get the date of a value returned by parseDate.
+     *
+     * @param date as yyyymmdd
+     * @return the date, null for EMPTY or INVALID
+     */
+    public static LocalDate toLocalDate(int date) {
+        if (date <= EMPTY) {
+            return null;
+        }
+        return LocalDate.of(date / 10000, date / 100 % 100, date % 100);
+    }
+
+    /**
+     * Build the errors of a refused row with the codes of ComputerValidator.
+     *
+     * @param errors the bits returned by validate
+     * @return the errors by field, an empty map if there is none
+     */
+    public static Map<Fields, List<ErrorMessage>> toMap(int errors) {
+        if (errors == 0) {
+            return Collections.emptyMap();
+        }
+        Map<Fields, List<ErrorMessage>> map = new HashMap<>();
+        add(map, errors, NAME_NULL, Fields.NAME, ErrorMessage.NAME_NULL);
+        add(map, errors, INTRODUCED_FORMAT, Fields.INTRODUCED, ErrorMessage.DATE_FORMAT);
+        add(map, errors, INTRODUCED_BEFORE_TIMESTAMP, Fields.INTRODUCED, ErrorMessage.DATE_BEFORE_TIMESTAMP);
+        add(map, errors, INTRODUCED_AFTER_TIMESTAMP, Fields.INTRODUCED, ErrorMessage.DATE_AFTER_TIMESTAMP);
+        add(map, errors, DISCONTINUED_FORMAT, Fields.DISCONTINUED, ErrorMessage.DATE_FORMAT);
+        add(map, errors, DISCONTINUED_BEFORE_TIMESTAMP, Fields.DISCONTINUED, ErrorMessage.DATE_BEFORE_TIMESTAMP);
+        add(map, errors, DISCONTINUED_AFTER_TIMESTAMP, Fields.DISCONTINUED, ErrorMessage.DATE_AFTER_TIMESTAMP);
+        add(map, errors, INTRODUCED_AFTER_DISCONTINUED, Fields.DISCONTINUED, ErrorMessage.INTRODUCED_AFTER_DISCONTINUED);
+        return map;
+    }
+
+    private static void add(Map<Fields, List<ErrorMessage>> map, int errors, int bit, Fields field,
+                            ErrorMessage message) {
+        if ((errors & bit) != 0) {
+            map.computeIfAbsent(field, key -> new ArrayList<>()).add(message);
+        }
+    }
+
+    private static int checkRange(int date, int before, int after) {
+        if (date < MIN_TIMESTAMP) {
+            return before;
+        }
+        return date > MAX_TIMESTAMP ? after : 0;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static boolean isBlank(CharSequence s) {
+        if (s == null) {
+            return true;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNull(CharSequence s, int start, int end) {
+        return end - start == 4
+                && (s.charAt(start) | 0x20) == 'n'
+                && (s.charAt(start + 1) | 0x20) == 'u'
+                && (s.charAt(start + 2) | 0x20) == 'l'
+                && (s.charAt(start + 3) | 0x20) == 'l';
+    }
+}
@@ -9,9 +9,6 @@ import org.springframework.validation.Errors;
 import org.springframework.validation.ValidationUtils;
 import org.springframework.validation.Validator;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,9 +21,6 @@ public class ComputerValidator implements Validator {
     @Autowired
     private ValidatorUtil validator;
 
-    private static final LocalDate MIN_TIMESTAMP = LocalDate.of(1970, 1, 1);
-    private static final LocalDate MAX_TIMESTAMP = LocalDate.of(2037, 12, 31);
-
     @Override
     public boolean supports(Class<?> c) {
         return ComputerDTO.class.equals(c);
@@ -73,66 +67,11 @@ public class ComputerValidator implements Validator {
      * Check if computerDTO is correctly formed to matches model Computer
      *
      * @param computerDTO computerDTO to be post
-     * @return Map of fields with an error with the list of the errors
+     * @return Map of fields with an error with the list of the errors, an empty immutable map if the dto is valid
      */
     public Map<Fields, List<ErrorMessage>> validateComputerDTO(ComputerDTO computerDTO) {
-
-        boolean isIntroducedWellFormed = true;
-        boolean isDiscontinuedWellFormed = true;
-        Map<Fields, List<ErrorMessage>> errors = new HashMap<>();
-
-        if (computerDTO.getName() == null || computerDTO.getName().equalsIgnoreCase("")) {
-            errors.put(Fields.NAME, new ArrayList<>());
-            errors.get(Fields.NAME).add(ErrorMessage.NAME_NULL);
-        }
-
-        if (computerDTO.getIntroduced() != null && !computerDTO.getIntroduced().equalsIgnoreCase("") && !computerDTO.getIntroduced().equalsIgnoreCase("null")) {
-            isIntroducedWellFormed = validator.isDateValid(computerDTO.getIntroduced());
-            if (!isIntroducedWellFormed) {
-            errors.put(Fields.INTRODUCED, new ArrayList<>());
-                errors.get(Fields.INTRODUCED).add(ErrorMessage.DATE_FORMAT);
-            }
-        }
-
-        if (computerDTO.getDiscontinued() != null && !computerDTO.getDiscontinued().equalsIgnoreCase("") && !computerDTO.getIntroduced().equalsIgnoreCase("null")) {
-            isDiscontinuedWellFormed = validator.isDateValid(computerDTO.getDiscontinued());
-            if (!isDiscontinuedWellFormed) {
-                errors.put(Fields.DISCONTINUED, new ArrayList<>());
-                errors.get(Fields.DISCONTINUED).add(ErrorMessage.DATE_FORMAT);
-            }
-        }
-
-        if (isIntroducedWellFormed && isDiscontinuedWellFormed) {
-            if (computerDTO.getIntroduced() != null && !computerDTO.getIntroduced().equalsIgnoreCase("") && !computerDTO.getIntroduced().equalsIgnoreCase("null")) {
-                LocalDate introduced = LocalDate.parse(computerDTO.getIntroduced());
-
-                if (introduced.isBefore(MIN_TIMESTAMP)) {
-                    errors.get(Fields.INTRODUCED).add(ErrorMessage.DATE_BEFORE_TIMESTAMP);
-                }
-
-                if (introduced.isAfter(MAX_TIMESTAMP)) {
-                    errors.get(Fields.INTRODUCED).add(ErrorMessage.DATE_AFTER_TIMESTAMP);
-                }
-
-                if (computerDTO.getDiscontinued() != null && !computerDTO.getDiscontinued().equalsIgnoreCase("") && !computerDTO.getIntroduced().equalsIgnoreCase("null")) {
-                    LocalDate discontinued = LocalDate.parse(computerDTO.getDiscontinued());
-
-                    if (discontinued.isBefore(MIN_TIMESTAMP)) {
-                        errors.get(Fields.DISCONTINUED).add(ErrorMessage.DATE_BEFORE_TIMESTAMP);
-                    }
-
-                    if (discontinued.isAfter(MAX_TIMESTAMP)) {
-                        errors.get(Fields.DISCONTINUED).add(ErrorMessage.DATE_AFTER_TIMESTAMP);
-                    }
-
-                    if (introduced.isAfter(discontinued)) {
-                        errors.get(Fields.DISCONTINUED).add(ErrorMessage.INTRODUCED_AFTER_DISCONTINUED);
-                    }
-                }
-            }
-        }
-
-        return errors;
+        return ComputerRowValidator.toMap(ComputerRowValidator.validate(computerDTO.getName(),
+                computerDTO.getIntroduced(), computerDTO.getDiscontinued()));
     }
 
 }
@@ -2,6 +2,7 @@ package com.excilys.binding.validation;
 
 import com.excilys.core.model.Company;
 import com.excilys.core.model.Computer;
+import com.excilys.core.model.PageCursor;
 import com.excilys.core.model.PageParameters;
 import org.springframework.stereotype.Service;
 
@@ -102,6 +103,27 @@ public class ValidatorUtil {
         }
     }
 
+    /**
+     * Check the illegality of a PageCursor object.
+     *
+     * @param cursor page cursor object to check
+     * @throws ValidatorException ValidatorException if the PageCursor is illegal.
+     */
+    public void validatePageCursor(PageCursor cursor) {
+        if (cursor.getSize() <= 0) {
+            throw new ValidatorException("Invalid PageSize : " + cursor.getSize());
+        }
+        if (cursor.getLastId() < 0) {
+            throw new ValidatorException("Invalid last id : " + cursor.getLastId());
+        }
+        if (cursor.getOrder() == null) {
+            throw new ValidatorException("PageOrder cannot be null");
+        }
+        if (cursor.getDirection() == null) {
+            throw new ValidatorException("OrderDirection cannot be null");
+        }
+    }
+
     /**
      * Check for the legality of a Computer.
      *
@@ -0,0 +1,107 @@
+package com.excilys.binding.doublon;
+
+import com.excilys.core.conflict.Conflict;
+import com.excilys.core.dto.ComputerDTO;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchDeduplicatorTest {
+
+    private BatchDeduplicator deduplicator = new BatchDeduplicator(new Levenshtein(), 10, 95.0);
+
+    private ComputerDTO computer(String name, String introduced, String companyName) {
+        return new ComputerDTO.Builder().name(name).introduced(introduced).discontinued("").companyName(companyName).build();
+    }
+
+    @Test
+    public void testRepeatedRowsCollapsed() {
+        List<ComputerDTO> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rows.add(computer("MacBook Pro", "2006-01-10", "Apple Inc."));
+            rows.add(computer(" macbook pro ", "2006-01-10", "apple inc."));
+        }
+        rows.add(computer("MacBook Pro", "2008-10-14", "Apple Inc."));
+        List<Conflict> collapsed = new ArrayList<>();
+
+        List<ComputerDTO> kept = this.deduplicator.deduplicate(rows, collapsed);
+
+        assertEquals(2, kept.size());
+        assertEquals(999, collapsed.size());
+        assertEquals(rows.get(0), kept.get(0));
+    }
+
+    @Test
+    public void testDifferentCompaniesKept() {
+        List<ComputerDTO> rows = new ArrayList<>();
+        rows.add(computer("Thinkpad", "", "IBM"));
+        rows.add(computer("Thinkpad", "", "Lenovo"));
+        List<Conflict> collapsed = new ArrayList<>();
+
+        List<ComputerDTO> kept = this.deduplicator.deduplicate(rows, collapsed);
+
+        assertEquals(2, kept.size());
+        assertEquals(0, collapsed.size());
+    }
+
+    @Test
+    public void testExactDuplicateBehindSameNamesCollapsed() {
+        BatchDeduplicator small = new BatchDeduplicator(new Levenshtein(), 2, 95.0);
+        List<ComputerDTO> rows = new ArrayList<>();
+        rows.add(computer("Dell", "", "Dell Inc."));
+        for (int i = 0; i < 5; i++) {
+            rows.add(computer("Dell", "", "Reseller " + i));
+        }
+        rows.add(computer("Dell", "", "Dell Inc."));
+        List<Conflict> collapsed = new ArrayList<>();
+
+        List<ComputerDTO> kept = small.deduplicate(rows, collapsed);
+
+        assertEquals(6, kept.size());
+        assertEquals(1, collapsed.size());
+        assertEquals(rows.get(6), collapsed.get(0).getComputerDTO());
+    }
+
+    @Test
+    public void testDuplicatesOfAPreviousChunkCollapsed() {
+        DeduplicationWindow window = new DeduplicationWindow(100);
+        List<ComputerDTO> first = new ArrayList<>();
+        first.add(computer("MacBook Pro", "2006-01-10", "Apple Inc."));
+        first.add(computer("Thinkpad", "", "IBM"));
+        List<ComputerDTO> second = new ArrayList<>();
+        second.add(computer("macbook pro", "2006-01-10", "apple inc."));
+        second.add(computer("Thinkpad", "", "Lenovo"));
+        List<Conflict> collapsed = new ArrayList<>();
+
+        assertEquals(2, this.deduplicator.deduplicate(first, collapsed, window).size());
+        List<ComputerDTO> kept = this.deduplicator.deduplicate(second, collapsed, window);
+
+        assertEquals(1, kept.size());
+        assertEquals("Lenovo", kept.get(0).getCompanyName());
+        assertEquals(1, collapsed.size());
+        assertEquals(3, window.size());
+    }
+
+    @Test
+    public void testWindowForgetsTheOldestRows() {
+        DeduplicationWindow window = new DeduplicationWindow(2);
+        List<ComputerDTO> first = new ArrayList<>();
+        first.add(computer("Amiga 500", "", "Commodore"));
+        first.add(computer("Atari ST", "", "Atari"));
+        first.add(computer("ZX Spectrum", "", "Sinclair"));
+        List<Conflict> collapsed = new ArrayList<>();
+        this.deduplicator.deduplicate(first, collapsed, window);
+
+        List<ComputerDTO> second = new ArrayList<>();
+        second.add(computer("Amiga 500", "", "Commodore"));
+        second.add(computer("ZX Spectrum", "", "Sinclair"));
+        List<ComputerDTO> kept = this.deduplicator.deduplicate(second, collapsed, window);
+
+        assertEquals(1, kept.size());
+        assertEquals("Amiga 500", kept.get(0).getName());
+        assertEquals(2, window.size());
+    }
+}
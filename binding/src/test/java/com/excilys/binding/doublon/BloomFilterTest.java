@@ -0,0 +1,37 @@
+package com.excilys.binding.doublon;
+
+import org.junit.Test;
+
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertTrue;
+
+public class BloomFilterTest {
+
+    private static final int SIZE = 10000;
+
+    @Test
+    public void testNoFalseNegative() {
+        BloomFilter filter = new BloomFilter(SIZE, 0.01);
+        LongStream.range(0, SIZE).map(i -> i * 7919).forEach(filter::put);
+
+        boolean a = LongStream.range(0, SIZE).map(i -> i * 7919).allMatch(filter::mightContain);
+
+        assertTrue(a);
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(SIZE, 0.01);
+        LongStream.range(0, SIZE).forEach(filter::put);
+
+        long falsePositives = LongStream.range(SIZE, SIZE * 11).filter(filter::mightContain).count();
+
+        assertTrue(falsePositives < SIZE * 10 * 0.02);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRate() {
+        new BloomFilter(SIZE, 1.5);
+    }
+}
@@ -0,0 +1,68 @@
+package com.excilys.binding.mapper;
+
+import com.excilys.binding.mapper.impl.PageCursorMapper;
+import com.excilys.core.model.PageCursor;
+import com.excilys.core.model.PageParameters.Direction;
+import com.excilys.core.model.PageParameters.Order;
+import org.junit.Test;
+
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PageCursorMapperTest {
+
+    private static final String SCOPE = "computer";
+
+    private final PageCursorMapper mapper = new PageCursorMapper("secret");
+
+    @Test
+    public void testRoundTrip() {
+        PageCursor cursor = new PageCursor(Order.COMPANY_NAME, Direction.DESC, 50, "Apple Inc.", 42);
+
+        PageCursor read = this.mapper.fromToken(this.mapper.toToken(cursor, SCOPE), SCOPE);
+
+        assertEquals(Order.COMPANY_NAME, read.getOrder());
+        assertEquals(Direction.DESC, read.getDirection());
+        assertEquals(50, read.getSize());
+        assertEquals("Apple Inc.", read.getLastKey());
+        assertEquals(42, read.getLastId());
+    }
+
+    @Test
+    public void testRoundTripNullKey() {
+        PageCursor cursor = new PageCursor(Order.INTRODUCED, Direction.ASC, 10, null, 7);
+
+        PageCursor read = this.mapper.fromToken(this.mapper.toToken(cursor, SCOPE), SCOPE);
+
+        assertNull(read.getLastKey());
+        assertEquals(7, read.getLastId());
+    }
+
+    @Test(expected = MapperException.class)
+    public void testTamperedToken() {
+        byte[] bytes = Base64.getUrlDecoder().decode(
+                this.mapper.toToken(new PageCursor(Order.NAME, Direction.ASC, 10, "a", 1), SCOPE));
+        // last byte of the last id
+        bytes[18] ^= 1;
+        this.mapper.fromToken(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), SCOPE);
+    }
+
+    @Test(expected = MapperException.class)
+    public void testOtherScope() {
+        String token = this.mapper.toToken(new PageCursor(Order.NAME, Direction.ASC, 10, "a", 1), SCOPE);
+        this.mapper.fromToken(token, "company");
+    }
+
+    @Test(expected = MapperException.class)
+    public void testOtherKey() {
+        String token = this.mapper.toToken(new PageCursor(Order.NAME, Direction.ASC, 10, "a", 1), SCOPE);
+        new PageCursorMapper("other").fromToken(token, SCOPE);
+    }
+
+    @Test(expected = MapperException.class)
+    public void testGarbage() {
+        this.mapper.fromToken("not a token!", SCOPE);
+    }
+}
@@ -0,0 +1,229 @@
+package com.excilys.binding.validation;
+
+import com.excilys.binding.mapper.impl.ComputerRowParser;
+import com.excilys.core.conflict.format.ErrorMessage;
+import com.excilys.core.conflict.format.Fields;
+import com.excilys.core.dto.ComputerDTO;
+import com.excilys.core.model.Computer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the parsing and the validation of csv rows end to end, from the line to the Computer : the path of the
+ * import before ComputerRowValidator (a trimmed String per field, the regex of ValidatorUtil, LocalDate.parse and a
+ * map per row), the same split with ComputerRowValidator, and ComputerRowParser used by MappedCsvParser (the fields
+ * parsed in place in the chars of the line, validated without a String).
+ * <p>
+ * Not a unit test, run it with the main after mvn test-compile, adding -prof gc to the options to see the
+ * allocations per row.
+ *
+ * @author excilys
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ComputerRowBenchmark {
+
+    // list of the variables
+    private static final String[] LINES = {
+            "MacBook Pro 15.4 inch,2006-01-10,2010-01-01,Apple Inc.",
+            "CM-2a,1987-01-01,,Thinking Machines",
+            "Commodore 64, 1982-08-01 , 1994-01-01 ,Commodore International",
+            "\"ASCI Red, upgraded\",1997-01-01,2006-01-01,Intel",
+            "Nintendo 3DS,2011-02-26,,Nintendo",
+            "Dell Latitude,2002-01-01,null,Dell"
+    };
+    private static final LocalDate MIN_TIMESTAMP = LocalDate.of(1970, 1, 1);
+    private static final LocalDate MAX_TIMESTAMP = LocalDate.of(2037, 12, 31);
+
+    private final ValidatorUtil validator = new ValidatorUtil();
+    private final ComputerRowParser parser = new ComputerRowParser();
+    private String[] unquoted;
+    private char[][] chars;
+    private char[] buffer;
+
+    /**
+     * Prepare the lines : without the quoted comma for the split of the String paths, as chars for the parser as
+     * MappedCsvParser decodes them.
+     */
+    @Setup
+    public void setUp() {
+        this.unquoted = new String[LINES.length];
+        this.chars = new char[LINES.length][];
+        for (int i = 0; i < LINES.length; i++) {
+            this.unquoted[i] = LINES[i].replace("\"ASCI Red, upgraded\"", "ASCI Red; upgraded");
+            this.chars[i] = LINES[i].toCharArray();
+        }
+        this.buffer = new char[256];
+    }
+
+    /**
+     * Legacy path : the line split in trimmed Strings in a dto, validated with the regex then mapped with LocalDate.parse.
+     *
+     * @param blackhole consuming the computers
+     */
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (String unquotedLine : this.unquoted) {
+            String[] line = unquotedLine.split(",", -1);
+            ComputerDTO dto = new ComputerDTO.Builder()
+                    .name(line[0].trim())
+                    .introduced(line[1].trim())
+                    .discontinued(line[2].trim())
+                    .companyName(line[3].trim())
+                    .build();
+            Map<Fields, List<ErrorMessage>> errors = this.legacyValidate(dto);
+            if (errors.isEmpty()) {
+                blackhole.consume(new Computer.ComputerBuilder()
+                        .name(dto.getName())
+                        .introduced(legacyDate(dto.getIntroduced()))
+                        .discontinued(legacyDate(dto.getDiscontinued()))
+                        .build());
+            } else {
+                blackhole.consume(errors);
+            }
+        }
+    }
+
+    /**
+     * Path of the stream readers : the line split in trimmed Strings in a dto, validated by ComputerRowValidator then mapped with its date parser.
+     *
+     * @param blackhole consuming the computers
+     */
+    @Benchmark
+    public void rowValidator(Blackhole blackhole) {
+        for (String unquotedLine : this.unquoted) {
+            String[] line = unquotedLine.split(",", -1);
+            ComputerDTO dto = new ComputerDTO.Builder()
+                    .name(line[0].trim())
+                    .introduced(line[1].trim())
+                    .discontinued(line[2].trim())
+                    .companyName(line[3].trim())
+                    .build();
+            int errors = ComputerRowValidator.validate(dto.getName(), dto.getIntroduced(), dto.getDiscontinued());
+            if (errors == 0) {
+                blackhole.consume(new Computer.ComputerBuilder()
+                        .name(dto.getName())
+                        .introduced(rowValidatorDate(dto.getIntroduced()))
+                        .discontinued(rowValidatorDate(dto.getDiscontinued()))
+                        .build());
+            } else {
+                blackhole.consume(ComputerRowValidator.toMap(errors));
+            }
+        }
+    }
+
+    /**
+     * Path of MappedCsvParser : the line copied in a reused buffer, parsed and validated in place by
+     * ComputerRowParser, then the Computer built from the parsed dates.
+     *
+     * @param blackhole consuming the computers
+     */
+    @Benchmark
+    public void rowParser(Blackhole blackhole) {
+        for (char[] line : this.chars) {
+            System.arraycopy(line, 0, this.buffer, 0, line.length);
+            int errors = this.parser.parse(this.buffer, 0, line.length);
+            if (errors == 0) {
+                blackhole.consume(this.parser.toComputer(null));
+            } else {
+                blackhole.consume(ComputerRowValidator.toMap(errors));
+            }
+        }
+    }
+
+    /**
+     * Validation of ComputerValidator before ComputerRowValidator, without its null pointers on the dates out of
+     * the range.
+     *
+     * @param dto to validate
+     * @return the errors
+     */
+    private Map<Fields, List<ErrorMessage>> legacyValidate(ComputerDTO dto) {
+        Map<Fields, List<ErrorMessage>> errors = new HashMap<>();
+        if (dto.getName() == null || dto.getName().equalsIgnoreCase("")) {
+            errors.computeIfAbsent(Fields.NAME, key -> new ArrayList<>()).add(ErrorMessage.NAME_NULL);
+        }
+        boolean introducedWellFormed = this.legacyCheckFormat(dto.getIntroduced(), Fields.INTRODUCED, errors);
+        boolean discontinuedWellFormed = this.legacyCheckFormat(dto.getDiscontinued(), Fields.DISCONTINUED, errors);
+
+        if (introducedWellFormed && discontinuedWellFormed) {
+            LocalDate introduced = legacyDate(dto.getIntroduced());
+            LocalDate discontinued = legacyDate(dto.getDiscontinued());
+            legacyCheckRange(introduced, Fields.INTRODUCED, errors);
+            legacyCheckRange(discontinued, Fields.DISCONTINUED, errors);
+            if (introduced != null && discontinued != null && introduced.isAfter(discontinued)) {
+                errors.computeIfAbsent(Fields.DISCONTINUED, key -> new ArrayList<>())
+                        .add(ErrorMessage.INTRODUCED_AFTER_DISCONTINUED);
+            }
+        }
+        return errors;
+    }
+
+    private boolean legacyCheckFormat(String date, Fields field, Map<Fields, List<ErrorMessage>> errors) {
+        if (date != null && !date.equalsIgnoreCase("") && !date.equalsIgnoreCase("null")
+                && !this.validator.isDateValid(date)) {
+            errors.computeIfAbsent(field, key -> new ArrayList<>()).add(ErrorMessage.DATE_FORMAT);
+            return false;
+        }
+        return true;
+    }
+
+    private static void legacyCheckRange(LocalDate date, Fields field, Map<Fields, List<ErrorMessage>> errors) {
+        if (date != null && date.isBefore(MIN_TIMESTAMP)) {
+            errors.computeIfAbsent(field, key -> new ArrayList<>()).add(ErrorMessage.DATE_BEFORE_TIMESTAMP);
+        }
+        if (date != null && date.isAfter(MAX_TIMESTAMP)) {
+            errors.computeIfAbsent(field, key -> new ArrayList<>()).add(ErrorMessage.DATE_AFTER_TIMESTAMP);
+        }
+    }
+
+    private static LocalDate legacyDate(String date) {
+        if (date == null || date.equalsIgnoreCase("") || date.equalsIgnoreCase("null")) {
+            return null;
+        }
+        return LocalDate.parse(date);
+    }
+
+    private static LocalDate rowValidatorDate(String date) {
+        return ComputerRowValidator.toLocalDate(ComputerRowValidator.parseDate(date));
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args options of the runner, like -prof gc
+     * @throws CommandLineOptionException if the options are wrong
+     * @throws RunnerException             if the benchmark fails
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ComputerRowBenchmark.class.getSimpleName())
+                .parent(new CommandLineOptions(args))
+                .build()).run();
+    }
+}
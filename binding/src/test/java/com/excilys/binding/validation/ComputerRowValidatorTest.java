@@ -0,0 +1,74 @@
+package com.excilys.binding.validation;
+
+import com.excilys.binding.mapper.impl.ComputerRowParser;
+import com.excilys.core.conflict.format.ErrorMessage;
+import com.excilys.core.conflict.format.Fields;
+import com.excilys.core.model.Computer;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ComputerRowValidatorTest {
+
+    @Test
+    public void testParseDateAllValid() {
+        assertEquals(19910102, ComputerRowValidator.parseDate("1991-01-02"));
+        assertEquals(20100104, ComputerRowValidator.parseDate("2010-1-4"));
+        assertEquals(20000229, ComputerRowValidator.parseDate(" 2000-02-29 "));
+        assertEquals(ComputerRowValidator.EMPTY, ComputerRowValidator.parseDate(""));
+        assertEquals(ComputerRowValidator.EMPTY, ComputerRowValidator.parseDate("NULL"));
+        assertEquals(ComputerRowValidator.EMPTY, ComputerRowValidator.parseDate(null));
+    }
+
+    @Test
+    public void testParseDateAllInvalid() {
+        Stream<String> s = Stream.of("1800-01-01", "2010-13-01", "2010-02-30", "1900-02-29", "2010-01-001", "2010-01",
+                "2010--01", "20a0-01-01", "2010/01/01", "nul");
+
+        assertTrue(s.allMatch(date -> ComputerRowValidator.parseDate(date) == ComputerRowValidator.INVALID));
+    }
+
+    @Test
+    public void testSameErrorsAsComputerValidator() {
+        assertEquals(Collections.emptyMap(), ComputerRowValidator.toMap(
+                ComputerRowValidator.validate("name", "1991-01-02", "2001-01-01")));
+
+        Map<Fields, List<ErrorMessage>> errors = ComputerRowValidator.toMap(
+                ComputerRowValidator.validate("", "1960-01-01", "1950-01-01"));
+        assertEquals(Collections.singletonList(ErrorMessage.NAME_NULL), errors.get(Fields.NAME));
+        assertEquals(Collections.singletonList(ErrorMessage.DATE_BEFORE_TIMESTAMP), errors.get(Fields.INTRODUCED));
+        assertEquals(Arrays.asList(ErrorMessage.DATE_BEFORE_TIMESTAMP, ErrorMessage.INTRODUCED_AFTER_DISCONTINUED),
+                errors.get(Fields.DISCONTINUED));
+
+        errors = ComputerRowValidator.toMap(ComputerRowValidator.validate("name", "2040-01-01", "01/01/2001"));
+        assertEquals(Collections.singletonList(ErrorMessage.DATE_AFTER_TIMESTAMP), errors.get(Fields.INTRODUCED));
+        assertEquals(Collections.singletonList(ErrorMessage.DATE_FORMAT), errors.get(Fields.DISCONTINUED));
+    }
+
+    @Test
+    public void testParseRow() {
+        ComputerRowParser parser = new ComputerRowParser();
+        char[] line = "\"Mac \"\"Pro\"\"\" , 2001-01-01,,Apple,ignored".toCharArray();
+
+        assertEquals(0, parser.parse(line, 0, line.length));
+        Computer computer = parser.toComputer(null);
+        assertEquals("Mac \"Pro\"", computer.getName());
+        assertEquals(LocalDate.of(2001, 1, 1), computer.getIntroduced());
+        assertNull(computer.getDiscontinued());
+        assertEquals("Apple", parser.field(ComputerRowParser.COMPANY_NAME).toString());
+
+        line = ",2001-02-30".toCharArray();
+        assertEquals(ComputerRowValidator.NAME_NULL | ComputerRowValidator.INTRODUCED_FORMAT,
+                parser.parse(line, 0, line.length));
+        assertEquals("", parser.toDTO().getCompanyName());
+    }
+}
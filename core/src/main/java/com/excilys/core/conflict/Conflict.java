@@ -6,6 +6,7 @@ public abstract class Conflict {
 
     // list of the variable
     protected ComputerDTO computerDTO;
+    protected long row;
 
     public Conflict() {
     }
@@ -21,4 +22,17 @@ public abstract class Conflict {
     public ComputerDTO getComputerDTO() {
         return computerDTO;
     }
+
+    /**
+     * Row of the imported file where the computer was found.
+     *
+     * @return the row number, starting at 1, or 0 if unknown
+     */
+    public long getRow() {
+        return row;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
 }
@@ -0,0 +1,140 @@
+package com.excilys.core.conflict;
+
+import com.excilys.core.dto.ComputerDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A fixed number of consecutive rows of an imported file, already validated.
+ * <p>
+ * The valid computers and the refused rows are kept apart, each with its row number in the file.
+ *
+ * @author excilys
+ */
+public class ImportChunk {
+
+    // list of the variables
+    private final long firstRow;
+    private final List<ComputerDTO> computers;
+    private final List<Conflict> refused;
+    private long[] rows;
+    private Rapport rapport;
+
+    /**
+     * Constructor.
+     *
+     * @param firstRow number of the first row of the chunk in the file
+     * @param capacity expected number of rows
+     */
+    public ImportChunk(long firstRow, int capacity) {
+        this.firstRow = firstRow;
+        this.computers = new ArrayList<>(capacity);
+        this.refused = new ArrayList<>();
+        this.rows = new long[capacity];
+    }
+
+    /**
+     * Add a valid computer.
+     *
+     * @param row      number of the row in the file
+     * @param computer read on this row
+     */
+    public void add(long row, ComputerDTO computer) {
+        if (this.computers.size() == this.rows.length) {
+            this.rows = Arrays.copyOf(this.rows, Math.max(1, this.rows.length * 2));
+        }
+        this.rows[this.computers.size()] = row;
+        this.computers.add(computer);
+    }
+
+    /**
+     * Add a refused row.
+     *
+     * @param row      number of the row in the file
+     * @param conflict reason of the refusal
+     */
+    public void refuse(long row, Conflict conflict) {
+        conflict.setRow(row);
+        this.refused.add(conflict);
+    }
+
+    /**
+     * Get the row number of a valid computer.
+     *
+     * @param index of the computer in getComputers()
+     * @return the row number in the file
+     */
+    public long getRow(int index) {
+        return this.rows[index];
+    }
+
+    /**
+     * Number of the last row of the chunk in the file.
+     *
+     * @return the row number, firstRow - 1 if the chunk is empty
+     */
+    public long getLastRow() {
+        return this.firstRow + this.size() - 1;
+    }
+
+    /**
+     * Copy of the chunk without the rows up to a row number, used to resume an import from a checkpoint.
+     *
+     * @param row last row to drop
+     * @return a chunk starting at row + 1
+     */
+    public ImportChunk after(long row) {
+        ImportChunk retVal = new ImportChunk(row + 1, this.computers.size());
+        for (int i = 0; i < this.computers.size(); i++) {
+            if (this.rows[i] > row) {
+                retVal.add(this.rows[i], this.computers.get(i));
+            }
+        }
+        for (Conflict conflict : this.refused) {
+            if (conflict.getRow() > row) {
+                retVal.refuse(conflict.getRow(), conflict);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Number of rows in the chunk, valid or not.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return this.computers.size() + this.refused.size();
+    }
+
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    public long getFirstRow() {
+        return this.firstRow;
+    }
+
+    public List<ComputerDTO> getComputers() {
+        return this.computers;
+    }
+
+    public List<Conflict> getRefused() {
+        return this.refused;
+    }
+
+    /**
+     * Result of the duplicate check of the chunk.
+     *
+     * @return the rapport of the chunk, null until the chunk is checked
+     */
+    public Rapport getRapport() {
+        return this.rapport;
+    }
+
+    public void setRapport(Rapport rapport) {
+        this.rapport = rapport;
+    }
+}
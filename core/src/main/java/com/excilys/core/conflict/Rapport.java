@@ -5,12 +5,23 @@ import com.excilys.core.dto.ComputerDTO;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Rapport of an import. The lists keep all the conflicts, unless the rapport has a window : then they only keep the
+ * first conflicts of each kind and the others are only counted, the complete list being in the rapport file.
+ */
 public class Rapport {
 
     // list of the variables
+    public static final int UNBOUNDED = -1;
     private List<ComputerDTO> toImport;
     private List<Conflict> toCheck;
     private List<Conflict> refuse;
+    private List<Conflict> collapsed;
+    private long imported;
+    private int window = UNBOUNDED;
+    private long droppedRefuse;
+    private long droppedToCheck;
+    private long droppedCollapsed;
 
     /**
      * The default constructor.
@@ -27,6 +38,17 @@ public class Rapport {
         this.toImport = toImport;
         this.toCheck = new ArrayList<>();
         this.refuse = new ArrayList<>();
+        this.collapsed = new ArrayList<>();
+    }
+
+    /**
+     * Constructor of a rapport keeping at most window conflicts of each kind in memory.
+     *
+     * @param window number of conflicts kept by list, UNBOUNDED to keep them all
+     */
+    public Rapport(int window) {
+        this();
+        this.window = window;
     }
 
     public List<ComputerDTO> getToImport() {
@@ -41,6 +63,15 @@ public class Rapport {
         return toCheck;
     }
 
+    /**
+     * Rows of the file which are duplicates of another row of the same file, each with the row kept.
+     *
+     * @return the list of collapsed rows
+     */
+    public List<Conflict> getCollapsed() {
+        return collapsed;
+    }
+
     public void setToImport(List<ComputerDTO> toImport) {
         this.toImport = toImport;
     }
@@ -53,8 +84,105 @@ public class Rapport {
         this.refuse = refuse;
     }
 
+    public void setCollapsed(List<Conflict> collapsed) {
+        this.collapsed = collapsed;
+    }
+
+    /**
+     * Number of computers inserted in the database, when the rows are inserted as they are read
+     * instead of being kept in toImport.
+     *
+     * @return the number of imported computers
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Add to the number of computers inserted in the database.
+     *
+     * @param count to add
+     */
+    public void addImported(long count) {
+        this.imported += count;
+    }
+
+    /**
+     * Add the imported count and the conflicts of another rapport, usually the one of a chunk. The conflicts
+     * beyond the window are only counted.
+     *
+     * @param other rapport to add
+     */
+    public void merge(Rapport other) {
+        this.imported += other.imported;
+        this.droppedRefuse += this.addToWindow(this.refuse, other.refuse) + other.droppedRefuse;
+        this.droppedToCheck += this.addToWindow(this.toCheck, other.toCheck) + other.droppedToCheck;
+        this.droppedCollapsed += this.addToWindow(this.collapsed, other.collapsed) + other.droppedCollapsed;
+    }
+
+    /**
+     * Number of conflicts kept by list, UNBOUNDED if they are all kept.
+     *
+     * @return the window
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * Number of refused rows, including the ones out of the window.
+     *
+     * @return the number of refused rows
+     */
+    public long getRefusedCount() {
+        return refuse.size() + droppedRefuse;
+    }
+
+    /**
+     * Number of rows to check, including the ones out of the window.
+     *
+     * @return the number of rows to check
+     */
+    public long getToCheckCount() {
+        return toCheck.size() + droppedToCheck;
+    }
+
+    /**
+     * Number of collapsed rows, including the ones out of the window.
+     *
+     * @return the number of collapsed rows
+     */
+    public long getCollapsedCount() {
+        return collapsed.size() + droppedCollapsed;
+    }
+
+    /**
+     * Number of rows which were not imported.
+     *
+     * @return the number of conflicts of all kinds
+     */
+    public long getRejectedCount() {
+        return this.getRefusedCount() + this.getToCheckCount() + this.getCollapsedCount();
+    }
+
     public boolean hasErrors() {
-        return refuse.size() > 0;
+        return this.getRefusedCount() > 0;
+    }
+
+    /**
+     * Add conflicts to a list as long as it is not full.
+     *
+     * @param target    list of this rapport
+     * @param conflicts to add
+     * @return the number of conflicts which were not added
+     */
+    private long addToWindow(List<Conflict> target, List<Conflict> conflicts) {
+        int room = conflicts.size();
+        if (window != UNBOUNDED) {
+            room = Math.max(0, Math.min(room, window - target.size()));
+        }
+        target.addAll(conflicts.subList(0, room));
+        return conflicts.size() - room;
     }
 
 }
@@ -0,0 +1,112 @@
+package com.excilys.core.conflict.doublon;
+
+import com.excilys.core.model.Computer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Fingerprint of a computer used to detect exact duplicates.
+ * <p>
+ * The fingerprint is the first 60 bits of the MD5 of the normalized fields joined with a '|' :
+ * lower(trim(name)) | introduced | discontinued | company id. The same value can be computed by MySQL
+ * (see {@link #SQL_EXPRESSION}) so rows written without hibernate can be fingerprinted in a single statement.
+ *
+ * @author excilys
+ */
+public final class Fingerprint {
+
+    /**
+     * MySQL expression computing the fingerprint of a row of the computer table.
+     * The columns name, introduced, discontinued and company_id must be in scope.
+     */
+    public static final String SQL_EXPRESSION = "CONV(LEFT(MD5(CONCAT_WS('|', "
+            + "IFNULL(LOWER(TRIM(name)), ''), "
+            + "IFNULL(DATE_FORMAT(introduced, '%Y-%m-%d'), ''), "
+            + "IFNULL(DATE_FORMAT(discontinued, '%Y-%m-%d'), ''), "
+            + "IFNULL(company_id, ''))), 15), 16, 10)";
+
+    private static final char SEPARATOR = '|';
+    private static final int HEX_DIGITS = 15;
+
+    /**
+     * Utility class.
+     */
+    private Fingerprint() {
+    }
+
+    /**
+     * Normalize a string the way the fingerprint does : trimmed and lower case.
+     *
+     * @param value to normalize
+     * @return normalized value, empty if value is null
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return value.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Compute the fingerprint of a computer.
+     *
+     * @param computer to fingerprint
+     * @return the fingerprint
+     */
+    public static long of(Computer computer) {
+        Long companyId = computer.getCompany() == null ? null : computer.getCompany().getId();
+        return of(computer.getName(), computer.getIntroduced(), computer.getDiscontinued(), companyId);
+    }
+
+    /**
+     * Compute the fingerprint of the given fields.
+     *
+     * @param name         of the computer
+     * @param introduced   date, can be null
+     * @param discontinued date, can be null
+     * @param companyId    id of the company, can be null
+     * @return the fingerprint
+     */
+    public static long of(String name, LocalDate introduced, LocalDate discontinued, Long companyId) {
+        StringBuilder key = new StringBuilder(64)
+                .append(normalize(name)).append(SEPARATOR)
+                .append(introduced == null ? "" : introduced.toString()).append(SEPARATOR)
+                .append(discontinued == null ? "" : discontinued.toString()).append(SEPARATOR)
+                .append(companyId == null ? "" : companyId.toString());
+
+        byte[] digest = md5().digest(key.toString().getBytes(StandardCharsets.UTF_8));
+
+        // first 15 hex digits of the digest, as CONV(LEFT(MD5(..), 15), 16, 10) does
+        long result = 0;
+        for (int i = 0; i < HEX_DIGITS; i++) {
+            int nibble = (i % 2 == 0) ? (digest[i / 2] >> 4) & 0xF : digest[i / 2] & 0xF;
+            result = (result << 4) | nibble;
+        }
+        return result;
+    }
+
+    /**
+     * Get a MD5 message digest.
+     *
+     * @return the digest
+     */
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
@@ -6,7 +6,8 @@ public enum ErrorMessage {
     DATE_AFTER_TIMESTAMP("error.date.after.timestamp"),
     INTRODUCED_AFTER_DISCONTINUED("error.introduced.after.discontinued"),
     NAME_NULL("error.name.null"),
-    COMPANY_NOT_FOUND("error.company.notfound");
+    COMPANY_NOT_FOUND("error.company.notfound"),
+    RECORD_TOO_LONG("error.record.too.long");
 
     String value;
 
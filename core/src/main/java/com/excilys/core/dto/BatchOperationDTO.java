@@ -0,0 +1,66 @@
+package com.excilys.core.dto;
+
+/**
+ * Operation of a batch request on the computers : get, create, update or delete.
+ */
+public class BatchOperationDTO {
+
+    // list of variables
+    private String op;
+    private Long id;
+    private String ifMatch;
+    private ComputerDTO computer;
+
+    /**
+     * Default constructor.
+     */
+    public BatchOperationDTO() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param op       get, create, update or delete
+     * @param id       of the computer, null for a create
+     * @param ifMatch  ETags the computer must have for an update, null for none
+     * @param computer values for a create or an update, null otherwise
+     */
+    public BatchOperationDTO(String op, Long id, String ifMatch, ComputerDTO computer) {
+        this.op = op;
+        this.id = id;
+        this.ifMatch = ifMatch;
+        this.computer = computer;
+    }
+
+    public String getOp() {
+        return this.op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getIfMatch() {
+        return this.ifMatch;
+    }
+
+    public void setIfMatch(String ifMatch) {
+        this.ifMatch = ifMatch;
+    }
+
+    public ComputerDTO getComputer() {
+        return this.computer;
+    }
+
+    public void setComputer(ComputerDTO computer) {
+        this.computer = computer;
+    }
+}
@@ -0,0 +1,86 @@
+package com.excilys.core.dto;
+
+import java.util.List;
+
+/**
+ * Result of one operation of a batch request, with the http status the operation would have had on its own.
+ */
+public class BatchResultDTO {
+
+    // list of variables
+    private int index;
+    private int status;
+    private Long id;
+    private String etag;
+    private ComputerDTO computer;
+    private List<String> errors;
+
+    /**
+     * Default constructor.
+     */
+    public BatchResultDTO() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param index  of the operation in the request, starting at 0
+     * @param status http status of the operation
+     * @param id     of the computer
+     * @param errors codes of the errors, null if there is none
+     */
+    public BatchResultDTO(int index, int status, Long id, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return this.status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEtag() {
+        return this.etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public ComputerDTO getComputer() {
+        return this.computer;
+    }
+
+    public void setComputer(ComputerDTO computer) {
+        this.computer = computer;
+    }
+
+    public List<String> getErrors() {
+        return this.errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,68 @@
+package com.excilys.core.dto;
+
+import java.util.List;
+
+/**
+ * Result of one line of a bulk import, with the http status the line would have had on its own.
+ */
+public class BulkResultDTO {
+
+    // list of variables
+    private long line;
+    private int status;
+    private Long id;
+    private List<String> errors;
+
+    /**
+     * Default constructor.
+     */
+    public BulkResultDTO() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param line   number of the line, starting at 1
+     * @param status http status of the line
+     * @param id     of the created computer, or of the existing one for a duplicate
+     * @param errors codes of the validation errors, null if there is none
+     */
+    public BulkResultDTO(long line, int status, Long id, List<String> errors) {
+        this.line = line;
+        this.status = status;
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public long getLine() {
+        return this.line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public int getStatus() {
+        return this.status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public List<String> getErrors() {
+        return this.errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,79 @@
+package com.excilys.core.dto;
+
+import com.excilys.core.model.ChangeLogEntry;
+
+import java.time.Instant;
+
+/**
+ * DTO for the ChangeLogEntry Class.
+ *
+ * @author excilys
+ */
+public class ChangeDTO {
+
+    // list of variables
+    private String seq;
+    private String entity;
+    private String type;
+    private String id;
+    private String changedAt;
+
+    /**
+     * Default constructor.
+     */
+    public ChangeDTO() {
+    }
+
+    /**
+     * ChangeDTO constructor using an entry of the change log as a template.
+     *
+     * @param entry of the change log
+     */
+    public ChangeDTO(ChangeLogEntry entry) {
+        this.seq = entry.getSeq().toString();
+        this.entity = entry.getEntity() == null ? "" : entry.getEntity().toLowerCase();
+        this.type = entry.getType().toLowerCase();
+        this.id = Long.toString(entry.getEntityId());
+        this.changedAt = Instant.ofEpochMilli(entry.getChangedAt()).toString();
+    }
+
+    public String getSeq() {
+        return this.seq;
+    }
+
+    public void setSeq(String seq) {
+        this.seq = seq;
+    }
+
+    public String getEntity() {
+        return this.entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public String getType() {
+        return this.type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getChangedAt() {
+        return this.changedAt;
+    }
+
+    public void setChangedAt(String changedAt) {
+        this.changedAt = changedAt;
+    }
+}
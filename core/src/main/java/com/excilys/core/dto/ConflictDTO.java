@@ -0,0 +1,97 @@
+package com.excilys.core.dto;
+
+/**
+ * Line of the rapport file of an import : a row which was not inserted and why.
+ */
+public class ConflictDTO {
+
+    // list of variables
+    private String kind;
+    private long row;
+    private String name;
+    private String introduced;
+    private String discontinued;
+    private String companyName;
+    private String detail;
+
+    /**
+     * Default constructor.
+     */
+    public ConflictDTO() {
+    }
+
+    /**
+     * Constructor from a line of the rapport file.
+     *
+     * @param line kind, row, name, introduced, discontinued, company name and detail
+     */
+    public ConflictDTO(String[] line) {
+        this.kind = column(line, 0);
+        this.row = line.length > 1 && !line[1].isEmpty() ? Long.parseLong(line[1]) : 0;
+        this.name = column(line, 2);
+        this.introduced = column(line, 3);
+        this.discontinued = column(line, 4);
+        this.companyName = column(line, 5);
+        this.detail = column(line, 6);
+    }
+
+    private static String column(String[] line, int index) {
+        return index < line.length ? line[index] : "";
+    }
+
+    public String getKind() {
+        return this.kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public long getRow() {
+        return this.row;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getIntroduced() {
+        return this.introduced;
+    }
+
+    public void setIntroduced(String introduced) {
+        this.introduced = introduced;
+    }
+
+    public String getDiscontinued() {
+        return this.discontinued;
+    }
+
+    public void setDiscontinued(String discontinued) {
+        this.discontinued = discontinued;
+    }
+
+    public String getCompanyName() {
+        return this.companyName;
+    }
+
+    public void setCompanyName(String companyName) {
+        this.companyName = companyName;
+    }
+
+    public String getDetail() {
+        return this.detail;
+    }
+
+    public void setDetail(String detail) {
+        this.detail = detail;
+    }
+}
@@ -0,0 +1,48 @@
+package com.excilys.core.dto;
+
+import java.util.List;
+
+/**
+ * Page of a list read with a cursor : the items and the token of the next page.
+ *
+ * @param <T> type of the items
+ */
+public class CursorPageDTO<T> {
+
+    // list of variables
+    private List<T> items;
+    private String next;
+
+    /**
+     * Default constructor.
+     */
+    public CursorPageDTO() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param items of the page
+     * @param next  token of the next page, null on the last page
+     */
+    public CursorPageDTO(List<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<T> getItems() {
+        return this.items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNext() {
+        return this.next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
@@ -0,0 +1,98 @@
+package com.excilys.core.dto;
+
+import java.util.List;
+
+/**
+ * Progress of an import job, as returned to the clients.
+ */
+public class ImportJobDTO {
+
+    // list of variables
+    private String id;
+    private String fileName;
+    private String state;
+    private long parsed;
+    private long validated;
+    private long inserted;
+    private long rejected;
+    private String error;
+    private List<ImportStageDTO> stages;
+
+    /**
+     * Default constructor.
+     */
+    public ImportJobDTO() {
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getState() {
+        return this.state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public long getParsed() {
+        return this.parsed;
+    }
+
+    public void setParsed(long parsed) {
+        this.parsed = parsed;
+    }
+
+    public long getValidated() {
+        return this.validated;
+    }
+
+    public void setValidated(long validated) {
+        this.validated = validated;
+    }
+
+    public long getInserted() {
+        return this.inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getRejected() {
+        return this.rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public String getError() {
+        return this.error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public List<ImportStageDTO> getStages() {
+        return this.stages;
+    }
+
+    public void setStages(List<ImportStageDTO> stages) {
+        this.stages = stages;
+    }
+}
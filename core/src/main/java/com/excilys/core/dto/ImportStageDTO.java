@@ -0,0 +1,70 @@
+package com.excilys.core.dto;
+
+/**
+ * Metrics of a stage of an import job.
+ */
+public class ImportStageDTO {
+
+    // list of variables
+    private String name;
+    private long chunks;
+    private long rows;
+    private int queueDepth;
+    private long rowsPerSecond;
+
+    /**
+     * Default constructor.
+     */
+    public ImportStageDTO() {
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getChunks() {
+        return this.chunks;
+    }
+
+    public void setChunks(long chunks) {
+        this.chunks = chunks;
+    }
+
+    public long getRows() {
+        return this.rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Number of chunks waiting in front of the stage.
+     *
+     * @return the depth of the input queue
+     */
+    public int getQueueDepth() {
+        return this.queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * Rows handled per second of work, the time spent waiting on the queues is not counted.
+     *
+     * @return the throughput of the stage
+     */
+    public long getRowsPerSecond() {
+        return this.rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+}
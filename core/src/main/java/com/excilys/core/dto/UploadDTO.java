@@ -0,0 +1,65 @@
+package com.excilys.core.dto;
+
+/**
+ * State of a chunked upload, as returned to the clients. The next chunk has to start at received.
+ */
+public class UploadDTO {
+
+    // list of variables
+    private String id;
+    private String fileName;
+    private long size;
+    private long received;
+    private int chunks;
+
+    /**
+     * Default constructor.
+     */
+    public UploadDTO() {
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Size announced by the client.
+     *
+     * @return the size of the file in bytes, 0 if unknown
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getReceived() {
+        return this.received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public int getChunks() {
+        return this.chunks;
+    }
+
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+}
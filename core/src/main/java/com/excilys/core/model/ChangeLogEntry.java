@@ -0,0 +1,116 @@
+package com.excilys.core.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Row of the change log : a change of a computer or a company, inserted in the transaction of the change so it is
+ * committed, or rolled back, with it.
+ * <p>
+ * The rows are only appended. Their id is taken at the insertion but they become visible at the commit, so the
+ * readers go through seq instead : it is given after the commit, in the order the entries are found committed.
+ *
+ * @author excilys
+ */
+@Entity
+@Table(name = "change_log")
+public class ChangeLogEntry {
+
+    // list of variables
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "seq", unique = true)
+    private Long seq;
+
+    @Column(name = "entity", length = 16)
+    private String entity;
+
+    @Column(name = "change_type", length = 16, nullable = false)
+    private String type;
+
+    @Column(name = "entity_id", nullable = false)
+    private long entityId;
+
+    @Column(name = "changed_at", nullable = false)
+    private long changedAt;
+
+    /**
+     * Default constructor.
+     */
+    public ChangeLogEntry() {
+    }
+
+    /**
+     * Constructor of a new entry, changed now.
+     *
+     * @param entity   kind of the changed object, COMPUTER or COMPANY, null for every kind
+     * @param type     kind of change, CREATED, UPDATED, DELETED or RELOAD
+     * @param entityId id of the changed object, 0 for a RELOAD
+     */
+    public ChangeLogEntry(String entity, String type, long entityId) {
+        this.entity = entity;
+        this.type = type;
+        this.entityId = entityId;
+        this.changedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Constructor of an entry read from the log.
+     *
+     * @param id        id of the entry
+     * @param seq       sequence number of the entry, null if it is not given yet
+     * @param entity    kind of the changed object, null for every kind
+     * @param type      kind of change
+     * @param entityId  id of the changed object, 0 for a RELOAD
+     * @param changedAt time of the insertion, in milliseconds since the epoch
+     */
+    public ChangeLogEntry(Long id, Long seq, String entity, String type, long entityId, long changedAt) {
+        this.id = id;
+        this.seq = seq;
+        this.entity = entity;
+        this.type = type;
+        this.entityId = entityId;
+        this.changedAt = changedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sequence number of the entry, in the order of the commits.
+     *
+     * @return the number, null until the entry is committed and sequenced
+     */
+    public Long getSeq() {
+        return seq;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getEntityId() {
+        return entityId;
+    }
+
+    /**
+     * Time of the insertion of the entry, in the transaction of the change.
+     *
+     * @return milliseconds since the epoch
+     */
+    public long getChangedAt() {
+        return changedAt;
+    }
+}
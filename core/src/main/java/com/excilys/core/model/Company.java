@@ -3,10 +3,12 @@ package com.excilys.core.model;
 import org.hibernate.search.annotations.Field;
 import org.hibernate.search.annotations.SortableField;
 
+import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 import javax.persistence.Entity;
 
@@ -28,6 +30,10 @@ public class Company {
     @Field
     private String name;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     /**
      * company default constructor.
      */
@@ -63,6 +69,10 @@ public class Company {
         this.name = name;
     }
 
+    public long getVersion() {
+        return this.version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
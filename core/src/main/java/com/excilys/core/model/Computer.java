@@ -1,22 +1,32 @@
 package com.excilys.core.model;
 
+import com.excilys.core.conflict.doublon.Fingerprint;
 import org.hibernate.search.annotations.Field;
 import org.hibernate.search.annotations.Indexed;
 import org.hibernate.search.annotations.IndexedEmbedded;
 import org.hibernate.search.annotations.SortableField;
 
+import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.ManyToOne;
 import javax.persistence.JoinColumn;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Version;
 import java.time.LocalDate;
 
 @Entity
 @Indexed
-@Table(name = "computer")
+@Table(name = "computer", indexes = {
+        @Index(name = "ix_fingerprint", columnList = "fingerprint"),
+        @Index(name = "ix_computer_name", columnList = "name, id"),
+        @Index(name = "ix_computer_introduced", columnList = "introduced, id"),
+        @Index(name = "ix_computer_discontinued", columnList = "discontinued, id")})
 public class Computer {
 
     @Id
@@ -40,6 +50,19 @@ public class Computer {
     @JoinColumn(name = "company_id")
     private Company company;
 
+    /**
+     * hash of the normalized fields, see {@link Fingerprint}.
+     */
+    @Column(name = "fingerprint")
+    private Long fingerprint;
+
+    /**
+     * incremented by hibernate on every update, for the optimistic locking and the ETags.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     /**
      * default constructor for a computer.
      */
@@ -108,6 +131,23 @@ public class Computer {
         this.company = company;
     }
 
+    public Long getFingerprint() {
+        return this.fingerprint;
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * compute the fingerprint again from the current fields, called before every write.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateFingerprint() {
+        this.fingerprint = Fingerprint.of(this);
+    }
+
     /**
      * Builder pattern for a computer.
      */
@@ -0,0 +1,63 @@
+package com.excilys.core.model;
+
+/**
+ * Fields of a computer as the rest api names them, to read and write only some of them.
+ *
+ * @author excilys
+ */
+public enum ComputerField {
+
+    ID("id"), NAME("name"), INTRODUCED("introduced"), DISCONTINUED("discontinued"),
+    COMPANY_ID("companyId"), COMPANY_NAME("companyName");
+
+    // list of the variables
+    private final String name;
+
+    ComputerField(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the field of a name.
+     *
+     * @param name of the field in the ComputerDTO
+     * @return the field
+     * @throws IllegalArgumentException if no field has this name
+     */
+    public static ComputerField fromName(String name) {
+        for (ComputerField field : values()) {
+            if (field.name.equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown computer field : " + name);
+    }
+
+    /**
+     * Get the value of the field on a computer, as a projection on the column would give it.
+     *
+     * @param computer with its company loaded
+     * @return the value, Long, String or LocalDate, null if it is not set
+     */
+    public Object of(Computer computer) {
+        Company company = computer.getCompany();
+        switch (this) {
+            case ID:
+                return computer.getId();
+            case NAME:
+                return computer.getName();
+            case INTRODUCED:
+                return computer.getIntroduced();
+            case DISCONTINUED:
+                return computer.getDiscontinued();
+            case COMPANY_ID:
+                return company == null ? null : company.getId();
+            default:
+                return company == null ? null : company.getName();
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+}
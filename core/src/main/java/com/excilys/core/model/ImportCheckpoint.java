@@ -0,0 +1,157 @@
+package com.excilys.core.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of an import saved in the database, in the same transaction as the chunk it follows.
+ * <p>
+ * All the rows up to lastRow are in the database (or in the rapport file, up to reportOffset), so an interrupted
+ * import can start again from the next row without inserting a computer twice.
+ *
+ * @author excilys
+ */
+@Entity
+@Table(name = "import_checkpoint")
+public class ImportCheckpoint {
+
+    // list of variables
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "format", length = 8)
+    private String format;
+
+    @Column(name = "file_path", length = 1024)
+    private String filePath;
+
+    @Column(name = "import_mode", length = 16)
+    private String mode;
+
+    @Column(name = "state", length = 16)
+    private String state;
+
+    @Column(name = "last_row", nullable = false)
+    private long lastRow;
+
+    @Column(name = "report_offset", nullable = false)
+    private long reportOffset;
+
+    @Column(name = "inserted", nullable = false)
+    private long inserted;
+
+    @Column(name = "rejected", nullable = false)
+    private long rejected;
+
+    @Column(name = "updated")
+    private LocalDateTime updated;
+
+    /**
+     * Default constructor.
+     */
+    public ImportCheckpoint() {
+    }
+
+    /**
+     * Constructor of the checkpoint of a new import, before its first row.
+     *
+     * @param id       of the job
+     * @param fileName name of the uploaded file
+     * @param format   of the file, csv or xml
+     * @param filePath spooled copy of the file
+     */
+    public ImportCheckpoint(String id, String fileName, String format, String filePath) {
+        this.id = id;
+        this.fileName = fileName;
+        this.format = format;
+        this.filePath = filePath;
+        this.updated = LocalDateTime.now();
+    }
+
+    /**
+     * Move the checkpoint after a committed chunk.
+     *
+     * @param row      last row of the chunk
+     * @param offset   size of the rapport file with the conflicts of the chunk
+     * @param imported number of computers inserted from the chunk
+     * @param refused  number of rows of the chunk which were not inserted
+     */
+    public void advance(long row, long offset, long imported, long refused) {
+        this.lastRow = row;
+        this.reportOffset = offset;
+        this.inserted += imported;
+        this.rejected += refused;
+        this.updated = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * How the rows are written in the database, see ImportJob.Mode.
+     *
+     * @return the mode, null for the checkpoints saved before the modes existed
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+        this.updated = LocalDateTime.now();
+    }
+
+    public long getLastRow() {
+        return lastRow;
+    }
+
+    public long getReportOffset() {
+        return reportOffset;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public LocalDateTime getUpdated() {
+        return updated;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportCheckpoint{id=" + id + ", state=" + state + ", lastRow=" + lastRow + ", inserted=" + inserted
+                + ", rejected=" + rejected + "}";
+    }
+}
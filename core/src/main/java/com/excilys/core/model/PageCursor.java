@@ -0,0 +1,117 @@
+package com.excilys.core.model;
+
+import com.excilys.core.model.PageParameters.Direction;
+import com.excilys.core.model.PageParameters.Order;
+
+import java.time.LocalDate;
+
+/**
+ * Position in a list ordered by a sort key then by id : the next page starts after the sort key and the id of the
+ * last element read, whatever was inserted or deleted before it meanwhile.
+ * <p>
+ * The sort key is kept as a string so the cursor can be given to a client, null when the last element had none or
+ * for the first page.
+ *
+ * @author excilys
+ */
+public final class PageCursor {
+
+    // list of the variables
+    private final Order order;
+    private final Direction direction;
+    private final long size;
+    private final String lastKey;
+    private final long lastId;
+
+    /**
+     * Constructor.
+     *
+     * @param order     sort key of the list
+     * @param direction of the sort key, the ids are always ascending
+     * @param size      of the pages
+     * @param lastKey   sort key of the last element read, may be null
+     * @param lastId    id of the last element read, 0 for the first page
+     */
+    public PageCursor(Order order, Direction direction, long size, String lastKey, long lastId) {
+        this.order = order;
+        this.direction = direction;
+        this.size = size;
+        this.lastKey = lastKey;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Cursor of the first page.
+     *
+     * @param order     sort key of the list
+     * @param direction of the sort key
+     * @param size      of the pages
+     * @return the cursor
+     */
+    public static PageCursor first(Order order, Direction direction, long size) {
+        return new PageCursor(order, direction, size, null, 0);
+    }
+
+    /**
+     * Cursor of the page following a computer.
+     *
+     * @param last computer of the current page, with its company loaded
+     * @return the cursor
+     */
+    public PageCursor after(Computer last) {
+        String key;
+        switch (this.order) {
+            case INTRODUCED:
+                key = toString(last.getIntroduced());
+                break;
+            case DISCONTINUED:
+                key = toString(last.getDiscontinued());
+                break;
+            case COMPANY_NAME:
+                key = last.getCompany() == null ? null : last.getCompany().getName();
+                break;
+            default:
+                key = last.getName();
+                break;
+        }
+        return new PageCursor(this.order, this.direction, this.size, key, last.getId());
+    }
+
+    /**
+     * Cursor of the page following a company, the companies are ordered by id only.
+     *
+     * @param last company of the current page
+     * @return the cursor
+     */
+    public PageCursor after(Company last) {
+        return new PageCursor(this.order, this.direction, this.size, null, last.getId());
+    }
+
+    private static String toString(LocalDate date) {
+        return date == null ? null : date.toString();
+    }
+
+    public Order getOrder() {
+        return this.order;
+    }
+
+    public Direction getDirection() {
+        return this.direction;
+    }
+
+    public long getSize() {
+        return this.size;
+    }
+
+    public String getLastKey() {
+        return this.lastKey;
+    }
+
+    public long getLastId() {
+        return this.lastId;
+    }
+
+    public boolean isFirst() {
+        return this.lastId == 0;
+    }
+}
@@ -0,0 +1,196 @@
+package com.excilys.core.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Statistics of a row group of a snapshot : number of rows and min/max of each column, so a reader can skip the
+ * groups which cannot match its predicate without decoding them. A column without any value has null min and max.
+ *
+ * @author excilys
+ */
+public final class RowGroupStats {
+
+    // list of the variables
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final long NO_ID = Long.MIN_VALUE;
+    private int rows;
+    private long minId = NO_ID;
+    private long maxId = NO_ID;
+    private int minIntroduced = NO_DATE;
+    private int maxIntroduced = NO_DATE;
+    private int minDiscontinued = NO_DATE;
+    private int maxDiscontinued = NO_DATE;
+    private long minCompanyId = NO_ID;
+    private long maxCompanyId = NO_ID;
+
+    RowGroupStats() {
+    }
+
+    /**
+     * Add a row to the statistics.
+     *
+     * @param id           of the computer
+     * @param introduced   epoch day, NO_DATE if none
+     * @param discontinued epoch day, NO_DATE if none
+     * @param companyId    id of the company, NO_ID if none
+     */
+    void add(long id, int introduced, int discontinued, long companyId) {
+        this.rows++;
+        this.minId = this.minId == NO_ID ? id : Math.min(this.minId, id);
+        this.maxId = this.maxId == NO_ID ? id : Math.max(this.maxId, id);
+        if (introduced != NO_DATE) {
+            this.minIntroduced = this.minIntroduced == NO_DATE ? introduced : Math.min(this.minIntroduced, introduced);
+            this.maxIntroduced = Math.max(this.maxIntroduced, introduced);
+        }
+        if (discontinued != NO_DATE) {
+            this.minDiscontinued = this.minDiscontinued == NO_DATE ? discontinued
+                    : Math.min(this.minDiscontinued, discontinued);
+            this.maxDiscontinued = Math.max(this.maxDiscontinued, discontinued);
+        }
+        if (companyId != NO_ID) {
+            this.minCompanyId = this.minCompanyId == NO_ID ? companyId : Math.min(this.minCompanyId, companyId);
+            this.maxCompanyId = Math.max(this.maxCompanyId, companyId);
+        }
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(this.rows);
+        out.writeLong(this.minId);
+        out.writeLong(this.maxId);
+        out.writeInt(this.minIntroduced);
+        out.writeInt(this.maxIntroduced);
+        out.writeInt(this.minDiscontinued);
+        out.writeInt(this.maxDiscontinued);
+        out.writeLong(this.minCompanyId);
+        out.writeLong(this.maxCompanyId);
+    }
+
+    static RowGroupStats read(DataInput in) throws IOException {
+        RowGroupStats stats = new RowGroupStats();
+        stats.rows = in.readInt();
+        stats.minId = in.readLong();
+        stats.maxId = in.readLong();
+        stats.minIntroduced = in.readInt();
+        stats.maxIntroduced = in.readInt();
+        stats.minDiscontinued = in.readInt();
+        stats.maxDiscontinued = in.readInt();
+        stats.minCompanyId = in.readLong();
+        stats.maxCompanyId = in.readLong();
+        return stats;
+    }
+
+    /**
+     * Check if the group may have a computer.
+     *
+     * @param id of the computer
+     * @return false if the id is out of the range of the group
+     */
+    public boolean mayContainId(long id) {
+        return this.rows > 0 && id >= this.minId && id <= this.maxId;
+    }
+
+    /**
+     * Check if the group may have computers introduced in a period.
+     *
+     * @param from first day of the period, null for no limit
+     * @param to   last day of the period, null for no limit
+     * @return false if no computer of the group was introduced in the period
+     */
+    public boolean mayContainIntroduced(LocalDate from, LocalDate to) {
+        return overlaps(this.minIntroduced, this.maxIntroduced, from, to);
+    }
+
+    /**
+     * Check if the group may have computers discontinued in a period.
+     *
+     * @param from first day of the period, null for no limit
+     * @param to   last day of the period, null for no limit
+     * @return false if no computer of the group was discontinued in the period
+     */
+    public boolean mayContainDiscontinued(LocalDate from, LocalDate to) {
+        return overlaps(this.minDiscontinued, this.maxDiscontinued, from, to);
+    }
+
+    /**
+     * Check if the group may have computers of a company.
+     *
+     * @param companyId id of the company
+     * @return false if the id is out of the range of the companies of the group
+     */
+    public boolean mayContainCompany(long companyId) {
+        return this.minCompanyId != NO_ID && companyId >= this.minCompanyId && companyId <= this.maxCompanyId;
+    }
+
+    private static boolean overlaps(int min, int max, LocalDate from, LocalDate to) {
+        return min != NO_DATE
+                && (from == null || max >= from.toEpochDay())
+                && (to == null || min <= to.toEpochDay());
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public Long getMinId() {
+        return this.minId == NO_ID ? null : this.minId;
+    }
+
+    public Long getMaxId() {
+        return this.maxId == NO_ID ? null : this.maxId;
+    }
+
+    public LocalDate getMinIntroduced() {
+        return toDate(this.minIntroduced);
+    }
+
+    public LocalDate getMaxIntroduced() {
+        return toDate(this.maxIntroduced);
+    }
+
+    public LocalDate getMinDiscontinued() {
+        return toDate(this.minDiscontinued);
+    }
+
+    public LocalDate getMaxDiscontinued() {
+        return toDate(this.maxDiscontinued);
+    }
+
+    public Long getMinCompanyId() {
+        return this.minCompanyId == NO_ID ? null : this.minCompanyId;
+    }
+
+    public Long getMaxCompanyId() {
+        return this.maxCompanyId == NO_ID ? null : this.maxCompanyId;
+    }
+
+    int getMinIntroducedDay() {
+        return this.minIntroduced;
+    }
+
+    int getMinDiscontinuedDay() {
+        return this.minDiscontinued;
+    }
+
+    static int epochDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    static long id(Long id) {
+        return id == null ? NO_ID : id;
+    }
+
+    private static LocalDate toDate(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    @Override
+    public String toString() {
+        return "RowGroupStats [rows=" + this.rows + ", id=" + this.getMinId() + ".." + this.getMaxId()
+                + ", introduced=" + this.getMinIntroduced() + ".." + this.getMaxIntroduced()
+                + ", discontinued=" + this.getMinDiscontinued() + ".." + this.getMaxDiscontinued()
+                + ", company=" + this.getMinCompanyId() + ".." + this.getMaxCompanyId() + "]";
+    }
+}
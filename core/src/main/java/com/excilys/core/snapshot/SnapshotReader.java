@@ -0,0 +1,185 @@
+package com.excilys.core.snapshot;
+
+import com.excilys.core.model.Company;
+import com.excilys.core.model.Computer;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Read a snapshot written by SnapshotWriter.
+ * <p>
+ * The groups whose statistics do not match the predicate are skipped without decoding their columns, only their
+ * new companies are read to keep the dictionary complete.
+ *
+ * @author excilys
+ */
+public class SnapshotReader implements Closeable {
+
+    // list of the variables
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final DataInputStream in;
+    private final List<Company> dictionary = new ArrayList<>();
+    private long[] ids = new long[0];
+    private long skippedGroups;
+
+    /**
+     * Constructor, checking the header.
+     *
+     * @param in to read from, closed with the reader
+     * @throws IOException if the stream is not a snapshot
+     */
+    public SnapshotReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+        if (this.in.readInt() != SnapshotWriter.MAGIC) {
+            throw new IOException("Not a computer snapshot");
+        }
+        int version = this.in.readUnsignedByte();
+        if (version != SnapshotWriter.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+    }
+
+    /**
+     * Read the whole snapshot.
+     *
+     * @param consumer of the computers of the groups matching the predicate
+     * @return number of computers read
+     * @throws IOException if the snapshot is malformed
+     */
+    public long read(Consumer<Computer> consumer) throws IOException {
+        return this.read(stats -> true, consumer);
+    }
+
+    /**
+     * Read the snapshot, skipping the groups which do not match the predicate. The computers of a matching group
+     * are all given to the consumer, which filters them if needed.
+     *
+     * @param predicate on the statistics of the groups
+     * @param consumer  of the computers of the groups matching the predicate
+     * @return number of computers read
+     * @throws IOException if the snapshot is malformed
+     */
+    public long read(Predicate<RowGroupStats> predicate, Consumer<Computer> consumer) throws IOException {
+        long rows = 0;
+        while (true) {
+            int tag = this.in.readUnsignedByte();
+            this.readNewCompanies();
+            if (tag == SnapshotWriter.END) {
+                return rows;
+            }
+            if (tag != SnapshotWriter.GROUP) {
+                throw new IOException("Unknown block " + tag);
+            }
+            RowGroupStats stats = RowGroupStats.read(this.in);
+            long length = Varints.readUnsigned(this.in);
+            if (predicate.test(stats)) {
+                this.readGroup(stats, consumer);
+                rows += stats.getRows();
+            } else {
+                this.skip(length);
+                this.skippedGroups++;
+            }
+        }
+    }
+
+    private void readNewCompanies() throws IOException {
+        long count = Varints.readUnsigned(this.in);
+        for (long i = 0; i < count; i++) {
+            long id = Varints.readSigned(this.in);
+            this.dictionary.add(new Company(id, Varints.readString(this.in)));
+        }
+    }
+
+    /**
+     * Decode the columns of a group, then the computers row by row.
+     *
+     * @param stats    of the group
+     * @param consumer of the computers
+     * @throws IOException if the group is malformed
+     */
+    private void readGroup(RowGroupStats stats, Consumer<Computer> consumer) throws IOException {
+        int size = stats.getRows();
+        if (this.ids.length < size) {
+            this.ids = new long[size];
+        }
+        long previous = 0;
+        for (int i = 0; i < size; ) {
+            long delta = Varints.readSigned(this.in);
+            long run = Varints.readUnsigned(this.in);
+            if (run <= 0 || i + run > size) {
+                throw new IOException("Malformed id column");
+            }
+            for (long j = 0; j < run; j++) {
+                previous += delta;
+                this.ids[i++] = previous;
+            }
+        }
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = Varints.readString(this.in);
+        }
+        LocalDate[] introduced = this.readDates(size, stats.getMinIntroducedDay());
+        LocalDate[] discontinued = this.readDates(size, stats.getMinDiscontinuedDay());
+        for (int i = 0; i < size; i++) {
+            long company = Varints.readUnsigned(this.in);
+            if (company > this.dictionary.size()) {
+                throw new IOException("Unknown company " + company);
+            }
+            consumer.accept(new Computer.ComputerBuilder()
+                    .id(this.ids[i])
+                    .name(names[i])
+                    .introduced(introduced[i])
+                    .discontinued(discontinued[i])
+                    .company(company == 0 ? null : this.dictionary.get((int) company - 1))
+                    .build());
+        }
+    }
+
+    private LocalDate[] readDates(int size, int min) throws IOException {
+        LocalDate[] dates = new LocalDate[size];
+        for (int i = 0; i < size; i++) {
+            long day = Varints.readUnsigned(this.in);
+            dates[i] = day == 0 ? null : LocalDate.ofEpochDay(min + day - 1);
+        }
+        return dates;
+    }
+
+    private void skip(long length) throws IOException {
+        while (length > 0) {
+            long skipped = this.in.skip(length);
+            if (skipped <= 0) {
+                throw new EOFException("Truncated snapshot");
+            }
+            length -= skipped;
+        }
+    }
+
+    /**
+     * Companies of the dictionary, complete once the snapshot is read.
+     *
+     * @return the companies read so far
+     */
+    public List<Company> getCompanies() {
+        return Collections.unmodifiableList(this.dictionary);
+    }
+
+    public long getSkippedGroups() {
+        return this.skippedGroups;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
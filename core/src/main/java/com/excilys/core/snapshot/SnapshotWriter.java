@@ -0,0 +1,211 @@
+package com.excilys.core.snapshot;
+
+import com.excilys.core.model.Company;
+import com.excilys.core.model.Computer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write computers in the columnar binary snapshot format, read by SnapshotReader.
+ * <p>
+ * The computers are written by row groups of rowGroupSize rows. Each group holds the companies met for the first
+ * time (the company names are a dictionary shared by the whole file), its statistics, the length of its columns
+ * so a reader can skip it, then the columns : the ids as runs of deltas, the names, the dates as epoch days from
+ * the min of the group and the companies as indexes in the dictionary. The ids compress best when the computers
+ * are written ordered by id.
+ *
+ * @author excilys
+ */
+public class SnapshotWriter implements Closeable {
+
+    // list of the variables
+    static final int MAGIC = 0x43444253;
+    static final int VERSION = 1;
+    static final int END = 0;
+    static final int GROUP = 1;
+    public static final int DEFAULT_ROW_GROUP_SIZE = 4096;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final DataOutputStream out;
+    private final int rowGroupSize;
+    private final Map<Long, Integer> dictionary = new HashMap<>();
+    private final List<Company> newCompanies = new ArrayList<>();
+    private final ByteArrayOutputStream columns = new ByteArrayOutputStream();
+    private final DataOutputStream columnsOut = new DataOutputStream(this.columns);
+    private final long[] ids;
+    private final String[] names;
+    private final int[] introduced;
+    private final int[] discontinued;
+    private final int[] companies;
+    private RowGroupStats stats = new RowGroupStats();
+    private int size;
+    private long rows;
+    private boolean closed;
+
+    /**
+     * Constructor, writing the header.
+     *
+     * @param out          to write to, closed with the writer
+     * @param rowGroupSize number of rows per group
+     * @throws IOException if the header cannot be written
+     */
+    public SnapshotWriter(OutputStream out, int rowGroupSize) throws IOException {
+        if (rowGroupSize <= 0) {
+            throw new IllegalArgumentException("rowGroupSize must be positive");
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        this.rowGroupSize = rowGroupSize;
+        this.ids = new long[rowGroupSize];
+        this.names = new String[rowGroupSize];
+        this.introduced = new int[rowGroupSize];
+        this.discontinued = new int[rowGroupSize];
+        this.companies = new int[rowGroupSize];
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+    }
+
+    /**
+     * Add a company to the dictionary, to keep the companies without computer in the snapshot.
+     *
+     * @param company to add
+     * @return index of the company in the dictionary, -1 if the company has no id
+     */
+    public int addCompany(Company company) {
+        if (company == null || company.getId() == null) {
+            return -1;
+        }
+        Integer index = this.dictionary.get(company.getId());
+        if (index == null) {
+            index = this.dictionary.size();
+            this.dictionary.put(company.getId(), index);
+            this.newCompanies.add(new Company(company.getId(), company.getName()));
+        }
+        return index;
+    }
+
+    /**
+     * Write a computer, and its row group when it is full.
+     *
+     * @param computer to write, with an id
+     * @throws IOException if the group cannot be written
+     */
+    public void write(Computer computer) throws IOException {
+        int company = this.addCompany(computer.getCompany());
+        this.ids[this.size] = computer.getId();
+        this.names[this.size] = computer.getName() == null ? "" : computer.getName();
+        this.introduced[this.size] = RowGroupStats.epochDay(computer.getIntroduced());
+        this.discontinued[this.size] = RowGroupStats.epochDay(computer.getDiscontinued());
+        this.companies[this.size] = company;
+        this.stats.add(computer.getId(), this.introduced[this.size], this.discontinued[this.size],
+                RowGroupStats.id(company < 0 ? null : computer.getCompany().getId()));
+        this.rows++;
+        if (++this.size == this.rowGroupSize) {
+            this.writeGroup();
+        }
+    }
+
+    /**
+     * Write the buffered rows as a group.
+     *
+     * @throws IOException if the group cannot be written
+     */
+    private void writeGroup() throws IOException {
+        this.columns.reset();
+        this.writeIds();
+        for (int i = 0; i < this.size; i++) {
+            Varints.writeString(this.columnsOut, this.names[i]);
+        }
+        this.writeDates(this.introduced, this.stats.getMinIntroducedDay());
+        this.writeDates(this.discontinued, this.stats.getMinDiscontinuedDay());
+        for (int i = 0; i < this.size; i++) {
+            Varints.writeUnsigned(this.columnsOut, this.companies[i] + 1L);
+        }
+
+        this.out.writeByte(GROUP);
+        this.writeNewCompanies();
+        this.stats.write(this.out);
+        Varints.writeUnsigned(this.out, this.columns.size());
+        this.columns.writeTo(this.out);
+
+        this.stats = new RowGroupStats();
+        this.size = 0;
+    }
+
+    /**
+     * Write the ids as runs of the same delta with the previous id : (delta, length of the run).
+     *
+     * @throws IOException if the ids cannot be written
+     */
+    private void writeIds() throws IOException {
+        long previous = 0;
+        int i = 0;
+        while (i < this.size) {
+            long delta = this.ids[i] - previous;
+            int run = 1;
+            while (i + run < this.size && this.ids[i + run] - this.ids[i + run - 1] == delta) {
+                run++;
+            }
+            Varints.writeSigned(this.columnsOut, delta);
+            Varints.writeUnsigned(this.columnsOut, run);
+            previous = this.ids[i + run - 1];
+            i += run;
+        }
+    }
+
+    /**
+     * Write the dates as days from the min of the group plus one, 0 for the null dates.
+     *
+     * @param dates to write
+     * @param min   of the dates
+     * @throws IOException if the dates cannot be written
+     */
+    private void writeDates(int[] dates, int min) throws IOException {
+        for (int i = 0; i < this.size; i++) {
+            Varints.writeUnsigned(this.columnsOut,
+                    dates[i] == RowGroupStats.epochDay(null) ? 0 : (long) dates[i] - min + 1);
+        }
+    }
+
+    private void writeNewCompanies() throws IOException {
+        Varints.writeUnsigned(this.out, this.newCompanies.size());
+        for (Company company : this.newCompanies) {
+            Varints.writeSigned(this.out, company.getId());
+            Varints.writeString(this.out, company.getName() == null ? "" : company.getName());
+        }
+        this.newCompanies.clear();
+    }
+
+    public long getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Write the last group and the end of the snapshot, then close the stream.
+     *
+     * @throws IOException if the end cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            if (this.size > 0) {
+                this.writeGroup();
+            }
+            this.out.writeByte(END);
+            this.writeNewCompanies();
+        } finally {
+            this.out.close();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.excilys.core.snapshot;
+
+import com.excilys.core.model.Company;
+import com.excilys.core.model.Computer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write and read a snapshot of 100 000 computers : the whole file, and with a predicate on the introduced dates
+ * which keeps about one row group out of ten.
+ * <p>
+ * Not a unit test, run it with the main after mvn test-compile. The size of the snapshot is printed at the setup.
+ *
+ * @author excilys
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    // list of the variables
+    private static final int ROWS = 100_000;
+    private static final int COMPANIES = 50;
+    private static final LocalDate FIRST_DAY = LocalDate.of(1970, 1, 1);
+    private List<Computer> computers;
+    private byte[] snapshot;
+    private LocalDate from;
+    private LocalDate to;
+
+    /**
+     * Build computers introduced in the order of their ids, like the catalog, and their snapshot.
+     *
+     * @throws IOException never, the snapshot is in memory
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        List<Company> companies = new ArrayList<>();
+        for (long i = 1; i <= COMPANIES; i++) {
+            companies.add(new Company(i, "Company " + i));
+        }
+        this.computers = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            LocalDate introduced = random.nextInt(10) == 0 ? null : FIRST_DAY.plusDays(i / 10);
+            this.computers.add(new Computer.ComputerBuilder()
+                    .id(i + 1L)
+                    .name("Computer " + random.nextInt(ROWS))
+                    .introduced(introduced)
+                    .discontinued(introduced == null || random.nextBoolean() ? null
+                            : introduced.plusDays(random.nextInt(3000)))
+                    .company(random.nextInt(5) == 0 ? null : companies.get(random.nextInt(COMPANIES)))
+                    .build());
+        }
+        this.snapshot = this.write().toByteArray();
+        this.from = FIRST_DAY.plusDays(ROWS / 10 * 4 / 10);
+        this.to = this.from.plusDays(ROWS / 10 / 10);
+    }
+
+    private ByteArrayOutputStream write() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(ROWS * 32);
+        try (SnapshotWriter writer = new SnapshotWriter(out, SnapshotWriter.DEFAULT_ROW_GROUP_SIZE)) {
+            for (Computer computer : this.computers) {
+                writer.write(computer);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Encode all the computers.
+     *
+     * @return the snapshot
+     * @throws IOException never, the snapshot is in memory
+     */
+    @Benchmark
+    public ByteArrayOutputStream writeAll() throws IOException {
+        return this.write();
+    }
+
+    /**
+     * Decode all the computers.
+     *
+     * @param blackhole consuming the computers
+     * @return number of computers read
+     * @throws IOException never, the snapshot is in memory
+     */
+    @Benchmark
+    public long readAll(Blackhole blackhole) throws IOException {
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(this.snapshot))) {
+            return reader.read(blackhole::consume);
+        }
+    }
+
+    /**
+     * Decode the computers introduced in a period, the other groups are skipped with their statistics.
+     *
+     * @param blackhole consuming the computers
+     * @return number of computers read
+     * @throws IOException never, the snapshot is in memory
+     */
+    @Benchmark
+    public long readIntroducedBetween(Blackhole blackhole) throws IOException {
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(this.snapshot))) {
+            return reader.read(stats -> stats.mayContainIntroduced(this.from, this.to), computer -> {
+                LocalDate introduced = computer.getIntroduced();
+                if (introduced != null && !introduced.isBefore(this.from) && !introduced.isAfter(this.to)) {
+                    blackhole.consume(computer);
+                }
+            });
+        }
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args options of the runner, like -prof gc
+     * @throws CommandLineOptionException if the options are wrong
+     * @throws RunnerException             if the benchmark fails
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SnapshotBenchmark.class.getSimpleName())
+                .parent(new CommandLineOptions(args))
+                .build()).run();
+    }
+}
@@ -0,0 +1,84 @@
+package com.excilys.core.snapshot;
+
+import com.excilys.core.model.Company;
+import com.excilys.core.model.Computer;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotTest {
+
+    private static final int ROWS = 1000;
+    private static final int GROUP = 100;
+
+    private final Company apple = new Company(1L, "Apple Inc.");
+    private final Company ibm = new Company(2L, "IBM");
+    private final Company empty = new Company(3L, "No computer");
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<Computer> computers = this.computers();
+        List<Computer> read = new ArrayList<>();
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(this.write(computers)))) {
+            assertEquals(ROWS, reader.read(read::add));
+            assertEquals(3, reader.getCompanies().size());
+            assertEquals("No computer", reader.getCompanies().get(0).getName());
+        }
+
+        assertEquals(computers, read);
+        assertNull(read.get(0).getCompany());
+        assertEquals("IBM", read.get(1).getCompany().getName());
+    }
+
+    @Test
+    public void testSkipGroups() throws IOException {
+        List<Computer> read = new ArrayList<>();
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(this.write(this.computers())))) {
+            // the ids have a gap after 500, the introduced dates grow with the ids
+            assertEquals(GROUP, reader.read(stats -> stats.mayContainId(1700), read::add));
+            assertEquals(ROWS / GROUP - 1, reader.getSkippedGroups());
+            assertEquals(3, reader.getCompanies().size());
+        }
+        assertTrue(read.stream().anyMatch(computer -> computer.getId() == 1700));
+
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(this.write(this.computers())))) {
+            LocalDate from = LocalDate.of(1970, 1, 1).plusDays(950);
+            assertEquals(GROUP, reader.read(stats -> stats.mayContainIntroduced(from, null), computer -> {
+            }));
+        }
+    }
+
+    private byte[] write(List<Computer> computers) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(out, GROUP)) {
+            writer.addCompany(this.empty);
+            for (Computer computer : computers) {
+                writer.write(computer);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private List<Computer> computers() {
+        List<Computer> computers = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            computers.add(new Computer.ComputerBuilder()
+                    .id(i <= ROWS / 2 ? (long) i : 1000L + i)
+                    .name("computer \u00e9 " + i)
+                    .introduced(i % 3 == 0 ? null : LocalDate.ofEpochDay(i))
+                    .discontinued(i % 5 == 0 ? LocalDate.ofEpochDay(2 * i) : null)
+                    .company(i % 2 == 0 ? (i % 4 == 0 ? this.apple : this.ibm) : null)
+                    .build());
+        }
+        return computers;
+    }
+}
@@ -2,12 +2,16 @@ drop schema if exists `computer-database-db`;
   create schema if not exists `computer-database-db`;
   use `computer-database-db`;
 
+  drop table if exists change_log;
+  drop table if exists import_checkpoint;
+  drop table if exists computer_staging;
   drop table if exists computer;
   drop table if exists company;
 
   create table company (
     id                        bigint not null auto_increment,
     name                      varchar(255),
+    version                   bigint not null default 0,
     constraint pk_company primary key (id))
   ;
 
@@ -17,8 +21,54 @@ drop schema if exists `computer-database-db`;
     introduced                timestamp NULL,
     discontinued              timestamp NULL,
     company_id                bigint default NULL,
+    fingerprint               bigint default NULL,
+    version                   bigint not null default 0,
     constraint pk_computer primary key (id))
   ;
 
+  create table import_checkpoint (
+    id                        varchar(36) not null,
+    file_name                 varchar(255),
+    format                    varchar(8),
+    file_path                 varchar(1024),
+    import_mode               varchar(16),
+    state                     varchar(16),
+    last_row                  bigint not null,
+    report_offset             bigint not null,
+    inserted                  bigint not null,
+    rejected                  bigint not null,
+    updated                   timestamp NULL,
+    constraint pk_import_checkpoint primary key (id))
+  ;
+
+  create table computer_staging (
+    id                        bigint not null auto_increment,
+    batch_id                  varchar(36) not null,
+    name                      varchar(255),
+    introduced                timestamp NULL,
+    discontinued              timestamp NULL,
+    company_name              varchar(255),
+    company_id                bigint default NULL,
+    fingerprint               bigint default NULL,
+    constraint pk_computer_staging primary key (id))
+  ;
+
+  create index ix_computer_staging_batch on computer_staging (batch_id, fingerprint);
+
+  create table change_log (
+    id                        bigint not null auto_increment,
+    seq                       bigint default NULL,
+    entity                    varchar(16),
+    change_type               varchar(16) not null,
+    entity_id                 bigint not null,
+    changed_at                bigint not null,
+    constraint pk_change_log primary key (id))
+  ;
+
+  create unique index ux_change_log_seq on change_log (seq);
+
   alter table computer add constraint fk_computer_company_1 foreign key (company_id) references company (id) on delete restrict on update restrict;
   create index ix_computer_company_1 on computer (company_id);
+  create index ix_computer_name on computer (name, id);
+  create index ix_computer_introduced on computer (introduced, id);
+  create index ix_computer_discontinued on computer (discontinued, id);
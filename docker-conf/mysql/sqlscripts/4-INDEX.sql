@@ -1,5 +1,3 @@
 use computer-database-db;
 
-create index ix_name on computer(name);
-create index ix_introduced on computer(introduced);
-create index ix_discontinued on computer(discontinued);
+create index ix_fingerprint on computer(fingerprint);
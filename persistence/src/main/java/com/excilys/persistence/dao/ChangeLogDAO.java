@@ -0,0 +1,114 @@
+package com.excilys.persistence.dao;
+
+import com.excilys.core.model.ChangeLogEntry;
+import com.excilys.core.model.QChangeLogEntry;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+@Repository
+public class ChangeLogDAO {
+
+    // list of variables
+    private JPAQueryFactory jpaQuery;
+    private EntityManager em;
+    private QChangeLogEntry qentry = QChangeLogEntry.changeLogEntry;
+
+    /**
+     * Use to set the entityManager.
+     *
+     * @param entityManager to set
+     */
+    @PersistenceContext
+    public void setEntityManager(EntityManager entityManager) {
+        this.em = entityManager;
+        this.jpaQuery = new JPAQueryFactory(entityManager);
+    }
+
+    /**
+     * Append an entry to the log. Only joins the transaction of the caller : an entry is never committed without
+     * the change it records.
+     *
+     * @param entry to append
+     * @return the entry with its id
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public ChangeLogEntry append(ChangeLogEntry entry) {
+        this.em.persist(entry);
+        return entry;
+    }
+
+    /**
+     * Find the entries following a sequence number, in the order of their sequence numbers.
+     *
+     * @param lastSeq sequence number of the last entry read, 0 to read from the first one
+     * @param limit   maximum number of entries
+     * @return the entries, empty if there is none after lastSeq
+     */
+    @Transactional(readOnly = true)
+    public List<ChangeLogEntry> findAfter(long lastSeq, long limit) {
+        return this.jpaQuery.selectFrom(qentry)
+                .where(qentry.seq.gt(lastSeq))
+                .orderBy(qentry.seq.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    /**
+     * Find the committed entries without sequence number, in the order of their ids. The read does not lock, so
+     * it does not wait for the entries of the running transactions.
+     *
+     * @param limit maximum number of entries
+     * @return the entries, empty if they are all sequenced
+     */
+    @Transactional(readOnly = true)
+    public List<ChangeLogEntry> findUnsequenced(long limit) {
+        return this.jpaQuery.selectFrom(qentry)
+                .where(qentry.seq.isNull())
+                .orderBy(qentry.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    /**
+     * Give its sequence number to an entry, unless it already has one.
+     *
+     * @param id  of the entry
+     * @param seq sequence number to give
+     * @return true if the entry got the number
+     */
+    @Transactional
+    public boolean sequence(long id, long seq) {
+        return this.jpaQuery.update(qentry)
+                .set(qentry.seq, seq)
+                .where(qentry.id.eq(id), qentry.seq.isNull())
+                .execute() == 1;
+    }
+
+    /**
+     * Get the last sequence number given.
+     *
+     * @return the number, 0 if no entry is sequenced
+     */
+    @Transactional(readOnly = true)
+    public long maxSeq() {
+        Long max = this.jpaQuery.select(qentry.seq.max()).from(qentry).fetchOne();
+        return max == null ? 0 : max;
+    }
+
+    /**
+     * Get the id of the last entry.
+     *
+     * @return the id, 0 if the log is empty
+     */
+    @Transactional(readOnly = true)
+    public long maxId() {
+        Long max = this.jpaQuery.select(qentry.id.max()).from(qentry).fetchOne();
+        return max == null ? 0 : max;
+    }
+}
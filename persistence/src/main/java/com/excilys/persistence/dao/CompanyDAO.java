@@ -1,9 +1,12 @@
 package com.excilys.persistence.dao;
 
 import com.excilys.core.model.Company;
+import com.excilys.core.model.PageCursor;
 import com.excilys.core.model.PageParameters;
 import com.excilys.core.model.QCompany;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
@@ -24,6 +27,8 @@ public class CompanyDAO implements DAO<Company> {
     private EntityManager em;
     private JPAQueryFactory jpaQuery;
     private QCompany qcompany = QCompany.company;
+    @Autowired
+    private WriteGeneration writeGeneration;
 
     /**
      * Set the entity manager.
@@ -45,17 +50,47 @@ public class CompanyDAO implements DAO<Company> {
     public Company create(Company obj) {
         obj = this.em.merge(obj);
         this.em.persist(obj);
+        this.writeGeneration.increment();
         return obj;
     }
 
+    /**
+     * Copy the name of a company on the stored one, hibernate checks its version when it writes it.
+     *
+     * @param obj company with the id of the one to update
+     * @return the updated company
+     */
     @Override
     public Company update(Company obj) {
-        return this.em.merge(obj);
+        Company current = this.em.find(Company.class, obj.getId());
+        if (current == null) {
+            throw new DAOException("No company with the id " + obj.getId());
+        }
+        current.setName(obj.getName());
+        this.writeGeneration.increment();
+        return current;
+    }
+
+    /**
+     * Update a company if it was not updated since a version was read.
+     *
+     * @param obj             company with the id of the one to update
+     * @param expectedVersion version of the company the update is based on
+     * @return the updated company
+     * @throws ObjectOptimisticLockingFailureException if the company has another version
+     */
+    public Company update(Company obj, long expectedVersion) {
+        Company current = this.em.find(Company.class, obj.getId());
+        if (current != null && current.getVersion() != expectedVersion) {
+            throw new ObjectOptimisticLockingFailureException(Company.class, obj.getId());
+        }
+        return this.update(obj);
     }
 
     @Override
     public void delete(Company obj) {
         this.em.remove(em.merge(obj));
+        this.writeGeneration.increment();
     }
 
     /**
@@ -88,6 +123,20 @@ public class CompanyDAO implements DAO<Company> {
         return this.jpaQuery.selectFrom(this.qcompany).offset(page.getSize() * page.getPageNumber()).limit(page.getSize()).fetch();
     }
 
+    /**
+     * Get the page of companies following a cursor, ordered by id like findAll(page) but sought from the last id.
+     *
+     * @param cursor position of the page
+     * @return the companies of the page
+     */
+    public List<Company> findAfter(PageCursor cursor) {
+        return this.jpaQuery.selectFrom(this.qcompany)
+                .where(this.qcompany.id.gt(cursor.getLastId()))
+                .orderBy(this.qcompany.id.asc())
+                .limit(cursor.getSize())
+                .fetch();
+    }
+
     @Override
     public long count() throws DAOException {
         return this.jpaQuery.from(this.qcompany).fetchCount();
@@ -1,27 +1,48 @@
 package com.excilys.persistence.dao;
 
+import com.excilys.core.conflict.doublon.Fingerprint;
+import com.excilys.core.model.Company;
 import com.excilys.core.model.Computer;
+import com.excilys.core.model.ComputerField;
+import com.excilys.core.model.PageCursor;
 import com.excilys.core.model.PageParameters;
 import com.excilys.core.model.PageParameters.Direction;
 import com.excilys.core.model.PageParameters.Order;
 import com.excilys.core.model.QCompany;
 import com.excilys.core.model.QComputer;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpression;
 import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.search.SearchFactory;
+import org.hibernate.search.exception.EmptyQueryException;
 import org.hibernate.search.jpa.FullTextEntityManager;
 import org.hibernate.search.jpa.FullTextQuery;
 import org.hibernate.search.jpa.Search;
+import org.hibernate.search.query.dsl.BooleanJunction;
 import org.hibernate.search.query.dsl.QueryBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 /**
  * Singleton for the ComputerDAO.
@@ -35,10 +56,15 @@ public class ComputerDAO implements DAO<Computer> {
 
     // list of the variables
     private static final int LARGE_OFFSET = 15000;
+    private static final int FINGERPRINT_BATCH = 10000;
+    private static final int FUZZY_DISTANCE = 2;
+    private static final int EXPORT_BATCH = 1000;
     private EntityManager em;
     private JPAQueryFactory jpaQuery;
     private QComputer qcomputer = QComputer.computer;
     private QCompany qcompany = QCompany.company;
+    @Autowired
+    private WriteGeneration writeGeneration;
 
     /**
      * Get the order params of hte page.
@@ -88,19 +114,69 @@ public class ComputerDAO implements DAO<Computer> {
 
     @Override
     public Computer create(Computer obj) {
+        obj.updateFingerprint();
         obj = this.em.merge(obj);
         this.em.persist(obj);
+        this.writeGeneration.increment();
         return obj;
     }
 
+    /**
+     * Copy the fields of a computer on the stored one. Hibernate checks the version when it writes it, so an update
+     * committed meanwhile makes this one fail instead of being overwritten.
+     *
+     * @param obj computer with the id of the one to update
+     * @return the updated computer
+     */
     @Override
     public Computer update(Computer obj) {
-        return this.em.merge(obj);
+        Computer current = this.em.find(Computer.class, obj.getId());
+        if (current == null) {
+            throw new DAOException("No computer with the id " + obj.getId());
+        }
+        return this.copy(obj, current);
+    }
+
+    /**
+     * Update a computer if it was not updated since a version was read.
+     *
+     * @param obj             computer with the id of the one to update
+     * @param expectedVersion version of the computer the update is based on
+     * @return the updated computer
+     * @throws ObjectOptimisticLockingFailureException if the computer has another version
+     */
+    public Computer update(Computer obj, long expectedVersion) {
+        Computer current = this.em.find(Computer.class, obj.getId());
+        if (current == null) {
+            throw new DAOException("No computer with the id " + obj.getId());
+        }
+        if (current.getVersion() != expectedVersion) {
+            throw new ObjectOptimisticLockingFailureException(Computer.class, obj.getId());
+        }
+        return this.copy(obj, current);
+    }
+
+    private Computer copy(Computer from, Computer to) {
+        Company company = null;
+        if (from.getCompany() != null && from.getCompany().getId() != null) {
+            company = this.em.find(Company.class, from.getCompany().getId());
+            if (company == null) {
+                throw new DAOException("No company with the id " + from.getCompany().getId());
+            }
+        }
+        to.setName(from.getName());
+        to.setIntroduced(from.getIntroduced());
+        to.setDiscontinued(from.getDiscontinued());
+        to.setCompany(company);
+        to.updateFingerprint();
+        this.writeGeneration.increment();
+        return to;
     }
 
     @Override
     public void delete(Computer obj) {
         this.em.remove(obj);
+        this.writeGeneration.increment();
     }
 
     /**
@@ -110,11 +186,33 @@ public class ComputerDAO implements DAO<Computer> {
      */
     public void deleteByCompanyId(Long id) {
         this.jpaQuery.delete(this.qcomputer).where(this.qcomputer.company.id.eq(id)).execute();
+        this.writeGeneration.increment();
+    }
+
+    /**
+     * Get the ids of the computers of a company.
+     *
+     * @param id of the company
+     * @return the ids of its computers
+     */
+    public List<Long> findIdsByCompanyId(Long id) {
+        return this.jpaQuery.select(this.qcomputer.id).from(this.qcomputer).where(this.qcomputer.company.id.eq(id)).fetch();
     }
 
     @Override
     public void deleteAll(List<Long> objs) {
         this.jpaQuery.delete(this.qcomputer).where(this.qcomputer.id.in(objs)).execute();
+        this.writeGeneration.increment();
+    }
+
+    /**
+     * Get computers by id in one query.
+     *
+     * @param ids of the computers
+     * @return the computers found, with their company, in no particular order
+     */
+    public List<Computer> findByIds(Collection<Long> ids) {
+        return this.selectWithCompany().where(this.qcomputer.id.in(ids)).fetch();
     }
 
     @Override
@@ -184,25 +282,253 @@ public class ComputerDAO implements DAO<Computer> {
         fullTextQuery.setFirstResult((int) (page.getSize() * page.getPageNumber()));
         fullTextQuery.setMaxResults((int) page.getSize());
 
+        fullTextQuery.setSort(luceneSort(page));
+
+        return fullTextQuery.getResultList();
+    }
+
+    /**
+     * Get the lucene sort of a page.
+     *
+     * @param page with the order
+     * @return the sort
+     */
+    private static Sort luceneSort(PageParameters page) {
+        boolean reverse = page.getDirection() == Direction.ASC;
         switch (page.getOrder()) {
+            case INTRODUCED:
+                return new Sort(new SortField("introduced", SortField.Type.STRING, reverse));
+            case DISCONTINUED:
+                return new Sort(new SortField("discontinued", SortField.Type.STRING, reverse));
+            case COMPANY_NAME:
+                return new Sort(new SortField("company.name", SortField.Type.STRING, reverse));
+            default:
+                return new Sort(new SortField("name", SortField.Type.STRING, reverse));
+        }
+    }
+
+    /**
+     * Go through all the computers matching the search of a page, in its order, whatever its size and number.
+     * <p>
+     * Without search the rows are read from a forward-only cursor, with a search the lucene results are scrolled
+     * forward only too, their entities loaded by batches. The persistence context is cleared after each batch so the
+     * memory stays flat : the computers given to the consumer are detached, with their company loaded.
+     *
+     * @param page     search and order of the computers
+     * @param consumer called for each computer
+     */
+    public void forEach(PageParameters page, Consumer<Computer> consumer) {
+        if (page.getSearch().isEmpty()) {
+            this.scroll(this.selectWithCompany()
+                    .orderBy(ComputerDAO.getOrderMethod(page.getOrder(), page.getDirection()), this.qcomputer.id.asc()),
+                    consumer);
+        } else {
+            FullTextQuery fullTextQuery = getFullTextQuery(page);
+            fullTextQuery.setSort(luceneSort(page));
+            org.hibernate.Query hibernateQuery = fullTextQuery.unwrap(org.hibernate.Query.class);
+            // the entities of the hits are loaded by batches of the fetch size
+            hibernateQuery.setFetchSize(EXPORT_BATCH).setReadOnly(true);
+            this.scrollRows(hibernateQuery.scroll(ScrollMode.FORWARD_ONLY), row -> consumer.accept((Computer) row[0]));
+        }
+    }
+
+    /**
+     * Go through all the computers ordered by id, from a forward-only cursor like forEach without search.
+     *
+     * @param consumer called for each computer, detached with its company loaded
+     */
+    public void forEachById(Consumer<Computer> consumer) {
+        this.scroll(this.selectWithCompany().orderBy(this.qcomputer.id.asc()), consumer);
+    }
+
+    /**
+     * Go through the computers of a page, as findAll(page) but without building the list : without search the rows
+     * are read from a forward-only cursor as the consumer needs them.
+     *
+     * @param page     search, order, size and number of the page
+     * @param consumer called for each computer, with its company loaded
+     */
+    public void forEachInPage(PageParameters page, Consumer<Computer> consumer) {
+        if (page.getSearch().isEmpty()) {
+            this.scroll(this.selectWithCompany()
+                    .orderBy(ComputerDAO.getOrderMethod(page.getOrder(), page.getDirection()), this.qcomputer.id.asc())
+                    .offset(page.getSize() * page.getPageNumber())
+                    .limit(page.getSize()), consumer);
+        } else {
+            this.findAllLucene(page).forEach(consumer);
+        }
+    }
+
+    /**
+     * Go through some fields of the computers of a page : without search only their columns are selected and read
+     * from a forward-only cursor, the company is joined only for its name.
+     *
+     * @param page     search, order, size and number of the page
+     * @param fields   to read, in the order of the values of a row
+     * @param consumer called for each computer with the values of its fields, as ComputerField.of gives them
+     */
+    public void forEachInPage(PageParameters page, List<ComputerField> fields, Consumer<Object[]> consumer) {
+        if (!page.getSearch().isEmpty()) {
+            this.findAllLucene(page).forEach(computer -> consumer.accept(
+                    fields.stream().map(field -> field.of(computer)).toArray()));
+            return;
+        }
+        JPAQuery<Tuple> query = this.jpaQuery
+                .select(fields.stream().map(this::column).toArray(Expression[]::new))
+                .from(this.qcomputer);
+        if (page.getOrder() == Order.COMPANY_NAME || fields.contains(ComputerField.COMPANY_NAME)) {
+            query.leftJoin(this.qcomputer.company, this.qcompany);
+        }
+        if (page.getOrder() == Order.COMPANY_NAME) {
+            query.orderBy(page.getDirection() == Direction.ASC ? this.qcompany.name.asc() : this.qcompany.name.desc());
+        } else {
+            query.orderBy(ComputerDAO.getOrderMethod(page.getOrder(), page.getDirection()));
+        }
+        query.orderBy(this.qcomputer.id.asc())
+                .offset(page.getSize() * page.getPageNumber())
+                .limit(page.getSize());
+        this.scrollRows(query, consumer);
+    }
+
+    private Expression<?> column(ComputerField field) {
+        switch (field) {
+            case ID:
+                return this.qcomputer.id;
             case NAME:
-                fullTextQuery.setSort(new Sort(new SortField("name", SortField.Type.STRING, page.getDirection() == Direction.ASC)));
-                break;
+                return this.qcomputer.name;
+            case INTRODUCED:
+                return this.qcomputer.introduced;
+            case DISCONTINUED:
+                return this.qcomputer.discontinued;
+            case COMPANY_ID:
+                // the foreign key column, without join
+                return this.qcomputer.company.id;
+            default:
+                return this.qcompany.name;
+        }
+    }
+
+    /**
+     * Get the page following a cursor without offset : the rows are sought from the sort key and the id of the last
+     * computer read, so the cost does not grow with the position and the inserts before it do not shift the page.
+     * <p>
+     * The computers are ordered by the sort key then by ascending id. Mysql sorts the null keys first in ascending
+     * order and last in descending order, the seek condition follows it.
+     * <p>
+     * The name, introduced and discontinued orders are backed by the (key, id) indexes of the computer table. The
+     * COMPANY_NAME order sorts on a column of the joined company table, no index can back it : mysql sorts the
+     * matching rows before returning the page.
+     *
+     * @param cursor position of the page
+     * @return the computers of the page, with their company loaded
+     */
+    public List<Computer> findAfter(PageCursor cursor) {
+        JPAQuery<Computer> query = this.selectWithCompany();
+        switch (cursor.getOrder()) {
             case INTRODUCED:
-                fullTextQuery.setSort(new Sort(new SortField("introduced", SortField.Type.STRING, page.getDirection() == Direction.ASC)));
+                this.seek(query, this.qcomputer.introduced, parseDate(cursor.getLastKey()), cursor);
                 break;
             case DISCONTINUED:
-                fullTextQuery.setSort(new Sort(new SortField("discontinued", SortField.Type.STRING, page.getDirection() == Direction.ASC)));
+                this.seek(query, this.qcomputer.discontinued, parseDate(cursor.getLastKey()), cursor);
                 break;
             case COMPANY_NAME:
-                fullTextQuery.setSort(new Sort(new SortField("company.name", SortField.Type.STRING, page.getDirection() == Direction.ASC)));
+                // the alias of the left join, a path through computer.company would be an inner join
+                this.seek(query, this.qcompany.name, cursor.getLastKey(), cursor);
                 break;
             default:
-                fullTextQuery.setSort(new Sort(new SortField("name", SortField.Type.STRING, page.getDirection() == Direction.ASC)));
+                this.seek(query, this.qcomputer.name, cursor.getLastKey(), cursor);
                 break;
         }
+        return query.limit(cursor.getSize()).fetch();
+    }
 
-        return fullTextQuery.getResultList();
+    private static LocalDate parseDate(String key) {
+        try {
+            return key == null ? null : LocalDate.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new DAOException("Invalid date in the cursor : " + key);
+        }
+    }
+
+    /**
+     * Add the order and the seek condition of a cursor to a query.
+     *
+     * @param query   of the computers
+     * @param key     sort key
+     * @param lastKey value of the sort key of the last computer read, may be null
+     * @param cursor  position of the page
+     * @param <T>     type of the sort key
+     */
+    private <T extends Comparable> void seek(JPAQuery<Computer> query, ComparableExpression<T> key, T lastKey,
+                                             PageCursor cursor) {
+        boolean asc = cursor.getDirection() == Direction.ASC;
+        query.orderBy(asc ? key.asc() : key.desc(), this.qcomputer.id.asc());
+        if (cursor.isFirst()) {
+            return;
+        }
+        BooleanExpression sameKey = this.qcomputer.id.gt(cursor.getLastId());
+        if (lastKey == null) {
+            sameKey = key.isNull().and(sameKey);
+            query.where(asc ? sameKey.or(key.isNotNull()) : sameKey);
+        } else {
+            sameKey = key.eq(lastKey).and(sameKey);
+            if (asc) {
+                // the redundant bound lets mysql do a range scan of the index
+                query.where(key.goe(lastKey), key.gt(lastKey).or(sameKey));
+            } else {
+                query.where(key.lt(lastKey).or(sameKey).or(key.isNull()));
+            }
+        }
+    }
+
+    private JPAQuery<Computer> selectWithCompany() {
+        return this.jpaQuery.selectFrom(this.qcomputer)
+                .leftJoin(this.qcomputer.company, this.qcompany).fetchJoin();
+    }
+
+    /**
+     * Stream the computers of a query.
+     *
+     * @param query    of the computers
+     * @param consumer called for each computer
+     */
+    private void scroll(JPAQuery<Computer> query, Consumer<Computer> consumer) {
+        this.scrollRows(query, row -> consumer.accept((Computer) row[0]));
+    }
+
+    /**
+     * Stream the rows of a query, each as the array of its selected values, clearing the persistence context every
+     * EXPORT_BATCH rows.
+     *
+     * @param query    of the rows
+     * @param consumer called for each row
+     */
+    private void scrollRows(JPAQuery<?> query, Consumer<Object[]> consumer) {
+        org.hibernate.Query hibernateQuery = query.createQuery().unwrap(org.hibernate.Query.class);
+        // the mysql driver only streams the rows with this fetch size, otherwise it reads the whole result
+        hibernateQuery.setFetchSize(Integer.MIN_VALUE).setReadOnly(true);
+
+        this.scrollRows(hibernateQuery.scroll(ScrollMode.FORWARD_ONLY), consumer);
+    }
+
+    /**
+     * Read the rows of a cursor, clearing the persistence context every EXPORT_BATCH rows, then close it.
+     *
+     * @param results  forward-only cursor
+     * @param consumer called for each row
+     */
+    private void scrollRows(ScrollableResults results, Consumer<Object[]> consumer) {
+        try {
+            long count = 0;
+            while (results.next()) {
+                consumer.accept(results.get());
+                if (++count % EXPORT_BATCH == 0) {
+                    this.em.clear();
+                }
+            }
+        } finally {
+            results.close();
+        }
     }
 
     /**
@@ -265,6 +591,135 @@ public class ComputerDAO implements DAO<Computer> {
         return fullTextEntityManager.createFullTextQuery(luceneQuery, Computer.class);
     }
 
+    /**
+     * Search the lucene index for the computers whose name is close to the given one.
+     * <p>
+     * Each word of the name can be up to two edits away, the computers of the same company come first.
+     *
+     * @param name        of the computer
+     * @param companyName of the computer, can be null
+     * @param max         number of computers to return
+     * @return the best matches, empty if the name has no indexable word
+     */
+    @SuppressWarnings("unchecked")
+    public List<Computer> findSimilar(String name, String companyName, int max) {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(em);
+        QueryBuilder computerQB = fullTextEntityManager.getSearchFactory().buildQueryBuilder().forEntity(Computer.class).get();
+
+        BooleanJunction<?> query = computerQB.bool();
+        try {
+            query.must(computerQB.keyword().fuzzy().withEditDistanceUpTo(FUZZY_DISTANCE)
+                    .onField("name").matching(name).createQuery());
+            if (companyName != null && !companyName.isEmpty()) {
+                query.should(computerQB.keyword().onField("company.name").matching(companyName).createQuery());
+            }
+        } catch (EmptyQueryException e) {
+            return Collections.emptyList();
+        }
+
+        FullTextQuery fullTextQuery = fullTextEntityManager.createFullTextQuery(query.createQuery(), Computer.class);
+        fullTextQuery.setMaxResults(max);
+        return fullTextQuery.getResultList();
+    }
+
+    /**
+     * Get the computers having the given fingerprint.
+     *
+     * @param fingerprint to look for
+     * @return the list of computers, empty if none
+     */
+    public List<Computer> findByFingerprint(long fingerprint) {
+        return this.jpaQuery.selectFrom(this.qcomputer)
+                .leftJoin(this.qcomputer.company, this.qcompany).fetchJoin()
+                .where(this.qcomputer.fingerprint.eq(fingerprint))
+                .fetch();
+    }
+
+    /**
+     * Go through all the fingerprints of the table, ordered by id and by batches.
+     *
+     * @param consumer called for each fingerprint
+     */
+    public void forEachFingerprint(LongConsumer consumer) {
+        this.forEachFingerprint(1, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Go through the fingerprints of a range of ids, ordered by id and by batches.
+     *
+     * @param fromId   first id of the range
+     * @param toId     last id of the range
+     * @param consumer called for each fingerprint
+     */
+    public void forEachFingerprint(long fromId, long toId, LongConsumer consumer) {
+        long lastId = fromId - 1;
+        List<Tuple> batch;
+        do {
+            batch = this.jpaQuery.select(this.qcomputer.id, this.qcomputer.fingerprint)
+                    .from(this.qcomputer)
+                    .where(this.qcomputer.id.gt(lastId), this.qcomputer.id.loe(toId), this.qcomputer.fingerprint.isNotNull())
+                    .orderBy(this.qcomputer.id.asc())
+                    .limit(FINGERPRINT_BATCH)
+                    .fetch();
+            for (Tuple row : batch) {
+                consumer.accept(row.get(this.qcomputer.fingerprint));
+                lastId = row.get(this.qcomputer.id);
+            }
+        } while (batch.size() == FINGERPRINT_BATCH);
+    }
+
+    /**
+     * Get the highest id of the table.
+     *
+     * @return the id, 0 if the table is empty
+     */
+    public long maxId() {
+        Long max = this.jpaQuery.select(this.qcomputer.id.max()).from(this.qcomputer).fetchOne();
+        return max == null ? 0 : max;
+    }
+
+    /**
+     * Add a range of ids to the full text index, for the rows written without hibernate.
+     *
+     * @param fromId first id of the range
+     * @param toId   last id of the range
+     * @return the number of indexed computers
+     */
+    public long reindex(long fromId, long toId) {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(this.em);
+        long lastId = fromId - 1;
+        long indexed = 0;
+        List<Computer> batch;
+        do {
+            batch = this.jpaQuery.selectFrom(this.qcomputer)
+                    .leftJoin(this.qcomputer.company, this.qcompany).fetchJoin()
+                    .where(this.qcomputer.id.gt(lastId), this.qcomputer.id.loe(toId))
+                    .orderBy(this.qcomputer.id.asc())
+                    .limit(FINGERPRINT_BATCH)
+                    .fetch();
+            for (Computer computer : batch) {
+                fullTextEntityManager.index(computer);
+                lastId = computer.getId();
+            }
+            indexed += batch.size();
+            // keep the memory bounded, the batch is written to the index and forgotten
+            fullTextEntityManager.flushToIndexes();
+            fullTextEntityManager.clear();
+        } while (batch.size() == FINGERPRINT_BATCH);
+        return indexed;
+    }
+
+    /**
+     * Compute the fingerprint of the rows which do not have one yet (rows written before the column existed
+     * or without hibernate).
+     *
+     * @return number of updated rows
+     */
+    public int fillMissingFingerprints() {
+        return this.em.createNativeQuery("UPDATE computer SET fingerprint = " + Fingerprint.SQL_EXPRESSION
+                + " WHERE fingerprint IS NULL").executeUpdate();
+    }
+
     @Override
     public List<String> findAutocompleteMatches(String entry) {
         return this.jpaQuery
@@ -0,0 +1,129 @@
+package com.excilys.persistence.dao;
+
+import com.excilys.core.conflict.doublon.Fingerprint;
+import com.excilys.core.dto.ComputerDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Staging table of the bulk imports, written with plain jdbc. The table is created by the schema scripts.
+ * <p>
+ * The validated rows are loaded with multi-row INSERTs. The company names are then resolved with one join and the
+ * fingerprints computed in MySQL, and the rows are moved into computer with a single INSERT ... SELECT keeping the
+ * first row of each fingerprint of the import. Hibernate and the index are skipped, the caller has to reindex the
+ * new rows.
+ *
+ * @author excilys
+ */
+@Repository
+public class ComputerStagingDAO {
+
+    // list of the variables
+    private static final int ROWS_PER_INSERT = 1000;
+    private static final String INSERT = "INSERT INTO computer_staging "
+            + "(batch_id, name, introduced, discontinued, company_name) VALUES ";
+    private static final String VALUES = "(?, ?, ?, ?, ?)";
+    private static final String RESOLVE_COMPANIES = "UPDATE computer_staging s "
+            + "LEFT JOIN (SELECT name, MIN(id) AS id FROM company GROUP BY name) c ON c.name = s.company_name "
+            + "SET s.company_id = c.id WHERE s.batch_id = ?";
+    private static final String FINGERPRINT = "UPDATE computer_staging SET fingerprint = " + Fingerprint.SQL_EXPRESSION
+            + " WHERE batch_id = ?";
+    private static final String MOVE = "INSERT INTO computer (name, introduced, discontinued, company_id, fingerprint, version) "
+            + "SELECT s.name, s.introduced, s.discontinued, s.company_id, s.fingerprint, 0 FROM computer_staging s "
+            + "JOIN (SELECT MIN(id) AS id FROM computer_staging WHERE batch_id = ? GROUP BY fingerprint) k ON k.id = s.id "
+            + "WHERE NOT EXISTS (SELECT 1 FROM computer x WHERE x.fingerprint = s.fingerprint) "
+            + "ORDER BY s.id";
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WriteGeneration writeGeneration;
+
+    /**
+     * Use to set the datasource.
+     *
+     * @param dataSource to set
+     */
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Load validated rows in the staging table, ROWS_PER_INSERT rows per statement.
+     *
+     * @param batchId   of the import
+     * @param computers validated rows, with their dates as yyyy-MM-dd or empty
+     */
+    public void stage(String batchId, List<ComputerDTO> computers) {
+        for (int from = 0; from < computers.size(); from += ROWS_PER_INSERT) {
+            List<ComputerDTO> rows = computers.subList(from, Math.min(computers.size(), from + ROWS_PER_INSERT));
+
+            StringBuilder sql = new StringBuilder(INSERT.length() + rows.size() * (VALUES.length() + 2)).append(INSERT);
+            Object[] args = new Object[rows.size() * 5];
+            int i = 0;
+            for (ComputerDTO computer : rows) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(VALUES);
+                args[i++] = batchId;
+                args[i++] = computer.getName();
+                args[i++] = date(computer.getIntroduced());
+                args[i++] = date(computer.getDiscontinued());
+                args[i++] = computer.getCompanyName();
+            }
+            this.jdbcTemplate.update(sql.toString(), args);
+        }
+    }
+
+    /**
+     * Move the rows of an import into computer, skipping the exact duplicates of computers already there and of
+     * the previous rows of the import. Has to run in a transaction with remove().
+     *
+     * @param batchId of the import
+     * @return the number of inserted computers
+     */
+    public int moveToComputer(String batchId) {
+        this.writeGeneration.increment();
+        this.jdbcTemplate.update(RESOLVE_COMPANIES, batchId);
+        this.jdbcTemplate.update(FINGERPRINT, batchId);
+        return this.jdbcTemplate.update(MOVE, batchId);
+    }
+
+    /**
+     * Count the rows of an import in the staging table.
+     *
+     * @param batchId of the import
+     * @return the number of rows
+     */
+    public long count(String batchId) {
+        return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM computer_staging WHERE batch_id = ?",
+                Long.class, batchId);
+    }
+
+    /**
+     * Remove the rows of an import from the staging table.
+     *
+     * @param batchId of the import
+     * @return the number of removed rows
+     */
+    public int remove(String batchId) {
+        return this.jdbcTemplate.update("DELETE FROM computer_staging WHERE batch_id = ?", batchId);
+    }
+
+    /**
+     * Convert an imported date for MySQL.
+     *
+     * @param date as yyyy-MM-dd, can be empty, null or "null" in any case, with blanks around
+     * @return the date or null
+     */
+    private static String date(String date) {
+        String trimmed = date == null ? "" : date.trim();
+        return trimmed.isEmpty() || "null".equalsIgnoreCase(trimmed) ? null : trimmed;
+    }
+}
@@ -0,0 +1,132 @@
+package com.excilys.persistence.dao;
+
+import com.excilys.core.model.ImportCheckpoint;
+import com.excilys.core.model.QImportCheckpoint;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class ImportCheckpointDAO {
+
+    // list of variables
+    private JPAQueryFactory jpaQuery;
+    private EntityManager em;
+    private QImportCheckpoint qcheckpoint = QImportCheckpoint.importCheckpoint;
+
+    /**
+     * Use to set the entityManager.
+     *
+     * @param entityManager to set
+     */
+    @PersistenceContext
+    public void setEntityManager(EntityManager entityManager) {
+        this.em = entityManager;
+        this.jpaQuery = new JPAQueryFactory(entityManager);
+    }
+
+    /**
+     * Find the checkpoint of a job.
+     *
+     * @param id of the job
+     * @return the checkpoint or null if the job never started
+     */
+    @Transactional(readOnly = true)
+    public ImportCheckpoint find(String id) {
+        return this.em.find(ImportCheckpoint.class, id);
+    }
+
+    /**
+     * Save a checkpoint, new or not. Joins the transaction of the caller so the checkpoint is committed with
+     * the chunk it follows.
+     *
+     * @param checkpoint to save
+     */
+    @Transactional
+    public void save(ImportCheckpoint checkpoint) {
+        this.em.merge(checkpoint);
+    }
+
+    /**
+     * Change the state of a checkpoint, without touching its counters.
+     *
+     * @param id    of the job
+     * @param state new state
+     */
+    @Transactional
+    public void changeState(String id, String state) {
+        this.jpaQuery.update(qcheckpoint)
+                .set(qcheckpoint.state, state)
+                .set(qcheckpoint.updated, LocalDateTime.now())
+                .where(qcheckpoint.id.eq(id))
+                .execute();
+    }
+
+    /**
+     * Change the state of a checkpoint only if it is in one of some states, in one statement : of concurrent
+     * callers, only one sees the change.
+     *
+     * @param id    of the job
+     * @param from  states the checkpoint may be in
+     * @param state new state
+     * @return true if this call changed the checkpoint
+     */
+    @Transactional
+    public boolean claim(String id, Collection<String> from, String state) {
+        return this.jpaQuery.update(qcheckpoint)
+                .set(qcheckpoint.state, state)
+                .set(qcheckpoint.updated, LocalDateTime.now())
+                .where(qcheckpoint.id.eq(id), qcheckpoint.state.in(from))
+                .execute() == 1;
+    }
+
+    /**
+     * Change the state of all the checkpoints in some states, used at startup for the imports cut by a stop
+     * of the server.
+     *
+     * @param from  states to change
+     * @param state new state
+     * @return the number of changed checkpoints
+     */
+    @Transactional
+    public long changeState(Collection<String> from, String state) {
+        return this.jpaQuery.update(qcheckpoint)
+                .set(qcheckpoint.state, state)
+                .set(qcheckpoint.updated, LocalDateTime.now())
+                .where(qcheckpoint.state.in(from))
+                .execute();
+    }
+
+    /**
+     * Find the checkpoints in some states which did not change since a date.
+     *
+     * @param states of the checkpoints
+     * @param limit  date of the last change
+     * @return the checkpoints changed before the limit
+     */
+    @Transactional(readOnly = true)
+    public List<ImportCheckpoint> findUpdatedBefore(Collection<String> states, LocalDateTime limit) {
+        return this.jpaQuery.selectFrom(qcheckpoint)
+                .where(qcheckpoint.state.in(states), qcheckpoint.updated.lt(limit))
+                .fetch();
+    }
+
+    /**
+     * Delete the checkpoint of a job.
+     *
+     * @param id of the job
+     */
+    @Transactional
+    public void delete(String id) {
+        ImportCheckpoint checkpoint = this.em.find(ImportCheckpoint.class, id);
+        if (checkpoint != null) {
+            this.em.remove(checkpoint);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.excilys.persistence.dao;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter of the writes on the computers and the companies, the ETags of the lists are built from it.
+ * <p>
+ * The DAOs increment it when they write, and again when the transaction ends : a list read between the write and
+ * the commit gets a generation which is never seen again, so it cannot be kept as up to date. It starts from the
+ * time of the start so the ETags given before a restart do not match.
+ * <p>
+ * The counter is per JVM and does not see the writes of the other nodes, so with more than one node a stale 304 is
+ * possible.
+ *
+ * @author excilys
+ */
+@Component
+public class WriteGeneration {
+
+    // list of the variables
+    private final AtomicLong generation = new AtomicLong(System.currentTimeMillis());
+
+    public long get() {
+        return this.generation.get();
+    }
+
+    /**
+     * Increment the generation, and once more at the end of the current transaction if there is one.
+     */
+    public void increment() {
+        this.generation.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(WriteGeneration.this);
+                    WriteGeneration.this.generation.incrementAndGet();
+                }
+            });
+        }
+    }
+}
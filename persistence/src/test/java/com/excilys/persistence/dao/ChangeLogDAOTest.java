@@ -0,0 +1,56 @@
+package com.excilys.persistence.dao;
+
+import com.excilys.core.model.ChangeLogEntry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@ContextConfiguration("classpath*:applicationContext.xml")
+@RunWith(SpringJUnit4ClassRunner.class)
+public class ChangeLogDAOTest {
+
+    @Autowired
+    private ChangeLogDAO changeLogDAO;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Test
+    @Transactional
+    public void findAfterReadsTheSequencedEntriesInOrder() {
+        long last = this.changeLogDAO.maxSeq();
+        ChangeLogEntry first = this.changeLogDAO.append(new ChangeLogEntry("COMPUTER", "CREATED", 12));
+        ChangeLogEntry second = this.changeLogDAO.append(new ChangeLogEntry("COMPANY", "DELETED", 3));
+        assertTrue(this.changeLogDAO.findAfter(last, 10).isEmpty());
+
+        // sequenced in the reverse order of the ids, like a transaction committed late
+        assertTrue(this.changeLogDAO.sequence(second.getId(), last + 1));
+        assertTrue(this.changeLogDAO.sequence(first.getId(), last + 2));
+        assertFalse(this.changeLogDAO.sequence(first.getId(), last + 3));
+        this.em.clear();
+
+        List<ChangeLogEntry> entries = this.changeLogDAO.findAfter(last, 10);
+        assertEquals(2, entries.size());
+        assertEquals(second.getId(), entries.get(0).getId());
+        assertEquals(first.getId(), entries.get(1).getId());
+        assertEquals(12, entries.get(1).getEntityId());
+        assertEquals(1, this.changeLogDAO.findAfter(last, 1).size());
+        assertTrue(this.changeLogDAO.findAfter(last + 2, 10).isEmpty());
+        assertTrue(this.changeLogDAO.findUnsequenced(10).stream().noneMatch(e -> e.getId().equals(first.getId())));
+    }
+
+    @Test(expected = IllegalTransactionStateException.class)
+    public void appendNeedsTheTransactionOfTheChange() {
+        this.changeLogDAO.append(new ChangeLogEntry("COMPUTER", "CREATED", 12));
+    }
+}
@@ -2,18 +2,24 @@ package com.excilys.persistence.dao;
 
 import com.excilys.core.model.Company;
 import com.excilys.core.model.Computer;
+import com.excilys.core.model.ComputerField;
+import com.excilys.core.model.PageCursor;
 import com.excilys.core.model.PageParameters;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -88,6 +94,13 @@ public class ComputerDAOTest {
         computerDAO.delete(computer);
     }
 
+    @Test(expected = ObjectOptimisticLockingFailureException.class)
+    @Transactional
+    public void updateWithOldVersionTest() {
+        Computer computer = computerDAO.create(new Computer.ComputerBuilder().name("versionTestDAO").build());
+        computerDAO.update(computer, computer.getVersion() + 1);
+    }
+
 
     // -------------------------------------- Remove tests -------------------------------------------------------------
 
@@ -312,4 +325,39 @@ public class ComputerDAOTest {
             assertTrue(nameOrder <= 0);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional
+    public void findAfterWalksAllComputersOnce() {
+        for (PageParameters.Direction direction : PageParameters.Direction.values()) {
+            PageCursor cursor = PageCursor.first(PageParameters.Order.DISCONTINUED, direction, 50);
+            Set<Long> ids = new HashSet<>();
+            List<Computer> page;
+            do {
+                page = computerDAO.findAfter(cursor);
+                for (Computer computer : page) {
+                    assertTrue(ids.add(computer.getId()));
+                }
+                if (!page.isEmpty()) {
+                    cursor = cursor.after(page.get(page.size() - 1));
+                }
+            } while (page.size() == cursor.getSize());
+            assertEquals(computerDAO.count(), ids.size());
+        }
+    }
+
+    @Test
+    @Transactional
+    public void forEachInPageReadsOnlyTheFields() {
+        PageParameters pageParameters = new PageParameters.Builder().size(20).build();
+        List<Computer> computers = computerDAO.findAll(pageParameters);
+        List<Object[]> rows = new ArrayList<>();
+        computerDAO.forEachInPage(pageParameters, Arrays.asList(ComputerField.NAME, ComputerField.ID), rows::add);
+
+        assertEquals(computers.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(2, rows.get(i).length);
+            assertEquals(computers.get(i).getName(), rows.get(i)[0]);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.excilys.persistence.dao;
+
+import com.excilys.core.model.ImportCheckpoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+@ContextConfiguration("classpath*:applicationContext.xml")
+@RunWith(SpringJUnit4ClassRunner.class)
+public class ImportCheckpointDAOTest {
+
+    @Autowired
+    private ImportCheckpointDAO checkpointDAO;
+
+    private ImportCheckpoint save(String state) {
+        ImportCheckpoint checkpoint = new ImportCheckpoint(UUID.randomUUID().toString(), "test.csv", "csv", "/tmp/test.csv");
+        checkpoint.setState(state);
+        this.checkpointDAO.save(checkpoint);
+        return checkpoint;
+    }
+
+    @Test
+    @Transactional
+    public void findUpdatedBeforeOnlyFindsTheGivenStates() {
+        ImportCheckpoint failed = this.save("FAILED");
+        ImportCheckpoint running = this.save("RUNNING");
+
+        List<ImportCheckpoint> found = this.checkpointDAO.findUpdatedBefore(Arrays.asList("DONE", "FAILED"),
+                LocalDateTime.now().plusMinutes(1));
+
+        assertTrue(found.stream().anyMatch(c -> c.getId().equals(failed.getId())));
+        assertFalse(found.stream().anyMatch(c -> c.getId().equals(running.getId())));
+        assertFalse(this.checkpointDAO.findUpdatedBefore(Arrays.asList("FAILED"), LocalDateTime.now().minusDays(1))
+                .stream().anyMatch(c -> c.getId().equals(failed.getId())));
+    }
+
+    @Test
+    @Transactional
+    public void deleteRemovesTheCheckpoint() {
+        ImportCheckpoint done = this.save("DONE");
+
+        this.checkpointDAO.delete(done.getId());
+
+        assertNull(this.checkpointDAO.find(done.getId()));
+    }
+
+    @Test
+    @Transactional
+    public void claimOnlyChangesTheCheckpointOnce() {
+        ImportCheckpoint failed = this.save("FAILED");
+        List<String> resumable = Arrays.asList("FAILED", "CANCELLED", "INTERRUPTED");
+
+        assertTrue(this.checkpointDAO.claim(failed.getId(), resumable, "QUEUED"));
+        assertFalse(this.checkpointDAO.claim(failed.getId(), resumable, "QUEUED"));
+    }
+}
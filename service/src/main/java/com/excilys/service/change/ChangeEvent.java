@@ -0,0 +1,60 @@
+package com.excilys.service.change;
+
+/**
+ * Change of a computer or a company, as published by the services once committed.
+ *
+ * @author excilys
+ */
+public final class ChangeEvent {
+
+    /**
+     * Kind of the changed object.
+     */
+    public enum Entity {
+        COMPUTER, COMPANY
+    }
+
+    /**
+     * Kind of change. RELOAD means that an unknown number of objects changed, the whole list has to be read again.
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED, RELOAD
+    }
+
+    // list of the variables
+    private final long id;
+    private final Entity entity;
+    private final Type type;
+    private final long entityId;
+
+    /**
+     * Constructor.
+     *
+     * @param id       of the event in the feed, 0 until it is published
+     * @param entity   kind of the changed object, null for a RELOAD of every kind
+     * @param type     kind of change
+     * @param entityId id of the changed object, 0 for a RELOAD
+     */
+    public ChangeEvent(long id, Entity entity, Type type, long entityId) {
+        this.id = id;
+        this.entity = entity;
+        this.type = type;
+        this.entityId = entityId;
+    }
+
+    public long getId() {
+        return this.id;
+    }
+
+    public Entity getEntity() {
+        return this.entity;
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public long getEntityId() {
+        return this.entityId;
+    }
+}
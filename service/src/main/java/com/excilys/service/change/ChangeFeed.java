@@ -0,0 +1,139 @@
+package com.excilys.service.change;
+
+import com.excilys.service.change.ChangeEvent.Entity;
+import com.excilys.service.change.ChangeEvent.Type;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Feed of the changes committed on the computers and the companies, kept in a ring of the last CAPACITY events.
+ * <p>
+ * The services publish the changes in their transaction, they are added to the ring after the commit and dropped
+ * on a rollback. A writer takes the next id and sets its slot, a reader goes through the slots after its last id
+ * without lock : it stops at a slot which is not set yet, and gets a RELOAD event when its next event was
+ * overwritten because it is too far behind. The ids start from the time of the start so the ids given before a
+ * restart are known to be lost.
+ *
+ * @author excilys
+ */
+@Component
+public class ChangeFeed {
+
+    // list of the variables
+    public static final int CAPACITY = 4096;
+    private static final int MASK = CAPACITY - 1;
+    private final AtomicReferenceArray<ChangeEvent> ring = new AtomicReferenceArray<>(CAPACITY);
+    private final long start = System.currentTimeMillis();
+    private final AtomicLong sequence = new AtomicLong(this.start);
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Publish a change, after the commit of the current transaction if there is one.
+     *
+     * @param entity   kind of the changed object
+     * @param type     kind of change
+     * @param entityId id of the changed object, 0 for a RELOAD
+     */
+    public void publish(Entity entity, Type type, long entityId) {
+        ChangeEvent event = new ChangeEvent(0, entity, type, entityId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.append(Collections.singletonList(event));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<ChangeEvent> pending = (List<ChangeEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<ChangeEvent> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    ChangeFeed.this.append(events);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeFeed.this);
+                }
+            });
+            pending = events;
+        }
+        pending.add(event);
+    }
+
+    private void append(List<ChangeEvent> events) {
+        for (ChangeEvent event : events) {
+            long id = this.sequence.incrementAndGet();
+            this.ring.set((int) (id & MASK), new ChangeEvent(id, event.getEntity(), event.getType(), event.getEntityId()));
+        }
+        this.listeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Get the events following an event.
+     *
+     * @param lastId id of the last event read, getLastId() to read only the next ones
+     * @param max    number of events to read
+     * @return the next events, empty if there is none yet, or a RELOAD event of every entity with the current last
+     * id if the ones following lastId are not in the ring anymore
+     */
+    public List<ChangeEvent> readAfter(long lastId, int max) {
+        long last = this.sequence.get();
+        if (lastId < this.start || lastId > last || last - lastId > CAPACITY) {
+            return Collections.singletonList(this.reload(last));
+        }
+        List<ChangeEvent> events = new ArrayList<>();
+        for (long id = lastId + 1; id <= last && events.size() < max; id++) {
+            ChangeEvent event = this.ring.get((int) (id & MASK));
+            if (event == null || event.getId() < id) {
+                // taken by a writer which has not set it yet
+                break;
+            }
+            if (event.getId() > id) {
+                // overwritten while reading
+                return Collections.singletonList(this.reload(this.sequence.get()));
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    private ChangeEvent reload(long last) {
+        return new ChangeEvent(last, null, Type.RELOAD, 0);
+    }
+
+    /**
+     * Get the id of the last published event.
+     *
+     * @return the id
+     */
+    public long getLastId() {
+        return this.sequence.get();
+    }
+
+    /**
+     * Add a listener called after each publication, on the thread of the commit : it has to return at once.
+     *
+     * @param listener to call
+     */
+    public void addListener(Runnable listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener.
+     *
+     * @param listener to remove
+     */
+    public void removeListener(Runnable listener) {
+        this.listeners.remove(listener);
+    }
+}
@@ -0,0 +1,111 @@
+package com.excilys.service.change;
+
+import com.excilys.core.model.ChangeLogEntry;
+import com.excilys.persistence.dao.ChangeLogDAO;
+import com.excilys.service.change.ChangeEvent.Entity;
+import com.excilys.service.change.ChangeEvent.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Durable log of the changes on the computers and the companies, read from a sequence number by the integrations
+ * instead of scanning the tables again.
+ * <p>
+ * A change is inserted in the change_log table in the transaction of the service which does it, then published
+ * to the ChangeFeed after the commit. The ids of the table are taken at the insertion but become visible at the
+ * commit, so a reader going through them could pass an id still in a running transaction and lose it. The readers
+ * go through the sequence numbers instead : before each read, the relay gives the next numbers to the entries found
+ * committed, in one transaction. An entry committed late, however late, gets a number after the ones already given.
+ *
+ * @author excilys
+ */
+@Component
+public class ChangeLog {
+
+    // list of the variables
+    public static final int MAX_READ = 1000;
+    static final int MAX_RELAY = 10000;
+    private final Logger LOGGER = LoggerFactory.getLogger(ChangeLog.class);
+    private final Lock relayLock = new ReentrantLock();
+
+    @Autowired
+    private ChangeLogDAO changeLogDAO;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    /**
+     * Record a change in the transaction of the caller.
+     *
+     * @param entity   kind of the changed object, null for a RELOAD of every kind
+     * @param type     kind of change
+     * @param entityId id of the changed object, 0 for a RELOAD
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Entity entity, Type type, long entityId) {
+        this.changeLogDAO.append(new ChangeLogEntry(entity == null ? null : entity.name(), type.name(), entityId));
+        this.changeFeed.publish(entity, type, entityId);
+    }
+
+    /**
+     * Read the changes committed after a sequence number.
+     *
+     * @param lastSeq sequence number of the last change read, 0 to read from the start
+     * @param max     number of changes to read, at most MAX_READ
+     * @return the changes in the order of their sequence numbers, empty if there is none yet
+     */
+    public List<ChangeLogEntry> readAfter(long lastSeq, int max) {
+        this.LOGGER.debug("entering readAfter()");
+        this.relay();
+        return this.changeLogDAO.findAfter(lastSeq, Math.min(max, MAX_READ));
+    }
+
+    /**
+     * Give the next sequence numbers to the committed entries which have none, in the order of their ids. Only one
+     * reader of the server relays at a time, the others read what is already sequenced. The unique index on the
+     * numbers rolls back the relay of another server which gives the same ones, it is done again at the next read.
+     */
+    void relay() {
+        if (!this.relayLock.tryLock()) {
+            return;
+        }
+        try {
+            TransactionTemplate tmpl = new TransactionTemplate(this.txManager);
+            tmpl.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            tmpl.execute(new TransactionCallbackWithoutResult() {
+
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    long seq = changeLogDAO.maxSeq();
+                    for (ChangeLogEntry entry : changeLogDAO.findUnsequenced(MAX_RELAY)) {
+                        // already sequenced by another server since the read
+                        if (changeLogDAO.sequence(entry.getId(), seq + 1)) {
+                            seq++;
+                        }
+                    }
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            this.LOGGER.debug("The change log was relayed by another server.", e);
+        } finally {
+            this.relayLock.unlock();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.excilys.service;
 
 
 import com.excilys.core.model.Company;
+import com.excilys.core.model.PageCursor;
 import com.excilys.core.model.PageParameters;
 
 import java.util.List;
@@ -24,6 +25,14 @@ public interface ICompanyService {
      */
     List<Company> getCompanies(PageParameters page);
 
+    /**
+     * get the page of companies following a cursor, ordered by id.
+     *
+     * @param cursor position of the page
+     * @return the companies of the page, fewer than its size on the last page
+     */
+    List<Company> getCompaniesAfter(PageCursor cursor);
+
     /**
      * delete a company based on its ID.
      *
@@ -57,8 +66,26 @@ public interface ICompanyService {
      * update an existing company.
      *
      * @param company to update
+     * @return the updated company, with its new version
+     */
+    Company updateCompany(Company company);
+
+    /**
+     * update an existing company if it was not updated since a version was read.
+     *
+     * @param company         to update
+     * @param expectedVersion version the update is based on
+     * @return the updated company, with its new version
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the company has another version
+     */
+    Company updateCompany(Company company, long expectedVersion);
+
+    /**
+     * Counter changed by every write on the computers and the companies.
+     *
+     * @return the current write generation
      */
-    void updateCompany(Company company);
+    long getWriteGeneration();
 
     /**
      * Return the list of Computer names that contains the value typed by the user.
@@ -3,10 +3,15 @@ package com.excilys.service.company.impl;
 
 import com.excilys.binding.validation.ValidatorUtil;
 import com.excilys.core.model.Company;
+import com.excilys.core.model.PageCursor;
 import com.excilys.core.model.PageParameters;
 import com.excilys.persistence.dao.CompanyDAO;
 import com.excilys.persistence.dao.ComputerDAO;
+import com.excilys.persistence.dao.WriteGeneration;
 import com.excilys.service.ICompanyService;
+import com.excilys.service.change.ChangeEvent.Entity;
+import com.excilys.service.change.ChangeEvent.Type;
+import com.excilys.service.change.ChangeLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +31,10 @@ public class CompanyService implements ICompanyService {
     private ComputerDAO computerDAO;
     @Autowired
     private ValidatorUtil validator;
+    @Autowired
+    private WriteGeneration writeGeneration;
+    @Autowired
+    private ChangeLog changeLog;
 
     @Override
     @Transactional(readOnly = true)
@@ -43,6 +52,14 @@ public class CompanyService implements ICompanyService {
         return this.companyDAO.findAll(page);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Company> getCompaniesAfter(PageCursor cursor) {
+        this.LOGGER.debug("entering getCompaniesAfter()");
+        this.validator.validatePageCursor(cursor);
+        return this.companyDAO.findAfter(cursor);
+    }
+
     @Override
     @Transactional
     public void deleteCompany(Long id) {
@@ -51,8 +68,11 @@ public class CompanyService implements ICompanyService {
         Company company = this.companyDAO.find(id);
 
         if (company != null) {
+            List<Long> computers = this.computerDAO.findIdsByCompanyId(id);
             this.computerDAO.deleteByCompanyId(id);
             this.companyDAO.delete(company);
+            computers.forEach(computer -> this.changeLog.record(Entity.COMPUTER, Type.DELETED, computer));
+            this.changeLog.record(Entity.COMPANY, Type.DELETED, id);
         }
     }
 
@@ -74,14 +94,32 @@ public class CompanyService implements ICompanyService {
     @Transactional
     public Company createCompany(Company company) {
         this.LOGGER.debug("entering createCompany()");
-        return this.companyDAO.create(company);
+        Company created = this.companyDAO.create(company);
+        this.changeLog.record(Entity.COMPANY, Type.CREATED, created.getId());
+        return created;
     }
 
     @Override
     @Transactional
-    public void updateCompany(Company company) {
+    public Company updateCompany(Company company) {
         this.LOGGER.debug("entering updateCompany()");
-        this.companyDAO.update(company);
+        Company updated = this.companyDAO.update(company);
+        this.changeLog.record(Entity.COMPANY, Type.UPDATED, updated.getId());
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public Company updateCompany(Company company, long expectedVersion) {
+        this.LOGGER.debug("entering updateCompany(company, expectedVersion)");
+        Company updated = this.companyDAO.update(company, expectedVersion);
+        this.changeLog.record(Entity.COMPANY, Type.UPDATED, updated.getId());
+        return updated;
+    }
+
+    @Override
+    public long getWriteGeneration() {
+        return this.writeGeneration.get();
     }
 
     @Override
@@ -0,0 +1,147 @@
+package com.excilys.service.computer;
+
+import com.excilys.core.model.Computer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Writes on computers done in one transaction by IComputerService.writeComputers, in the order they were added.
+ * <p>
+ * Each write gets an outcome instead of failing the others : an update or a delete of a missing computer is
+ * NOT_FOUND, an update whose precondition is false on the stored computer is PRECONDITION_FAILED.
+ *
+ * @author excilys
+ */
+public class ComputerBatch {
+
+    /**
+     * Outcome of a write.
+     */
+    public enum Outcome {
+        PENDING, CREATED, UPDATED, DELETED, NOT_FOUND, PRECONDITION_FAILED
+    }
+
+    /**
+     * Kind of a write.
+     */
+    public enum Kind {
+        CREATE, UPDATE, DELETE
+    }
+
+    /**
+     * A write of the batch.
+     */
+    public static final class Write {
+
+        // list of the variables
+        private final Kind kind;
+        private final long id;
+        private final Computer computer;
+        private final Predicate<Computer> precondition;
+        private Outcome outcome = Outcome.PENDING;
+        private Computer result;
+
+        private Write(Kind kind, long id, Computer computer, Predicate<Computer> precondition) {
+            this.kind = kind;
+            this.id = id;
+            this.computer = computer;
+            this.precondition = precondition;
+        }
+
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        public long getId() {
+            return this.id;
+        }
+
+        public Computer getComputer() {
+            return this.computer;
+        }
+
+        /**
+         * Check the precondition of an update.
+         *
+         * @param current stored computer
+         * @return true if there is no precondition or if it holds
+         */
+        public boolean accepts(Computer current) {
+            return this.precondition == null || this.precondition.test(current);
+        }
+
+        public Outcome getOutcome() {
+            return this.outcome;
+        }
+
+        /**
+         * Set the outcome of the write.
+         *
+         * @param outcome of the write
+         * @param result  created or updated computer, null otherwise
+         */
+        public void done(Outcome outcome, Computer result) {
+            this.outcome = outcome;
+            this.result = result;
+        }
+
+        /**
+         * Created or updated computer, with its id and its new version once the transaction is committed.
+         *
+         * @return the computer, null for the other outcomes
+         */
+        public Computer getResult() {
+            return this.result;
+        }
+    }
+
+    // list of the variables
+    private final List<Write> writes = new ArrayList<>();
+
+    /**
+     * Add the creation of a computer.
+     *
+     * @param computer to create, validated
+     * @return the write
+     */
+    public Write create(Computer computer) {
+        return this.add(new Write(Kind.CREATE, 0, computer, null));
+    }
+
+    /**
+     * Add the update of a computer.
+     *
+     * @param computer     new values, with the id of the computer to update, validated
+     * @param precondition on the stored computer, like an If-Match, null for none
+     * @return the write
+     */
+    public Write update(Computer computer, Predicate<Computer> precondition) {
+        return this.add(new Write(Kind.UPDATE, computer.getId(), computer, precondition));
+    }
+
+    /**
+     * Add the deletion of a computer.
+     *
+     * @param id of the computer
+     * @return the write
+     */
+    public Write delete(long id) {
+        return this.add(new Write(Kind.DELETE, id, null, null));
+    }
+
+    private Write add(Write write) {
+        this.writes.add(write);
+        return write;
+    }
+
+    public List<Write> getWrites() {
+        return Collections.unmodifiableList(this.writes);
+    }
+
+    public boolean isEmpty() {
+        return this.writes.isEmpty();
+    }
+}
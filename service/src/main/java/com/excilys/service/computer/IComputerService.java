@@ -1,10 +1,16 @@
 package com.excilys.service.computer;
 
 import com.excilys.core.model.Computer;
+import com.excilys.core.model.ComputerField;
 import com.excilys.core.model.Page;
+import com.excilys.core.model.PageCursor;
 import com.excilys.core.model.PageParameters;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IComputerService {
 
@@ -27,8 +33,43 @@ public interface IComputerService {
      * update a computer.
      *
      * @param computer computer to update
+     * @return the updated computer, with its new version
      */
-    void updateComputer(Computer computer);
+    Computer updateComputer(Computer computer);
+
+    /**
+     * update a computer if it was not updated since a version was read.
+     *
+     * @param computer        computer to update
+     * @param expectedVersion version the update is based on
+     * @return the updated computer, with its new version
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the computer has another version
+     */
+    Computer updateComputer(Computer computer, long expectedVersion);
+
+    /**
+     * Get computers by id in one query.
+     *
+     * @param ids of the computers
+     * @return the computers found, with their company, in no particular order
+     */
+    List<Computer> getComputersByIds(Collection<Long> ids);
+
+    /**
+     * Do the writes of a batch in one transaction, in their order, and set the outcome of each one. The updates and
+     * the deletes read the computers they need in one query.
+     *
+     * @param batch writes to do, with computers already validated
+     */
+    void writeComputers(ComputerBatch batch);
+
+    /**
+     * Counter changed by every write on the computers and the companies, to know if a list read before is still
+     * up to date.
+     *
+     * @return the current write generation
+     */
+    long getWriteGeneration();
 
     /**
      * add a new computer to the database based on a computer object.
@@ -38,6 +79,23 @@ public interface IComputerService {
      */
     Computer createComputer(Computer computer);
 
+    /**
+     * add a list of computers to the database in a single transaction.
+     *
+     * @param computers computers to add to the database
+     * @return the created computers, with their id, in the same order
+     */
+    List<Computer> createComputers(List<Computer> computers);
+
+    /**
+     * Move the rows of a bulk import from the staging table into the database in one statement, then index them.
+     * The exact duplicates of computers already in the database are skipped.
+     *
+     * @param batchId of the import in the staging table
+     * @return the number of created computers
+     */
+    long createStagedComputers(String batchId);
+
     /**
      * get computer by its id.
      *
@@ -70,6 +128,52 @@ public interface IComputerService {
      */
     Page<Computer> getComputersPage(PageParameters param);
 
+    /**
+     * Get the page of computers following a cursor, with a seek on the sort key and the id instead of an offset.
+     *
+     * @param cursor position of the page
+     * @return the computers of the page, with their company, fewer than its size on the last page
+     */
+    List<Computer> getComputersAfter(PageCursor cursor);
+
+    /**
+     * Go through all the computers matching the search of the parameters, in their order, ignoring the size and
+     * the number of the page. The computers are read from a cursor, in one read-only transaction.
+     *
+     * @param param    search and order of the computers
+     * @param consumer called for each computer, the computers are detached
+     */
+    void exportComputers(PageParameters param, Consumer<Computer> consumer);
+
+    /**
+     * Go through the computers of the page of the parameters, like getComputersPage without the list and the total
+     * count. The computers are read from a cursor, in one read-only transaction.
+     *
+     * @param param    parameters of the page
+     * @param consumer called for each computer, the computers are detached
+     */
+    void streamComputers(PageParameters param, Consumer<Computer> consumer);
+
+    /**
+     * Go through some fields of the computers of the page of the parameters, like streamComputers but only the
+     * columns of the fields are read from the database.
+     *
+     * @param param    parameters of the page
+     * @param fields   to read, not empty
+     * @param consumer called for each computer with the values of the fields, in their order
+     */
+    void streamComputerFields(PageParameters param, List<ComputerField> fields, Consumer<Object[]> consumer);
+
+    /**
+     * Write all the companies and the computers, ordered by id, in the columnar snapshot format of
+     * com.excilys.core.snapshot, in one read-only transaction.
+     *
+     * @param out to write to, closed at the end
+     * @return number of computers written
+     * @throws IOException if the snapshot cannot be written
+     */
+    long exportSnapshot(OutputStream out) throws IOException;
+
     /**
      * Return the list of all the computers.
      *
@@ -84,4 +188,21 @@ public interface IComputerService {
      * @return A list of names.
      */
     List<String> findAutocompleteResult(String entry);
+
+    /**
+     * Find a computer in the database with the same normalized name, dates and company.
+     *
+     * @param computer to look for, its own id is ignored
+     * @return the duplicate or null if there is none
+     */
+    Computer findExactDuplicate(Computer computer);
+
+    /**
+     * Search the computers with a name close to the one of the given computer, using the lucene index.
+     *
+     * @param computer to compare with
+     * @param max      number of computers to return
+     * @return the best matches
+     */
+    List<Computer> findSimilar(Computer computer, int max);
 }
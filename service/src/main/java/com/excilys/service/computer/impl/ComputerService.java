@@ -1,12 +1,25 @@
 package com.excilys.service.computer.impl;
 
+import com.excilys.binding.validation.ValidatorException;
 import com.excilys.binding.validation.ValidatorUtil;
+import com.excilys.core.conflict.doublon.Fingerprint;
+import com.excilys.core.model.Company;
 import com.excilys.core.model.Computer;
+import com.excilys.core.model.ComputerField;
 import com.excilys.core.model.Page;
+import com.excilys.core.model.PageCursor;
 import com.excilys.core.model.PageParameters;
+import com.excilys.core.snapshot.SnapshotWriter;
 import com.excilys.persistence.dao.CompanyDAO;
 import com.excilys.persistence.dao.ComputerDAO;
+import com.excilys.persistence.dao.ComputerStagingDAO;
+import com.excilys.persistence.dao.WriteGeneration;
+import com.excilys.service.change.ChangeEvent.Entity;
+import com.excilys.service.change.ChangeEvent.Type;
+import com.excilys.service.change.ChangeLog;
+import com.excilys.service.computer.ComputerBatch;
 import com.excilys.service.computer.IComputerService;
+import com.excilys.service.doublon.FingerprintFilter;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.store.FSDirectory;
@@ -22,10 +35,20 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.FileSystems;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Service
 public class ComputerService implements IComputerService {
@@ -36,12 +59,23 @@ public class ComputerService implements IComputerService {
     protected PlatformTransactionManager txManager;
     @Autowired
     private ComputerDAO computerDAO;
+    @Autowired
+    private ChangeLog changeLog;
 
     @Autowired
     private CompanyDAO companyDAO;
 
+    @Autowired
+    private ComputerStagingDAO stagingDAO;
+
+    @Autowired
+    private WriteGeneration writeGeneration;
+
     @Autowired
     private ValidatorUtil validator;
+
+    @Autowired
+    private FingerprintFilter fingerprintFilter;
     /**
      * cache for the total number of computers in the database.
      */
@@ -58,6 +92,7 @@ public class ComputerService implements IComputerService {
         if (computer != null) {
             this.computerDAO.delete(computer);
             this.count.decrementAndGet();
+            this.changeLog.record(Entity.COMPUTER, Type.DELETED, id);
         }
     }
 
@@ -66,14 +101,102 @@ public class ComputerService implements IComputerService {
     public void deleteComputers(List<Long> ids) {
         this.LOGGER.debug("entering deleteComputers(List<Long>)");
         this.computerDAO.deleteAll(ids);
+        ids.forEach(id -> this.changeLog.record(Entity.COMPUTER, Type.DELETED, id));
     }
 
     @Override
     @Transactional
-    public void updateComputer(Computer computer) {
+    public Computer updateComputer(Computer computer) {
         this.LOGGER.debug("entering updateComputer()");
         this.validator.validateComputer(computer);
-        this.computerDAO.update(computer);
+        Computer updated = this.computerDAO.update(computer);
+        this.fingerprintFilter.add(updated.getFingerprint());
+        this.changeLog.record(Entity.COMPUTER, Type.UPDATED, updated.getId());
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public Computer updateComputer(Computer computer, long expectedVersion) {
+        this.LOGGER.debug("entering updateComputer(computer, expectedVersion)");
+        this.validator.validateComputer(computer);
+        Computer updated = this.computerDAO.update(computer, expectedVersion);
+        this.fingerprintFilter.add(updated.getFingerprint());
+        this.changeLog.record(Entity.COMPUTER, Type.UPDATED, updated.getId());
+        return updated;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Computer> getComputersByIds(Collection<Long> ids) {
+        this.LOGGER.debug("entering getComputersByIds()");
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return this.computerDAO.findByIds(ids);
+    }
+
+    @Override
+    @Transactional
+    public void writeComputers(ComputerBatch batch) {
+        this.LOGGER.debug("entering writeComputers()");
+        Set<Long> ids = new HashSet<>();
+        for (ComputerBatch.Write write : batch.getWrites()) {
+            if (write.getKind() != ComputerBatch.Kind.CREATE) {
+                ids.add(write.getId());
+            }
+        }
+        // the updates find their computer in the persistence context, without another query
+        Map<Long, Computer> stored = new HashMap<>();
+        this.getComputersByIds(ids).forEach(computer -> stored.put(computer.getId(), computer));
+
+        long added = 0;
+        for (ComputerBatch.Write write : batch.getWrites()) {
+            switch (write.getKind()) {
+                case CREATE:
+                    this.validator.validateComputer(write.getComputer());
+                    Computer created = this.computerDAO.create(write.getComputer());
+                    this.fingerprintFilter.add(created.getFingerprint());
+                    write.done(ComputerBatch.Outcome.CREATED, created);
+                    this.changeLog.record(Entity.COMPUTER, Type.CREATED, created.getId());
+                    added++;
+                    break;
+                case UPDATE:
+                    Computer current = stored.get(write.getId());
+                    if (current == null) {
+                        write.done(ComputerBatch.Outcome.NOT_FOUND, null);
+                    } else if (!write.accepts(current)) {
+                        write.done(ComputerBatch.Outcome.PRECONDITION_FAILED, null);
+                    } else {
+                        this.validator.validateComputer(write.getComputer());
+                        Computer updated = this.computerDAO.update(write.getComputer());
+                        this.fingerprintFilter.add(updated.getFingerprint());
+                        write.done(ComputerBatch.Outcome.UPDATED, updated);
+                        this.changeLog.record(Entity.COMPUTER, Type.UPDATED, updated.getId());
+                    }
+                    break;
+                default:
+                    Computer deleted = stored.remove(write.getId());
+                    if (deleted == null) {
+                        write.done(ComputerBatch.Outcome.NOT_FOUND, null);
+                    } else {
+                        this.computerDAO.delete(deleted);
+                        write.done(ComputerBatch.Outcome.DELETED, null);
+                        this.changeLog.record(Entity.COMPUTER, Type.DELETED, write.getId());
+                        added--;
+                    }
+                    break;
+            }
+        }
+
+        if (this.count != null) {
+            this.count.addAndGet(added);
+        }
+    }
+
+    @Override
+    public long getWriteGeneration() {
+        return this.writeGeneration.get();
     }
 
     @Override
@@ -83,6 +206,8 @@ public class ComputerService implements IComputerService {
         this.validator.validateComputer(computer);
 
         Computer c = this.computerDAO.create(computer);
+        this.fingerprintFilter.add(c.getFingerprint());
+        this.changeLog.record(Entity.COMPUTER, Type.CREATED, c.getId());
 
         if (this.count != null) {
             this.count.incrementAndGet();
@@ -91,6 +216,58 @@ public class ComputerService implements IComputerService {
         return c;
     }
 
+    @Override
+    @Transactional
+    public List<Computer> createComputers(List<Computer> computers) {
+        this.LOGGER.debug("entering createComputers(List<Computer>)");
+        computers.forEach(this.validator::validateComputer);
+
+        List<Computer> created = new ArrayList<>(computers.size());
+        for (Computer computer : computers) {
+            Computer saved = this.computerDAO.create(computer);
+            this.fingerprintFilter.add(saved.getFingerprint());
+            this.changeLog.record(Entity.COMPUTER, Type.CREATED, saved.getId());
+            created.add(saved);
+        }
+
+        if (this.count != null) {
+            this.count.addAndGet(computers.size());
+        }
+        return created;
+    }
+
+    @Override
+    public long createStagedComputers(String batchId) {
+        this.LOGGER.debug("entering createStagedComputers()");
+        TransactionTemplate tmpl = new TransactionTemplate(this.txManager);
+
+        // ids of the new rows, other computers created at the same time can be in the range too
+        long[] range = tmpl.execute(status -> {
+            long before = this.computerDAO.maxId();
+            int inserted = this.stagingDAO.moveToComputer(batchId);
+            this.stagingDAO.remove(batchId);
+            if (inserted > 0) {
+                // committed with the rows, one change rather than one per imported row, they would push everything
+                // else out of the feed
+                this.changeLog.record(Entity.COMPUTER, Type.RELOAD, 0);
+            }
+            return new long[]{before + 1, this.computerDAO.maxId(), inserted};
+        });
+
+        if (range[2] > 0) {
+            tmpl.execute(status -> {
+                long indexed = this.computerDAO.reindex(range[0], range[1]);
+                this.computerDAO.forEachFingerprint(range[0], range[1], this.fingerprintFilter::add);
+                this.LOGGER.info("Indexed " + indexed + " computers after a bulk import.");
+                return null;
+            });
+            if (this.count != null) {
+                this.count.addAndGet(range[2]);
+            }
+        }
+        return range[2];
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Computer getComputer(Long id) {
@@ -107,6 +284,60 @@ public class ComputerService implements IComputerService {
         return this.computerDAO.findAll(page);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void exportComputers(PageParameters param, Consumer<Computer> consumer) {
+        this.LOGGER.debug("entering exportComputers()");
+        this.validator.validatePageParameters(param);
+        this.computerDAO.forEach(param, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamComputers(PageParameters param, Consumer<Computer> consumer) {
+        this.LOGGER.debug("entering streamComputers()");
+        this.validator.validatePageParameters(param);
+        this.computerDAO.forEachInPage(param, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamComputerFields(PageParameters param, List<ComputerField> fields, Consumer<Object[]> consumer) {
+        this.LOGGER.debug("entering streamComputerFields()");
+        this.validator.validatePageParameters(param);
+        if (fields.isEmpty()) {
+            throw new ValidatorException("No field to read");
+        }
+        this.computerDAO.forEachInPage(param, fields, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Computer> getComputersAfter(PageCursor cursor) {
+        this.LOGGER.debug("entering getComputersAfter()");
+        this.validator.validatePageCursor(cursor);
+        return this.computerDAO.findAfter(cursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportSnapshot(OutputStream out) throws IOException {
+        this.LOGGER.debug("entering exportSnapshot()");
+        try (SnapshotWriter writer = new SnapshotWriter(out, SnapshotWriter.DEFAULT_ROW_GROUP_SIZE)) {
+            this.companyDAO.findAll().forEach(writer::addCompany);
+            this.computerDAO.forEachById(computer -> {
+                try {
+                    writer.write(computer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return writer.getRows();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<Computer> getComputersPage(PageParameters param) {
@@ -129,6 +360,46 @@ public class ComputerService implements IComputerService {
         return new Page.Builder<Computer>().list(computers).totalCount(nbComputers).params(param).build();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Computer findExactDuplicate(Computer computer) {
+        this.LOGGER.debug("entering findExactDuplicate()");
+        long fingerprint = Fingerprint.of(computer);
+
+        if (!this.fingerprintFilter.mightContain(fingerprint)) {
+            return null;
+        }
+
+        // same fingerprint is not enough, check the fields in case of collision
+        Long companyId = computer.getCompany() == null ? null : computer.getCompany().getId();
+        String name = Fingerprint.normalize(computer.getName());
+        for (Computer candidate : this.computerDAO.findByFingerprint(fingerprint)) {
+            Long candidateCompanyId = candidate.getCompany() == null ? null : candidate.getCompany().getId();
+            if (!candidate.getId().equals(computer.getId())
+                    && name.equals(Fingerprint.normalize(candidate.getName()))
+                    && Objects.equals(computer.getIntroduced(), candidate.getIntroduced())
+                    && Objects.equals(computer.getDiscontinued(), candidate.getDiscontinued())
+                    && Objects.equals(companyId, candidateCompanyId)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Computer> findSimilar(Computer computer, int max) {
+        this.LOGGER.debug("entering findSimilar()");
+        Company company = computer.getCompany();
+
+        // the forms only send the id of the company
+        if (company != null && company.getName() == null && company.getId() != null) {
+            company = this.companyDAO.find(company.getId());
+        }
+
+        return this.computerDAO.findSimilar(computer.getName(), company == null ? null : company.getName(), max);
+    }
+
     @Override
     public List<Computer> getAll() {
         this.LOGGER.debug("entering get()");
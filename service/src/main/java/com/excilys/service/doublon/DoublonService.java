@@ -2,8 +2,10 @@ package com.excilys.service.doublon;
 
 
 
+import com.excilys.binding.doublon.DeduplicationWindow;
 import com.excilys.core.conflict.Rapport;
 import com.excilys.core.dto.ComputerDTO;
+import com.excilys.core.model.Computer;
 
 import java.util.List;
 
@@ -17,4 +19,23 @@ public interface DoublonService {
      */
     Rapport getRapport(List<ComputerDTO> computers);
 
+    /**
+     * Generate the rapport of a chunk of an import, collapsing its rows with the ones kept from the previous chunks.
+     *
+     * @param computers list to check
+     * @param window    rows kept from the previous chunks of the import, the rows kept from this one are added
+     * @return a rapport
+     */
+    Rapport getRapport(List<ComputerDTO> computers, DeduplicationWindow window);
+
+    /**
+     * Look for the computers of the database which are probably the same as the given one.
+     * <p>
+     * Only a few candidates are taken from the search index, so it is fast enough to be done on every create.
+     *
+     * @param computer to check
+     * @return the likely duplicates, the most similar first
+     */
+    List<Computer> findLikelyDuplicates(Computer computer);
+
 }
@@ -1,18 +1,28 @@
 package com.excilys.service.doublon;
 
+import com.excilys.binding.doublon.BatchDeduplicator;
+import com.excilys.binding.doublon.DeduplicationWindow;
 import com.excilys.binding.doublon.Levenshtein;
 import com.excilys.binding.doublon.SimilarityCalculator;
 import com.excilys.binding.mapper.IComputerMapper;
 import com.excilys.core.conflict.Rapport;
 import com.excilys.core.conflict.doublon.Doublon;
+import com.excilys.core.conflict.doublon.Fingerprint;
 import com.excilys.core.dto.ComputerDTO;
+import com.excilys.core.model.Company;
+import com.excilys.core.model.Computer;
 import com.excilys.service.ICompanyService;
 import com.excilys.service.computer.IComputerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service("doublonService")
 public class DoublonServiceImpl implements DoublonService {
@@ -28,47 +38,113 @@ public class DoublonServiceImpl implements DoublonService {
 
     private static final double TO_CHECK = 95.0;
     private static final double TO_REFUSE = 100.0;
+    private static final double TO_WARN = 80.0;
+    private static final int BATCH_WINDOW = 10;
+    private static final int CANDIDATES = 10;
 
     private SimilarityCalculator levenshtein = new Levenshtein();
+    private BatchDeduplicator deduplicator = new BatchDeduplicator(levenshtein, BATCH_WINDOW, TO_CHECK);
 
     @Override
     public Rapport getRapport(List<ComputerDTO> computers) {
-        List<ComputerDTO> computersInBase = computerMapper.toDTO(this.computerService.getAll());
+        return this.getRapport(computers, null);
+    }
+
+    @Override
+    public Rapport getRapport(List<ComputerDTO> computers, DeduplicationWindow window) {
+        Map<String, String> companyIds = new HashMap<>();
         Rapport retVal = new Rapport();
+
+        // duplicates inside the file first, so they are not compared with the database
+        computers = this.deduplicator.deduplicate(computers, retVal.getCollapsed(), window);
+
         for (ComputerDTO computerOut : computers) {
-            List<ComputerDTO> tList = check(computersInBase, computerOut, this.TO_CHECK);
-            if (tList.isEmpty()) {
-                tList.addAll(check(computersInBase, computerOut, this.TO_REFUSE));
-                if (tList.isEmpty()) {
-                    computerOut.setCompanyId(companyService.getCompanyByName(computerOut.getCompanyName()).getId() + "");
-                    retVal.getToImport().add(computerOut);
-                } else {
-                    retVal.getToCheck().add(new Doublon(computerOut, tList));
-                }
+            computerOut.setCompanyId(companyIds.computeIfAbsent(computerOut.getCompanyName(), this::findCompanyId));
+            Computer computer = this.computerMapper.fromDTO(computerOut);
+
+            // exact duplicates are refused with a single hash lookup, before any fuzzy comparison
+            Computer exact = this.computerService.findExactDuplicate(computer);
+            if (exact != null) {
+                retVal.getRefuse().add(new Doublon(computerOut, Collections.singletonList(this.computerMapper.toDTO(exact))));
+                continue;
+            }
+
+            // then a few candidates from the search index instead of the whole table
+            List<Computer> duplicates = this.findDuplicates(computer, TO_CHECK);
+            if (duplicates.isEmpty()) {
+                retVal.getToImport().add(computerOut);
+            } else if (this.similarity(computer, duplicates.get(0)) >= TO_REFUSE) {
+                retVal.getRefuse().add(new Doublon(computerOut, this.computerMapper.toDTO(duplicates)));
             } else {
-                retVal.getRefuse().add(new Doublon(computerOut, tList));
+                retVal.getToCheck().add(new Doublon(computerOut, this.computerMapper.toDTO(duplicates)));
             }
         }
         return retVal;
     }
 
+    @Override
+    public List<Computer> findLikelyDuplicates(Computer computer) {
+        return this.findDuplicates(computer, TO_WARN);
+    }
+
     /**
-     * Use to check all the elements of the computers to check if we should import them in the database or not.
+     * Look in the search index for the computers similar to the given one.
      *
-     * @param computerIns to check
-     * @param computerOut to check
-     * @param rule        to use to check
-     * @return the list of computer where we have a conflicts
+     * @param computer to check
+     * @param rule     minimal similarity of the names
+     * @return the computers over the rule, the most similar first
      */
-    private List<ComputerDTO> check(List<ComputerDTO> computerIns, ComputerDTO computerOut, double rule) {
-        List<ComputerDTO> retVal = new ArrayList<>();
-        for (ComputerDTO computerIn : computerIns) {
-            if (levenshtein.getPercentSimilarity(computerIn.getName(), computerOut.getName()) >= rule) {
-                retVal.add(computerIn);
-                break;
+    private List<Computer> findDuplicates(Computer computer, double rule) {
+        if (Fingerprint.normalize(computer.getName()).isEmpty()) {
+            return Collections.emptyList();
+        }
+        Long companyId = computer.getCompany() == null ? null : computer.getCompany().getId();
+
+        Map<Computer, Double> scores = new HashMap<>();
+        for (Computer candidate : this.computerService.findSimilar(computer, CANDIDATES)) {
+            Long candidateCompanyId = candidate.getCompany() == null ? null : candidate.getCompany().getId();
+            if (companyId != null && candidateCompanyId != null && !Objects.equals(companyId, candidateCompanyId)) {
+                continue;
+            }
+            double score = this.similarity(computer, candidate);
+            if (score >= rule) {
+                scores.put(candidate, score);
             }
         }
-        return retVal;
+
+        return scores.keySet().stream()
+                .sorted(Comparator.comparing(scores::get).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Similarity of the normalized names of two computers.
+     *
+     * @param left  computer
+     * @param right computer
+     * @return the percentage of similarity, 0 if a name is empty
+     */
+    private double similarity(Computer left, Computer right) {
+        String leftName = Fingerprint.normalize(left.getName());
+        String rightName = Fingerprint.normalize(right.getName());
+        if (leftName.isEmpty() || rightName.isEmpty()) {
+            return 0;
+        }
+        return this.levenshtein.getPercentSimilarity(leftName, rightName);
+    }
+
+    /**
+     * Get the id of a company from its name.
+     *
+     * @param companyName to look for
+     * @return the id of the company, empty if the company does not exist
+     */
+    private String findCompanyId(String companyName) {
+        if (companyName == null || companyName.isEmpty()) {
+            return "";
+        }
+        Company company = this.companyService.getCompanyByName(companyName);
+        return company == null ? "" : company.getId().toString();
     }
 
 }
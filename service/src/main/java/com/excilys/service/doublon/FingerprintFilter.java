@@ -0,0 +1,138 @@
+package com.excilys.service.doublon;
+
+import com.excilys.binding.doublon.BloomFilter;
+import com.excilys.persistence.dao.ComputerDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In memory Bloom filter of the fingerprints of all the computers in the database.
+ * <p>
+ * A negative answer means there is no exact duplicate in the database, so the caller can skip the lookup.
+ * Fingerprints of deleted or updated computers stay in the filter, they only cost a useless lookup.
+ *
+ * @author excilys
+ */
+@Component
+public class FingerprintFilter {
+
+    // list of the variables
+    private static final long MIN_CAPACITY = 100000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private final Logger LOGGER = LoggerFactory.getLogger(FingerprintFilter.class);
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Autowired
+    private ComputerDAO computerDAO;
+
+    private volatile BloomFilter filter;
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * Check if a computer with this fingerprint might be in the database.
+     *
+     * @param fingerprint to check
+     * @return false if there is surely no computer with this fingerprint
+     */
+    public boolean mightContain(long fingerprint) {
+        return this.getFilter().mightContain(fingerprint);
+    }
+
+    /**
+     * Add the fingerprint of a computer written in the database.
+     *
+     * @param fingerprint to add
+     */
+    public void add(Long fingerprint) {
+        if (fingerprint == null) {
+            return;
+        }
+        BloomFilter current = this.getFilter();
+        current.put(fingerprint);
+        if (this.size.incrementAndGet() > current.getCapacity()) {
+            this.rebuild(current);
+        }
+        // the filter may have been replaced by a load which did not see this fingerprint yet
+        BloomFilter latest = this.filter;
+        if (latest != current) {
+            latest.put(fingerprint);
+        }
+    }
+
+    /**
+     * Get the filter, loading it the first time.
+     *
+     * @return the filter
+     */
+    private BloomFilter getFilter() {
+        BloomFilter current = this.filter;
+        if (current == null) {
+            current = this.rebuild(null);
+        }
+        return current;
+    }
+
+    /**
+     * Load the filter again from the database, twice as large as the current number of fingerprints.
+     *
+     * @param previous the filter seen by the caller, the load is skipped if another thread already replaced it
+     * @return the new filter
+     */
+    private synchronized BloomFilter rebuild(BloomFilter previous) {
+        if (this.filter != previous) {
+            return this.filter;
+        }
+        this.LOGGER.debug("entering rebuild()");
+
+        TransactionTemplate tmpl = new TransactionTemplate(this.txManager);
+        tmpl.setReadOnly(true);
+        BloomFilter result = tmpl.execute(status -> {
+            long count = this.computerDAO.count();
+            BloomFilter bloom = new BloomFilter(Math.max(MIN_CAPACITY, count * 2), FALSE_POSITIVE_RATE);
+            AtomicLong loaded = new AtomicLong();
+            this.computerDAO.forEachFingerprint(fingerprint -> {
+                bloom.put(fingerprint);
+                loaded.incrementAndGet();
+            });
+            this.size.set(loaded.get());
+            return bloom;
+        });
+
+        this.LOGGER.info("Loaded " + this.size.get() + " fingerprints in the duplicate filter.");
+        this.filter = result;
+        return result;
+    }
+
+    /**
+     * PostConstruct method to compute the missing fingerprints (rows inserted by the sql scripts or before the
+     * column existed).
+     * <p>
+     * TransactionCallbackWithoutResult is necessary in order to make sure that the context is fully instantiated.
+     */
+    @PostConstruct
+    public void initIt() {
+        TransactionTemplate tmpl = new TransactionTemplate(this.txManager);
+
+        tmpl.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                int updated = computerDAO.fillMissingFingerprints();
+                if (updated > 0) {
+                    LOGGER.warn("Computed the fingerprint of " + updated + " computers.");
+                }
+            }
+        });
+    }
+}
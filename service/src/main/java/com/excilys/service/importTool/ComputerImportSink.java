@@ -0,0 +1,19 @@
+package com.excilys.service.importTool;
+
+import com.excilys.core.conflict.ImportChunk;
+
+/**
+ * Receive the chunks of an import as they are read.
+ *
+ * @author excilys
+ */
+@FunctionalInterface
+public interface ComputerImportSink {
+
+    /**
+     * Handle a chunk of the file.
+     *
+     * @param chunk of validated rows
+     */
+    void accept(ImportChunk chunk);
+}
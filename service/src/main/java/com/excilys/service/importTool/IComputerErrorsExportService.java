@@ -1,5 +1,8 @@
 package com.excilys.service.importTool;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -23,33 +26,55 @@ public interface IComputerErrorsExportService {
     static final String ERROR_SEPARATOR = "| ";
 
     /**
-     * Export all computers with format errors in a String.
+     * Export all computers with format errors as csv, one line at a time, so the
+     * report is never built in memory.
      *
      * @param dtosErrors
-     *            list of computers to export
+     *            computers to export
+     * @param writer
+     *            where the csv is written, buffered by the caller, not closed
+     * @throws IOException
+     *             if the writer fails
+     */
+    void csvFileWriter(Iterable<? extends Error> dtosErrors, Writer writer) throws IOException;
+
+    /**
+     * Export the refused rows of an import as csv, read from its rapport file by
+     * pages, so the memory does not depend on the size of the rapport. The
+     * errors column is the reason written in the rapport.
+     *
+     * @param rapportFile
+     *            of the import
+     * @param writer
+     *            where the csv is written, buffered by the caller, not closed
+     * @throws IOException
+     *             if the writer fails
      */
-    String csvFileWriter(List<Error> dtosErrors);
+    void csvFileWriter(Path rapportFile, Writer writer) throws IOException;
 
     /**
-     * Write all error messages in the string buffer "writer".
+     * Write all error messages in "writer".
      *
      * @param writer
-     *            file writer linked with the file to write in
+     *            where the messages are written
      * @param errorMap
      *            map which contains all error messages
+     * @throws IOException
+     *             if the writer fails
      */
-    void writeErrors(StringBuffer writer,
-            Map<Fields, List<ErrorMessage>> errorMap);
+    void writeErrors(Appendable writer,
+            Map<Fields, List<ErrorMessage>> errorMap) throws IOException;
 
     /**
-     * Write all the date's error messages in the file linked with the file
-     * writer "writer".
+     * Write all the date's error messages in "writer".
      *
      * @param dateErrors
      *            list of error messages
      * @param writer
-     *            file writer linked with the file to write in
+     *            where the messages are written
+     * @throws IOException
+     *             if the writer fails
      */
-    void writeDateErrors(List<ErrorMessage> dateErrors, StringBuffer writer);
+    void writeDateErrors(List<ErrorMessage> dateErrors, Appendable writer) throws IOException;
 
 }
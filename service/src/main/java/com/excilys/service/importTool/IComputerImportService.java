@@ -1,15 +1,89 @@
 package com.excilys.service.importTool;
 
 
-import com.excilys.core.conflict.Conflict;
+import com.excilys.core.conflict.ImportChunk;
 import com.excilys.core.conflict.Rapport;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
+import java.io.InputStream;
+import java.nio.file.Path;
 
 public interface IComputerImportService {
 
-    Rapport importComputersFromCSV(MultipartFile file);
+    /**
+     * Number of rows given to the sink at once.
+     */
+    int CHUNK_SIZE = 500;
 
-    Rapport importComputersFromXML(MultipartFile file);
+    /**
+     * Read and validate a csv file, the rows are given to the sink by chunks of CHUNK_SIZE.
+     *
+     * @param input content of the file, not closed
+     * @param sink  receiving the chunks
+     */
+    void importComputersFromCSV(InputStream input, ComputerImportSink sink);
+
+    /**
+     * Read and validate a xml file, the rows are given to the sink by chunks of CHUNK_SIZE.
+     *
+     * @param input content of the file, not closed
+     * @param sink  receiving the chunks
+     */
+    void importComputersFromXML(InputStream input, ComputerImportSink sink);
+
+    /**
+     * Read and validate a file in the given format, the rows are given to the sink by chunks of CHUNK_SIZE.
+     *
+     * @param input  content of the file, not closed
+     * @param format of the file, csv or xml
+     * @param sink   receiving the chunks
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    void importComputers(InputStream input, String format, ComputerImportSink sink);
+
+    /**
+     * Read a file in the given format without validating it, the rows are given to the sink by chunks
+     * of CHUNK_SIZE, all in ImportChunk.getComputers().
+     *
+     * @param input  content of the file, not closed
+     * @param format of the file, csv or xml
+     * @param sink   receiving the chunks
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    void readComputers(InputStream input, String format, ComputerImportSink sink);
+
+    /**
+     * Read a file already on the disk without validating it, like readComputers(InputStream, ...). The csv files
+     * are parsed in parallel, the chunks are still given to the sink in the order of the file, from the calling
+     * thread.
+     *
+     * @param file   to read
+     * @param format of the file, csv or xml
+     * @param sink   receiving the chunks
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    void readComputers(Path file, String format, ComputerImportSink sink);
+
+    /**
+     * Validate the computers of a chunk read by readComputers.
+     *
+     * @param chunk to validate
+     * @return a new chunk with the valid computers and the refused rows
+     */
+    ImportChunk validate(ImportChunk chunk);
+
+    /**
+     * Import a csv file in the database, chunk by chunk.
+     *
+     * @param input content of the file, not closed
+     * @return the rapport of the rows which were not imported
+     */
+    Rapport importComputersFromCSV(InputStream input);
+
+    /**
+     * Import a xml file in the database, chunk by chunk.
+     *
+     * @param input content of the file, not closed
+     * @return the rapport of the rows which were not imported
+     */
+    Rapport importComputersFromXML(InputStream input);
 }
@@ -0,0 +1,96 @@
+package com.excilys.service.importTool;
+
+import com.excilys.core.dto.ConflictDTO;
+import com.excilys.core.dto.CursorPageDTO;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface IImportJobService {
+
+    /**
+     * Copy the file in the spool directory and queue its import.
+     *
+     * @param input    content of the file, not closed
+     * @param fileName original name of the file
+     * @param format   of the file, csv or xml
+     * @param mode     how the rows are written in the database
+     * @return the queued job
+     * @throws java.util.concurrent.RejectedExecutionException if too many imports are already queued
+     * @throws IllegalArgumentException                        if the format is not supported
+     */
+    ImportJob submit(InputStream input, String fileName, String format, ImportJob.Mode mode);
+
+    /**
+     * Queue the import of a file already written on the disk, without copying it. The file belongs to the job
+     * once it is accepted, it is deleted when the import is done.
+     *
+     * @param file     to import
+     * @param fileName original name of the file
+     * @param format   of the file, csv or xml
+     * @param mode     how the rows are written in the database
+     * @return the queued job
+     * @throws java.util.concurrent.RejectedExecutionException if too many imports are already queued, the file
+     *                                                         is left in place
+     * @throws IllegalArgumentException                        if the format is not supported
+     */
+    ImportJob submit(Path file, String fileName, String format, ImportJob.Mode mode);
+
+    /**
+     * Queue again a failed, cancelled or interrupted import. It starts after the last chunk of its checkpoint,
+     * so the computers already inserted are not inserted twice.
+     *
+     * @param id of the job
+     * @return the queued job or null if it does not exist
+     * @throws IllegalStateException                           if the job is running or done
+     * @throws com.excilys.core.conflict.ImportException       if the spooled file was deleted
+     * @throws java.util.concurrent.RejectedExecutionException if too many imports are already queued
+     */
+    ImportJob resume(String id);
+
+    /**
+     * Get a job by its id, from its checkpoint if it is not in memory anymore.
+     *
+     * @param id of the job
+     * @return the job or null if it does not exist
+     */
+    ImportJob getJob(String id);
+
+    /**
+     * Get the csv file with the rows of a job which were not inserted, for all its runs.
+     *
+     * @param id of the job
+     * @return the file or null if there is none
+     */
+    Path getRapportFile(String id);
+
+    /**
+     * Get a page of the rows of a job which were not inserted, read from its rapport file.
+     *
+     * @param id    of the job
+     * @param first index of the first conflict, starting at 0
+     * @param size  maximum number of conflicts
+     * @return the conflicts, or null if the job has no rapport file
+     */
+    List<ConflictDTO> getConflicts(String id, long first, int size);
+
+    /**
+     * Get the rows of a job which were not inserted following an offset of its rapport file, without reading the
+     * rows before it.
+     *
+     * @param id     of the job
+     * @param offset returned with the previous page, 0 for the first one
+     * @param size   maximum number of conflicts
+     * @return the conflicts and the offset of the next page, or null if the job has no rapport file
+     */
+    CursorPageDTO<ConflictDTO> getConflictsAfter(String id, long offset, int size);
+
+    /**
+     * Ask a job to stop before its next chunk. The chunks already imported stay in the database.
+     *
+     * @param id of the job
+     * @return the job or null if it does not exist
+     */
+    ImportJob cancel(String id);
+}
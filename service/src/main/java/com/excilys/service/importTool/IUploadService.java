@@ -0,0 +1,60 @@
+package com.excilys.service.importTool;
+
+import com.excilys.core.dto.UploadDTO;
+
+import java.io.InputStream;
+
+public interface IUploadService {
+
+    /**
+     * Start a chunked upload.
+     *
+     * @param fileName original name of the file, its extension is the format
+     * @param size     of the file in bytes, 0 if unknown
+     * @return the state of the upload
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    UploadDTO create(String fileName, long size);
+
+    /**
+     * Get the state of an upload, to know where to resume it.
+     *
+     * @param id of the upload
+     * @return the state or null if the upload does not exist
+     */
+    UploadDTO getStatus(String id);
+
+    /**
+     * Write a chunk of the file. The chunk is only counted once it is on the disk and its checksum matches,
+     * so a chunk cut by a dropped connection is simply sent again.
+     *
+     * @param id       of the upload
+     * @param offset   of the chunk in the file, has to be the number of bytes received so far
+     * @param input    content of the chunk, not closed
+     * @param checksum SHA-256 of the chunk in hexadecimal, null to skip the check
+     * @return the state of the upload or null if it does not exist
+     * @throws IllegalStateException    if the offset is not the one expected
+     * @throws IllegalArgumentException if the chunk is too large or its checksum does not match
+     */
+    UploadDTO write(String id, long offset, InputStream input, String checksum);
+
+    /**
+     * Give the uploaded file to the importer, the upload does not exist anymore afterwards.
+     *
+     * @param id   of the upload
+     * @param mode how the rows are written in the database
+     * @return the queued job or null if the upload does not exist
+     * @throws IllegalStateException                           if the file is not complete
+     * @throws java.util.concurrent.RejectedExecutionException if too many imports are already queued, the
+     *                                                         upload can be completed again later
+     */
+    ImportJob complete(String id, ImportJob.Mode mode);
+
+    /**
+     * Abort an upload and delete its chunks.
+     *
+     * @param id of the upload
+     * @return false if the upload does not exist
+     */
+    boolean abort(String id);
+}
@@ -0,0 +1,244 @@
+package com.excilys.service.importTool;
+
+import com.excilys.core.conflict.Rapport;
+import com.excilys.core.dto.ImportJobDTO;
+import com.excilys.core.model.ImportCheckpoint;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An import running in the background.
+ * <p>
+ * The counters are updated by the worker after each chunk and can be read at any time, the rapport is only
+ * available once the job is finished. A resumed job keeps the id and the counters of its checkpoint, its rapport
+ * only has the rows of the last run.
+ *
+ * @author excilys
+ */
+public class ImportJob {
+
+    /**
+     * States of a job.
+     */
+    public enum State {
+        QUEUED, RUNNING, DONE, CANCELLED, FAILED, INTERRUPTED;
+
+        /**
+         * Check if a job in this state will not change anymore, unless it is resumed.
+         *
+         * @return true if the job is finished
+         */
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+
+        /**
+         * Check if a job in this state can be resumed from its checkpoint.
+         *
+         * @return true if the job stopped before the end of its file
+         */
+        public boolean isResumable() {
+            return this == CANCELLED || this == FAILED || this == INTERRUPTED;
+        }
+    }
+
+    /**
+     * How the rows of a job are written in the database.
+     */
+    public enum Mode {
+        /**
+         * Chunk by chunk through hibernate, with the similarity check and a checkpoint after each chunk.
+         */
+        CHECKED,
+        /**
+         * Loaded in a staging table then moved with one INSERT ... SELECT. Only the exact duplicates are skipped,
+         * for the very large files.
+         */
+        STAGED
+    }
+
+    // list of the variables
+    private final String id;
+    private final String fileName;
+    private final String format;
+    private final Path file;
+    private final Mode mode;
+    private final long skipRows;
+    private final long baseInserted;
+    private final long baseRejected;
+    private final AtomicLong parsed = new AtomicLong();
+    private final AtomicLong validated = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile State state = State.QUEUED;
+    private volatile boolean cancelRequested;
+    private volatile Rapport rapport;
+    private volatile String error;
+    private volatile long finishedAt;
+    private volatile List<ImportStage> stages = Collections.emptyList();
+
+    /**
+     * Constructor, the job starts after the last row of its checkpoint.
+     *
+     * @param checkpoint of the job, new or saved by a previous run
+     */
+    public ImportJob(ImportCheckpoint checkpoint) {
+        this.id = checkpoint.getId();
+        this.fileName = checkpoint.getFileName();
+        this.format = checkpoint.getFormat();
+        this.file = Paths.get(checkpoint.getFilePath());
+        this.mode = checkpoint.getMode() == null ? Mode.CHECKED : Mode.valueOf(checkpoint.getMode());
+        this.skipRows = checkpoint.getLastRow();
+        this.baseInserted = checkpoint.getInserted();
+        this.baseRejected = checkpoint.getRejected();
+        this.parsed.set(this.skipRows);
+        this.inserted.set(this.baseInserted);
+        this.rejected.set(this.baseRejected);
+    }
+
+    /**
+     * Get a finished job from its checkpoint, when it is not in memory anymore (after a restart for instance).
+     * Its rapport is only in the rapport file.
+     *
+     * @param checkpoint of the job
+     * @return the job
+     */
+    public static ImportJob fromCheckpoint(ImportCheckpoint checkpoint) {
+        ImportJob job = new ImportJob(checkpoint);
+        job.state = State.valueOf(checkpoint.getState());
+        return job;
+    }
+
+    /**
+     * Add the rows of a chunk which was read.
+     *
+     * @param rows number of rows of the chunk
+     */
+    public void addParsed(long rows) {
+        this.parsed.addAndGet(rows);
+    }
+
+    /**
+     * Add the rows of a chunk which passed the validation.
+     *
+     * @param rows number of valid rows of the chunk
+     */
+    public void addValidated(long rows) {
+        this.validated.addAndGet(rows);
+    }
+
+    /**
+     * Update the counts with the rapport of the rows handled so far.
+     *
+     * @param current rapport of the job
+     */
+    public void update(Rapport current) {
+        this.inserted.set(this.baseInserted + current.getImported());
+        this.rejected.set(this.baseRejected + current.getRejectedCount());
+    }
+
+    /**
+     * Mark the job as finished.
+     *
+     * @param finalState of the job
+     * @param result     rapport of the job, can be null if it failed
+     * @param message    error message, null if the job did not fail
+     */
+    public void finish(State finalState, Rapport result, String message) {
+        if (result != null) {
+            this.update(result);
+        }
+        this.rapport = result;
+        this.error = message;
+        this.finishedAt = System.currentTimeMillis();
+        this.state = finalState;
+    }
+
+    /**
+     * Ask the job to stop, it stops before its next chunk.
+     */
+    public void cancel() {
+        this.cancelRequested = true;
+    }
+
+    /**
+     * Get the progress of the job.
+     *
+     * @return the DTO
+     */
+    public ImportJobDTO toDTO() {
+        ImportJobDTO dto = new ImportJobDTO();
+        dto.setId(this.id);
+        dto.setFileName(this.fileName);
+        dto.setState(this.state.toString());
+        dto.setParsed(this.parsed.get());
+        dto.setValidated(this.validated.get());
+        dto.setInserted(this.inserted.get());
+        dto.setRejected(this.rejected.get());
+        dto.setError(this.error);
+        dto.setStages(this.stages.stream().map(ImportStage::toDTO).collect(Collectors.toList()));
+        return dto;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public String getFormat() {
+        return this.format;
+    }
+
+    public Path getFile() {
+        return this.file;
+    }
+
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Number of rows already imported by a previous run of the job.
+     *
+     * @return the last row of the checkpoint the job was resumed from, 0 for a new job
+     */
+    public long getSkipRows() {
+        return this.skipRows;
+    }
+
+    public State getState() {
+        return this.state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public boolean isCancelRequested() {
+        return this.cancelRequested;
+    }
+
+    public Rapport getRapport() {
+        return this.rapport;
+    }
+
+    public long getFinishedAt() {
+        return this.finishedAt;
+    }
+
+    public List<ImportStage> getStages() {
+        return this.stages;
+    }
+
+    public void setStages(List<ImportStage> stages) {
+        this.stages = stages;
+    }
+}
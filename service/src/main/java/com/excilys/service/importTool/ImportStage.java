@@ -0,0 +1,67 @@
+package com.excilys.service.importTool;
+
+import com.excilys.core.dto.ImportStageDTO;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a stage of the import pipeline.
+ *
+ * @author excilys
+ */
+public class ImportStage {
+
+    // list of the variables
+    private final String name;
+    private final BlockingQueue<?> input;
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param name  of the stage
+     * @param input queue of the stage, null for the first one
+     */
+    public ImportStage(String name, BlockingQueue<?> input) {
+        this.name = name;
+        this.input = input;
+    }
+
+    /**
+     * Count a chunk handled by the stage.
+     *
+     * @param chunkRows number of rows of the chunk
+     * @param nanos     time spent on the chunk
+     */
+    public void record(int chunkRows, long nanos) {
+        this.chunks.incrementAndGet();
+        this.rows.addAndGet(chunkRows);
+        this.busyNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Get the current metrics of the stage.
+     *
+     * @return the DTO
+     */
+    public ImportStageDTO toDTO() {
+        ImportStageDTO dto = new ImportStageDTO();
+        long busy = this.busyNanos.get();
+        dto.setName(this.name);
+        dto.setChunks(this.chunks.get());
+        dto.setRows(this.rows.get());
+        dto.setQueueDepth(this.input == null ? 0 : this.input.size());
+        dto.setRowsPerSecond(busy == 0 ? 0 : this.rows.get() * TimeUnit.SECONDS.toNanos(1) / busy);
+        return dto;
+    }
+
+    @Override
+    public String toString() {
+        ImportStageDTO dto = this.toDTO();
+        return this.name + " : " + dto.getRows() + " rows, " + dto.getRowsPerSecond() + " rows/s";
+    }
+}
@@ -0,0 +1,75 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.binding.mapper.IComputerMapper;
+import com.excilys.core.conflict.ImportChunk;
+import com.excilys.core.conflict.Rapport;
+import com.excilys.core.model.Computer;
+import com.excilys.core.model.ImportCheckpoint;
+import com.excilys.persistence.dao.ImportCheckpointDAO;
+import com.excilys.service.computer.IComputerService;
+import com.excilys.service.doublon.DoublonService;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Database sink saving the checkpoint of the import in the transaction of each chunk.
+ * <p>
+ * The conflicts of the chunk are written in the rapport file first, then the computers and the new checkpoint
+ * are committed together: after a crash the checkpoint is always the last chunk in the database.
+ *
+ * @author excilys
+ */
+public class CheckpointedImportSink extends DatabaseImportSink {
+
+    // list of the variables
+    private final ImportCheckpoint checkpoint;
+    private final ImportCheckpointDAO checkpointDAO;
+    private final RapportFile rapportFile;
+    private final TransactionTemplate tmpl;
+
+    /**
+     * Constructor.
+     *
+     * @param doublonService  to check the duplicates
+     * @param computerService to insert the computers
+     * @param computerMapper  to map the DTOs
+     * @param txManager       to commit the chunks with their checkpoint
+     * @param checkpointDAO   to save the checkpoint
+     * @param checkpoint      of the import, moved after each chunk
+     * @param rapportFile     where the conflicts are written
+     * @param window          number of conflicts of each kind kept in memory, the rapport file has all of them
+     */
+    public CheckpointedImportSink(DoublonService doublonService, IComputerService computerService,
+                                  IComputerMapper computerMapper, PlatformTransactionManager txManager,
+                                  ImportCheckpointDAO checkpointDAO, ImportCheckpoint checkpoint,
+                                  RapportFile rapportFile, int window) {
+        super(doublonService, computerService, computerMapper, window);
+        this.checkpoint = checkpoint;
+        this.checkpointDAO = checkpointDAO;
+        this.rapportFile = rapportFile;
+        this.tmpl = new TransactionTemplate(txManager);
+    }
+
+    @Override
+    protected void save(ImportChunk chunk, List<Computer> computers) {
+        Rapport checked = chunk.getRapport();
+        long offset = this.rapportFile.append(checked);
+        long refused = checked.getRejectedCount();
+
+        this.tmpl.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                if (!computers.isEmpty()) {
+                    computerService.createComputers(computers);
+                }
+                checkpoint.advance(chunk.getLastRow(), offset, computers.size(), refused);
+                checkpointDAO.save(checkpoint);
+            }
+        });
+    }
+}
@@ -1,5 +1,8 @@
 package com.excilys.service.importTool.impl;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -9,31 +12,72 @@ import org.springframework.stereotype.Service;
 import com.excilys.core.conflict.format.ErrorMessage;
 import com.excilys.core.conflict.format.Fields;
 import com.excilys.core.dto.ComputerDTO;
+import com.excilys.core.dto.ConflictDTO;
+import com.excilys.core.dto.CursorPageDTO;
 import com.excilys.service.importTool.IComputerErrorsExportService;
 
 @Service
 public class ComputerErrorsExportService
         implements IComputerErrorsExportService {
 
+    // list of the variables
+    private static final int PAGE_SIZE = 1000;
+
     @Override
-    public String csvFileWriter(List<Error> dtosErrors) {
-        StringBuffer writer = new StringBuffer(FILE_HEADER + LINE_DELIMITER);
+    public void csvFileWriter(Iterable<? extends Error> dtosErrors, Writer writer)
+            throws IOException {
+        writer.write(FILE_HEADER + LINE_DELIMITER);
+        StringBuilder errors = new StringBuilder();
         ComputerDTO tmpDTO;
         for (Error error : dtosErrors) {
             tmpDTO = error.getComputerDTO();
-            writer.append(tmpDTO.getName()).append(COMMA_DELIMITER);
-            writer.append(tmpDTO.getIntroduced()).append(COMMA_DELIMITER);
-            writer.append(tmpDTO.getDiscontinued()).append(COMMA_DELIMITER);
-            writer.append(tmpDTO.getCompanyName()).append(COMMA_DELIMITER);
-            writeErrors(writer, error.getErrorMap());
-            writer.append(LINE_DELIMITER);
+            writeField(writer, tmpDTO.getName());
+            writer.write(COMMA_DELIMITER);
+            writeField(writer, tmpDTO.getIntroduced());
+            writer.write(COMMA_DELIMITER);
+            writeField(writer, tmpDTO.getDiscontinued());
+            writer.write(COMMA_DELIMITER);
+            writeField(writer, tmpDTO.getCompanyName());
+            writer.write(COMMA_DELIMITER);
+            errors.setLength(0);
+            if (error.getErrorMap() != null) {
+                writeErrors(errors, error.getErrorMap());
+            }
+            writeField(writer, errors);
+            writer.write(LINE_DELIMITER);
         }
-        return writer.toString();
     }
 
     @Override
-    public void writeErrors(StringBuffer writer,
-            Map<Fields, List<ErrorMessage>> errorMap) {
+    public void csvFileWriter(Path rapportFile, Writer writer)
+            throws IOException {
+        writer.write(FILE_HEADER + LINE_DELIMITER);
+        long offset = 0;
+        CursorPageDTO<ConflictDTO> page;
+        do {
+            page = RapportFile.readAfter(rapportFile, offset, PAGE_SIZE);
+            for (ConflictDTO conflict : page.getItems()) {
+                if (!RapportFile.REFUSED.equals(conflict.getKind())) {
+                    continue;
+                }
+                writeField(writer, conflict.getName());
+                writer.write(COMMA_DELIMITER);
+                writeField(writer, conflict.getIntroduced());
+                writer.write(COMMA_DELIMITER);
+                writeField(writer, conflict.getDiscontinued());
+                writer.write(COMMA_DELIMITER);
+                writeField(writer, conflict.getCompanyName());
+                writer.write(COMMA_DELIMITER);
+                writeField(writer, conflict.getDetail());
+                writer.write(LINE_DELIMITER);
+            }
+            offset = Long.parseLong(page.getNext());
+        } while (page.getItems().size() == PAGE_SIZE);
+    }
+
+    @Override
+    public void writeErrors(Appendable writer,
+            Map<Fields, List<ErrorMessage>> errorMap) throws IOException {
         if (errorMap.containsKey(Fields.NAME)) {
             writer.append("NAME: " + ERROR_NAME + ERROR_SEPARATOR);
         }
@@ -58,7 +102,7 @@ public class ComputerErrorsExportService
 
     @Override
     public void writeDateErrors(List<ErrorMessage> dateErrors,
-            StringBuffer writer) {
+            Appendable writer) throws IOException {
         if (dateErrors.contains(ErrorMessage.DATE_AFTER_TIMESTAMP)
                 || dateErrors.contains(ErrorMessage.DATE_BEFORE_TIMESTAMP)) {
             writer.append(ERROR_TIMESTAMP);
@@ -67,4 +111,40 @@ public class ComputerErrorsExportService
             writer.append(ERROR_DATE_FORMAT);
         }
     }
+
+    /**
+     * Write a field, quoted when it contains a delimiter, a quote or a new
+     * line, with its quotes doubled (RFC 4180).
+     *
+     * @param writer
+     *            where the field is written
+     * @param field
+     *            to write, null is written as an empty field
+     * @throws IOException
+     *             if the writer fails
+     */
+    private static void writeField(Writer writer, CharSequence field)
+            throws IOException {
+        if (field == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.append(field);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
 }
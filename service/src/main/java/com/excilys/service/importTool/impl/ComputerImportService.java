@@ -1,141 +1,302 @@
 package com.excilys.service.importTool.impl;
 
 import au.com.bytecode.opencsv.CSVReader;
+import com.excilys.binding.mapper.IComputerMapper;
 import com.excilys.binding.validation.ComputerValidator;
+import com.excilys.core.conflict.ImportChunk;
 import com.excilys.core.conflict.ImportException;
 import com.excilys.core.conflict.Rapport;
 import com.excilys.core.conflict.format.Error;
 import com.excilys.core.conflict.format.ErrorMessage;
 import com.excilys.core.conflict.format.Fields;
 import com.excilys.core.dto.ComputerDTO;
+import com.excilys.service.computer.IComputerService;
+import com.excilys.service.doublon.DoublonService;
+import com.excilys.service.importTool.ComputerImportSink;
 import com.excilys.service.importTool.IComputerImportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import java.io.File;
-import java.io.FileReader;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 @Service
 public class ComputerImportService implements IComputerImportService {
 
+    private static final XMLInputFactory XML_FACTORY = createXMLFactory();
+    private static final int CSV_RANGE_SIZE = 8 * 1024 * 1024;
+
     @Autowired
     private ComputerValidator computerValidator;
 
+    @Autowired
+    private DoublonService doublonService;
+
+    @Autowired
+    private IComputerService computerService;
+
+    @Autowired
+    private IComputerMapper computerMapper;
+
+    private ForkJoinPool parsePool;
+
+    /**
+     * Create the pool parsing the csv files, one thread per core.
+     */
+    @PostConstruct
+    public void initIt() {
+        this.parsePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Stop the parsing pool.
+     */
+    @PreDestroy
+    public void destroy() {
+        this.parsePool.shutdown();
+    }
+
     @Override
-    public Rapport importComputersFromCSV(MultipartFile file) {
-        Rapport rapport = new Rapport();
-        File convFile = new File(file.getOriginalFilename());
+    public void importComputersFromCSV(InputStream input, ComputerImportSink sink) {
+        this.readCSV(input, chunk -> sink.accept(this.validate(chunk)));
+    }
 
-        try {
-            file.transferTo(convFile);
-        } catch (IOException e) {
-            throw new ImportException("Error converting file", e);
+    @Override
+    public void importComputersFromXML(InputStream input, ComputerImportSink sink) {
+        this.readXML(input, chunk -> sink.accept(this.validate(chunk)));
+    }
+
+    @Override
+    public void readComputers(InputStream input, String format, ComputerImportSink sink) {
+        switch (format) {
+            case "xml":
+                this.readXML(input, sink);
+                break;
+            case "csv":
+                this.readCSV(input, sink);
+                break;
+            default:
+                throw new IllegalArgumentException("Accepted format : csv and xml.");
         }
+    }
 
-        try {
-            FileReader fr = new FileReader(convFile);
-            CSVReader csvReader = new CSVReader(fr, ',');
-            String[] nextLine;
+    @Override
+    public void readComputers(Path file, String format, ComputerImportSink sink) {
+        switch (format) {
+            case "xml":
+                try (InputStream input = Files.newInputStream(file)) {
+                    this.readXML(input, sink);
+                } catch (IOException e) {
+                    throw new ImportException("Error reading file", e);
+                }
+                break;
+            case "csv":
+                new MappedCsvParser(this.parsePool, CSV_RANGE_SIZE, CHUNK_SIZE).read(file, sink);
+                break;
+            default:
+                throw new IllegalArgumentException("Accepted format : csv and xml.");
+        }
+    }
 
-            while ((nextLine = csvReader.readNext()) != null) {
-                String name = nextLine[0];
-                String introducedString = nextLine[1];
-                String discontinuedString = nextLine[2];
-                String companyName = nextLine[3];
+    @Override
+    public ImportChunk validate(ImportChunk chunk) {
+        ImportChunk retVal = new ImportChunk(chunk.getFirstRow(), chunk.getComputers().size());
+        chunk.getRefused().forEach(conflict -> retVal.refuse(conflict.getRow(), conflict));
 
+        for (int i = 0; i < chunk.getComputers().size(); i++) {
+            ComputerDTO computerDTO = chunk.getComputers().get(i);
+            Map<Fields, List<ErrorMessage>> errors = computerValidator.validateComputerDTO(computerDTO);
+
+            if (errors.size() != 0) {
+                retVal.refuse(chunk.getRow(i), new Error(computerDTO, errors));
+            } else {
+                retVal.add(chunk.getRow(i), computerDTO);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Read a csv file, the rows are given to the sink by chunks of CHUNK_SIZE without validation.
+     *
+     * @param input content of the file, not closed
+     * @param sink  receiving the chunks
+     */
+    private void readCSV(InputStream input, ComputerImportSink sink) {
+        CSVReader csvReader = new CSVReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), ',');
+        ImportChunk chunk = new ImportChunk(1, CHUNK_SIZE);
+        long row = 0;
+        String[] nextLine;
+
+        try {
+            while ((nextLine = csvReader.readNext()) != null) {
+                row++;
                 ComputerDTO computerDTO = new ComputerDTO.Builder()
-                        .name(name.trim())
-                        .introduced(introducedString.trim())
-                        .discontinued(discontinuedString.trim())
-                        .companyName(companyName.trim())
+                        .name(column(nextLine, 0))
+                        .introduced(column(nextLine, 1))
+                        .discontinued(column(nextLine, 2))
+                        .companyName(column(nextLine, 3))
                         .build();
 
-                Map<Fields, List<ErrorMessage>> errors = computerValidator.validateComputerDTO(computerDTO);
-                Error conflict = new Error();
+                chunk.add(row, computerDTO);
 
-                if (errors.size() != 0) {
-                    conflict.setComputerDTO(computerDTO);
-                    conflict.setErrorMap(errors);
-                    rapport.getRefuse().add(conflict);
-                } else {
-                    rapport.getToImport().add(computerDTO);
+                if (chunk.size() == CHUNK_SIZE) {
+                    sink.accept(chunk);
+                    chunk = new ImportChunk(row + 1, CHUNK_SIZE);
                 }
             }
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            throw new ImportException("Error reading file", e);
         }
 
-        return rapport;
+        if (!chunk.isEmpty()) {
+            sink.accept(chunk);
+        }
     }
 
-    @Override
-    public Rapport importComputersFromXML(MultipartFile file) {
-        File convFile = new File(file.getOriginalFilename());
+    /**
+     * Read a xml file, the rows are given to the sink by chunks of CHUNK_SIZE without validation.
+     *
+     * @param input content of the file, not closed
+     * @param sink  receiving the chunks
+     */
+    private void readXML(InputStream input, ComputerImportSink sink) {
+        ImportChunk chunk = new ImportChunk(1, CHUNK_SIZE);
+        ComputerDTO current = null;
+        long row = 0;
+
         try {
-            file.transferTo(convFile);
-        } catch (IOException e) {
-            throw new ImportException("Error converting file", e);
-        }
-        return mapDatas(readFile(convFile));
-    }
-
-    private Rapport mapDatas(NodeList elts) {
-        Rapport rapport = new Rapport();
-
-        for (int i = 0; i < elts.getLength(); i++) {
-            Node nNode = elts.item(i);
-
-            if (nNode.getNodeType() == Node.ELEMENT_NODE) {
-                Element eElement = (Element) nNode;
-                ComputerDTO temp = new ComputerDTO();
-                temp.setName(eElement.getElementsByTagName("name").item(0).getTextContent());
-                temp.setIntroduced(eElement.getElementsByTagName("introduced").item(0).getTextContent());
-                temp.setDiscontinued(eElement.getElementsByTagName("discontinued").item(0).getTextContent());
-                temp.setCompanyName(eElement.getElementsByTagName("company_name").item(0).getTextContent());
-
-                Map<Fields, List<ErrorMessage>> err = computerValidator.validateComputerDTO(temp);
-                if (err.size() == 0) {
-                    rapport.getToImport().add(temp);
-                } else {
-                    Error conflict = new Error();
-                    conflict.setComputerDTO(temp);
-                    conflict.setErrorMap(err);
-                    rapport.getRefuse().add(conflict);
+            XMLStreamReader reader = XML_FACTORY.createXMLStreamReader(input);
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+
+                    if (event == XMLStreamConstants.DTD) {
+                        throw new ImportException("DTD are not allowed in imported files.");
+                    } else if (event == XMLStreamConstants.START_ELEMENT) {
+                        String tag = reader.getLocalName();
+                        if ("computer".equals(tag)) {
+                            row++;
+                            current = new ComputerDTO.Builder().name("").introduced("").discontinued("").companyName("").build();
+                        } else if (current != null) {
+                            this.readField(reader, tag, current);
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT && "computer".equals(reader.getLocalName()) && current != null) {
+                        chunk.add(row, current);
+                        current = null;
+
+                        if (chunk.size() == CHUNK_SIZE) {
+                            sink.accept(chunk);
+                            chunk = new ImportChunk(row + 1, CHUNK_SIZE);
+                        }
+                    }
                 }
+            } finally {
+                reader.close();
             }
+        } catch (XMLStreamException e) {
+            throw new ImportException("Error parsing file", e);
         }
-        return rapport;
-    }
 
-    private NodeList readFile(File file) {
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder dBuilder;
-        try {
-            dBuilder = dbFactory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            throw new ImportException("Error creating Document Builder", e);
+        if (!chunk.isEmpty()) {
+            sink.accept(chunk);
         }
-        Document doc;
-        try {
-            doc = dBuilder.parse(file);
-        } catch (SAXException | IOException e) {
-            throw new ImportException("Error parsing file", e);
+    }
+
+    @Override
+    public void importComputers(InputStream input, String format, ComputerImportSink sink) {
+        this.readComputers(input, format, chunk -> sink.accept(this.validate(chunk)));
+    }
+
+    @Override
+    public Rapport importComputersFromCSV(InputStream input) {
+        DatabaseImportSink sink = new DatabaseImportSink(this.doublonService, this.computerService, this.computerMapper);
+        this.importComputersFromCSV(input, sink);
+        return sink.getRapport();
+    }
+
+    @Override
+    public Rapport importComputersFromXML(InputStream input) {
+        DatabaseImportSink sink = new DatabaseImportSink(this.doublonService, this.computerService, this.computerMapper);
+        this.importComputersFromXML(input, sink);
+        return sink.getRapport();
+    }
+
+    /**
+     * Get a trimmed column of a csv line.
+     *
+     * @param line  read by the csv reader
+     * @param index of the column
+     * @return the value, empty if the line is too short
+     */
+    private static String column(String[] line, int index) {
+        return index < line.length ? line[index].trim() : "";
+    }
+
+    /**
+     * Read the text of a field of a computer element, unknown elements are ignored.
+     *
+     * @param reader   positioned on the start of the field
+     * @param tag      name of the field
+     * @param computer to set the field of
+     * @throws XMLStreamException if the field contains other elements
+     */
+    private void readField(XMLStreamReader reader, String tag, ComputerDTO computer) throws XMLStreamException {
+        switch (tag) {
+            case "name":
+                computer.setName(text(reader));
+                break;
+            case "introduced":
+                computer.setIntroduced(text(reader));
+                break;
+            case "discontinued":
+                computer.setDiscontinued(text(reader));
+                break;
+            case "company_name":
+                computer.setCompanyName(text(reader));
+                break;
+            default:
+                break;
         }
+    }
 
-        doc.getDocumentElement().normalize();
+    /**
+     * Read the trimmed text of the current element.
+     *
+     * @param reader positioned on the start of the element
+     * @return the text, empty if there is none
+     * @throws XMLStreamException if the element contains other elements
+     */
+    private static String text(XMLStreamReader reader) throws XMLStreamException {
+        String text = reader.getElementText();
+        return text == null ? "" : text.trim();
+    }
 
-        return doc.getElementsByTagName("computer");
+    /**
+     * Create the StAX factory, without DTD nor external entities so a file cannot expand entities
+     * (billion laughs) or make the server read other files. Files declaring a DTD are refused while reading.
+     *
+     * @return the factory
+     */
+    private static XMLInputFactory createXMLFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+        return factory;
     }
 }
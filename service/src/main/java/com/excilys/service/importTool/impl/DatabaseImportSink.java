@@ -0,0 +1,144 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.binding.doublon.DeduplicationWindow;
+import com.excilys.binding.mapper.IComputerMapper;
+import com.excilys.core.conflict.Conflict;
+import com.excilys.core.conflict.ImportChunk;
+import com.excilys.core.conflict.Rapport;
+import com.excilys.core.dto.ComputerDTO;
+import com.excilys.core.model.Computer;
+import com.excilys.service.computer.IComputerService;
+import com.excilys.service.doublon.DoublonService;
+import com.excilys.service.importTool.ComputerImportSink;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sink checking the duplicates of each chunk and inserting the remaining computers, one transaction per chunk.
+ * The two steps can also be called separately, but a chunk has to be checked after the previous one is inserted :
+ * the check compares the rows with the database, it would not see the rows of a chunk not committed yet.
+ * <p>
+ * Only the rows which are not imported are kept in the rapport, so the memory does not depend on the file size
+ * when most of the rows are valid. With a window, only the first conflicts are kept and the memory does not depend
+ * on the number of conflicts either.
+ *
+ * @author excilys
+ */
+public class DatabaseImportSink implements ComputerImportSink {
+
+    // list of the variables
+    private static final int DEDUPLICATION_WINDOW = 10000;
+    private final DoublonService doublonService;
+    protected final IComputerService computerService;
+    private final IComputerMapper computerMapper;
+    private final Rapport rapport;
+    private final DeduplicationWindow recentRows = new DeduplicationWindow(DEDUPLICATION_WINDOW);
+
+    /**
+     * Constructor, the rapport keeps all the conflicts.
+     *
+     * @param doublonService  to check the duplicates
+     * @param computerService to insert the computers
+     * @param computerMapper  to map the DTOs
+     */
+    public DatabaseImportSink(DoublonService doublonService, IComputerService computerService, IComputerMapper computerMapper) {
+        this(doublonService, computerService, computerMapper, Rapport.UNBOUNDED);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param doublonService  to check the duplicates
+     * @param computerService to insert the computers
+     * @param computerMapper  to map the DTOs
+     * @param window          number of conflicts of each kind kept in the rapport, the others are only counted
+     */
+    public DatabaseImportSink(DoublonService doublonService, IComputerService computerService, IComputerMapper computerMapper,
+                              int window) {
+        this.doublonService = doublonService;
+        this.computerService = computerService;
+        this.computerMapper = computerMapper;
+        this.rapport = new Rapport(window);
+    }
+
+    @Override
+    public void accept(ImportChunk chunk) {
+        this.insert(this.check(chunk));
+    }
+
+    /**
+     * Check the duplicates of a validated chunk, does not change the rapport of the sink. The rows are also collapsed
+     * with the last DEDUPLICATION_WINDOW rows kept from the previous chunks, so the chunks have to be checked in
+     * the order of the file.
+     *
+     * @param chunk to check
+     * @return the chunk, with its rapport including the rows refused by the validation
+     */
+    public ImportChunk check(ImportChunk chunk) {
+        Map<ComputerDTO, Long> rows = new IdentityHashMap<>();
+        for (int i = 0; i < chunk.getComputers().size(); i++) {
+            rows.put(chunk.getComputers().get(i), chunk.getRow(i));
+        }
+
+        Rapport checked = this.doublonService.getRapport(chunk.getComputers(), this.recentRows);
+        Rapport retVal = new Rapport(checked.getToImport());
+        retVal.getRefuse().addAll(chunk.getRefused());
+        this.addConflicts(retVal.getRefuse(), checked.getRefuse(), rows);
+        this.addConflicts(retVal.getToCheck(), checked.getToCheck(), rows);
+        this.addConflicts(retVal.getCollapsed(), checked.getCollapsed(), rows);
+        chunk.setRapport(retVal);
+        return chunk;
+    }
+
+    /**
+     * Insert the computers of a checked chunk and add its conflicts to the rapport.
+     *
+     * @param chunk returned by check()
+     */
+    public void insert(ImportChunk chunk) {
+        Rapport checked = chunk.getRapport();
+        this.save(chunk, this.computerMapper.fromDTO(checked.getToImport()));
+        this.rapport.addImported(checked.getToImport().size());
+        this.rapport.merge(checked);
+    }
+
+    /**
+     * Write the computers of a chunk in one transaction.
+     *
+     * @param chunk     checked
+     * @param computers to insert, can be empty
+     */
+    protected void save(ImportChunk chunk, List<Computer> computers) {
+        if (!computers.isEmpty()) {
+            this.computerService.createComputers(computers);
+        }
+    }
+
+    /**
+     * Add the conflicts of a chunk to the rapport with their row number.
+     *
+     * @param target    list of the rapport
+     * @param conflicts found in the chunk
+     * @param rows      row number of each computer of the chunk
+     */
+    private void addConflicts(List<Conflict> target, List<Conflict> conflicts, Map<ComputerDTO, Long> rows) {
+        for (Conflict conflict : conflicts) {
+            Long row = rows.get(conflict.getComputerDTO());
+            if (row != null) {
+                conflict.setRow(row);
+            }
+            target.add(conflict);
+        }
+    }
+
+    /**
+     * Get the rapport of the rows read so far.
+     *
+     * @return the rapport
+     */
+    public Rapport getRapport() {
+        return this.rapport;
+    }
+}
@@ -0,0 +1,454 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.binding.mapper.IComputerMapper;
+import com.excilys.core.conflict.ImportException;
+import com.excilys.core.dto.ConflictDTO;
+import com.excilys.core.dto.CursorPageDTO;
+import com.excilys.core.model.ImportCheckpoint;
+import com.excilys.persistence.dao.ComputerStagingDAO;
+import com.excilys.persistence.dao.ImportCheckpointDAO;
+import com.excilys.service.computer.IComputerService;
+import com.excilys.service.doublon.DoublonService;
+import com.excilys.service.importTool.IComputerImportService;
+import com.excilys.service.importTool.IImportJobService;
+import com.excilys.service.importTool.ImportJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Run the imports in the background on a bounded pool, so the request threads only copy the upload.
+ * <p>
+ * Each job has a checkpoint in the database, moved in the transaction of each chunk. The spooled file is only
+ * deleted when the import is done, so a failed, cancelled or interrupted import can be resumed after its last
+ * committed chunk. The checkpoint, the rapport file and the spooled file of a finished job are deleted after
+ * FILE_RETENTION, like the uploads which are not completed.
+ *
+ * @author excilys
+ */
+@Service
+public class ImportJobService implements IImportJobService {
+
+    // list of the variables
+    private static final int WORKERS = 2;
+    private static final int QUEUE_SIZE = 8;
+    private static final long RETENTION = TimeUnit.HOURS.toMillis(1);
+    private static final long FILE_RETENTION = TimeUnit.DAYS.toMillis(1);
+    private static final int RAPPORT_WINDOW = 100;
+    private static final List<String> RESUMABLE = Arrays.stream(ImportJob.State.values())
+            .filter(ImportJob.State::isResumable).map(ImportJob.State::toString).collect(Collectors.toList());
+    private final Logger LOGGER = LoggerFactory.getLogger(ImportJobService.class);
+
+    @Value("${import.spool.dir:/tmp/cdb/import}")
+    private String spoolDir;
+
+    @Autowired
+    private IComputerImportService importService;
+
+    @Autowired
+    private DoublonService doublonService;
+
+    @Autowired
+    private IComputerService computerService;
+
+    @Autowired
+    private IComputerMapper computerMapper;
+
+    @Autowired
+    private ImportCheckpointDAO checkpointDAO;
+
+    @Autowired
+    private ComputerStagingDAO stagingDAO;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Create the pool and the spool directory, and mark the imports which were running when the server stopped
+     * as interrupted.
+     * <p>
+     * TransactionCallbackWithoutResult is necessary in order to make sure that the context is fully instantiated.
+     *
+     * @throws IOException if the directory cannot be created
+     */
+    @PostConstruct
+    public void initIt() throws IOException {
+        Files.createDirectories(Paths.get(this.spoolDir));
+
+        TransactionTemplate tmpl = new TransactionTemplate(this.txManager);
+        tmpl.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                long interrupted = checkpointDAO.changeState(
+                        Arrays.asList(ImportJob.State.QUEUED.toString(), ImportJob.State.RUNNING.toString()),
+                        ImportJob.State.INTERRUPTED.toString());
+                if (interrupted > 0) {
+                    LOGGER.warn(interrupted + " imports were interrupted, they can be resumed.");
+                }
+            }
+        });
+        this.purge();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE),
+                r -> new Thread(r, "import-job-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Stop the running jobs, they stop before their next chunk.
+     */
+    @PreDestroy
+    public void destroy() {
+        this.jobs.values().forEach(ImportJob::cancel);
+        this.executor.shutdown();
+    }
+
+    @Override
+    public ImportJob submit(InputStream input, String fileName, String format, ImportJob.Mode mode) {
+        this.LOGGER.debug("entering submit()");
+        checkFormat(format);
+
+        Path file;
+        try {
+            file = Files.createTempFile(Paths.get(this.spoolDir), "import-", "." + format);
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new ImportException("Error copying file", e);
+        }
+
+        try {
+            return this.submit(file, fileName, format, mode);
+        } catch (RejectedExecutionException e) {
+            this.delete(file);
+            throw e;
+        }
+    }
+
+    @Override
+    public ImportJob submit(Path file, String fileName, String format, ImportJob.Mode mode) {
+        this.LOGGER.debug("entering submit()");
+        checkFormat(format);
+        this.purge();
+
+        ImportCheckpoint checkpoint = new ImportCheckpoint(UUID.randomUUID().toString(), fileName, format,
+                file.toString());
+        checkpoint.setMode(mode.toString());
+        checkpoint.setState(ImportJob.State.QUEUED.toString());
+        this.checkpointDAO.save(checkpoint);
+
+        try {
+            return this.queue(new ImportJob(checkpoint), checkpoint);
+        } catch (RejectedExecutionException e) {
+            this.checkpointDAO.changeState(checkpoint.getId(), ImportJob.State.CANCELLED.toString());
+            throw e;
+        }
+    }
+
+    @Override
+    public ImportJob resume(String id) {
+        this.LOGGER.debug("entering resume()");
+        this.purge();
+
+        ImportJob current = this.jobs.get(id);
+        if (current != null && !current.getState().isFinished()) {
+            throw new IllegalStateException("Import " + id + " is still running.");
+        }
+
+        ImportCheckpoint checkpoint = this.checkpointDAO.find(id);
+        if (checkpoint == null) {
+            return null;
+        }
+        if (!ImportJob.State.valueOf(checkpoint.getState()).isResumable()) {
+            throw new IllegalStateException("Import " + id + " is " + checkpoint.getState() + ".");
+        }
+        if (!Files.exists(Paths.get(checkpoint.getFilePath()))) {
+            throw new ImportException("The file of import " + id + " is not available anymore.");
+        }
+
+        // only the caller which moves the checkpoint out of a resumable state starts the job
+        if (!this.checkpointDAO.claim(id, RESUMABLE, ImportJob.State.QUEUED.toString())) {
+            throw new IllegalStateException("Import " + id + " is already resumed.");
+        }
+        checkpoint = this.checkpointDAO.find(id);
+        try {
+            return this.queue(new ImportJob(checkpoint), checkpoint);
+        } catch (RejectedExecutionException e) {
+            this.checkpointDAO.changeState(id, ImportJob.State.INTERRUPTED.toString());
+            throw e;
+        }
+    }
+
+    @Override
+    public ImportJob getJob(String id) {
+        ImportJob job = this.jobs.get(id);
+        if (job == null) {
+            ImportCheckpoint checkpoint = this.checkpointDAO.find(id);
+            if (checkpoint != null) {
+                job = ImportJob.fromCheckpoint(checkpoint);
+            }
+        }
+        return job;
+    }
+
+    @Override
+    public Path getRapportFile(String id) {
+        Path file = this.rapportFile(id);
+        return Files.exists(file) ? file : null;
+    }
+
+    @Override
+    public List<ConflictDTO> getConflicts(String id, long first, int size) {
+        Path file = this.getRapportFile(id);
+        return file == null ? null : RapportFile.read(file, first, size);
+    }
+
+    @Override
+    public CursorPageDTO<ConflictDTO> getConflictsAfter(String id, long offset, int size) {
+        Path file = this.getRapportFile(id);
+        return file == null ? null : RapportFile.readAfter(file, offset, size);
+    }
+
+    @Override
+    public ImportJob cancel(String id) {
+        this.LOGGER.debug("entering cancel()");
+        ImportJob job = this.jobs.get(id);
+        if (job != null) {
+            job.cancel();
+        }
+        return job;
+    }
+
+    /**
+     * Check the format of an imported file.
+     *
+     * @param format to check
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    private static void checkFormat(String format) {
+        if (!"csv".equals(format) && !"xml".equals(format)) {
+            throw new IllegalArgumentException("Accepted format : csv and xml.");
+        }
+    }
+
+    /**
+     * Give a job to the pool.
+     *
+     * @param job        to run
+     * @param checkpoint of the job
+     * @return the job
+     * @throws RejectedExecutionException if too many imports are already queued
+     */
+    private ImportJob queue(ImportJob job, ImportCheckpoint checkpoint) {
+        this.jobs.put(job.getId(), job);
+        try {
+            if (job.getMode() == ImportJob.Mode.STAGED) {
+                this.executor.execute(() -> this.runStaged(job));
+            } else {
+                this.executor.execute(() -> this.run(job, checkpoint));
+            }
+        } catch (RejectedExecutionException e) {
+            this.jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Import the file of a job through the pipeline, checking between each chunk if the job was cancelled.
+     *
+     * @param job        to run
+     * @param checkpoint of the job, the rows up to its last row are skipped
+     */
+    private void run(ImportJob job, ImportCheckpoint checkpoint) {
+        DatabaseImportSink database = null;
+        ImportPipeline pipeline = null;
+
+        try (RapportFile rapportFile = new RapportFile(this.rapportFile(job.getId()), checkpoint.getReportOffset())) {
+            database = new CheckpointedImportSink(this.doublonService, this.computerService, this.computerMapper,
+                    this.txManager, this.checkpointDAO, checkpoint, rapportFile, RAPPORT_WINDOW);
+            pipeline = new ImportPipeline(this.importService, database);
+            job.setStages(pipeline.getStages());
+
+            if (job.isCancelRequested()) {
+                throw new CancellationException();
+            }
+            job.setState(ImportJob.State.RUNNING);
+            this.checkpointDAO.changeState(job.getId(), ImportJob.State.RUNNING.toString());
+            pipeline.run(job.getFile(), job);
+            job.finish(ImportJob.State.DONE, database.getRapport(), null);
+        } catch (CancellationException e) {
+            job.finish(ImportJob.State.CANCELLED, database == null ? null : database.getRapport(), null);
+        } catch (IOException | RuntimeException e) {
+            this.LOGGER.warn("Import " + job.getId() + " failed.", e);
+            job.finish(ImportJob.State.FAILED, database == null ? null : database.getRapport(), e.getMessage());
+        } finally {
+            this.LOGGER.info("Import " + job.getId() + " " + job.getState() + " "
+                    + (pipeline == null ? "" : pipeline.getStages()));
+            this.close(job);
+        }
+    }
+
+    /**
+     * Import the file of a job through the staging table : all the valid rows are loaded, then moved into the
+     * computer table with one statement. Nothing is written in the computer table if the job does not reach
+     * the end of the file, so a resumed job starts again from the first row.
+     *
+     * @param job to run
+     */
+    private void runStaged(ImportJob job) {
+        StagingImportSink staging = null;
+
+        try (RapportFile rapportFile = new RapportFile(this.rapportFile(job.getId()), 0)) {
+            staging = new StagingImportSink(this.importService, this.stagingDAO, job.getId(), rapportFile,
+                    RAPPORT_WINDOW);
+            StagingImportSink sink = staging;
+
+            if (job.isCancelRequested()) {
+                throw new CancellationException();
+            }
+            job.setState(ImportJob.State.RUNNING);
+            this.checkpointDAO.changeState(job.getId(), ImportJob.State.RUNNING.toString());
+            // rows left by a previous run of the job
+            this.stagingDAO.remove(job.getId());
+
+            this.importService.readComputers(job.getFile(), job.getFormat(), chunk -> {
+                if (job.isCancelRequested()) {
+                    throw new CancellationException();
+                }
+                job.addParsed(chunk.size());
+                long before = sink.getStaged();
+                sink.accept(chunk);
+                job.addValidated(sink.getStaged() - before);
+                job.update(sink.getRapport());
+            });
+
+            long created = this.computerService.createStagedComputers(job.getId());
+            staging.getRapport().addImported(created);
+            this.LOGGER.info("Import " + job.getId() + " staged " + staging.getStaged() + " rows, created " + created
+                    + " computers, skipped " + (staging.getStaged() - created) + " exact duplicates.");
+            job.finish(ImportJob.State.DONE, staging.getRapport(), null);
+        } catch (CancellationException e) {
+            this.discardStaged(job);
+            job.finish(ImportJob.State.CANCELLED, staging == null ? null : staging.getRapport(), null);
+        } catch (IOException | RuntimeException e) {
+            this.LOGGER.warn("Import " + job.getId() + " failed.", e);
+            this.discardStaged(job);
+            job.finish(ImportJob.State.FAILED, staging == null ? null : staging.getRapport(), e.getMessage());
+        } finally {
+            this.close(job);
+        }
+    }
+
+    /**
+     * Remove the rows of a job from the staging table.
+     *
+     * @param job which did not finish
+     */
+    private void discardStaged(ImportJob job) {
+        try {
+            this.stagingDAO.remove(job.getId());
+        } catch (RuntimeException e) {
+            this.LOGGER.warn("Couldn't remove the staged rows of import " + job.getId(), e);
+        }
+    }
+
+    /**
+     * Save the final state of a job, and delete its file if it is done.
+     *
+     * @param job finished
+     */
+    private void close(ImportJob job) {
+        // only the state is saved, the counters of the checkpoint are the ones of the last commit
+        try {
+            this.checkpointDAO.changeState(job.getId(), job.getState().toString());
+        } catch (RuntimeException e) {
+            this.LOGGER.warn("Couldn't save the state of import " + job.getId(), e);
+        }
+        if (job.getState() == ImportJob.State.DONE) {
+            this.delete(job.getFile());
+        }
+    }
+
+    /**
+     * Path of the rapport file of a job.
+     *
+     * @param id of the job
+     * @return the path in the spool directory
+     */
+    private Path rapportFile(String id) {
+        return Paths.get(this.spoolDir, id + ".rapport.csv");
+    }
+
+    /**
+     * Forget the jobs finished for more than the retention time, and delete the files and the checkpoints of the
+     * jobs finished for more than the file retention time : a job cannot be resumed nor its rapport read after it.
+     */
+    private void purge() {
+        long limit = System.currentTimeMillis() - RETENTION;
+        this.jobs.values().removeIf(job -> job.getState().isFinished() && job.getFinishedAt() < limit);
+
+        List<String> finished = Arrays.stream(ImportJob.State.values())
+                .filter(ImportJob.State::isFinished)
+                .map(ImportJob.State::toString)
+                .collect(Collectors.toList());
+        try {
+            LocalDateTime fileLimit = LocalDateTime.now().minus(Duration.ofMillis(FILE_RETENTION));
+            for (ImportCheckpoint checkpoint : this.checkpointDAO.findUpdatedBefore(finished, fileLimit)) {
+                this.delete(Paths.get(checkpoint.getFilePath()));
+                this.delete(this.rapportFile(checkpoint.getId()));
+                this.checkpointDAO.delete(checkpoint.getId());
+                this.jobs.remove(checkpoint.getId());
+            }
+        } catch (RuntimeException e) {
+            this.LOGGER.warn("Couldn't purge the finished imports", e);
+        }
+    }
+
+    /**
+     * Delete a spooled file.
+     *
+     * @param file to delete
+     */
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            this.LOGGER.warn("Couldn't delete " + file, e);
+        }
+    }
+}
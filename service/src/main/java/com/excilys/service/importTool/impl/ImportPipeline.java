@@ -0,0 +1,255 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.core.conflict.ImportChunk;
+import com.excilys.core.conflict.ImportException;
+import com.excilys.service.importTool.IComputerImportService;
+import com.excilys.service.importTool.ImportJob;
+import com.excilys.service.importTool.ImportStage;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Import engine running the parse, validate, dedupe and insert stages at the same time.
+ * <p>
+ * The parse stage runs on the calling thread and the validate stage on its own. The dedupe and insert stages share
+ * one thread : a chunk is only checked once the previous ones are committed, so its rows are compared with the
+ * rows inserted from them. The threads are joined by small bounded queues, so the slowest stage sets the pace and
+ * the memory stays bounded. The first error stops all the stages, the chunks waiting in the queues are dropped.
+ *
+ * @author excilys
+ */
+public class ImportPipeline {
+
+    // list of the variables
+    private static final int QUEUE_SIZE = 4;
+    private static final long POLL_MILLIS = 100;
+    private static final ImportChunk END_OF_CHUNKS = new ImportChunk(0, 0);
+
+    private final IComputerImportService importService;
+    private final DatabaseImportSink database;
+
+    private final BlockingQueue<ImportChunk> parsed = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final BlockingQueue<ImportChunk> validated = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+    private final ImportStage parseStage = new ImportStage("parse", null);
+    private final ImportStage validateStage = new ImportStage("validate", this.parsed);
+    private final ImportStage dedupeStage = new ImportStage("dedupe", this.validated);
+    private final ImportStage insertStage = new ImportStage("insert", null);
+
+    private volatile boolean stopped;
+    private RuntimeException failure;
+
+    /**
+     * Constructor.
+     *
+     * @param importService to read and validate the file
+     * @param database      to check the duplicates and insert the computers
+     */
+    public ImportPipeline(IComputerImportService importService, DatabaseImportSink database) {
+        this.importService = importService;
+        this.database = database;
+    }
+
+    /**
+     * Get the metrics of the stages.
+     *
+     * @return the stages, in the order of the pipeline
+     */
+    public List<ImportStage> getStages() {
+        return Arrays.asList(this.parseStage, this.validateStage, this.dedupeStage, this.insertStage);
+    }
+
+    /**
+     * Import a file, returns when all the stages are finished. The rows up to job.getSkipRows() are read but
+     * not imported.
+     *
+     * @param file to import
+     * @param job  to update the counters of and to check for cancellation
+     * @throws CancellationException if the job was cancelled
+     */
+    public void run(Path file, ImportJob job) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(2,
+                r -> new Thread(r, "import-stage-" + job.getId() + "-" + threadCount.incrementAndGet()));
+
+        workers.execute(() -> this.stage(this.parsed, END_OF_CHUNKS, this.validated, END_OF_CHUNKS, this.validateStage,
+                chunk -> {
+                    ImportChunk valid = this.importService.validate(chunk);
+                    job.addValidated(valid.getComputers().size());
+                    return valid;
+                }, ImportChunk::size));
+        workers.execute(() -> this.stage(this.validated, END_OF_CHUNKS, null, null, null,
+                chunk -> {
+                    // the chunks already validated are not committed once the job is cancelled
+                    this.checkCancelled(job);
+                    long start = System.nanoTime();
+                    ImportChunk checked = this.database.check(chunk);
+                    long checkedAt = System.nanoTime();
+                    this.dedupeStage.record(chunk.size(), checkedAt - start);
+                    this.checkCancelled(job);
+                    this.database.insert(checked);
+                    this.insertStage.record(checked.getRapport().getToImport().size(), System.nanoTime() - checkedAt);
+                    job.update(this.database.getRapport());
+                    return null;
+                }, null));
+        workers.shutdown();
+
+        try {
+            long[] start = {System.nanoTime()};
+            this.importService.readComputers(file, job.getFormat(), read -> {
+                this.checkCancelled(job);
+                // the rows up to the checkpoint of a resumed job are already in the database
+                if (read.getLastRow() <= job.getSkipRows()) {
+                    start[0] = System.nanoTime();
+                    return;
+                }
+                ImportChunk chunk = read.getFirstRow() <= job.getSkipRows() ? read.after(job.getSkipRows()) : read;
+                this.parseStage.record(chunk.size(), System.nanoTime() - start[0]);
+                job.addParsed(chunk.size());
+                this.put(this.parsed, chunk);
+                start[0] = System.nanoTime();
+            });
+            this.put(this.parsed, END_OF_CHUNKS);
+        } catch (RuntimeException e) {
+            this.fail(e);
+        }
+
+        this.await(workers);
+        synchronized (this) {
+            if (this.failure != null) {
+                throw this.failure;
+            }
+        }
+    }
+
+    /**
+     * Stop the current stage if the job is cancelled or the pipeline stopped.
+     *
+     * @param job being imported
+     * @throws CancellationException if the job was cancelled
+     */
+    private void checkCancelled(ImportJob job) {
+        if (job.isCancelRequested() || this.stopped) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Loop of a stage : take an item, handle it, give the result to the next stage.
+     *
+     * @param in      queue of the stage
+     * @param inEnd   marker of the end of the input
+     * @param out     queue of the next stage, null for the last one
+     * @param outEnd  marker to send to the next stage at the end
+     * @param metrics of the stage, null if the step records its own
+     * @param step    work of the stage
+     * @param size    number of rows of an item, null if the step records its own metrics
+     * @param <I>     type of the input
+     * @param <O>     type of the output
+     */
+    private <I, O> void stage(BlockingQueue<I> in, I inEnd, BlockingQueue<O> out, O outEnd, ImportStage metrics,
+                              Function<I, O> step, ToIntFunction<I> size) {
+        try {
+            I item;
+            while ((item = this.take(in)) != inEnd) {
+                long start = System.nanoTime();
+                O result = step.apply(item);
+                if (metrics != null) {
+                    metrics.record(size.applyAsInt(item), System.nanoTime() - start);
+                }
+                if (out != null) {
+                    this.put(out, result);
+                }
+            }
+            if (out != null) {
+                this.put(out, outEnd);
+            }
+        } catch (RuntimeException e) {
+            this.fail(e);
+        }
+    }
+
+    /**
+     * Put an item in a queue, waiting for room unless the pipeline is stopped.
+     *
+     * @param queue to put in
+     * @param item  to put
+     * @param <T>   type of the item
+     */
+    private <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (this.stopped) {
+                    throw new CancellationException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportException("Import interrupted", e);
+        }
+    }
+
+    /**
+     * Take an item from a queue, waiting for one unless the pipeline is stopped.
+     *
+     * @param queue to take from
+     * @param <T>   type of the item
+     * @return the item
+     */
+    private <T> T take(BlockingQueue<T> queue) {
+        try {
+            T item = null;
+            while (item == null) {
+                if (this.stopped) {
+                    throw new CancellationException();
+                }
+                item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            return item;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportException("Import interrupted", e);
+        }
+    }
+
+    /**
+     * Stop all the stages, only the first error is kept.
+     *
+     * @param e error of a stage
+     */
+    private synchronized void fail(RuntimeException e) {
+        if (this.failure == null) {
+            this.failure = e;
+        }
+        this.stopped = true;
+    }
+
+    /**
+     * Wait for the end of the stages. They are not interrupted, a stopped stage finishes its current chunk so
+     * no transaction is cut in the middle.
+     *
+     * @param workers running the stages
+     */
+    private void await(ExecutorService workers) {
+        try {
+            while (!workers.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                // the stages check the stop flag between two chunks
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+            this.fail(new ImportException("Import interrupted", e));
+        }
+    }
+}
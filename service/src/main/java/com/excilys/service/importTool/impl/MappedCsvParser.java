@@ -0,0 +1,303 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.binding.mapper.impl.ComputerRowParser;
+import com.excilys.binding.validation.ComputerRowValidator;
+import com.excilys.core.conflict.ImportChunk;
+import com.excilys.core.conflict.ImportException;
+import com.excilys.core.conflict.format.Error;
+import com.excilys.core.conflict.format.ErrorMessage;
+import com.excilys.core.conflict.format.Fields;
+import com.excilys.core.dto.ComputerDTO;
+import com.excilys.service.importTool.ComputerImportSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Csv parser for the files already on the disk, reading the file memory-mapped and parsing parts of it in
+ * parallel.
+ * <p>
+ * A first pass only looks for the end of the records (new lines out of quotes) to cut the file in ranges of about
+ * rangeSize bytes and count their rows. The ranges are then parsed on the pool, and their chunks are given to the
+ * sink in the order of the file with their original row numbers, so the sink sees the same chunks as with a
+ * sequential reader. At most MAX_AHEAD ranges are parsed ahead of the sink, so the memory stays bounded.
+ * <p>
+ * A range longer than maxRange bytes is not parsed, it is refused as a single row : it holds a record too long to
+ * be a computer, usually the rest of the file after an unclosed quote.
+ * <p>
+ * The fields use the RFC 4180 quoting : a quote inside a quoted field is doubled. Each record is decoded in a reused
+ * char buffer and parsed in place by ComputerRowParser, which validates it at the same time : the invalid rows are
+ * refused in the chunk, and no String is built for a field until the dto of the row.
+ *
+ * @author excilys
+ */
+public class MappedCsvParser {
+
+    // list of the variables
+    private static final int SCAN_WINDOW = 64 * 1024 * 1024;
+    private static final int MAX_RANGE = 256 * 1024 * 1024;
+    private static final int MAX_AHEAD = 8;
+    private final ForkJoinPool pool;
+    private final int rangeSize;
+    private final int chunkSize;
+    private final int maxRange;
+
+    /**
+     * Constructor.
+     *
+     * @param pool      to parse the ranges on
+     * @param rangeSize approximate number of bytes of a range
+     * @param chunkSize number of rows given to the sink at once
+     */
+    public MappedCsvParser(ForkJoinPool pool, int rangeSize, int chunkSize) {
+        this(pool, rangeSize, chunkSize, MAX_RANGE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param pool      to parse the ranges on
+     * @param rangeSize approximate number of bytes of a range
+     * @param chunkSize number of rows given to the sink at once
+     * @param maxRange  number of bytes above which a range is refused
+     */
+    MappedCsvParser(ForkJoinPool pool, int rangeSize, int chunkSize, int maxRange) {
+        this.pool = pool;
+        this.rangeSize = rangeSize;
+        this.chunkSize = chunkSize;
+        this.maxRange = maxRange;
+    }
+
+    /**
+     * Read a csv file, the rows are given to the sink by chunks of chunkSize, the rows refused by
+     * ComputerRowValidator already apart. The last chunk of each range can be smaller.
+     *
+     * @param file to read
+     * @param sink receiving the chunks, always from the calling thread
+     */
+    public void read(Path file, ComputerImportSink sink) {
+        Deque<ForkJoinTask<List<ImportChunk>>> running = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Range> ranges = this.split(channel);
+            int window = Math.min(this.pool.getParallelism() * 2, MAX_AHEAD);
+            int next = 0;
+
+            while (next < ranges.size() || !running.isEmpty()) {
+                while (next < ranges.size() && running.size() < window) {
+                    Range range = ranges.get(next++);
+                    running.addLast(this.pool.submit(() -> this.parse(channel, range)));
+                }
+                for (ImportChunk chunk : running.removeFirst().join()) {
+                    sink.accept(chunk);
+                }
+            }
+        } catch (IOException e) {
+            throw new ImportException("Error reading file", e);
+        } finally {
+            // the sink failed or the job was cancelled, the ranges parsed ahead are not needed anymore
+            running.forEach(task -> task.cancel(true));
+        }
+    }
+
+    /**
+     * Cut the file in ranges ending on a record boundary.
+     *
+     * @param channel of the file
+     * @return the ranges, in the order of the file
+     * @throws IOException if the file cannot be read
+     */
+    List<Range> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Range> ranges = new ArrayList<>();
+        long start = 0;
+        long firstRow = 1;
+        long rows = 0;
+        boolean quoted = false;
+
+        for (long base = 0; base < size; base += SCAN_WINDOW) {
+            int length = (int) Math.min(SCAN_WINDOW, size - base);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, length);
+            for (int i = 0; i < length; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    // a doubled quote toggles twice, so it does not change the state
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    rows++;
+                    long end = base + i + 1;
+                    if (end - start >= this.rangeSize) {
+                        ranges.add(new Range(start, end, firstRow));
+                        start = end;
+                        firstRow += rows;
+                        rows = 0;
+                    }
+                }
+            }
+        }
+        if (start < size) {
+            ranges.add(new Range(start, size, firstRow));
+        }
+        return ranges;
+    }
+
+    /**
+     * Parse the records of a range.
+     *
+     * @param channel of the file
+     * @param range   to parse
+     * @return the chunks of the range
+     * @throws IOException if the file cannot be read
+     */
+    List<ImportChunk> parse(FileChannel channel, Range range) throws IOException {
+        if (range.end - range.start > this.maxRange) {
+            return Collections.singletonList(tooLong(range));
+        }
+        int length = (int) (range.end - range.start);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, range.start, length);
+
+        List<ImportChunk> chunks = new ArrayList<>();
+        long row = range.firstRow;
+        ImportChunk chunk = new ImportChunk(row, this.chunkSize);
+        ComputerRowParser parser = new ComputerRowParser();
+        RecordDecoder decoder = new RecordDecoder();
+        int i = 0;
+
+        while (i < length) {
+            // the end of the record is the first new line out of quotes, or the end of the range
+            int start = i;
+            boolean quoted = false;
+            while (i < length) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    break;
+                }
+                i++;
+            }
+            int recordLength = decoder.decode(buffer, start, i);
+            i++;
+
+            // the fields are views on the chars of the record, only the dto allocates
+            int errors = parser.parse(decoder.chars, 0, recordLength);
+            if (errors == 0) {
+                chunk.add(row, parser.toDTO());
+            } else {
+                chunk.refuse(row, new Error(parser.toDTO(), ComputerRowValidator.toMap(errors)));
+            }
+            row++;
+
+            if (chunk.size() == this.chunkSize) {
+                chunks.add(chunk);
+                chunk = new ImportChunk(row, this.chunkSize);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Chunk refusing a range too long to be parsed, as its first row.
+     *
+     * @param range refused
+     * @return the chunk of the range
+     */
+    private static ImportChunk tooLong(Range range) {
+        ImportChunk chunk = new ImportChunk(range.firstRow, 0);
+        ComputerDTO computer = new ComputerDTO.Builder().name("").introduced("").discontinued("").build();
+        Map<Fields, List<ErrorMessage>> errors = new HashMap<>();
+        errors.put(Fields.NAME, new ArrayList<>(Collections.singletonList(ErrorMessage.RECORD_TOO_LONG)));
+        chunk.refuse(range.firstRow, new Error(computer, errors));
+        return chunk;
+    }
+
+    /**
+     * Chars of a record, decoded from its UTF-8 bytes in a buffer reused from one record to the next.
+     */
+    private static final class RecordDecoder {
+
+        // list of the variables
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private char[] chars = new char[256];
+
+        /**
+         * Decode a record, the ASCII bytes are copied without going through the decoder.
+         *
+         * @param buffer of the range
+         * @param from   offset of the first byte of the record
+         * @param to     offset after its last byte
+         * @return the number of chars of the record
+         */
+        int decode(ByteBuffer buffer, int from, int to) {
+            int length = to - from;
+            if (this.chars.length < length) {
+                this.chars = new char[Math.max(length, this.chars.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                byte b = buffer.get(from + i);
+                if (b < 0) {
+                    return this.decodeUtf8(buffer, from, to);
+                }
+                this.chars[i] = (char) b;
+            }
+            return length;
+        }
+
+        private int decodeUtf8(ByteBuffer buffer, int from, int to) {
+            ByteBuffer bytes = buffer.duplicate();
+            bytes.limit(to).position(from);
+            // a UTF-8 record never has more chars than bytes
+            CharBuffer out = CharBuffer.wrap(this.chars);
+            this.decoder.reset();
+            this.decoder.decode(bytes, out, true);
+            this.decoder.flush(out);
+            return out.position();
+        }
+    }
+
+    /**
+     * Part of the file starting and ending on a record boundary.
+     */
+    static final class Range {
+
+        // list of the variables
+        final long start;
+        final long end;
+        final long firstRow;
+
+        /**
+         * Constructor.
+         *
+         * @param start    offset of the first byte
+         * @param end      offset after the last byte
+         * @param firstRow number of the first row of the range in the file
+         */
+        Range(long start, long end, long firstRow) {
+            this.start = start;
+            this.end = end;
+            this.firstRow = firstRow;
+        }
+    }
+}
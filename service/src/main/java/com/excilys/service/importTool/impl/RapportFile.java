@@ -0,0 +1,252 @@
+package com.excilys.service.importTool.impl;
+
+import au.com.bytecode.opencsv.CSVReader;
+import au.com.bytecode.opencsv.CSVWriter;
+import com.excilys.core.conflict.Conflict;
+import com.excilys.core.conflict.ImportException;
+import com.excilys.core.conflict.Rapport;
+import com.excilys.core.conflict.doublon.Doublon;
+import com.excilys.core.conflict.format.Error;
+import com.excilys.core.conflict.format.ErrorMessage;
+import com.excilys.core.dto.ComputerDTO;
+import com.excilys.core.dto.ConflictDTO;
+import com.excilys.core.dto.CursorPageDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Append only csv file with the conflicts of an import, one line per row which was not inserted.
+ * <p>
+ * The lines of a chunk are written and synced before the chunk is committed, and the size of the file is saved
+ * in the checkpoint. When an import is resumed the file is cut back to this size, so the lines of a chunk which
+ * was not committed are not kept twice.
+ * <p>
+ * The file is the complete rapport of the import, the rapport kept in memory only has the first conflicts.
+ *
+ * @author excilys
+ */
+public class RapportFile implements Closeable {
+
+    // list of the variables
+    static final String REFUSED = "refused";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final FileChannel channel;
+
+    /**
+     * Open the file, created if needed.
+     *
+     * @param file   path of the file
+     * @param offset size to cut the file back to
+     */
+    public RapportFile(Path file, long offset) {
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.channel.truncate(offset);
+            this.channel.position(this.channel.size());
+        } catch (IOException e) {
+            throw new ImportException("Error opening rapport file", e);
+        }
+    }
+
+    /**
+     * Write the conflicts of a checked chunk.
+     *
+     * @param checked rapport of the chunk
+     * @return the size of the file after the chunk
+     */
+    public long append(Rapport checked) {
+        StringWriter buffer = new StringWriter();
+        try (CSVWriter writer = new CSVWriter(buffer)) {
+            this.write(writer, REFUSED, checked.getRefuse());
+            this.write(writer, "toCheck", checked.getToCheck());
+            this.write(writer, "collapsed", checked.getCollapsed());
+        } catch (IOException e) {
+            throw new ImportException("Error writing rapport", e);
+        }
+
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                this.channel.write(bytes);
+            }
+            this.channel.force(false);
+            return this.channel.position();
+        } catch (IOException e) {
+            throw new ImportException("Error writing rapport", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Read a page of a rapport file. The lines before the page are skipped without being parsed, so only the
+     * page is in memory, but they are still scanned : readAfter reads the next pages without it.
+     *
+     * @param file  path of the file
+     * @param first index of the first line of the page, starting at 0
+     * @param size  maximum number of lines
+     * @return the lines of the page, empty after the end of the file
+     */
+    public static List<ConflictDTO> read(Path file, long first, int size) {
+        List<ConflictDTO> page = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            readLines(channel, skip(channel, first), size, page);
+        } catch (IOException e) {
+            throw new ImportException("Error reading rapport", e);
+        }
+        return page;
+    }
+
+    /**
+     * Read a page of a rapport file from the offset returned with the previous page, so a page costs the same
+     * wherever it is in the file.
+     *
+     * @param file   path of the file
+     * @param offset of the first line of the page, 0 for the first page
+     * @param size   maximum number of lines
+     * @return the lines of the page and the offset of the next one, an empty page if there is no line yet after
+     * the offset
+     */
+    public static CursorPageDTO<ConflictDTO> readAfter(Path file, long offset, int size) {
+        List<ConflictDTO> page = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long next = readLines(channel, Math.min(offset, channel.size()), size, page);
+            return new CursorPageDTO<>(page, Long.toString(next));
+        } catch (IOException e) {
+            throw new ImportException("Error reading rapport", e);
+        }
+    }
+
+    /**
+     * Read the lines following a position. A line is only read once its new line is written.
+     *
+     * @param channel  of the file
+     * @param position of the first line
+     * @param size     maximum number of lines
+     * @param page     receiving the lines
+     * @return the position after the last line read
+     * @throws IOException if the file cannot be read
+     */
+    private static long readLines(FileChannel channel, long position, int size, List<ConflictDTO> page)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long end = position;
+        long read = position;
+        boolean quoted = false;
+
+        channel.position(position);
+        while (page.size() < size && channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining() && page.size() < size) {
+                byte b = buffer.get();
+                read++;
+                line.write(b);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    page.add(parse(line.toString(StandardCharsets.UTF_8.name())));
+                    line.reset();
+                    end = read;
+                }
+            }
+            buffer.clear();
+        }
+        return end;
+    }
+
+    /**
+     * Parse a line. The quotes of the fields are doubled by CSVWriter, the backslashes are not escaped : the
+     * escape char of the reader is disabled so they are kept.
+     *
+     * @param line of the file, with its new line
+     * @return the conflict of the line
+     * @throws IOException if the line cannot be parsed
+     */
+    private static ConflictDTO parse(String line) throws IOException {
+        try (CSVReader reader = new CSVReader(new StringReader(line), ',', '"', '\0')) {
+            return new ConflictDTO(reader.readNext());
+        }
+    }
+
+    /**
+     * Find the position of a line, counting the new lines out of the quotes.
+     *
+     * @param channel of the file, at its start
+     * @param lines   number of lines to skip
+     * @return the position of the first byte after these lines
+     * @throws IOException if the file cannot be read
+     */
+    private static long skip(FileChannel channel, long lines) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        long skipped = 0;
+        boolean quoted = false;
+
+        while (skipped < lines && channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining() && skipped < lines) {
+                byte b = buffer.get();
+                position++;
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    skipped++;
+                }
+            }
+            buffer.clear();
+        }
+        return position;
+    }
+
+    /**
+     * Write a line for each conflict.
+     *
+     * @param writer    to write to
+     * @param kind      of the conflicts
+     * @param conflicts to write
+     */
+    private void write(CSVWriter writer, String kind, List<Conflict> conflicts) {
+        for (Conflict conflict : conflicts) {
+            ComputerDTO computer = conflict.getComputerDTO();
+            writer.writeNext(new String[]{kind, Long.toString(conflict.getRow()),
+                    computer.getName(), computer.getIntroduced(), computer.getDiscontinued(), computer.getCompanyName(),
+                    detail(conflict)});
+        }
+    }
+
+    /**
+     * Describe why a row was not inserted.
+     *
+     * @param conflict of the row
+     * @return the error keys, or the names of the computers it is a duplicate of
+     */
+    private static String detail(Conflict conflict) {
+        if (conflict instanceof Error && ((Error) conflict).getErrorMap() != null) {
+            return ((Error) conflict).getErrorMap().values().stream()
+                    .flatMap(List::stream)
+                    .map(ErrorMessage::getValue)
+                    .collect(Collectors.joining(" "));
+        } else if (conflict instanceof Doublon) {
+            return ((Doublon) conflict).getConflicts().stream()
+                    .map(ComputerDTO::getName)
+                    .collect(Collectors.joining(" | "));
+        }
+        return "";
+    }
+}
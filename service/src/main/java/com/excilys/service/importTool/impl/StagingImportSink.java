@@ -0,0 +1,89 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.binding.validation.ComputerRowValidator;
+import com.excilys.core.conflict.ImportChunk;
+import com.excilys.core.conflict.Rapport;
+import com.excilys.core.dto.ComputerDTO;
+import com.excilys.persistence.dao.ComputerStagingDAO;
+import com.excilys.service.importTool.ComputerImportSink;
+import com.excilys.service.importTool.IComputerImportService;
+
+/**
+ * Sink validating each chunk and loading its valid rows in the staging table. Nothing is in the computer table
+ * until IComputerService.createStagedComputers() is called with the same batch id.
+ *
+ * @author excilys
+ */
+public class StagingImportSink implements ComputerImportSink {
+
+    // list of the variables
+    private final IComputerImportService importService;
+    private final ComputerStagingDAO stagingDAO;
+    private final String batchId;
+    private final RapportFile rapportFile;
+    private final Rapport rapport;
+    private long staged;
+
+    /**
+     * Constructor.
+     *
+     * @param importService to validate the rows
+     * @param stagingDAO    to load the rows
+     * @param batchId       of the rows in the staging table
+     * @param rapportFile   where the refused rows are written
+     * @param window        number of refused rows kept in memory, the rapport file has all of them
+     */
+    public StagingImportSink(IComputerImportService importService, ComputerStagingDAO stagingDAO, String batchId,
+                             RapportFile rapportFile, int window) {
+        this.importService = importService;
+        this.stagingDAO = stagingDAO;
+        this.batchId = batchId;
+        this.rapportFile = rapportFile;
+        this.rapport = new Rapport(window);
+    }
+
+    @Override
+    public void accept(ImportChunk chunk) {
+        ImportChunk valid = this.importService.validate(chunk);
+        Rapport refused = new Rapport();
+        refused.getRefuse().addAll(valid.getRefused());
+        this.rapportFile.append(refused);
+        this.rapport.merge(refused);
+        for (ComputerDTO computer : valid.getComputers()) {
+            computer.setIntroduced(normalize(computer.getIntroduced()));
+            computer.setDiscontinued(normalize(computer.getDiscontinued()));
+        }
+        this.stagingDAO.stage(this.batchId, valid.getComputers());
+        this.staged += valid.getComputers().size();
+    }
+
+    /**
+     * Get the rapport of the rows read so far, only the rows refused by the validation are in it.
+     *
+     * @return the rapport
+     */
+    public Rapport getRapport() {
+        return this.rapport;
+    }
+
+    /**
+     * Number of rows loaded in the staging table.
+     *
+     * @return the number of rows
+     */
+    public long getStaged() {
+        return this.staged;
+    }
+
+    /**
+     * Write a validated date as yyyy-MM-dd for the staging table, the validation accepts blanks around it, one digit
+     * months and days, and null in any case.
+     *
+     * @param date validated date
+     * @return the date as yyyy-MM-dd, empty if there is none
+     */
+    static String normalize(String date) {
+        int parsed = ComputerRowValidator.parseDate(date);
+        return parsed <= ComputerRowValidator.EMPTY ? "" : ComputerRowValidator.toLocalDate(parsed).toString();
+    }
+}
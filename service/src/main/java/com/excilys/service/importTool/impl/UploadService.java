@@ -0,0 +1,321 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.core.conflict.ImportException;
+import com.excilys.core.dto.UploadDTO;
+import com.excilys.service.importTool.IImportJobService;
+import com.excilys.service.importTool.IUploadService;
+import com.excilys.service.importTool.ImportJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Chunked uploads written in the spool directory, so a large file does not have to arrive in one request.
+ * <p>
+ * Each upload has three files : the data, its properties (name and size) and the list of the received chunks with
+ * their offset, length and SHA-256. A chunk is added to the list only after it is synced on the disk, so the list
+ * is always the part of the file which can be trusted, even after a restart.
+ *
+ * @author excilys
+ */
+@Service
+public class UploadService implements IUploadService {
+
+    // list of the variables
+    private static final int MAX_CHUNK = 16 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long RETENTION = TimeUnit.DAYS.toMillis(1);
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}");
+    private final Logger LOGGER = LoggerFactory.getLogger(UploadService.class);
+
+    @Value("${import.spool.dir:/tmp/cdb/import}")
+    private String spoolDir;
+
+    @Autowired
+    private IImportJobService jobService;
+
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private Path uploadDir;
+
+    /**
+     * Create the upload directory.
+     *
+     * @throws IOException if the directory cannot be created
+     */
+    @PostConstruct
+    public void initIt() throws IOException {
+        this.uploadDir = Files.createDirectories(Paths.get(this.spoolDir, "uploads"));
+    }
+
+    @Override
+    public UploadDTO create(String fileName, long size) {
+        this.LOGGER.debug("entering create()");
+        String format = format(fileName);
+        if (!"csv".equals(format) && !"xml".equals(format)) {
+            throw new IllegalArgumentException("Accepted format : csv and xml.");
+        }
+        this.purge();
+
+        String id = UUID.randomUUID().toString();
+        Properties properties = new Properties();
+        properties.setProperty("fileName", fileName);
+        properties.setProperty("size", Long.toString(size));
+        try {
+            Files.createFile(this.data(id));
+            Files.createFile(this.chunks(id));
+            try (Writer writer = Files.newBufferedWriter(this.properties(id), StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+        } catch (IOException e) {
+            this.delete(id);
+            throw new ImportException("Error creating upload", e);
+        }
+        return this.getStatus(id);
+    }
+
+    @Override
+    public UploadDTO getStatus(String id) {
+        if (!this.exists(id)) {
+            return null;
+        }
+        Properties properties = this.readProperties(id);
+        List<String> chunks = this.readChunks(id);
+
+        UploadDTO dto = new UploadDTO();
+        dto.setId(id);
+        dto.setFileName(properties.getProperty("fileName"));
+        dto.setSize(Long.parseLong(properties.getProperty("size", "0")));
+        dto.setChunks(chunks.size());
+        dto.setReceived(chunks.stream().mapToLong(line -> Long.parseLong(line.split(" ")[1])).sum());
+        return dto;
+    }
+
+    @Override
+    public UploadDTO write(String id, long offset, InputStream input, String checksum) {
+        this.LOGGER.debug("entering write()");
+        synchronized (this.lock(id)) {
+            UploadDTO status = this.getStatus(id);
+            if (status == null) {
+                return null;
+            }
+            if (offset != status.getReceived()) {
+                throw new IllegalStateException("Expected a chunk at offset " + status.getReceived() + ".");
+            }
+
+            MessageDigest digest = sha256();
+            long length = 0;
+            try (FileChannel channel = FileChannel.open(this.data(id), StandardOpenOption.WRITE)) {
+                // bytes after the last recorded chunk come from a chunk which was cut, they are overwritten
+                channel.truncate(offset);
+                channel.position(offset);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    length += read;
+                    if (length > MAX_CHUNK || (status.getSize() > 0 && offset + length > status.getSize())) {
+                        throw new IllegalArgumentException("Chunk too large.");
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes);
+                    }
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                throw new ImportException("Error writing chunk", e);
+            }
+
+            String hash = String.format("%064x", new BigInteger(1, digest.digest()));
+            if (checksum != null && !checksum.equalsIgnoreCase(hash)) {
+                throw new IllegalArgumentException("Checksum mismatch.");
+            }
+
+            try (FileChannel channel = FileChannel.open(this.chunks(id), StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.wrap((offset + " " + length + " " + hash + "\n").getBytes(StandardCharsets.UTF_8)));
+                channel.force(false);
+            } catch (IOException e) {
+                throw new ImportException("Error writing chunk", e);
+            }
+            return this.getStatus(id);
+        }
+    }
+
+    @Override
+    public ImportJob complete(String id, ImportJob.Mode mode) {
+        this.LOGGER.debug("entering complete()");
+        synchronized (this.lock(id)) {
+            UploadDTO status = this.getStatus(id);
+            if (status == null) {
+                return null;
+            }
+            if (status.getSize() > 0 && status.getReceived() != status.getSize()) {
+                throw new IllegalStateException("Received " + status.getReceived() + " of " + status.getSize() + " bytes.");
+            }
+
+            try (FileChannel channel = FileChannel.open(this.data(id), StandardOpenOption.WRITE)) {
+                channel.truncate(status.getReceived());
+            } catch (IOException e) {
+                throw new ImportException("Error completing upload", e);
+            }
+
+            ImportJob job = this.jobService.submit(this.data(id), status.getFileName(), format(status.getFileName()),
+                    mode);
+            // the data file belongs to the job now
+            this.deleteFile(this.chunks(id));
+            this.deleteFile(this.properties(id));
+            this.locks.remove(id);
+            return job;
+        }
+    }
+
+    @Override
+    public boolean abort(String id) {
+        this.LOGGER.debug("entering abort()");
+        synchronized (this.lock(id)) {
+            if (!this.exists(id)) {
+                return false;
+            }
+            this.delete(id);
+            this.locks.remove(id);
+            return true;
+        }
+    }
+
+    /**
+     * Delete the uploads which did not receive a chunk for more than the retention time.
+     */
+    private void purge() {
+        long limit = System.currentTimeMillis() - RETENTION;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.uploadDir, "*.chunks")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < limit) {
+                    String name = file.getFileName().toString();
+                    this.abort(name.substring(0, name.length() - ".chunks".length()));
+                }
+            }
+        } catch (IOException e) {
+            this.LOGGER.warn("Couldn't purge the uploads", e);
+        }
+    }
+
+    /**
+     * Check if an upload exists, the id is checked first so it cannot be used to reach another file.
+     *
+     * @param id of the upload
+     * @return true if the upload exists
+     */
+    private boolean exists(String id) {
+        return id != null && ID.matcher(id).matches() && Files.exists(this.properties(id));
+    }
+
+    private Object lock(String id) {
+        return this.locks.computeIfAbsent(id, key -> new Object());
+    }
+
+    private Path data(String id) {
+        return this.uploadDir.resolve(id + ".part");
+    }
+
+    private Path chunks(String id) {
+        return this.uploadDir.resolve(id + ".chunks");
+    }
+
+    private Path properties(String id) {
+        return this.uploadDir.resolve(id + ".properties");
+    }
+
+    /**
+     * Read the properties of an upload.
+     *
+     * @param id of the upload
+     * @return the properties
+     */
+    private Properties readProperties(String id) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(this.properties(id), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new ImportException("Error reading upload", e);
+        }
+        return properties;
+    }
+
+    /**
+     * Read the list of the received chunks of an upload.
+     *
+     * @param id of the upload
+     * @return one line per chunk : offset, length and SHA-256
+     */
+    private List<String> readChunks(String id) {
+        try {
+            return Files.readAllLines(this.chunks(id), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ImportException("Error reading upload", e);
+        }
+    }
+
+    /**
+     * Delete all the files of an upload.
+     *
+     * @param id of the upload
+     */
+    private void delete(String id) {
+        this.deleteFile(this.data(id));
+        this.deleteFile(this.chunks(id));
+        this.deleteFile(this.properties(id));
+    }
+
+    private void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            this.LOGGER.warn("Couldn't delete " + file, e);
+        }
+    }
+
+    /**
+     * Get the format of a file from its name.
+     *
+     * @param fileName of the file
+     * @return the extension, empty if there is none
+     */
+    private static String format(String fileName) {
+        int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
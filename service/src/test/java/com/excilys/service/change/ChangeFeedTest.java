@@ -0,0 +1,97 @@
+package com.excilys.service.change;
+
+import com.excilys.service.change.ChangeEvent.Entity;
+import com.excilys.service.change.ChangeEvent.Type;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ChangeFeedTest {
+
+    @Test
+    public void testReadAfter() {
+        ChangeFeed feed = new ChangeFeed();
+        long start = feed.getLastId();
+        feed.publish(Entity.COMPUTER, Type.CREATED, 1);
+        feed.publish(Entity.COMPANY, Type.DELETED, 2);
+
+        List<ChangeEvent> events = feed.readAfter(start, 10);
+
+        assertEquals(2, events.size());
+        assertEquals(start + 1, events.get(0).getId());
+        assertEquals(Type.CREATED, events.get(0).getType());
+        assertEquals(2, events.get(1).getEntityId());
+        assertTrue(feed.readAfter(events.get(1).getId(), 10).isEmpty());
+        assertEquals(1, feed.readAfter(start, 1).size());
+    }
+
+    @Test
+    public void testReloadWhenTooFarBehind() {
+        ChangeFeed feed = new ChangeFeed();
+        long start = feed.getLastId();
+        for (int i = 0; i <= ChangeFeed.CAPACITY; i++) {
+            feed.publish(Entity.COMPUTER, Type.UPDATED, i);
+        }
+
+        List<ChangeEvent> events = feed.readAfter(start, 10);
+
+        assertEquals(1, events.size());
+        assertEquals(Type.RELOAD, events.get(0).getType());
+        assertNull(events.get(0).getEntity());
+        assertEquals(feed.getLastId(), events.get(0).getId());
+        assertEquals(10, feed.readAfter(start + 1, 10).size());
+    }
+
+    @Test
+    public void testReloadForAnIdOfAnotherRun() {
+        ChangeFeed feed = new ChangeFeed();
+
+        List<ChangeEvent> events = feed.readAfter(42, 10);
+
+        assertEquals(Type.RELOAD, events.get(0).getType());
+    }
+
+    @Test
+    public void testPublishedAfterCommit() {
+        ChangeFeed feed = new ChangeFeed();
+        long start = feed.getLastId();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            feed.publish(Entity.COMPUTER, Type.CREATED, 1);
+            feed.publish(Entity.COMPUTER, Type.CREATED, 2);
+            assertTrue(feed.readAfter(start, 10).isEmpty());
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(1, synchronizations.size());
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(2, feed.readAfter(start, 10).size());
+    }
+
+    @Test
+    public void testDroppedOnRollback() {
+        ChangeFeed feed = new ChangeFeed();
+        long start = feed.getLastId();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            feed.publish(Entity.COMPANY, Type.UPDATED, 1);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(feed.readAfter(start, 10).isEmpty());
+        assertTrue(!TransactionSynchronizationManager.hasResource(feed));
+    }
+}
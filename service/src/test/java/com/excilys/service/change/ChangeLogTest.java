@@ -0,0 +1,131 @@
+package com.excilys.service.change;
+
+import com.excilys.core.model.ChangeLogEntry;
+import com.excilys.persistence.dao.ChangeLogDAO;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChangeLogTest {
+
+    private static final long NOW = 1000000;
+
+    private final InMemoryLog log = new InMemoryLog();
+    private final ChangeLog changeLog = new ChangeLog();
+
+    /**
+     * Committed entries of the change_log table, by id.
+     */
+    private static final class InMemoryLog extends ChangeLogDAO {
+
+        private final Map<Long, ChangeLogEntry> committed = new TreeMap<>();
+
+        private void commit(long id, long age) {
+            this.committed.put(id, new ChangeLogEntry(id, null, "COMPUTER", "UPDATED", id, NOW - age));
+        }
+
+        @Override
+        public List<ChangeLogEntry> findAfter(long lastSeq, long limit) {
+            return this.committed.values().stream()
+                    .filter(entry -> entry.getSeq() != null && entry.getSeq() > lastSeq)
+                    .sorted((a, b) -> Long.compare(a.getSeq(), b.getSeq()))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<ChangeLogEntry> findUnsequenced(long limit) {
+            return this.committed.values().stream()
+                    .filter(entry -> entry.getSeq() == null)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public boolean sequence(long id, long seq) {
+            ChangeLogEntry entry = this.committed.get(id);
+            if (entry.getSeq() != null) {
+                return false;
+            }
+            this.committed.put(id, new ChangeLogEntry(id, seq, entry.getEntity(), entry.getType(),
+                    entry.getEntityId(), entry.getChangedAt()));
+            return true;
+        }
+
+        @Override
+        public long maxSeq() {
+            return this.committed.values().stream()
+                    .filter(entry -> entry.getSeq() != null)
+                    .mapToLong(ChangeLogEntry::getSeq)
+                    .max().orElse(0);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(this.changeLog, "changeLogDAO", this.log);
+        ReflectionTestUtils.setField(this.changeLog, "txManager", Mockito.mock(PlatformTransactionManager.class));
+    }
+
+    private static List<Long> ids(List<ChangeLogEntry> entries) {
+        return entries.stream().map(ChangeLogEntry::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testReadsTheCommittedEntriesInOrder() {
+        this.log.commit(5, 0);
+        this.log.commit(6, 0);
+        this.log.commit(7, 0);
+
+        List<ChangeLogEntry> entries = this.changeLog.readAfter(0, 10);
+
+        assertEquals(3, entries.size());
+        assertEquals(1L, (long) entries.get(0).getSeq());
+        assertEquals(3L, (long) entries.get(2).getSeq());
+        assertTrue(this.changeLog.readAfter(3, 10).isEmpty());
+    }
+
+    @Test
+    public void testGivesAnEntryCommittedLateAfterTheOthers() {
+        // the transaction of 6 is still running when 7 and 8 are read
+        this.log.commit(5, 0);
+        this.log.commit(7, 0);
+        this.log.commit(8, 0);
+        List<ChangeLogEntry> first = this.changeLog.readAfter(0, 10);
+        assertEquals(3, first.size());
+        long lastSeq = first.get(2).getSeq();
+
+        // it commits long after the others, its entry was inserted before them
+        this.log.commit(6, 10 * 60 * 1000);
+        this.log.commit(9, 0);
+        List<ChangeLogEntry> next = this.changeLog.readAfter(lastSeq, 10);
+
+        assertEquals(2, next.size());
+        assertEquals(Long.valueOf(6), next.get(0).getId());
+        assertEquals(lastSeq + 1, (long) next.get(0).getSeq());
+        assertEquals(Long.valueOf(9), next.get(1).getId());
+    }
+
+    @Test
+    public void testRelayDoesNotRenumber() {
+        this.log.commit(5, 0);
+        this.log.commit(6, 0);
+
+        this.changeLog.relay();
+        this.changeLog.relay();
+
+        assertEquals(2, this.log.maxSeq());
+        assertEquals(ids(this.changeLog.readAfter(0, 10)), ids(this.changeLog.readAfter(0, 10)));
+        assertEquals(1, this.changeLog.readAfter(1, 10).size());
+    }
+}
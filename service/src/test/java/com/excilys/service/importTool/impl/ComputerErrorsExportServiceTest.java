@@ -0,0 +1,69 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.core.conflict.Rapport;
+import com.excilys.core.conflict.doublon.Doublon;
+import com.excilys.core.conflict.format.Error;
+import com.excilys.core.conflict.format.ErrorMessage;
+import com.excilys.core.conflict.format.Fields;
+import com.excilys.core.dto.ComputerDTO;
+import com.excilys.service.importTool.IComputerErrorsExportService;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class ComputerErrorsExportServiceTest {
+
+    @Test
+    public void testFieldsAreEscaped() throws IOException {
+        Map<Fields, List<ErrorMessage>> errors = new HashMap<>();
+        errors.put(Fields.INTRODUCED, Collections.singletonList(ErrorMessage.DATE_FORMAT));
+        Error error = new Error(new ComputerDTO.Builder()
+                .name("Mac \"Pro\", 2006")
+                .introduced("01/01/2006")
+                .companyName("Apple")
+                .build(), errors);
+
+        StringWriter writer = new StringWriter();
+        new ComputerErrorsExportService().csvFileWriter(Collections.singletonList(error), writer);
+
+        assertEquals(IComputerErrorsExportService.FILE_HEADER + "\n"
+                + "\"Mac \"\"Pro\"\", 2006\",01/01/2006,,Apple,INTRODUCED DATE: "
+                + IComputerErrorsExportService.ERROR_DATE_FORMAT + IComputerErrorsExportService.ERROR_SEPARATOR
+                + "\n", writer.toString());
+    }
+
+    @Test
+    public void testRefusedRowsOfARapportFile() throws IOException {
+        Map<Fields, List<ErrorMessage>> errors = new HashMap<>();
+        errors.put(Fields.NAME, Collections.singletonList(ErrorMessage.NAME_NULL));
+        ComputerDTO likely = new ComputerDTO.Builder().name("Amiga").introduced("").discontinued("")
+                .companyName("").build();
+        Rapport checked = new Rapport();
+        checked.getRefuse().add(new Error(new ComputerDTO.Builder().name("").introduced("")
+                .discontinued("").companyName("Apple").build(), errors));
+        checked.getToCheck().add(new Doublon(likely, Collections.singletonList(likely)));
+        Path file = Files.createTempFile("rapport", ".csv");
+        try {
+            try (RapportFile rapportFile = new RapportFile(file, 0)) {
+                rapportFile.append(checked);
+            }
+
+            StringWriter writer = new StringWriter();
+            new ComputerErrorsExportService().csvFileWriter(file, writer);
+
+            assertEquals(IComputerErrorsExportService.FILE_HEADER + "\n"
+                    + ",,,Apple," + ErrorMessage.NAME_NULL.getValue() + "\n", writer.toString());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.core.conflict.ImportChunk;
+import com.excilys.core.conflict.ImportException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ComputerImportServiceTest {
+
+    private final ComputerImportService service = new ComputerImportService();
+    private final List<ImportChunk> chunks = new ArrayList<>();
+    private Path secret;
+
+    @Before
+    public void setUp() throws IOException {
+        this.secret = Files.createTempFile("secret", ".txt");
+        Files.write(this.secret, "top secret".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.secret);
+    }
+
+    private static InputStream xml(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void assertRefused(String content) {
+        try {
+            this.service.readComputers(xml(content), "xml", this.chunks::add);
+            fail("The file should be refused");
+        } catch (ImportException e) {
+            assertTrue(this.chunks.isEmpty());
+        }
+    }
+
+    @Test
+    public void testReadsTheComputers() {
+        this.service.readComputers(xml("<computers><computer><name> Amiga 500 </name>"
+                + "<company_name>Commodore</company_name></computer></computers>"), "xml", this.chunks::add);
+
+        assertEquals(1, this.chunks.size());
+        assertEquals("Amiga 500", this.chunks.get(0).getComputers().get(0).getName());
+        assertEquals("Commodore", this.chunks.get(0).getComputers().get(0).getCompanyName());
+    }
+
+    @Test
+    public void testExternalEntityIsNotResolved() {
+        this.assertRefused("<?xml version=\"1.0\"?>"
+                + "<!DOCTYPE computers [<!ENTITY secret SYSTEM \"" + this.secret.toUri() + "\">]>"
+                + "<computers><computer><name>&secret;</name></computer></computers>");
+    }
+
+    @Test
+    public void testEntityExpansionIsRefused() {
+        this.assertRefused("<?xml version=\"1.0\"?>"
+                + "<!DOCTYPE computers [<!ENTITY lol \"lol\"><!ENTITY lol2 \"&lol;&lol;&lol;&lol;&lol;&lol;\">]>"
+                + "<computers><computer><name>&lol2;</name></computer></computers>");
+    }
+}
@@ -0,0 +1,189 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.core.model.ImportCheckpoint;
+import com.excilys.persistence.dao.ImportCheckpointDAO;
+import com.excilys.service.importTool.ImportJob;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ImportJobServiceTest {
+
+    private Path spoolDir;
+    private Path file;
+    private ImportCheckpointDAO checkpointDAO;
+    private ThreadPoolExecutor executor;
+
+    @Before
+    public void setUp() throws IOException {
+        this.spoolDir = Files.createTempDirectory("import-test");
+        this.file = Files.createTempFile(this.spoolDir, "import-", ".csv");
+        this.checkpointDAO = Mockito.mock(ImportCheckpointDAO.class);
+        this.executor = Mockito.mock(ThreadPoolExecutor.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+        Files.deleteIfExists(this.spoolDir);
+    }
+
+    private ImportJobService service() {
+        ImportJobService service = new ImportJobService();
+        ReflectionTestUtils.setField(service, "spoolDir", this.spoolDir.toString());
+        ReflectionTestUtils.setField(service, "checkpointDAO", this.checkpointDAO);
+        ReflectionTestUtils.setField(service, "executor", this.executor);
+        return service;
+    }
+
+    private ImportCheckpoint checkpoint(String state) {
+        ImportCheckpoint checkpoint = new ImportCheckpoint("job", "computers.csv", "csv", this.file.toString());
+        checkpoint.setState(state);
+        Mockito.when(this.checkpointDAO.find("job")).thenReturn(checkpoint);
+        return checkpoint;
+    }
+
+    @Test
+    public void testResumeStartsAfterTheCheckpoint() {
+        this.checkpoint("FAILED").advance(150, 0, 140, 10);
+        Mockito.when(this.checkpointDAO.claim(Matchers.eq("job"), Matchers.anyCollectionOf(String.class),
+                Matchers.eq("QUEUED"))).thenReturn(true);
+
+        ImportJob job = this.service().resume("job");
+
+        assertEquals(150, job.getSkipRows());
+        assertEquals(150, job.toDTO().getParsed());
+        Mockito.verify(this.executor).execute(Matchers.any(Runnable.class));
+    }
+
+    @Test
+    public void testDoubleResumeStartsTheJobOnce() {
+        this.checkpoint("INTERRUPTED");
+        // the first caller moves the checkpoint to QUEUED, the second one finds it already moved
+        Mockito.when(this.checkpointDAO.claim(Matchers.eq("job"), Matchers.anyCollectionOf(String.class),
+                Matchers.eq("QUEUED"))).thenReturn(true, false);
+
+        this.service().resume("job");
+        try {
+            this.service().resume("job");
+            fail("The second resume must be refused.");
+        } catch (IllegalStateException e) {
+            // expected, answered with 409
+        }
+
+        Mockito.verify(this.executor, Mockito.times(1)).execute(Matchers.any(Runnable.class));
+    }
+
+    @Test
+    public void testResumeRefusesAJobNotResumable() {
+        this.checkpoint("DONE");
+
+        try {
+            this.service().resume("job");
+            fail("A finished import cannot be resumed.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        Mockito.verify(this.checkpointDAO, Mockito.never()).claim(Matchers.anyString(),
+                Matchers.anyCollectionOf(String.class), Matchers.anyString());
+        Mockito.verifyZeroInteractions(this.executor);
+    }
+
+    @Test
+    public void testResumeUnknownJob() {
+        assertNull(this.service().resume("unknown"));
+    }
+
+    @Test
+    public void testSubmitSpoolsTheFileAndQueuesTheJob() throws IOException {
+        ImportJobService service = this.service();
+
+        ImportJob job = service.submit(new ByteArrayInputStream("Amiga 500,,,\n".getBytes(StandardCharsets.UTF_8)),
+                "computers.csv", "csv", ImportJob.Mode.CHECKED);
+        try {
+            assertEquals(ImportJob.State.QUEUED, job.getState());
+            assertEquals(this.spoolDir, job.getFile().getParent());
+            assertEquals("Amiga 500,,,\n", new String(Files.readAllBytes(job.getFile()), StandardCharsets.UTF_8));
+            assertSame(job, service.getJob(job.getId()));
+            Mockito.verify(this.checkpointDAO).save(Matchers.any(ImportCheckpoint.class));
+            Mockito.verify(this.executor).execute(Matchers.any(Runnable.class));
+        } finally {
+            Files.deleteIfExists(job.getFile());
+        }
+    }
+
+    @Test
+    public void testRejectedSubmitDeletesTheFile() throws IOException {
+        Mockito.doThrow(new RejectedExecutionException()).when(this.executor).execute(Matchers.any(Runnable.class));
+
+        try {
+            this.service().submit(new ByteArrayInputStream(new byte[0]), "computers.csv", "csv",
+                    ImportJob.Mode.CHECKED);
+            fail("The import should be rejected");
+        } catch (RejectedExecutionException e) {
+            // expected, answered with 503
+        }
+
+        // only the file of the setup is left in the spool directory
+        try (Stream<Path> files = Files.list(this.spoolDir)) {
+            assertEquals(1, files.count());
+        }
+        Mockito.verify(this.checkpointDAO).changeState(Matchers.anyString(), Matchers.eq("CANCELLED"));
+    }
+
+    @Test
+    public void testSubmitRefusesAnUnknownFormat() {
+        try {
+            this.service().submit(new ByteArrayInputStream(new byte[0]), "computers.json", "json",
+                    ImportJob.Mode.CHECKED);
+            fail("Only csv and xml are accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        Mockito.verifyZeroInteractions(this.checkpointDAO, this.executor);
+    }
+
+    @Test
+    public void testCancelFlagsTheRunningJob() {
+        ImportJobService service = this.service();
+        ImportJob job = service.submit(this.file, "computers.csv", "csv", ImportJob.Mode.CHECKED);
+        assertFalse(job.isCancelRequested());
+
+        assertSame(job, service.cancel(job.getId()));
+
+        assertTrue(job.isCancelRequested());
+        assertNull(service.cancel("unknown"));
+    }
+
+    @Test
+    public void testGetJobFromTheCheckpoint() {
+        this.checkpoint("DONE");
+
+        ImportJob job = this.service().getJob("job");
+
+        assertEquals(ImportJob.State.DONE, job.getState());
+        assertEquals("computers.csv", job.getFileName());
+        assertNull(this.service().getJob("unknown"));
+    }
+}
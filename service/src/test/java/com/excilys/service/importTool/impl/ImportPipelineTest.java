@@ -0,0 +1,167 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.binding.doublon.DeduplicationWindow;
+import com.excilys.binding.mapper.impl.ComputerMapper;
+import com.excilys.core.conflict.ImportChunk;
+import com.excilys.core.conflict.Rapport;
+import com.excilys.core.conflict.doublon.Doublon;
+import com.excilys.core.dto.ComputerDTO;
+import com.excilys.core.model.Computer;
+import com.excilys.core.model.ImportCheckpoint;
+import com.excilys.service.computer.IComputerService;
+import com.excilys.service.doublon.DoublonService;
+import com.excilys.service.importTool.ComputerImportSink;
+import com.excilys.service.importTool.IComputerImportService;
+import com.excilys.service.importTool.ImportJob;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ImportPipelineTest {
+
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+    private final List<String> inserted = Collections.synchronizedList(new ArrayList<>());
+    private IComputerImportService importService;
+    private DatabaseImportSink database;
+
+    /**
+     * Check of the database only : a row is refused when a computer with the same name is committed.
+     */
+    private final class StoredNames implements DoublonService {
+
+        @Override
+        public Rapport getRapport(List<ComputerDTO> computers) {
+            return this.getRapport(computers, null);
+        }
+
+        @Override
+        public Rapport getRapport(List<ComputerDTO> computers, DeduplicationWindow window) {
+            Rapport rapport = new Rapport();
+            for (ComputerDTO computer : computers) {
+                if (stored.contains(computer.getName())) {
+                    rapport.getRefuse().add(new Doublon(computer, Collections.singletonList(computer)));
+                } else {
+                    rapport.getToImport().add(computer);
+                }
+            }
+            return rapport;
+        }
+
+        @Override
+        public List<Computer> findLikelyDuplicates(Computer computer) {
+            return Collections.emptyList();
+        }
+    }
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        IComputerService computerService = Mockito.mock(IComputerService.class);
+        Mockito.when(computerService.createComputers(Matchers.anyList())).thenAnswer(invocation -> {
+            List<Computer> computers = (List<Computer>) invocation.getArguments()[0];
+            // a slow commit, the next chunk is validated meanwhile
+            Thread.sleep(100);
+            computers.forEach(computer -> this.inserted.add(computer.getName()));
+            computers.forEach(computer -> this.stored.add(computer.getName()));
+            return computers;
+        });
+        this.database = new DatabaseImportSink(new StoredNames(), computerService, new ComputerMapper());
+
+        this.importService = Mockito.mock(IComputerImportService.class);
+        Mockito.when(this.importService.validate(Matchers.any(ImportChunk.class)))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+    }
+
+    private static ImportChunk chunk(long firstRow, String... names) {
+        ImportChunk chunk = new ImportChunk(firstRow, names.length);
+        for (int i = 0; i < names.length; i++) {
+            chunk.add(firstRow + i, new ComputerDTO.Builder().name(names[i]).introduced("").discontinued("").build());
+        }
+        return chunk;
+    }
+
+    private void read(ImportChunk... chunks) {
+        Mockito.doAnswer(invocation -> {
+            ComputerImportSink sink = (ComputerImportSink) invocation.getArguments()[2];
+            for (ImportChunk chunk : chunks) {
+                sink.accept(chunk);
+            }
+            return null;
+        }).when(this.importService).readComputers(Matchers.any(Path.class), Matchers.anyString(),
+                Matchers.any(ComputerImportSink.class));
+    }
+
+    @Test
+    public void testDuplicateAcrossChunksInsertedOnce() {
+        this.read(chunk(1, "Amiga 500", "Atari ST"), chunk(3, "ZX Spectrum", "Amiga 500"), chunk(5, "Atari ST"));
+        ImportJob job = new ImportJob(new ImportCheckpoint("job", "computers.csv", "csv", "/tmp/computers.csv"));
+
+        new ImportPipeline(this.importService, this.database).run(job.getFile(), job);
+
+        assertEquals(3, this.inserted.size());
+        assertEquals(3, this.database.getRapport().getImported());
+        assertEquals(2, this.database.getRapport().getRefusedCount());
+    }
+
+    @Test
+    public void testStagesCountTheRows() {
+        this.read(chunk(1, "Amiga 500", "Atari ST"), chunk(3, "Amiga 500"));
+        ImportJob job = new ImportJob(new ImportCheckpoint("job", "computers.csv", "csv", "/tmp/computers.csv"));
+        ImportPipeline pipeline = new ImportPipeline(this.importService, this.database);
+
+        pipeline.run(job.getFile(), job);
+
+        assertEquals(3, pipeline.getStages().get(2).toDTO().getRows());
+        assertEquals(2, pipeline.getStages().get(3).toDTO().getRows());
+    }
+
+    @Test
+    public void testResumeSkipsTheCommittedRows() {
+        this.read(chunk(1, "Amiga 500", "Atari ST"), chunk(3, "ZX Spectrum", "Commodore 64"), chunk(5, "Apple II"));
+        ImportCheckpoint checkpoint = new ImportCheckpoint("job", "computers.csv", "csv", "/tmp/computers.csv");
+        // the checkpoint is in the middle of the second chunk
+        checkpoint.advance(3, 0, 3, 0);
+        ImportJob job = new ImportJob(checkpoint);
+
+        new ImportPipeline(this.importService, this.database).run(job.getFile(), job);
+
+        assertEquals(Arrays.asList("Commodore 64", "Apple II"), this.inserted);
+        assertEquals(5, job.toDTO().getParsed());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCancelStopsTheValidatedChunks() {
+        this.read(chunk(1, "Amiga 500"), chunk(2, "Atari ST"), chunk(3, "ZX Spectrum"));
+        ImportJob job = new ImportJob(new ImportCheckpoint("job", "computers.csv", "csv", "/tmp/computers.csv"));
+        IComputerService computerService = Mockito.mock(IComputerService.class);
+        Mockito.when(computerService.createComputers(Matchers.anyList())).thenAnswer(invocation -> {
+            List<Computer> computers = (List<Computer>) invocation.getArguments()[0];
+            computers.forEach(computer -> this.inserted.add(computer.getName()));
+            // cancelled during the first commit, the other chunks are already read
+            job.cancel();
+            return computers;
+        });
+        DatabaseImportSink database = new DatabaseImportSink(new StoredNames(), computerService, new ComputerMapper());
+
+        try {
+            new ImportPipeline(this.importService, database).run(job.getFile(), job);
+            fail("The import should be cancelled");
+        } catch (CancellationException e) {
+            assertEquals(Collections.singletonList("Amiga 500"), this.inserted);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.core.conflict.ImportChunk;
+import com.excilys.core.dto.ComputerDTO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedCsvParserTest {
+
+    private static final int ROWS = 1000;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= ROWS; i++) {
+            if (i % 7 == 0) {
+                content.append("\"multi\nline ").append(i).append(" \"\"quoted\"\"\",2001-01-01,,Apple\r\n");
+            } else {
+                content.append("name ").append(i).append(",,,IBM\n");
+            }
+        }
+        this.file = Files.createTempFile("computers", ".csv");
+        Files.write(this.file, content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+        this.pool.shutdown();
+    }
+
+    @Test
+    public void testRowsKeepTheirNumberWithSmallRanges() {
+        List<Long> rows = new ArrayList<>();
+        List<ComputerDTO> computers = new ArrayList<>();
+
+        new MappedCsvParser(this.pool, 64, 10).read(this.file, chunk -> {
+            for (int i = 0; i < chunk.getComputers().size(); i++) {
+                rows.add(chunk.getRow(i));
+                computers.add(chunk.getComputers().get(i));
+            }
+        });
+
+        assertEquals(ROWS, rows.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i + 1, (long) rows.get(i));
+        }
+        assertEquals("name 1", computers.get(0).getName());
+        assertEquals("IBM", computers.get(0).getCompanyName());
+    }
+
+    @Test
+    public void testQuotedNewLine() {
+        List<ComputerDTO> computers = new ArrayList<>();
+
+        new MappedCsvParser(this.pool, 1, 500).read(this.file, chunk -> computers.addAll(chunk.getComputers()));
+
+        ComputerDTO seventh = computers.get(6);
+        assertEquals("multi\nline 7 \"quoted\"", seventh.getName());
+        assertEquals("2001-01-01", seventh.getIntroduced());
+        assertEquals("Apple", seventh.getCompanyName());
+    }
+
+    @Test
+    public void testInvalidRowsAreRefusedWithTheirNumber() throws IOException {
+        Files.write(this.file, "Amiga 500,1985-07-23,,Commodore\n,2001-02-30,,\nZX Spectrum \u00e9,,,Sinclair\n"
+                .getBytes(StandardCharsets.UTF_8));
+        List<ImportChunk> chunks = new ArrayList<>();
+
+        new MappedCsvParser(this.pool, 1024, 10).read(this.file, chunks::add);
+
+        assertEquals(1, chunks.size());
+        assertEquals(2, chunks.get(0).getComputers().size());
+        assertEquals("ZX Spectrum \u00e9", chunks.get(0).getComputers().get(1).getName());
+        assertEquals(3, chunks.get(0).getRow(1));
+        assertEquals(1, chunks.get(0).getRefused().size());
+        assertEquals(2, chunks.get(0).getRefused().get(0).getRow());
+    }
+
+    @Test
+    public void testUnclosedQuoteRefusesTheRestOfTheFile() throws IOException {
+        Files.write(this.file, "Amiga 500,,,Commodore\n\"Atari ST,,,Atari\nZX Spectrum,,,Sinclair\n"
+                .getBytes(StandardCharsets.UTF_8));
+        List<ImportChunk> chunks = new ArrayList<>();
+
+        new MappedCsvParser(this.pool, 1, 10, 32).read(this.file, chunks::add);
+
+        assertEquals(2, chunks.size());
+        assertEquals("Amiga 500", chunks.get(0).getComputers().get(0).getName());
+        assertEquals(0, chunks.get(1).getComputers().size());
+        assertEquals(1, chunks.get(1).getRefused().size());
+        assertEquals(2, chunks.get(1).getRefused().get(0).getRow());
+    }
+}
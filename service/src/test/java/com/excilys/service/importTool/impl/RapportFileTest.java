@@ -0,0 +1,125 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.core.conflict.Rapport;
+import com.excilys.core.conflict.format.Error;
+import com.excilys.core.conflict.format.ErrorMessage;
+import com.excilys.core.conflict.format.Fields;
+import com.excilys.core.dto.ComputerDTO;
+import com.excilys.core.dto.ConflictDTO;
+import com.excilys.core.dto.CursorPageDTO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RapportFileTest {
+
+    private static final int ROWS = 250;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("rapport", ".csv");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    @Test
+    public void testPagesAndWindow() throws IOException {
+        Rapport total = new Rapport(10);
+        try (RapportFile rapportFile = new RapportFile(this.file, 0)) {
+            for (int chunk = 0; chunk < ROWS / 50; chunk++) {
+                Rapport checked = new Rapport();
+                for (int i = 1; i <= 50; i++) {
+                    checked.getRefuse().add(this.error(chunk * 50 + i));
+                }
+                rapportFile.append(checked);
+                total.merge(checked);
+            }
+        }
+
+        assertEquals(10, total.getRefuse().size());
+        assertEquals(ROWS, total.getRefusedCount());
+
+        List<ConflictDTO> page = RapportFile.read(this.file, 100, 30);
+        assertEquals(30, page.size());
+        assertEquals(101, page.get(0).getRow());
+        assertEquals("refused", page.get(0).getKind());
+        assertEquals("name \"101\"\nsecond line", page.get(0).getName());
+        assertEquals(ErrorMessage.NAME_NULL.getValue(), page.get(0).getDetail());
+
+        assertEquals(10, RapportFile.read(this.file, ROWS - 10, 30).size());
+        assertTrue(RapportFile.read(this.file, ROWS, 30).isEmpty());
+    }
+
+    @Test
+    public void testBackslashRoundTrip() throws IOException {
+        String name = "C:\\Program Files\\\"cdb\"\\";
+        Rapport checked = new Rapport();
+        Error error = this.error(1);
+        error.getComputerDTO().setName(name);
+        checked.getRefuse().add(error);
+        try (RapportFile rapportFile = new RapportFile(this.file, 0)) {
+            rapportFile.append(checked);
+        }
+
+        assertEquals(name, RapportFile.read(this.file, 0, 1).get(0).getName());
+        assertEquals(name, RapportFile.readAfter(this.file, 0, 1).getItems().get(0).getName());
+    }
+
+    @Test
+    public void testCursorGoesThroughTheFile() throws IOException {
+        try (RapportFile rapportFile = new RapportFile(this.file, 0)) {
+            Rapport checked = new Rapport();
+            for (int i = 1; i <= ROWS; i++) {
+                checked.getRefuse().add(this.error(i));
+            }
+            rapportFile.append(checked);
+        }
+
+        List<Long> rows = new ArrayList<>();
+        long offset = 0;
+        CursorPageDTO<ConflictDTO> page;
+        do {
+            page = RapportFile.readAfter(this.file, offset, 30);
+            page.getItems().forEach(conflict -> rows.add(conflict.getRow()));
+            offset = Long.parseLong(page.getNext());
+        } while (!page.getItems().isEmpty());
+
+        assertEquals(ROWS, rows.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i + 1, (long) rows.get(i));
+        }
+        assertEquals(Files.size(this.file), offset);
+        assertEquals(RapportFile.read(this.file, 60, 1).get(0).getRow(),
+                RapportFile.readAfter(this.file, 0, 61).getItems().get(60).getRow());
+    }
+
+    private Error error(long row) {
+        Map<Fields, List<ErrorMessage>> errors = new HashMap<>();
+        errors.put(Fields.NAME, new ArrayList<>(Collections.singletonList(ErrorMessage.NAME_NULL)));
+        Error error = new Error(new ComputerDTO.Builder()
+                .name("name \"" + row + "\"\nsecond line")
+                .introduced("")
+                .discontinued("")
+                .companyName("")
+                .build(), errors);
+        error.setRow(row);
+        return error;
+    }
+}
@@ -0,0 +1,24 @@
+package com.excilys.service.importTool.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class StagingImportSinkTest {
+
+    @Test
+    public void normalizeEmptyDates() {
+        assertEquals("", StagingImportSink.normalize(null));
+        assertEquals("", StagingImportSink.normalize(""));
+        assertEquals("", StagingImportSink.normalize("  "));
+        assertEquals("", StagingImportSink.normalize("null"));
+        assertEquals("", StagingImportSink.normalize(" NULL "));
+    }
+
+    @Test
+    public void normalizeDates() {
+        assertEquals("2001-01-05", StagingImportSink.normalize("2001-01-05"));
+        assertEquals("2001-01-05", StagingImportSink.normalize(" 2001-01-05 "));
+        assertEquals("2001-01-05", StagingImportSink.normalize("2001-1-5"));
+    }
+}
@@ -0,0 +1,172 @@
+package com.excilys.service.importTool.impl;
+
+import com.excilys.core.dto.UploadDTO;
+import com.excilys.service.importTool.IImportJobService;
+import com.excilys.service.importTool.ImportJob;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class UploadServiceTest {
+
+    private Path spoolDir;
+    private IImportJobService jobService;
+    private UploadService service;
+
+    @Before
+    public void setUp() throws IOException {
+        this.spoolDir = Files.createTempDirectory("upload-test");
+        this.jobService = Mockito.mock(IImportJobService.class);
+        this.service = new UploadService();
+        ReflectionTestUtils.setField(this.service, "spoolDir", this.spoolDir.toString());
+        ReflectionTestUtils.setField(this.service, "jobService", this.jobService);
+        this.service.initIt();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(this.spoolDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private static InputStream bytes(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path uploadDir() {
+        return this.spoolDir.resolve("uploads");
+    }
+
+    @Test
+    public void testChunksAreAppendedAtTheirOffset() throws IOException {
+        String id = this.service.create("computers.csv", 22).getId();
+
+        this.service.write(id, 0, bytes("Amiga 500,,,\n"), null);
+        UploadDTO status = this.service.write(id, 13, bytes("Atari ST\n"), null);
+        assertEquals(2, status.getChunks());
+        assertEquals(22, status.getReceived());
+
+        this.service.complete(id, ImportJob.Mode.CHECKED);
+        ArgumentCaptor<Path> file = ArgumentCaptor.forClass(Path.class);
+        Mockito.verify(this.jobService).submit(file.capture(), Matchers.eq("computers.csv"), Matchers.eq("csv"),
+                Matchers.eq(ImportJob.Mode.CHECKED));
+        assertEquals("Amiga 500,,,\nAtari ST\n", new String(Files.readAllBytes(file.getValue()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testChunkOutOfOrderIsRefused() {
+        String id = this.service.create("computers.csv", 0).getId();
+
+        try {
+            this.service.write(id, 13, bytes("Atari ST\n"), null);
+            fail("The chunk before it was not received");
+        } catch (IllegalStateException e) {
+            // expected, answered with 409 and the received offset
+        }
+
+        assertEquals(0, this.service.getStatus(id).getReceived());
+    }
+
+    @Test
+    public void testDuplicateChunkIsRefused() {
+        String id = this.service.create("computers.csv", 0).getId();
+        this.service.write(id, 0, bytes("Amiga 500,,,\n"), null);
+
+        try {
+            this.service.write(id, 0, bytes("Amiga 500,,,\n"), null);
+            fail("The chunk was already received");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        UploadDTO status = this.service.getStatus(id);
+        assertEquals(1, status.getChunks());
+        assertEquals(13, status.getReceived());
+    }
+
+    @Test
+    public void testChunkWithAWrongChecksumIsNotRecorded() {
+        String id = this.service.create("computers.csv", 0).getId();
+
+        try {
+            this.service.write(id, 0, bytes("Amiga 500,,,\n"), "00");
+            fail("The checksum does not match");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        // the chunk is sent again from the same offset
+        assertEquals(0, this.service.getStatus(id).getReceived());
+        assertEquals(13, this.service.write(id, 0, bytes("Amiga 500,,,\n"), null).getReceived());
+    }
+
+    @Test
+    public void testIncompleteUploadIsNotSubmitted() {
+        String id = this.service.create("computers.csv", 22).getId();
+        this.service.write(id, 0, bytes("Amiga 500,,,\n"), null);
+
+        try {
+            this.service.complete(id, ImportJob.Mode.CHECKED);
+            fail("Only 13 of 22 bytes are received");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        Mockito.verifyZeroInteractions(this.jobService);
+    }
+
+    @Test
+    public void testAbortDeletesTheFiles() throws IOException {
+        String id = this.service.create("computers.csv", 0).getId();
+        this.service.write(id, 0, bytes("Amiga 500,,,\n"), null);
+
+        assertTrue(this.service.abort(id));
+
+        assertNull(this.service.getStatus(id));
+        assertFalse(this.service.abort(id));
+        try (Stream<Path> files = Files.list(this.uploadDir())) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testStaleUploadsArePurged() throws IOException {
+        String stale = this.service.create("computers.csv", 0).getId();
+        Files.setLastModifiedTime(this.uploadDir().resolve(stale + ".chunks"),
+                FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)));
+
+        String fresh = this.service.create("computers.xml", 0).getId();
+
+        assertNull(this.service.getStatus(stale));
+        assertEquals("computers.xml", this.service.getStatus(fresh).getFileName());
+    }
+
+    @Test
+    public void testIdCannotReachAnotherFile() {
+        assertNull(this.service.getStatus("../../etc/passwd"));
+        assertNull(this.service.write("../upload", 0, bytes("x"), null));
+        assertFalse(this.service.abort("../upload"));
+    }
+}
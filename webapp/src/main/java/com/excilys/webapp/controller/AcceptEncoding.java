@@ -0,0 +1,65 @@
+package com.excilys.webapp.controller;
+
+/**
+ * Negotiation of the gzip encoding of the streamed responses from the Accept-Encoding header.
+ * <p>
+ * Each coding of the header may have a q-value : a coding with q=0 is refused, and * stands for the codings which
+ * are not listed. The other codings than gzip are ignored, the body is then sent without encoding.
+ *
+ * @author excilys
+ */
+final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    /**
+     * Check if a client accepts gzip.
+     *
+     * @param header Accept-Encoding of the request, may be null
+     * @return true if gzip, or *, has a q-value above 0
+     */
+    static boolean gzip(String header) {
+        if (header == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : header.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase();
+            double q = quality(parts);
+            if ("gzip".equals(name) || "x-gzip".equals(name)) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if ("*".equals(name)) {
+                any = q;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
+    }
+
+    /**
+     * Get the q-value of a coding.
+     *
+     * @param parts of the coding, its name then its parameters
+     * @return the q-value, 1 if there is none and 0 if it is invalid
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 1 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+                    && parameter.substring(1).trim().startsWith("=")) {
+                try {
+                    double q = Double.parseDouble(parameter.substring(parameter.indexOf('=') + 1).trim());
+                    return q >= 0 && q <= 1 ? q : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,43 @@
+package com.excilys.webapp.controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Run the body of a rest request on the bounded pool of the database queries, so the request thread goes back to
+ * the connector while the queries wait for a connection and run.
+ * <p>
+ * When the pool and its queue are full the task is rejected at once, before the request goes async : the
+ * RejectedExecutionException gives a 503 instead of a request waiting for its timeout.
+ *
+ * @author excilys
+ */
+final class AsyncResponses {
+
+    private AsyncResponses() {
+    }
+
+    /**
+     * Get the result of a supplier on an executor.
+     *
+     * @param executor of the database queries
+     * @param supplier of the response
+     * @param <T>      type of the response
+     * @return the future response, completed with the exception thrown by the supplier as it is, so the exception
+     * handlers match it
+     * @throws RejectedExecutionException if the executor is full
+     */
+    static <T> CompletableFuture<T> supply(Executor executor, Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,105 @@
+package com.excilys.webapp.controller;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Read the lines of a body as bytes, each in the same buffer of maxLength bytes : a line longer than that is skipped
+ * up to its end instead of being kept in memory, so a body without newline cannot fill the heap.
+ *
+ * @author excilys
+ */
+final class BoundedLineReader {
+
+    // list of the variables
+    private final InputStream in;
+    private final byte[] line;
+    private int length;
+    private boolean tooLong;
+    private long number;
+
+    /**
+     * Constructor.
+     *
+     * @param in        to read, not closed
+     * @param maxLength maximum number of bytes of a line, without its end of line
+     */
+    BoundedLineReader(InputStream in, int maxLength) {
+        this.in = new BufferedInputStream(in);
+        this.line = new byte[maxLength];
+    }
+
+    /**
+     * Read the next line, ended by \n or \r\n or by the end of the body.
+     *
+     * @return false at the end of the body
+     * @throws IOException if the body cannot be read
+     */
+    boolean next() throws IOException {
+        this.length = 0;
+        this.tooLong = false;
+        int b = this.in.read();
+        if (b == -1) {
+            return false;
+        }
+        this.number++;
+        while (b != -1 && b != '\n') {
+            if (this.length < this.line.length) {
+                this.line[this.length++] = (byte) b;
+            } else {
+                this.tooLong = true;
+            }
+            b = this.in.read();
+        }
+        if (!this.tooLong && this.length > 0 && this.line[this.length - 1] == '\r') {
+            this.length--;
+        }
+        return true;
+    }
+
+    /**
+     * Check if the current line was longer than maxLength, its bytes are then only the start of the line.
+     *
+     * @return true if the line is too long
+     */
+    boolean isTooLong() {
+        return this.tooLong;
+    }
+
+    /**
+     * Check if the current line only has blanks.
+     *
+     * @return true if the line is blank
+     */
+    boolean isBlank() {
+        for (int i = 0; i < this.length; i++) {
+            if (this.line[i] != ' ' && this.line[i] != '\t' && this.line[i] != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the bytes of the current line, only valid until the next call to next().
+     *
+     * @return the buffer, the line is its first getLength() bytes
+     */
+    byte[] getBytes() {
+        return this.line;
+    }
+
+    int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Get the number of the current line, the first line is 1.
+     *
+     * @return the line number
+     */
+    long getNumber() {
+        return this.number;
+    }
+}
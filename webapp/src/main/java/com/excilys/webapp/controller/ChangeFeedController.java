@@ -0,0 +1,336 @@
+package com.excilys.webapp.controller;
+
+import com.excilys.service.change.ChangeEvent;
+import com.excilys.service.change.ChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Server-sent events of the changes committed on the computers and the companies, so the clients do not have to
+ * poll the lists.
+ * <p>
+ * Each event has the id of the ChangeFeed, the type of the change as name (created, updated, deleted or reload)
+ * and {"entity":"computer","id":12} as data. A client reconnecting with Last-Event-ID gets the events it missed,
+ * or a reload event if they are not in the feed anymore. A subscription is closed after SUBSCRIPTION_TIMEOUT, the
+ * client reconnects from its last event.
+ * <p>
+ * The pump thread never writes to a connection nor completes one, as both lock the emitter : when the feed wakes
+ * it up, and every HEARTBEAT_SECONDS for a comment finding the closed connections, it hands each subscriber to the
+ * SENDERS threads, at most one task per subscriber at a time. A sender gives each write to the WRITERS threads and
+ * waits for it at most SEND_TIMEOUT, so a slow client cannot hold a sender. A subscriber is dropped if one of its
+ * writes times out, or if it is still more than MAX_LAG events behind after SEND_TIMEOUT on the same task. A dropped
+ * subscriber is completed by its sender, or by its writer when the blocked write ends (at the latest when the
+ * connector's write timeout closes the connection). A dropped client reconnects from its last event too.
+ *
+ * @author excilys
+ */
+@RestController
+@RequestMapping("${path.rest.changes}")
+public class ChangeFeedController {
+
+    // list of the variables
+    private static final int MAX_SUBSCRIBERS = 10000;
+    private static final int BATCH = 256;
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final long SUBSCRIPTION_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+    private static final int SENDERS = 4;
+    private static final int WRITERS = 64;
+    private static final long SEND_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+    private static final long MAX_LAG = 1000;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final Runnable wakeUp = this::wakeUp;
+    private ScheduledExecutorService pump;
+    private ExecutorService senders;
+    private ExecutorService writers;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    /**
+     * Connection of a client, written by one sender at a time once added.
+     */
+    private static final class Subscriber {
+
+        // list of the variables
+        private final SseEmitter emitter = new SseEmitter(SUBSCRIPTION_TIMEOUT);
+        private final AtomicBoolean busy = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long lastId;
+        private volatile long busySince;
+        private volatile boolean writing;
+        private volatile boolean dropped;
+
+        private Subscriber(long lastId) {
+            this.lastId = lastId;
+        }
+    }
+
+    /**
+     * Start the pump and listen to the feed.
+     */
+    @PostConstruct
+    public void init() {
+        this.pump = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "change-feed"));
+        // at most one task per subscriber in the queue
+        this.senders = Executors.newFixedThreadPool(SENDERS, r -> new Thread(r, "change-feed-send"));
+        // at most one write per subscriber, plus the timed out ones until the connector closes their connection
+        this.writers = new ThreadPoolExecutor(0, WRITERS, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                r -> new Thread(r, "change-feed-write"));
+        this.pump.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        this.changeFeed.addListener(this.wakeUp);
+    }
+
+    /**
+     * Stop the pump and close the connections.
+     */
+    @PreDestroy
+    public void destroy() {
+        this.changeFeed.removeListener(this.wakeUp);
+        this.pump.shutdownNow();
+        this.senders.shutdownNow();
+        this.writers.shutdownNow();
+        this.subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Subscribe to the changes.
+     *
+     * @param lastEventId header sent by an EventSource when it reconnects, may be null
+     * @param resumeFrom  same as Last-Event-ID for the clients which cannot set it, may be null
+     * @return the stream of the events following the given id, or the next ones without id
+     * @throws RejectedExecutionException if there are too many subscribers, for a 503
+     */
+    @RequestMapping(method = RequestMethod.GET, produces = "text/event-stream")
+    public SseEmitter subscribe(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                @RequestParam(value = "lastEventId", required = false) String resumeFrom) {
+        if (this.subscribers.size() >= MAX_SUBSCRIBERS) {
+            throw new RejectedExecutionException("Too many subscribers to the change feed");
+        }
+        String resume = lastEventId != null ? lastEventId : resumeFrom;
+        long lastId;
+        try {
+            lastId = resume == null ? this.changeFeed.getLastId() : Long.parseLong(resume.trim());
+        } catch (NumberFormatException e) {
+            // not one of our ids, the feed answers with a reload
+            lastId = 0;
+        }
+
+        Subscriber subscriber = new Subscriber(lastId);
+        subscriber.emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> {
+            // the EventSource reconnects with Last-Event-ID and misses nothing
+            this.subscribers.remove(subscriber);
+            subscriber.emitter.complete();
+        });
+        this.subscribers.add(subscriber);
+        // the events missed since lastId, the emitter keeps them until the response is ready
+        this.wakeUp();
+        return subscriber.emitter;
+    }
+
+    /**
+     * Ask the pump to send the new events, once for all the publications done before it runs.
+     */
+    private void wakeUp() {
+        if (this.pending.compareAndSet(false, true)) {
+            try {
+                this.pump.execute(this::dispatch);
+            } catch (RejectedExecutionException e) {
+                // stopped
+                this.pending.set(false);
+            }
+        }
+    }
+
+    private void dispatch() {
+        this.pending.set(false);
+        for (Subscriber subscriber : this.subscribers) {
+            this.schedule(subscriber, this::drain);
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : this.subscribers) {
+            this.schedule(subscriber, idle -> this.send(idle, SseEmitter.event().comment("heartbeat")));
+        }
+    }
+
+    /**
+     * Hand a subscriber to a sender, or check that it is not stuck if it is still busy with a previous task.
+     *
+     * @param subscriber to send to
+     * @param task       sending to the subscriber
+     */
+    private void schedule(Subscriber subscriber, Consumer<Subscriber> task) {
+        if (!subscriber.busy.compareAndSet(false, true)) {
+            this.dropIfStuck(subscriber);
+            return;
+        }
+        subscriber.busySince = System.nanoTime();
+        try {
+            this.senders.execute(() -> {
+                try {
+                    task.accept(subscriber);
+                } finally {
+                    subscriber.busy.set(false);
+                    // dropped by the pump during the task
+                    this.closeIfDropped(subscriber);
+                }
+                // the events published during the task were skipped by the pump
+                if (this.changeFeed.getLastId() > subscriber.lastId && this.subscribers.contains(subscriber)) {
+                    this.wakeUp();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // stopped
+            subscriber.busy.set(false);
+        }
+    }
+
+    /**
+     * Drop a busy subscriber still more than MAX_LAG events behind after SEND_TIMEOUT on the same task. Its sender
+     * completes it, unless the task ended meanwhile : a last task is then given to a sender to do it.
+     *
+     * @param subscriber still busy
+     */
+    private void dropIfStuck(Subscriber subscriber) {
+        boolean behind = System.nanoTime() - subscriber.busySince > SEND_TIMEOUT
+                && this.changeFeed.getLastId() - subscriber.lastId > MAX_LAG;
+        if (!behind) {
+            return;
+        }
+        this.drop(subscriber);
+        if (subscriber.busy.compareAndSet(false, true)) {
+            try {
+                this.senders.execute(() -> this.closeIfDropped(subscriber));
+            } catch (RejectedExecutionException e) {
+                // stopped, destroy() completes it
+            }
+        }
+    }
+
+    /**
+     * Stop sending to a subscriber, the client reconnects from its last event.
+     *
+     * @param subscriber to drop
+     */
+    private void drop(Subscriber subscriber) {
+        subscriber.dropped = true;
+        this.subscribers.remove(subscriber);
+    }
+
+    /**
+     * Complete a dropped subscriber once no write is waiting on its emitter, only once.
+     *
+     * @param subscriber to complete
+     */
+    private void closeIfDropped(Subscriber subscriber) {
+        if (subscriber.dropped && !subscriber.writing && subscriber.closed.compareAndSet(false, true)) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    /**
+     * Send to a subscriber the events following the last one it got.
+     *
+     * @param subscriber to send to
+     */
+    private void drain(Subscriber subscriber) {
+        List<ChangeEvent> events;
+        do {
+            events = this.changeFeed.readAfter(subscriber.lastId, BATCH);
+            for (ChangeEvent event : events) {
+                if (!this.send(subscriber, SseEmitter.event()
+                        .id(Long.toString(event.getId()))
+                        .name(event.getType().toString().toLowerCase())
+                        .data(toJson(event)))) {
+                    return;
+                }
+                subscriber.lastId = event.getId();
+            }
+        } while (events.size() == BATCH);
+    }
+
+    /**
+     * Send an event to a subscriber through a writer, waiting for it at most SEND_TIMEOUT. The subscriber is
+     * dropped if the write times out or if its connection is closed.
+     *
+     * @param subscriber to send to
+     * @param event      to send
+     * @return false if the subscriber was dropped
+     */
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!this.subscribers.contains(subscriber)) {
+            // dropped while its task was waiting
+            return false;
+        }
+        subscriber.writing = true;
+        Future<?> write;
+        try {
+            write = this.writers.submit(() -> {
+                try {
+                    subscriber.emitter.send(event);
+                    return null;
+                } finally {
+                    subscriber.writing = false;
+                    // dropped by its sender while the write was blocked
+                    this.closeIfDropped(subscriber);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // too many blocked writes, or stopped
+            subscriber.writing = false;
+            this.drop(subscriber);
+            return false;
+        }
+
+        try {
+            write.get(SEND_TIMEOUT, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            // the writer completes the emitter when the connector gives the write up
+            this.drop(subscriber);
+            return false;
+        } catch (ExecutionException e) {
+            // connection closed by the client
+            this.subscribers.remove(subscriber);
+            if (subscriber.closed.compareAndSet(false, true)) {
+                subscriber.emitter.completeWithError(e.getCause());
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.drop(subscriber);
+            return false;
+        }
+    }
+
+    private static String toJson(ChangeEvent event) {
+        String entity = event.getEntity() == null ? "null" : "\"" + event.getEntity().toString().toLowerCase() + "\"";
+        return "{\"entity\":" + entity + ",\"id\":" + event.getEntityId() + "}";
+    }
+}
@@ -0,0 +1,65 @@
+package com.excilys.webapp.controller;
+
+import com.excilys.core.dto.ChangeDTO;
+import com.excilys.core.dto.CursorPageDTO;
+import com.excilys.core.model.ChangeLogEntry;
+import com.excilys.service.change.ChangeLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Pages of the change log, for the integrations which keep a copy of the computers and the companies up to date
+ * from the changes instead of reading the whole lists again.
+ * <p>
+ * A client reads from since=0, then from the next sequence number of each page. An empty page means that there is
+ * no new change yet : it polls again later with the same next.
+ *
+ * @author excilys
+ */
+@RestController
+@RequestMapping("${path.rest.changelog}")
+public class ChangeLogController {
+
+    // list of the variables
+    private static final int DEFAULT_SIZE = 100;
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Autowired
+    @Qualifier("dbExecutor")
+    private Executor dbExecutor;
+
+    /**
+     * Changes committed after a sequence number.
+     *
+     * @param since sequence number of the last change read, 0 for the first page
+     * @param size  maximum number of changes, at most ChangeLog.MAX_READ
+     * @return the changes with the sequence number to read the next page from, 400 if the parameters are invalid
+     */
+    @RequestMapping(method = RequestMethod.GET, produces = "application/json")
+    public CompletableFuture<ResponseEntity<CursorPageDTO<ChangeDTO>>> since(@RequestParam(value = "since", defaultValue = "0") long since,
+                                                                             @RequestParam(value = "size", required = false) Integer size) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            int max = size == null ? DEFAULT_SIZE : size;
+            if (since < 0 || max <= 0 || max > ChangeLog.MAX_READ) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            List<ChangeLogEntry> entries = this.changeLog.readAfter(since, max);
+            long next = entries.isEmpty() ? since : entries.get(entries.size() - 1).getSeq();
+            List<ChangeDTO> changes = entries.stream().map(ChangeDTO::new).collect(Collectors.toList());
+            return new ResponseEntity<>(new CursorPageDTO<>(changes, Long.toString(next)), HttpStatus.OK);
+        });
+    }
+}
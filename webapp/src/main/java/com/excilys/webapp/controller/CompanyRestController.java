@@ -1,24 +1,37 @@
 package com.excilys.webapp.controller;
 
+import com.excilys.binding.mapper.MapperException;
 import com.excilys.binding.mapper.impl.CompanyMapper;
+import com.excilys.binding.mapper.impl.PageCursorMapper;
 import com.excilys.binding.mapper.impl.PageParametersMapper;
 import com.excilys.core.dto.CompanyDTO;
+import com.excilys.core.dto.CursorPageDTO;
 import com.excilys.core.dto.PageParametersDTO;
 import com.excilys.core.model.Company;
+import com.excilys.core.model.PageCursor;
 import com.excilys.core.model.PageParameters;
+import com.excilys.core.model.PageParameters.Direction;
+import com.excilys.core.model.PageParameters.Order;
 import com.excilys.service.ICompanyService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @RestController
 @RequestMapping("${path.rest.company}")
@@ -27,66 +40,163 @@ public class CompanyRestController {
     @Autowired
     private ICompanyService companyService;
 
+    @Autowired
+    @Qualifier("dbExecutor")
+    private Executor dbExecutor;
+
+    // list of the variables
+    private static final String CURSOR_SCOPE = "company";
+
     @Autowired
     private PageParametersMapper pageParamMapper;
 
+    @Autowired
+    private PageCursorMapper pageCursorMapper;
+
     @Autowired
     private CompanyMapper companyMapper;
 
     @RequestMapping(value = "/", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<List<CompanyDTO>> listAll() {
-        PageParameters p = pageParamMapper.fromDTO(new PageParametersDTO());
-        return new ResponseEntity<>(companyMapper.toDTO(companyService.getCompanies(p)), HttpStatus.OK);
+    public CompletableFuture<ResponseEntity<List<CompanyDTO>>> listAll(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return AsyncResponses.supply(this.dbExecutor, () -> this.conditionalPage(new PageParametersDTO(), ifNoneMatch));
     }
 
-    @RequestMapping(value = "/page", method = RequestMethod.POST, consumes = "application/json")
-    public ResponseEntity<List<CompanyDTO>> listAll(@Valid @RequestBody PageParametersDTO params, BindingResult errors) {
-        if (!errors.hasErrors()) {
-            PageParameters p = pageParamMapper.fromDTO(params);
-            return new ResponseEntity<>(companyMapper.toDTO(companyService.getCompanies(p)), HttpStatus.OK);
-        } else {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    /**
+     * Page of companies from the query parameters, 304 without body if the client has its ETag already.
+     *
+     * @param params      of the page
+     * @param errors      of the parameters
+     * @param ifNoneMatch header of the request, may be null
+     * @return the page, 304 if not modified or 400 if the parameters are invalid
+     */
+    @RequestMapping(value = "/page", method = RequestMethod.GET, produces = "application/json")
+    public CompletableFuture<ResponseEntity<List<CompanyDTO>>> page(@Valid @ModelAttribute PageParametersDTO params, BindingResult errors,
+                                                                    @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            if (errors.hasErrors()) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            return this.conditionalPage(params, ifNoneMatch);
+        });
+    }
+
+    private ResponseEntity<List<CompanyDTO>> conditionalPage(PageParametersDTO params, String ifNoneMatch) {
+        String etag = ETags.ofList(this.companyService.getWriteGeneration(), params, "");
+        if (ETags.matches(ifNoneMatch, etag, true)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
         }
+        PageParameters p = pageParamMapper.fromDTO(params);
+        return ResponseEntity.ok().eTag(etag).body(companyMapper.toDTO(companyService.getCompanies(p)));
+    }
+
+    /**
+     * Page of companies read with a cursor, ordered by id : the next token holds the last id, signed, and the next
+     * page is sought from it instead of counting an offset.
+     *
+     * @param params of the first page, only its size is used
+     * @param errors of the parameters
+     * @param cursor token of the page, given as next by the previous one
+     * @return the page with the token of the next one, 400 if the token or the parameters are invalid
+     */
+    @RequestMapping(value = "/cursor", method = RequestMethod.GET, produces = "application/json")
+    public CompletableFuture<ResponseEntity<CursorPageDTO<CompanyDTO>>> cursor(@Valid @ModelAttribute PageParametersDTO params, BindingResult errors,
+                                                                               @RequestParam(value = "cursor", required = false) String cursor) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            PageCursor position;
+            if (cursor != null) {
+                try {
+                    position = this.pageCursorMapper.fromToken(cursor, CURSOR_SCOPE);
+                } catch (MapperException e) {
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+            } else if (errors.hasErrors()) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            } else {
+                position = PageCursor.first(Order.NAME, Direction.ASC, params.getSize());
+            }
+            List<Company> companies = this.companyService.getCompaniesAfter(position);
+            String next = companies.size() < position.getSize() ? null
+                    : this.pageCursorMapper.toToken(position.after(companies.get(companies.size() - 1)), CURSOR_SCOPE);
+            return new ResponseEntity<>(new CursorPageDTO<>(companyMapper.toDTO(companies), next), HttpStatus.OK);
+        });
+    }
+
+    @RequestMapping(value = "/page", method = RequestMethod.POST, consumes = "application/json")
+    public CompletableFuture<ResponseEntity<List<CompanyDTO>>> listAll(@Valid @RequestBody PageParametersDTO params, BindingResult errors) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            if (!errors.hasErrors()) {
+                PageParameters p = pageParamMapper.fromDTO(params);
+                return new ResponseEntity<>(companyMapper.toDTO(companyService.getCompanies(p)), HttpStatus.OK);
+            } else {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        });
     }
 
     @RequestMapping(value = "/{id:[0-9]+}", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<CompanyDTO> get(@PathVariable("id") long id) {
-        Company company = companyService.getCompany(id);
+    public CompletableFuture<ResponseEntity<CompanyDTO>> get(@PathVariable("id") long id,
+                                                             @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            Company company = companyService.getCompany(id);
 
-        if (company == null) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        } else {
-            return new ResponseEntity<>(companyMapper.toDTO(company), HttpStatus.OK);
-        }
+            if (company == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            String etag = ETags.of(company);
+            if (ETags.matches(ifNoneMatch, etag, true)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(companyMapper.toDTO(company));
+        });
     }
 
     @RequestMapping(value = "/", method = RequestMethod.POST, consumes = "application/json", produces = "application/json")
-    public ResponseEntity<CompanyDTO> create(@Valid @RequestBody CompanyDTO company, BindingResult errors) {
-        if (!errors.hasErrors()) {
-            Company created = this.companyService.createCompany(this.companyMapper.fromDTO(company));
-            return new ResponseEntity<>(this.companyMapper.toDTO(created), HttpStatus.CREATED);
-        } else {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-        }
+    public CompletableFuture<ResponseEntity<CompanyDTO>> create(@Valid @RequestBody CompanyDTO company, BindingResult errors) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            if (!errors.hasErrors()) {
+                Company created = this.companyService.createCompany(this.companyMapper.fromDTO(company));
+                return new ResponseEntity<>(this.companyMapper.toDTO(created), HttpStatus.CREATED);
+            } else {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        });
     }
 
     @RequestMapping(value = "/{id:[0-9]+}", method = RequestMethod.PUT, consumes = "application/json", produces = "application/json")
-    public ResponseEntity<CompanyDTO> update(@PathVariable("id") long id, @Valid @RequestBody CompanyDTO company, BindingResult errors) {
-
-        if (!errors.hasErrors()) {
+    public CompletableFuture<ResponseEntity<CompanyDTO>> update(@PathVariable("id") long id, @Valid @RequestBody CompanyDTO company, BindingResult errors,
+                                                                @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            if (errors.hasErrors()) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            Company current = this.companyService.getCompany(id);
+            if (current == null) {
+                return new ResponseEntity<>(ifMatch == null ? HttpStatus.NOT_FOUND : HttpStatus.PRECONDITION_FAILED);
+            }
             Company c = this.companyMapper.fromDTO(company);
             c.setId(id);
-            this.companyService.updateCompany(c);
-            return new ResponseEntity<>(HttpStatus.OK);
-        } else {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-        }
+            try {
+                Company updated;
+                if (ifMatch == null) {
+                    updated = this.companyService.updateCompany(c);
+                } else if (ETags.matches(ifMatch, ETags.of(current), false)) {
+                    updated = this.companyService.updateCompany(c, current.getVersion());
+                } else {
+                    return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+                }
+                return ResponseEntity.ok().eTag(ETags.of(updated)).build();
+            } catch (OptimisticLockingFailureException e) {
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+            }
+        });
     }
 
     @RequestMapping(value = "/{id:[0-9]+}", method = RequestMethod.DELETE)
-    public ResponseEntity<Void> delete(@PathVariable("id") long id) {
-        companyService.deleteCompany(id);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    public CompletableFuture<ResponseEntity<Void>> delete(@PathVariable("id") long id) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            companyService.deleteCompany(id);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        });
     }
 
 }
@@ -16,6 +16,7 @@ import com.excilys.core.model.Page;
 import com.excilys.core.model.PageParameters;
 import com.excilys.service.ICompanyService;
 import com.excilys.service.computer.IComputerService;
+import com.excilys.service.doublon.DoublonService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
@@ -60,6 +61,9 @@ public class ComputerController {
     @Autowired
     private PageParametersValidator paramsValidator;
 
+    @Autowired
+    private DoublonService doublonService;
+
     /**
      * Display the dashboard with the list of computers.
      *
@@ -150,19 +154,35 @@ public class ComputerController {
 
     /**
      * Add computer with POST request.
+     * <p>
+     * If the computer looks like one already in the database, the form is displayed again with a warning
+     * and the user has to confirm.
      *
-     * @param model    Spring ModelMap
-     * @param computer DTO of computer to create
-     * @param errors   BindingResult containing validation errors
+     * @param model     Spring ModelMap
+     * @param computer  DTO of computer to create
+     * @param errors    BindingResult containing validation errors
+     * @param confirmed true if the user confirmed the creation despite the duplicate warning
      * @return servlet name
      */
     @RequestMapping(path = "${path.computer.add}", method = RequestMethod.POST)
-    public String postAddComputer(ModelMap model, @Valid @ModelAttribute ComputerDTO computer, BindingResult errors) {
+    public String postAddComputer(ModelMap model, @Valid @ModelAttribute ComputerDTO computer, BindingResult errors,
+                                  @RequestParam(value = "confirmDuplicate", defaultValue = "false") boolean confirmed) {
 
         this.computerValidator.validate(computer, errors);
 
         if (!errors.hasErrors()) {
-            this.computerService.createComputer(this.computerMapper.fromDTO(computer));
+            Computer tmp = this.computerMapper.fromDTO(computer);
+
+            if (!confirmed) {
+                List<Computer> duplicates = this.doublonService.findLikelyDuplicates(tmp);
+                if (!duplicates.isEmpty()) {
+                    model.addAttribute("computer", computer);
+                    model.addAttribute("duplicates", this.computerMapper.toDTO(duplicates));
+                    return this.getAddComputer(model);
+                }
+            }
+
+            this.computerService.createComputer(tmp);
             return "redirect:/dashboard";
         } else {
             model.addAttribute("computer", computer);
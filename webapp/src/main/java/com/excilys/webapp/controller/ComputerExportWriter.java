@@ -0,0 +1,248 @@
+package com.excilys.webapp.controller;
+
+import au.com.bytecode.opencsv.CSVWriter;
+import com.excilys.core.dto.ComputerDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Write the computers of an export one at a time, in csv, json (one array) or xml.
+ * <p>
+ * The output is flushed every FLUSH_ROWS computers, so the client receives the export by chunks while it is read
+ * from the database. Closing the writer ends the document and closes the stream.
+ *
+ * @author excilys
+ */
+abstract class ComputerExportWriter implements Closeable {
+
+    // list of the variables
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FLUSH_ROWS = 1000;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final XMLOutputFactory XML_FACTORY = XMLOutputFactory.newInstance();
+    protected final Writer writer;
+    private long rows;
+
+    /**
+     * Formats of the export.
+     */
+    enum Format {
+        CSV("text/csv", "csv"), JSON("application/json", "json"), XML("application/xml", "xml");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        String getContentType() {
+            return this.contentType;
+        }
+
+        String getExtension() {
+            return this.extension;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param out to write to
+     */
+    protected ComputerExportWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Create the writer of a format and write the start of the document.
+     *
+     * @param format of the export
+     * @param out    to write to
+     * @return the writer
+     * @throws IOException if the start cannot be written
+     */
+    static ComputerExportWriter create(Format format, OutputStream out) throws IOException {
+        switch (format) {
+            case JSON:
+                return new Json(out);
+            case XML:
+                return new Xml(out);
+            default:
+                return new Csv(out);
+        }
+    }
+
+    /**
+     * Write a computer.
+     *
+     * @param computer to write
+     * @throws IOException if the computer cannot be written
+     */
+    void write(ComputerDTO computer) throws IOException {
+        this.writeComputer(computer);
+        if (++this.rows % FLUSH_ROWS == 0) {
+            this.flush();
+        }
+    }
+
+    protected abstract void writeComputer(ComputerDTO computer) throws IOException;
+
+    protected void flush() throws IOException {
+        this.writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * One line per computer, after a header.
+     */
+    private static final class Csv extends ComputerExportWriter {
+
+        // list of the variables
+        private final CSVWriter csv;
+
+        Csv(OutputStream out) {
+            super(out);
+            this.csv = new CSVWriter(this.writer, ',', CSVWriter.DEFAULT_QUOTE_CHARACTER, "\n");
+            this.csv.writeNext(new String[]{"id", "name", "introduced", "discontinued", "company_id", "company_name"});
+        }
+
+        @Override
+        protected void writeComputer(ComputerDTO computer) {
+            this.csv.writeNext(new String[]{computer.getId(), computer.getName(), nullToEmpty(computer.getIntroduced()),
+                    nullToEmpty(computer.getDiscontinued()), nullToEmpty(computer.getCompanyId()),
+                    nullToEmpty(computer.getCompanyName())});
+        }
+
+        @Override
+        protected void flush() throws IOException {
+            this.csv.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.csv.close();
+        }
+    }
+
+    /**
+     * One json array of the computer DTOs.
+     */
+    private static final class Json extends ComputerExportWriter {
+
+        // list of the variables
+        private final JsonGenerator generator;
+
+        Json(OutputStream out) throws IOException {
+            super(out);
+            this.generator = MAPPER.getFactory().createGenerator(this.writer);
+            this.generator.writeStartArray();
+        }
+
+        @Override
+        protected void writeComputer(ComputerDTO computer) throws IOException {
+            this.generator.writeObject(computer);
+        }
+
+        @Override
+        protected void flush() throws IOException {
+            this.generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.generator.writeEndArray();
+            this.generator.close();
+            super.close();
+        }
+    }
+
+    /**
+     * One computer element per computer in a computers element.
+     */
+    private static final class Xml extends ComputerExportWriter {
+
+        // list of the variables
+        private final XMLStreamWriter xml;
+
+        Xml(OutputStream out) throws IOException {
+            super(out);
+            try {
+                this.xml = XML_FACTORY.createXMLStreamWriter(this.writer);
+                this.xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+                this.xml.writeStartElement("computers");
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        protected void writeComputer(ComputerDTO computer) throws IOException {
+            try {
+                this.xml.writeStartElement("computer");
+                this.xml.writeAttribute("id", nullToEmpty(computer.getId()));
+                this.element("name", computer.getName());
+                this.element("introduced", computer.getIntroduced());
+                this.element("discontinued", computer.getDiscontinued());
+                if (computer.getCompanyId() != null) {
+                    this.xml.writeStartElement("company");
+                    this.xml.writeAttribute("id", computer.getCompanyId());
+                    this.xml.writeCharacters(nullToEmpty(computer.getCompanyName()));
+                    this.xml.writeEndElement();
+                }
+                this.xml.writeEndElement();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        private void element(String name, String value) throws XMLStreamException {
+            if (value != null && !value.isEmpty()) {
+                this.xml.writeStartElement(name);
+                this.xml.writeCharacters(value);
+                this.xml.writeEndElement();
+            }
+        }
+
+        @Override
+        protected void flush() throws IOException {
+            try {
+                this.xml.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+            super.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.xml.writeEndDocument();
+                this.xml.close();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.excilys.webapp.controller;
+
+import com.excilys.core.model.ComputerField;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Write some fields of computers as json, with the same values as their ComputerDTO.
+ * <p>
+ * Each computer is an object holding only the fields, or in the compact format an array of their values in the
+ * order of the fields : {"fields":["id","name"],"rows":[["1","CM-2a"],...]}.
+ *
+ * @author excilys
+ */
+final class ComputerFieldsJsonStream implements Closeable {
+
+    // list of the variables
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int FLUSH_ROWS = 1000;
+    private final JsonGenerator generator;
+    private final ComputerField[] fields;
+    private final boolean compact;
+    private long rows;
+
+    /**
+     * Constructor, writing the start of the list.
+     *
+     * @param out     to write to, closed with the stream
+     * @param fields  of the rows
+     * @param compact true for arrays of values, false for objects
+     * @throws IOException if the start cannot be written
+     */
+    ComputerFieldsJsonStream(OutputStream out, List<ComputerField> fields, boolean compact) throws IOException {
+        this.generator = FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        this.fields = fields.toArray(new ComputerField[fields.size()]);
+        this.compact = compact;
+        if (compact) {
+            this.generator.writeStartObject();
+            this.generator.writeArrayFieldStart("fields");
+            for (ComputerField field : this.fields) {
+                this.generator.writeString(field.getName());
+            }
+            this.generator.writeEndArray();
+            this.generator.writeArrayFieldStart("rows");
+        } else {
+            this.generator.writeStartArray();
+        }
+    }
+
+    /**
+     * Write a computer.
+     *
+     * @param values of the fields, in their order
+     * @throws IOException if the computer cannot be written
+     */
+    void write(Object[] values) throws IOException {
+        if (this.compact) {
+            this.generator.writeStartArray();
+        } else {
+            this.generator.writeStartObject();
+        }
+        for (int i = 0; i < this.fields.length; i++) {
+            if (!this.compact) {
+                this.generator.writeFieldName(this.fields[i].getName());
+            }
+            this.writeValue(this.fields[i], values[i]);
+        }
+        if (this.compact) {
+            this.generator.writeEndArray();
+        } else {
+            this.generator.writeEndObject();
+        }
+        if (++this.rows % FLUSH_ROWS == 0) {
+            this.generator.flush();
+        }
+    }
+
+    private void writeValue(ComputerField field, Object value) throws IOException {
+        switch (field) {
+            case ID:
+            case COMPANY_ID:
+            case NAME:
+                this.generator.writeString(value == null ? null : value.toString());
+                break;
+            default:
+                // as in the dto, the dates and the company name are empty rather than null
+                this.generator.writeString(value == null ? "" : value.toString());
+                break;
+        }
+    }
+
+    /**
+     * Write the end of the list and close the stream.
+     *
+     * @throws IOException if the end cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        this.generator.writeEndArray();
+        if (this.compact) {
+            this.generator.writeEndObject();
+        }
+        this.generator.close();
+    }
+}
@@ -0,0 +1,79 @@
+package com.excilys.webapp.controller;
+
+import com.excilys.core.model.Company;
+import com.excilys.core.model.Computer;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Write computers as a json array of the same objects as their ComputerDTO, straight from the entities : no dto and
+ * no list, each computer is written when the cursor gives it.
+ *
+ * @author excilys
+ */
+final class ComputerJsonStream implements Closeable {
+
+    // list of the variables
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int FLUSH_ROWS = 1000;
+    private final JsonGenerator generator;
+    private long rows;
+
+    /**
+     * Constructor, writing the start of the array.
+     *
+     * @param out to write to, closed with the stream
+     * @throws IOException if the start cannot be written
+     */
+    ComputerJsonStream(OutputStream out) throws IOException {
+        this.generator = FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        this.generator.writeStartArray();
+    }
+
+    /**
+     * Write a computer, as new ComputerDTO(computer) would be serialized.
+     *
+     * @param computer to write
+     * @throws IOException if the computer cannot be written
+     */
+    void write(Computer computer) throws IOException {
+        Company company = computer.getCompany();
+        this.generator.writeStartObject();
+        this.generator.writeStringField("id", computer.getId().toString());
+        this.generator.writeStringField("name", computer.getName());
+        this.generator.writeStringField("introduced", toString(computer.getIntroduced()));
+        this.generator.writeStringField("discontinued", toString(computer.getDiscontinued()));
+        if (company == null) {
+            this.generator.writeNullField("companyId");
+            this.generator.writeStringField("companyName", "");
+        } else {
+            this.generator.writeStringField("companyId", company.getId() == null ? "" : company.getId().toString());
+            this.generator.writeStringField("companyName", company.getName() == null ? "" : company.getName());
+        }
+        this.generator.writeEndObject();
+        if (++this.rows % FLUSH_ROWS == 0) {
+            this.generator.flush();
+        }
+    }
+
+    private static String toString(LocalDate date) {
+        return date == null ? "" : date.toString();
+    }
+
+    /**
+     * Write the end of the array and close the stream.
+     *
+     * @throws IOException if the end cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        this.generator.writeEndArray();
+        this.generator.close();
+    }
+}
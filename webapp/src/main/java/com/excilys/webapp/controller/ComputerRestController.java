@@ -1,111 +1,791 @@
 package com.excilys.webapp.controller;
 
+import com.excilys.binding.mapper.MapperException;
 import com.excilys.binding.mapper.impl.ComputerMapper;
+import com.excilys.binding.mapper.impl.PageCursorMapper;
 import com.excilys.binding.mapper.impl.PageParametersMapper;
 import com.excilys.binding.validation.ComputerValidator;
+import com.excilys.core.conflict.doublon.Fingerprint;
+import com.excilys.core.dto.BatchOperationDTO;
+import com.excilys.core.dto.BatchResultDTO;
+import com.excilys.core.dto.BulkResultDTO;
 import com.excilys.core.dto.ComputerDTO;
+import com.excilys.core.dto.CursorPageDTO;
 import com.excilys.core.dto.PageParametersDTO;
 import com.excilys.core.model.Computer;
+import com.excilys.core.model.ComputerField;
 import com.excilys.core.model.Page;
+import com.excilys.core.model.PageCursor;
 import com.excilys.core.model.PageParameters;
+import com.excilys.service.computer.ComputerBatch;
 import com.excilys.service.computer.IComputerService;
+import com.excilys.service.doublon.DoublonService;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("${path.rest.computer}")
 public class ComputerRestController {
 
+    // list of the variables
+    static final String LIKELY_DUPLICATES = "X-Likely-Duplicates";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int BULK_BATCH = 500;
+    private static final int MAX_BULK_LINE = 64 * 1024;
+    private static final int MAX_BATCH = 1000;
+    private static final int EXPORT_BUFFER = 64 * 1024;
+    private static final String CURSOR_SCOPE = "computer";
+    private static final String WRITE_FAILED = "errors.write.failed";
+    private static final String CONCURRENT_UPDATE = "errors.concurrent.update";
+    private static final ObjectMapper BULK_MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private static final ObjectReader BULK_READER = BULK_MAPPER.readerFor(ComputerDTO.class);
+    private static final ObjectWriter BULK_WRITER = BULK_MAPPER.writerFor(BulkResultDTO.class);
+
+    private final Logger LOGGER = LoggerFactory.getLogger(ComputerRestController.class);
+
     @Autowired
     private IComputerService computerService;
 
+    @Autowired
+    @Qualifier("dbExecutor")
+    private Executor dbExecutor;
+
     @Autowired
     private PageParametersMapper pageParamMapper;
 
+    @Autowired
+    private PageCursorMapper pageCursorMapper;
+
     @Autowired
     private ComputerMapper computerMapper;
 
     @Autowired
     private ComputerValidator computerValidator;
 
+    @Autowired
+    private DoublonService doublonService;
+
     @RequestMapping(value = "/", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<List<ComputerDTO>> listAll() {
-        PageParameters p = pageParamMapper.fromDTO(new PageParametersDTO());
+    public CompletableFuture<ResponseEntity<List<ComputerDTO>>> listAll(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return AsyncResponses.supply(this.dbExecutor, () -> this.conditionalPage(new PageParametersDTO(), ifNoneMatch));
+    }
+
+    /**
+     * Page of computers from the query parameters, with a weak ETag of the write generation and the parameters : 304
+     * without body if the client has it already.
+     *
+     * @param params      of the page
+     * @param errors      of the parameters
+     * @param ifNoneMatch header of the request, may be null
+     * @return the page, 304 if not modified or 400 if the parameters are invalid
+     */
+    @RequestMapping(value = "/page", method = RequestMethod.GET, produces = "application/json")
+    public CompletableFuture<ResponseEntity<List<ComputerDTO>>> page(@Valid @ModelAttribute PageParametersDTO params, BindingResult errors,
+                                                                     @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            if (errors.hasErrors()) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            return this.conditionalPage(params, ifNoneMatch);
+        });
+    }
+
+    /**
+     * Page of computers from the query parameters, streamed : each computer is written as json when the database
+     * cursor gives it, without dto nor list, so big pages keep a flat memory and a short time to the first byte.
+     * The body is the same as without stream=true, gzipped if the client accepts it.
+     *
+     * @param params         of the page
+     * @param errors         of the parameters
+     * @param ifNoneMatch    header of the request, may be null
+     * @param acceptEncoding header of the request, may be null
+     * @return the streamed page, 304 if not modified or 400 if the parameters are invalid
+     */
+    @RequestMapping(value = "/page", method = RequestMethod.GET, params = {"stream=true", "!fields", "format!=compact"},
+            produces = "application/json")
+    public ResponseEntity<StreamingResponseBody> streamPage(@Valid @ModelAttribute PageParametersDTO params, BindingResult errors,
+                                                            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        if (errors.hasErrors()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        // same body as the page without stream=true, so the same ETag
+        String etag = ETags.ofList(this.computerService.getWriteGeneration(), params, "");
+        if (ETags.matches(ifNoneMatch, etag, true)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        PageParameters p = pageParamMapper.fromDTO(params);
+        return streamedJson(etag, acceptEncoding, out -> {
+            try (ComputerJsonStream json = new ComputerJsonStream(out)) {
+                this.computerService.streamComputers(p, computer -> {
+                    try {
+                        json.write(computer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * Page of computers with only some of their fields : only their columns are read from the database and only
+     * they are written, as objects or, with format=compact, as arrays of values. Streamed like stream=true.
+     *
+     * @param params         of the page
+     * @param errors         of the parameters
+     * @param fields         names of the fields of the ComputerDTO, separated by commas
+     * @param format         objects or compact
+     * @param ifNoneMatch    header of the request, may be null
+     * @param acceptEncoding header of the request, may be null
+     * @return the streamed page, 304 if not modified or 400 if the parameters or the fields are invalid
+     */
+    @RequestMapping(value = "/page", method = RequestMethod.GET, params = "fields", produces = "application/json")
+    public ResponseEntity<StreamingResponseBody> fieldsPage(@Valid @ModelAttribute PageParametersDTO params, BindingResult errors,
+                                                            @RequestParam("fields") String fields,
+                                                            @RequestParam(value = "format", defaultValue = "objects") String format,
+                                                            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        Set<ComputerField> selected = new LinkedHashSet<>();
+        try {
+            for (String name : fields.split(",")) {
+                selected.add(ComputerField.fromName(name.trim()));
+            }
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return this.writeFieldsPage(params, errors, new ArrayList<>(selected), format, ifNoneMatch, acceptEncoding);
+    }
+
+    /**
+     * Page of computers with all their fields in the compact format, as fieldsPage with every field.
+     *
+     * @param params         of the page
+     * @param errors         of the parameters
+     * @param ifNoneMatch    header of the request, may be null
+     * @param acceptEncoding header of the request, may be null
+     * @return the streamed page, 304 if not modified or 400 if the parameters are invalid
+     */
+    @RequestMapping(value = "/page", method = RequestMethod.GET, params = {"format=compact", "!fields"}, produces = "application/json")
+    public ResponseEntity<StreamingResponseBody> compactPage(@Valid @ModelAttribute PageParametersDTO params, BindingResult errors,
+                                                             @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                             @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        return this.writeFieldsPage(params, errors, Arrays.asList(ComputerField.values()), "compact", ifNoneMatch, acceptEncoding);
+    }
+
+    private ResponseEntity<StreamingResponseBody> writeFieldsPage(PageParametersDTO params, BindingResult errors,
+                                                                  List<ComputerField> fields, String format,
+                                                                  String ifNoneMatch, String acceptEncoding) {
+        if (errors.hasErrors() || !("objects".equals(format) || "compact".equals(format))) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        String etag = ETags.ofList(this.computerService.getWriteGeneration(), params, format + ":" + fields);
+        if (ETags.matches(ifNoneMatch, etag, true)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        PageParameters p = pageParamMapper.fromDTO(params);
+        boolean compact = "compact".equals(format);
+        return streamedJson(etag, acceptEncoding, out -> {
+            try (ComputerFieldsJsonStream json = new ComputerFieldsJsonStream(out, fields, compact)) {
+                this.computerService.streamComputerFields(p, fields, values -> {
+                    try {
+                        json.write(values);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * Response streaming a json body, gzipped if the client accepts it.
+     *
+     * @param etag           of the body
+     * @param acceptEncoding header of the request, may be null
+     * @param json           writer of the body, it closes the stream it is given
+     * @return the response
+     */
+    private static ResponseEntity<StreamingResponseBody> streamedJson(String etag, String acceptEncoding,
+                                                                      StreamingResponseBody json) {
+        boolean gzip = AcceptEncoding.gzip(acceptEncoding);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+        headers.setETag(etag);
+        headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        StreamingResponseBody body = out -> json.writeTo(gzip ? new GZIPOutputStream(out, EXPORT_BUFFER) : out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    private ResponseEntity<List<ComputerDTO>> conditionalPage(PageParametersDTO params, String ifNoneMatch) {
+        // read before the page, a write in between gives a newer page with an older ETag, never the opposite
+        String etag = ETags.ofList(this.computerService.getWriteGeneration(), params, "");
+        if (ETags.matches(ifNoneMatch, etag, true)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        PageParameters p = pageParamMapper.fromDTO(params);
         Page<ComputerDTO> computerPage = computerMapper.map(computerService.getComputersPage(p));
-        return new ResponseEntity<>(computerPage.getList(), HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag).body(computerPage.getList());
+    }
+
+    /**
+     * Page of computers read with a cursor instead of a page number : the next token holds the sort key and the id
+     * of the last computer, signed, and the next page is sought from them. Each call costs the size of the page
+     * whatever the position, and the computers written meanwhile do not shift the pages.
+     * <p>
+     * Without token the first page is read with the size, the order and the direction of the parameters. The search
+     * is not supported, the lucene results cannot be sought.
+     *
+     * @param params of the first page
+     * @param errors of the parameters
+     * @param cursor token of the page, given as next by the previous one
+     * @return the page with the token of the next one, 400 if the token or the parameters are invalid
+     */
+    @RequestMapping(value = "/cursor", method = RequestMethod.GET, produces = "application/json")
+    public CompletableFuture<ResponseEntity<CursorPageDTO<ComputerDTO>>> cursor(@Valid @ModelAttribute PageParametersDTO params, BindingResult errors,
+                                                                                @RequestParam(value = "cursor", required = false) String cursor) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            PageCursor position;
+            if (cursor != null) {
+                try {
+                    position = this.pageCursorMapper.fromToken(cursor, CURSOR_SCOPE);
+                } catch (MapperException e) {
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+            } else if (errors.hasErrors() || !params.getSearch().isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            } else {
+                PageParameters p = pageParamMapper.fromDTO(params);
+                position = PageCursor.first(p.getOrder(), p.getDirection(), p.getSize());
+            }
+            List<Computer> computers = this.computerService.getComputersAfter(position);
+            String next = computers.size() < position.getSize() ? null
+                    : this.pageCursorMapper.toToken(position.after(computers.get(computers.size() - 1)), CURSOR_SCOPE);
+            return new ResponseEntity<>(new CursorPageDTO<>(computerMapper.toDTO(computers), next), HttpStatus.OK);
+        });
     }
 
     @RequestMapping(value = "/page", method = RequestMethod.POST, consumes = "application/json")
-    public ResponseEntity<List<ComputerDTO>> listAll(@Valid @RequestBody PageParametersDTO params, BindingResult errors) {
-        if (!errors.hasErrors()) {
-            PageParameters p = pageParamMapper.fromDTO(params);
-            Page<ComputerDTO> computerPage = computerMapper.map(computerService.getComputersPage(p));
-            return new ResponseEntity<>(computerPage.getList(), HttpStatus.OK);
-        } else {
+    public CompletableFuture<ResponseEntity<List<ComputerDTO>>> listAll(@Valid @RequestBody PageParametersDTO params, BindingResult errors) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            if (!errors.hasErrors()) {
+                PageParameters p = pageParamMapper.fromDTO(params);
+                Page<ComputerDTO> computerPage = computerMapper.map(computerService.getComputersPage(p));
+                return new ResponseEntity<>(computerPage.getList(), HttpStatus.OK);
+            } else {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    /**
+     * Export all the computers matching the search of the parameters in one response, in their order. The size and
+     * the number of the page are ignored.
+     * <p>
+     * The computers are streamed from a database cursor as they are written, on an async thread, so the memory does
+     * not depend on the number of computers. The response is gzipped if the client accepts it.
+     *
+     * @param params         search, searchType, order and direction
+     * @param format         csv, json or xml
+     * @param acceptEncoding header of the request, may be null
+     * @return the streamed export, or 400 if the parameters are invalid
+     */
+    @RequestMapping(value = "/export", method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> export(@ModelAttribute PageParametersDTO params,
+                                                        @RequestParam(value = "format", defaultValue = "csv") String format,
+                                                        @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        ComputerExportWriter.Format exportFormat;
+        PageParameters p;
+        try {
+            exportFormat = ComputerExportWriter.Format.valueOf(format.toUpperCase());
+            p = this.pageParamMapper.fromDTO(params);
+        } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
+        boolean gzip = AcceptEncoding.gzip(acceptEncoding);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"computers." + exportFormat.getExtension() + "\"");
+        headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        StreamingResponseBody body = out -> {
+            try (ComputerExportWriter writer = ComputerExportWriter.create(exportFormat,
+                    gzip ? new GZIPOutputStream(out, EXPORT_BUFFER) : out)) {
+                this.computerService.exportComputers(p, computer -> {
+                    try {
+                        writer.write(this.computerMapper.toDTO(computer));
+                    } catch (IOException e) {
+                        // the client left, stop reading the cursor
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Stream all the companies and computers in the columnar binary snapshot format, read with
+     * com.excilys.core.snapshot.SnapshotReader. The snapshot is already compact, it is never gzipped.
+     *
+     * @return the streamed snapshot
+     */
+    @RequestMapping(value = "/snapshot", method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> snapshot() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"computers.cdbs\"");
+
+        StreamingResponseBody body = out -> this.computerService.exportSnapshot(out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     @RequestMapping(value = "/{id:[0-9]+}", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<ComputerDTO> get(@PathVariable("id") long id) {
-        Computer computer = computerService.getComputer(id);
-        if (computer == null) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        } else {
-            return new ResponseEntity<>(computerMapper.toDTO(computer), HttpStatus.OK);
-        }
+    public CompletableFuture<ResponseEntity<ComputerDTO>> get(@PathVariable("id") long id,
+                                                              @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            Computer computer = computerService.getComputer(id);
+            if (computer == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            String etag = ETags.of(computer);
+            if (ETags.matches(ifNoneMatch, etag, true)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(computerMapper.toDTO(computer));
+        });
     }
 
+    /**
+     * Create a computer. An exact duplicate is always refused with a 409 and the stored computer.
+     * <p>
+     * The likely duplicates do not prevent the creation : their ids are given in the LIKELY_DUPLICATES header of
+     * the 201. A client which wants to confirm them first sends checkDuplicates=true to get a 409 with the closest
+     * one instead, then sends the computer again without it.
+     *
+     * @param computer        to create
+     * @param errors          of the computer
+     * @param checkDuplicates true to refuse the computer when it has likely duplicates
+     * @return the created computer, 409 with the duplicate or 400 if the computer is invalid
+     */
     @RequestMapping(value = "/", method = RequestMethod.POST, consumes = "application/json", produces = "application/json")
-    public ResponseEntity<ComputerDTO> create(@Valid @RequestBody ComputerDTO computer, BindingResult errors) {
+    public CompletableFuture<ResponseEntity<ComputerDTO>> create(@Valid @RequestBody ComputerDTO computer, BindingResult errors,
+                                                                 @RequestParam(value = "checkDuplicates", defaultValue = "false") boolean checkDuplicates) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            this.computerValidator.validate(computer, errors);
+
+            if (!errors.hasErrors()) {
+                Computer tmp = this.computerMapper.fromDTO(computer);
+                tmp.setId(null);
+
+                Computer duplicate = this.computerService.findExactDuplicate(tmp);
+                if (duplicate != null) {
+                    return new ResponseEntity<>(this.computerMapper.toDTO(duplicate), HttpStatus.CONFLICT);
+                }
+
+                List<Computer> likely = this.doublonService.findLikelyDuplicates(tmp);
+                if (checkDuplicates && !likely.isEmpty()) {
+                    return new ResponseEntity<>(this.computerMapper.toDTO(likely.get(0)), HttpStatus.CONFLICT);
+                }
+
+                Computer created = this.computerService.createComputer(tmp);
+                ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.CREATED);
+                if (!likely.isEmpty()) {
+                    builder.header(LIKELY_DUPLICATES, likely.stream()
+                            .map(c -> c.getId().toString())
+                            .collect(Collectors.joining(",")));
+                }
+                return builder.body(this.computerMapper.toDTO(created));
+            } else {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    /**
+     * Create the computers of a ndjson body, one computer per line, and stream back one result per line.
+     * <p>
+     * The lines are read one at a time, as bytes in a buffer of MAX_BULK_LINE parsed by jackson, and the valid
+     * computers are inserted by batches of BULK_BATCH in one transaction each, so the body can have any number of
+     * lines. A longer line gets a 413 result and is skipped without being kept. Exact duplicates are refused, likely
+     * ones are created as by the single create.
+     *
+     * @param request  to read the lines from
+     * @param response to write the results to
+     * @throws IOException if the body cannot be read or the results cannot be written
+     */
+    @RequestMapping(value = "/bulk", method = RequestMethod.POST, consumes = NDJSON, produces = NDJSON)
+    public void bulkCreate(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        BoundedLineReader lines = new BoundedLineReader(request.getInputStream(), MAX_BULK_LINE);
+        OutputStream out = response.getOutputStream();
+        List<Computer> batch = new ArrayList<>(BULK_BATCH);
+        List<Long> batchLines = new ArrayList<>(BULK_BATCH);
+        Set<Long> batchFingerprints = new HashSet<>();
+
+        while (lines.next()) {
+            long lineNumber = lines.getNumber();
+            if (lines.isTooLong()) {
+                writeResult(out, new BulkResultDTO(lineNumber, HttpStatus.PAYLOAD_TOO_LARGE.value(), null,
+                        Collections.singletonList("errors.line.too.long")));
+                continue;
+            }
+            if (lines.isBlank()) {
+                continue;
+            }
+
+            ComputerDTO computer;
+            try {
+                computer = BULK_READER.readValue(lines.getBytes(), 0, lines.getLength());
+            } catch (JsonProcessingException e) {
+                writeResult(out, new BulkResultDTO(lineNumber, HttpStatus.BAD_REQUEST.value(), null,
+                        Collections.singletonList("errors.invalid.json")));
+                continue;
+            }
 
-        this.computerValidator.validate(computer, errors);
+            BindingResult errors = new BeanPropertyBindingResult(computer, "computer");
+            this.computerValidator.validate(computer, errors);
+            if (errors.hasErrors()) {
+                writeResult(out, new BulkResultDTO(lineNumber, HttpStatus.BAD_REQUEST.value(), null,
+                        errors.getAllErrors().stream().map(ObjectError::getCode).collect(Collectors.toList())));
+                continue;
+            }
 
-        if (!errors.hasErrors()) {
             Computer tmp = this.computerMapper.fromDTO(computer);
             tmp.setId(null);
-            Computer created = this.computerService.createComputer(tmp);
-            return new ResponseEntity<>(this.computerMapper.toDTO(created), HttpStatus.CREATED);
-        } else {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            Computer duplicate = this.computerService.findExactDuplicate(tmp);
+            if (duplicate != null || !batchFingerprints.add(Fingerprint.of(tmp))) {
+                writeResult(out, new BulkResultDTO(lineNumber, HttpStatus.CONFLICT.value(),
+                        duplicate == null ? null : duplicate.getId(), null));
+                continue;
+            }
+
+            batch.add(tmp);
+            batchLines.add(lineNumber);
+            if (batch.size() == BULK_BATCH) {
+                this.flushBatch(out, batch, batchLines);
+                batchFingerprints.clear();
+            }
         }
+        this.flushBatch(out, batch, batchLines);
     }
 
-    @RequestMapping(value = "/{id:[0-9]+}", method = RequestMethod.PUT, consumes = "application/json", produces = "application/json")
-    public ResponseEntity<ComputerDTO> update(@PathVariable("id") long id, @Valid @RequestBody ComputerDTO computer, BindingResult errors) {
+    /**
+     * Run an array of operations on the computers in one request : get, create, update (with an optional ifMatch)
+     * and delete.
+     * <p>
+     * The writes are done in one transaction, in their order, the computers they update or delete being read in
+     * one query, and the reads are done after them in one id IN query. Each operation gets the status it would have
+     * had on its own ; an invalid operation does not stop the others, a failure of the transaction fails all the
+     * writes.
+     *
+     * @param operations to run, at most MAX_BATCH
+     * @return the result of each operation, in their order, or 413 if there are too many
+     */
+    @RequestMapping(value = "/batch", method = RequestMethod.POST, consumes = "application/json", produces = "application/json")
+    public CompletableFuture<ResponseEntity<List<BatchResultDTO>>> batch(@RequestBody List<BatchOperationDTO> operations) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            if (operations.size() > MAX_BATCH) {
+                return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+            }
+            BatchResultDTO[] results = new BatchResultDTO[operations.size()];
+            ComputerBatch.Write[] writes = new ComputerBatch.Write[operations.size()];
+            ComputerBatch batch = new ComputerBatch();
+            Set<Long> reads = new HashSet<>();
+            // the creates of the batch are not in the database yet, their duplicates are found among them
+            Set<Long> createFingerprints = new HashSet<>();
 
-        computer.setId(Long.toString(id));
+            for (int i = 0; i < operations.size(); i++) {
+                BatchOperationDTO operation = operations.get(i);
+                String op = operation.getOp() == null ? "" : operation.getOp().toLowerCase();
+                Long id = operation.getId();
+                if (id == null && !"create".equals(op)) {
+                    results[i] = new BatchResultDTO(i, HttpStatus.BAD_REQUEST.value(), null, Collections.singletonList("errors.invalid.id"));
+                    continue;
+                }
+                switch (op) {
+                    case "get":
+                        reads.add(id);
+                        break;
+                    case "delete":
+                        writes[i] = batch.delete(id);
+                        break;
+                    case "create":
+                    case "update":
+                        ComputerDTO dto = operation.getComputer();
+                        if (dto == null) {
+                            results[i] = new BatchResultDTO(i, HttpStatus.BAD_REQUEST.value(), id, Collections.singletonList("errors.invalid.json"));
+                            break;
+                        }
+                        boolean update = "update".equals(op);
+                        dto.setId(update ? id.toString() : null);
+                        BindingResult errors = new BeanPropertyBindingResult(dto, "computer");
+                        this.computerValidator.validate(dto, errors);
+                        if (errors.hasErrors()) {
+                            results[i] = new BatchResultDTO(i, HttpStatus.BAD_REQUEST.value(), id,
+                                    errors.getAllErrors().stream().map(ObjectError::getCode).collect(Collectors.toList()));
+                            break;
+                        }
+                        Computer computer = this.computerMapper.fromDTO(dto);
+                        if (update) {
+                            String ifMatch = operation.getIfMatch();
+                            writes[i] = batch.update(computer, ifMatch == null ? null
+                                    : current -> ETags.matches(ifMatch, ETags.of(current), false));
+                            break;
+                        }
+                        Computer duplicate = this.computerService.findExactDuplicate(computer);
+                        if (duplicate != null || !createFingerprints.add(Fingerprint.of(computer))) {
+                            results[i] = new BatchResultDTO(i, HttpStatus.CONFLICT.value(),
+                                    duplicate == null ? null : duplicate.getId(), null);
+                            break;
+                        }
+                        writes[i] = batch.create(computer);
+                        break;
+                    default:
+                        results[i] = new BatchResultDTO(i, HttpStatus.BAD_REQUEST.value(), id, Collections.singletonList("errors.invalid.op"));
+                        break;
+                }
+            }
 
-        this.computerValidator.validate(computer, errors);
+            if (!batch.isEmpty()) {
+                this.writeBatch(batch, writes, results);
+            }
 
-        if (!errors.hasErrors()) {
-            this.computerService.updateComputer(this.computerMapper.fromDTO(computer));
-            return new ResponseEntity<>(HttpStatus.OK);
-        } else {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            Map<Long, Computer> found = new HashMap<>();
+            this.computerService.getComputersByIds(reads).forEach(computer -> found.put(computer.getId(), computer));
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    Computer computer = found.get(operations.get(i).getId());
+                    results[i] = new BatchResultDTO(i, computer == null ? HttpStatus.NOT_FOUND.value() : HttpStatus.OK.value(),
+                            operations.get(i).getId(), null);
+                    if (computer != null) {
+                        results[i].setComputer(this.computerMapper.toDTO(computer));
+                        results[i].setEtag(ETags.of(computer));
+                    }
+                }
+            }
+            return new ResponseEntity<>(Arrays.asList(results), HttpStatus.OK);
+        });
+    }
+
+    /**
+     * Do the writes of a batch and set their results.
+     *
+     * @param batch   writes to do
+     * @param writes  write of each operation, null for the other operations
+     * @param results result of each operation, set for the writes
+     */
+    private void writeBatch(ComputerBatch batch, ComputerBatch.Write[] writes, BatchResultDTO[] results) {
+        RuntimeException failure = null;
+        try {
+            this.computerService.writeComputers(batch);
+        } catch (OptimisticLockingFailureException e) {
+            // the whole transaction was rolled back
+            failure = e;
+        } catch (RuntimeException e) {
+            this.LOGGER.error("Couldn't write the batch", e);
+            failure = e;
+        }
+        for (int i = 0; i < writes.length; i++) {
+            ComputerBatch.Write write = writes[i];
+            if (write == null) {
+                continue;
+            }
+            Long id = write.getKind() == ComputerBatch.Kind.CREATE ? null : write.getId();
+            if (failure != null) {
+                // the message of the exception is not given, it can show the database
+                boolean conflict = failure instanceof OptimisticLockingFailureException;
+                results[i] = new BatchResultDTO(i, conflict ? HttpStatus.PRECONDITION_FAILED.value()
+                        : HttpStatus.INTERNAL_SERVER_ERROR.value(), id,
+                        Collections.singletonList(conflict ? CONCURRENT_UPDATE : WRITE_FAILED));
+                continue;
+            }
+            Computer result = write.getResult();
+            switch (write.getOutcome()) {
+                case CREATED:
+                    results[i] = new BatchResultDTO(i, HttpStatus.CREATED.value(), result.getId(), null);
+                    break;
+                case UPDATED:
+                    results[i] = new BatchResultDTO(i, HttpStatus.OK.value(), id, null);
+                    break;
+                case DELETED:
+                    results[i] = new BatchResultDTO(i, HttpStatus.NO_CONTENT.value(), id, null);
+                    break;
+                case PRECONDITION_FAILED:
+                    results[i] = new BatchResultDTO(i, HttpStatus.PRECONDITION_FAILED.value(), id, null);
+                    break;
+                default:
+                    results[i] = new BatchResultDTO(i, HttpStatus.NOT_FOUND.value(), id, null);
+                    break;
+            }
+            if (result != null) {
+                results[i].setComputer(this.computerMapper.toDTO(result));
+                results[i].setEtag(ETags.of(result));
+            }
         }
     }
 
+    /**
+     * Update a computer. With If-Match the update is only done if the computer still has one of the ETags, and
+     * fails with 412 otherwise, also when another update is committed meanwhile.
+     *
+     * @param id       of the computer
+     * @param computer new values
+     * @param errors   of the validation
+     * @param ifMatch  header of the request, may be null
+     * @return 200 with the new ETag, 400 if invalid, 404 if not found or 412 if the ETag does not match
+     */
+    @RequestMapping(value = "/{id:[0-9]+}", method = RequestMethod.PUT, consumes = "application/json", produces = "application/json")
+    public CompletableFuture<ResponseEntity<ComputerDTO>> update(@PathVariable("id") long id, @Valid @RequestBody ComputerDTO computer, BindingResult errors,
+                                                                 @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            computer.setId(Long.toString(id));
+
+            this.computerValidator.validate(computer, errors);
+
+            if (errors.hasErrors()) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            Computer current = this.computerService.getComputer(id);
+            if (current == null) {
+                return new ResponseEntity<>(ifMatch == null ? HttpStatus.NOT_FOUND : HttpStatus.PRECONDITION_FAILED);
+            }
+            try {
+                Computer updated;
+                if (ifMatch == null) {
+                    updated = this.computerService.updateComputer(this.computerMapper.fromDTO(computer));
+                } else if (ETags.matches(ifMatch, ETags.of(current), false)) {
+                    updated = this.computerService.updateComputer(this.computerMapper.fromDTO(computer), current.getVersion());
+                } else {
+                    return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+                }
+                return ResponseEntity.ok().eTag(ETags.of(updated)).build();
+            } catch (OptimisticLockingFailureException e) {
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+            }
+        });
+    }
+
     @RequestMapping(value = "/{id:[0-9]+}", method = RequestMethod.DELETE)
-    public ResponseEntity<ComputerDTO> deleteComputer(@PathVariable("id") long id) {
-        computerService.deleteComputer(id);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    public CompletableFuture<ResponseEntity<ComputerDTO>> deleteComputer(@PathVariable("id") long id) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            computerService.deleteComputer(id);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        });
     }
 
     @RequestMapping(value = "/getautocomplete/{entry}", method = RequestMethod.GET)
-    public ResponseEntity<List<String>> getSearchList(@PathVariable("entry") String entry) {
-        List<String> result = this.computerService.findAutocompleteResult(entry);
-        return new ResponseEntity<>(result, HttpStatus.OK);
+    public CompletableFuture<ResponseEntity<List<String>>> getSearchList(@PathVariable("entry") String entry) {
+        return AsyncResponses.supply(this.dbExecutor, () -> {
+            List<String> result = this.computerService.findAutocompleteResult(entry);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        });
+    }
+
+    /**
+     * Insert a batch of the bulk import in one transaction and write the result of its lines.
+     *
+     * @param out        to write the results to
+     * @param batch      computers to create, cleared afterwards
+     * @param batchLines line of each computer, cleared afterwards
+     * @throws IOException if the results cannot be written
+     */
+    private void flushBatch(OutputStream out, List<Computer> batch, List<Long> batchLines) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            List<Computer> created = this.computerService.createComputers(batch);
+            for (int i = 0; i < created.size(); i++) {
+                writeResult(out, new BulkResultDTO(batchLines.get(i), HttpStatus.CREATED.value(), created.get(i).getId(), null));
+            }
+        } catch (RuntimeException e) {
+            // the whole batch was rolled back, the message of the exception can show the database
+            this.LOGGER.error("Couldn't insert the bulk batch", e);
+            for (Long batchLine : batchLines) {
+                writeResult(out, new BulkResultDTO(batchLine, HttpStatus.INTERNAL_SERVER_ERROR.value(), null,
+                        Collections.singletonList(WRITE_FAILED)));
+            }
+        }
+        out.flush();
+        batch.clear();
+        batchLines.clear();
+    }
+
+    /**
+     * Write the result of a line of the bulk import.
+     *
+     * @param out    to write to
+     * @param result of the line
+     * @throws IOException if the result cannot be written
+     */
+    private static void writeResult(OutputStream out, BulkResultDTO result) throws IOException {
+        out.write(BULK_WRITER.writeValueAsBytes(result));
+        out.write('\n');
     }
 
 }
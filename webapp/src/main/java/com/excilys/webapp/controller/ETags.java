@@ -0,0 +1,84 @@
+package com.excilys.webapp.controller;
+
+import com.excilys.core.dto.PageParametersDTO;
+import com.excilys.core.model.Company;
+import com.excilys.core.model.Computer;
+
+/**
+ * ETags of the rest resources and comparison with the If-None-Match and If-Match headers.
+ * <p>
+ * A computer or a company has the ETag of its version column, a computer adds the version of its company since its
+ * name is in the dto. A list has a weak ETag made of the write generation, which changes on every write, and of its
+ * page parameters and format. It is weak since the gzip and identity encodings of a list share it.
+ * <p>
+ * The write generation is counted in each JVM : with more than one node behind a load balancer, a node which has not
+ * seen a write can answer 304 to an ETag given by another node with the same generation, so a list can be stale.
+ *
+ * @author excilys
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * ETag of a computer.
+     *
+     * @param computer with its company loaded
+     * @return the quoted ETag
+     */
+    static String of(Computer computer) {
+        Company company = computer.getCompany();
+        return "\"" + computer.getVersion() + (company == null ? "" : "." + company.getVersion()) + "\"";
+    }
+
+    /**
+     * ETag of a company.
+     *
+     * @param company of the ETag
+     * @return the quoted ETag
+     */
+    static String of(Company company) {
+        return "\"" + company.getVersion() + "\"";
+    }
+
+    /**
+     * Weak ETag of a list.
+     *
+     * @param generation write generation of this JVM when the list is read
+     * @param params     of the page
+     * @param format     of the body, empty for the default json
+     * @return the weak ETag
+     */
+    static String ofList(long generation, PageParametersDTO params, String format) {
+        String page = params.getPageNumber() + "|" + params.getSize() + "|" + params.getSearch() + "|"
+                + params.getSearchType() + "|" + params.getOrder() + "|" + params.getDirection() + "|" + format;
+        return "W/\"g" + generation + "-" + Integer.toHexString(page.hashCode()) + "\"";
+    }
+
+    /**
+     * Check if a header holds an ETag.
+     *
+     * @param header If-None-Match or If-Match, list of ETags or *, may be null
+     * @param etag   ETag of the resource
+     * @param weak   true to ignore the W/ prefixes, for If-None-Match. Otherwise a weak ETag only matches *
+     * @return true if the header holds the ETag or *
+     */
+    static boolean matches(String header, String etag, boolean weak) {
+        if (header == null) {
+            return false;
+        }
+        boolean weakTag = etag.startsWith("W/");
+        String tag = weak && weakTag ? etag.substring(2) : etag;
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (weak && candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if ("*".equals(candidate) || (tag.equals(candidate) && (weak || !weakTag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
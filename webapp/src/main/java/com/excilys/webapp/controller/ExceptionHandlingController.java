@@ -1,16 +1,24 @@
 package com.excilys.webapp.controller;
 
 import com.excilys.binding.validation.ValidatorException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 @ControllerAdvice
 public class ExceptionHandlingController {
 
+    // list of the variables
+    private static final String RETRY_AFTER_SECONDS = "1";
+
     /**
      * catch exceptions from the validator.
      *
@@ -57,6 +65,20 @@ public class ExceptionHandlingController {
         return "500";
     }
 
+    /**
+     * Handler for RejectedExecutionException, when a background pool or the pool of the rest queries is full.
+     *
+     * @param ex       RejectedExecutionException
+     * @param response to tell the client when to retry
+     * @return 500 error jsp with a 503 status
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String handleRejectedExecutionException(RejectedExecutionException ex, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return "500";
+    }
+
     /**
      * Handler every other exceptions.
      *
@@ -1,39 +1,74 @@
 package com.excilys.webapp.controller;
 
 import com.excilys.core.conflict.ImportException;
-import com.excilys.core.conflict.format.Error;
+import com.excilys.service.importTool.IImportJobService;
 import com.excilys.service.importTool.impl.ComputerErrorsExportService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Import;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.List;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
 
 @Controller
 @RequestMapping(value = "/admin/export")
 public class ExportController {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     @Autowired
     ComputerErrorsExportService exportService;
 
-    @RequestMapping(method = RequestMethod.POST)
+    @Autowired
+    private IImportJobService jobService;
+
+    /**
+     * Stream the rows refused by an import as csv to the response, read from the rapport file of the job and
+     * gzipped if the client accepts it. The lines are written through a buffer of BUFFER_SIZE, so the memory does
+     * not depend on the size of the report.
+     *
+     * @param response       to write to, 404 if the job has no rapport file
+     * @param id             of the import job
+     * @param acceptEncoding header of the request, may be null
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.GET)
     public void exportErrorsToCsv(HttpServletResponse response,
-                                  List<Error> dtosErrors) {
-        response.setContentType("text/csv");
+                                  @PathVariable("id") String id,
+                                  @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        Path rapportFile = this.jobService.getRapportFile(id);
+        if (rapportFile == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setContentType("text/csv;charset=UTF-8");
         response.setHeader("Content-Disposition",
                 "attachment; filename=\"importErrors.csv\"");
+        response.setHeader("Vary", "Accept-Encoding");
+        boolean gzip = AcceptEncoding.gzip(acceptEncoding);
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
 
         try {
             OutputStream outputStream = response.getOutputStream();
-            outputStream
-                    .write(exportService.csvFileWriter(dtosErrors).getBytes());
-            outputStream.flush();
-            outputStream.close();
+            if (gzip) {
+                outputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            }
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8),
+                    BUFFER_SIZE)) {
+                exportService.csvFileWriter(rapportFile, writer);
+            }
         } catch (IOException e) {
             throw new ImportException("Error at file creation !", e);
         }
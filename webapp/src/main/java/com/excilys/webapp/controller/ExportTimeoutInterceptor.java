@@ -0,0 +1,38 @@
+package com.excilys.webapp.controller;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptorAdapter;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Give the streamed exports their own async timeout, longer than the default one of the rest requests.
+ * <p>
+ * The StreamingResponseBody of the exports are the only Callables run by spring mvc here : the rest requests
+ * return CompletableFutures, which keep the default timeout, and the change feed sets the timeout of its emitters.
+ *
+ * @author excilys
+ */
+public class ExportTimeoutInterceptor extends CallableProcessingInterceptorAdapter {
+
+    // list of the variables
+    private long timeout;
+
+    /**
+     * Use to set the timeout of the exports.
+     *
+     * @param timeout in milliseconds
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        // called before the request goes async, the timeout can still be changed
+        if (request instanceof AsyncWebRequest) {
+            ((AsyncWebRequest) request).setTimeout(this.timeout);
+        }
+    }
+}
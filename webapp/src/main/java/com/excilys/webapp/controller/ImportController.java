@@ -1,76 +1,337 @@
 package com.excilys.webapp.controller;
 
-import com.excilys.binding.mapper.impl.ComputerMapper;
+import com.excilys.core.conflict.ImportException;
 import com.excilys.core.conflict.Rapport;
-import com.excilys.service.computer.IComputerService;
-import com.excilys.service.doublon.DoublonService;
-import com.excilys.service.importTool.IComputerImportService;
+import com.excilys.core.dto.ConflictDTO;
+import com.excilys.core.dto.CursorPageDTO;
+import com.excilys.core.dto.ImportJobDTO;
+import com.excilys.core.dto.UploadDTO;
+import com.excilys.service.importTool.IImportJobService;
+import com.excilys.service.importTool.IUploadService;
+import com.excilys.service.importTool.ImportJob;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
 @Controller
 @RequestMapping(value = "/import")
 public class ImportController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
-    private IComputerImportService importService;
-    @Autowired
-    private DoublonService doublonService;
-    @Autowired
-    private IComputerService service;
+    private IImportJobService jobService;
+
     @Autowired
-    private ComputerMapper mapper;
+    private IUploadService uploadService;
 
     @RequestMapping(value = "/computers", method = RequestMethod.GET)
     public String getImport() {
         return "addListComputers";
     }
 
+    /**
+     * Queue the import of the uploaded file, it runs in the background.
+     *
+     * @param file uploaded
+     * @return redirect to the admin page
+     */
     @RequestMapping(value = "/computers", method = RequestMethod.POST)
     public String postImport(@RequestParam("file") MultipartFile file) {
-        String fileName[] = file.getOriginalFilename().split("\\.");
+        this.submit(file, ImportJob.Mode.CHECKED);
+        return "redirect:/admin";
+    }
 
-        if (fileName.length != 2) {
-            throw new IllegalArgumentException("File need to have an extension.");
+    /**
+     * Queue the import of the uploaded file.
+     *
+     * @param file uploaded
+     * @param mode CHECKED (default) or STAGED for the very large files
+     * @return the job, or 503 if too many imports are already queued
+     */
+    @RequestMapping(value = "/jobs", method = RequestMethod.POST, produces = "application/json")
+    public ResponseEntity<ImportJobDTO> postJob(@RequestParam("file") MultipartFile file,
+                                                @RequestParam(value = "mode", defaultValue = "CHECKED") ImportJob.Mode mode) {
+        try {
+            return new ResponseEntity<>(this.submit(file, mode).toDTO(), HttpStatus.ACCEPTED);
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Get the progress of a job.
+     *
+     * @param id of the job
+     * @return the job, or 404 if it does not exist
+     */
+    @RequestMapping(value = "/jobs/{id}", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<ImportJobDTO> getJob(@PathVariable("id") String id) {
+        ImportJob job = this.jobService.getJob(id);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
+        return new ResponseEntity<>(job.toDTO(), HttpStatus.OK);
+    }
 
-        String extension = fileName[1];
+    /**
+     * Cancel a job, it stops before its next chunk.
+     *
+     * @param id of the job
+     * @return the job, or 404 if it does not exist
+     */
+    @RequestMapping(value = "/jobs/{id}/cancel", method = RequestMethod.POST, produces = "application/json")
+    public ResponseEntity<ImportJobDTO> cancelJob(@PathVariable("id") String id) {
+        ImportJob job = this.jobService.cancel(id);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job.toDTO(), HttpStatus.OK);
+    }
 
-        // Check the validity of files format
-        Rapport rapport;
-        switch (extension) {
-            case "xml":
-                rapport = importService.importComputersFromXML(file);
-                break;
-            case "csv":
-                rapport = importService.importComputersFromCSV(file);
-                break;
-            default:
-                throw new IllegalArgumentException("Accepted format : csv and xml.");
+    /**
+     * Resume a failed, cancelled or interrupted job after its last committed chunk.
+     *
+     * @param id of the job
+     * @return the job, 404 if it does not exist, 409 if it is running or done, 410 if its file was deleted
+     * or 503 if too many imports are already queued
+     */
+    @RequestMapping(value = "/jobs/{id}/resume", method = RequestMethod.POST, produces = "application/json")
+    public ResponseEntity<ImportJobDTO> resumeJob(@PathVariable("id") String id) {
+        ImportJob job;
+        try {
+            job = this.jobService.resume(id);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (ImportException e) {
+            return new ResponseEntity<>(HttpStatus.GONE);
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
+        return new ResponseEntity<>(job.toDTO(), HttpStatus.ACCEPTED);
+    }
 
-        if (rapport.hasErrors()) {
-            // TODO return errors of file format in the view
-        } else {
-            // Check duplicate computers
-            rapport = doublonService.getRapport(rapport.getToImport());
+    /**
+     * Get the rows of a job which were not inserted, as csv, including the rows of its previous runs.
+     *
+     * @param id of the job
+     * @return the csv file, or 404 if there is none
+     */
+    @RequestMapping(value = "/jobs/{id}/rapport.csv", method = RequestMethod.GET, produces = "text/csv")
+    public ResponseEntity<Resource> getRapportFile(@PathVariable("id") String id) {
+        Path file = this.jobService.getRapportFile(id);
+        if (file == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(new FileSystemResource(file.toFile()), HttpStatus.OK);
+    }
 
-            rapport.getToImport().forEach(e -> service.createComputer(mapper.fromDTO(e)));
+    /**
+     * Get a page of the rows of a job which were not inserted, the rapport of the job only has the first ones.
+     *
+     * @param id   of the job
+     * @param page number of the page, starting at 0
+     * @param size of the page, at most MAX_PAGE_SIZE
+     * @return the conflicts of the page, 400 if the page is invalid or 404 if the job has no rapport file
+     */
+    @RequestMapping(value = "/jobs/{id}/conflicts", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<List<ConflictDTO>> getConflicts(@PathVariable("id") String id,
+                                                          @RequestParam(value = "page", defaultValue = "0") long page,
+                                                          @RequestParam(value = "size", defaultValue = "100") int size) {
+        if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<ConflictDTO> conflicts = this.jobService.getConflicts(id, page * size, size);
+        if (conflicts == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(conflicts, HttpStatus.OK);
+    }
 
-            if (rapport.hasErrors()) {
-                // TODO return errors of duplicate in the view
-            }
+    /**
+     * Get the rows of a job which were not inserted following a cursor. Unlike the pages, the rows before the
+     * cursor are not read again, so going through the whole rapport is linear.
+     *
+     * @param id    of the job
+     * @param after cursor returned with the previous page, 0 for the first one
+     * @param size  of the page, at most MAX_PAGE_SIZE
+     * @return the conflicts with the cursor of the next page, 400 if the parameters are invalid or 404 if the job
+     * has no rapport file
+     */
+    @RequestMapping(value = "/jobs/{id}/conflicts/cursor", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<CursorPageDTO<ConflictDTO>> getConflictsAfter(@PathVariable("id") String id,
+                                                                        @RequestParam(value = "after", defaultValue = "0") long after,
+                                                                        @RequestParam(value = "size", defaultValue = "100") int size) {
+        if (after < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
+        CursorPageDTO<ConflictDTO> conflicts = this.jobService.getConflictsAfter(id, after, size);
+        if (conflicts == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(conflicts, HttpStatus.OK);
+    }
 
-        return "redirect:/admin";
+    /**
+     * Get the rapport of a finished job.
+     *
+     * @param id of the job
+     * @return the rapport of the last run, with the first conflicts of each kind and their counts, 404 if the job
+     * does not exist or 409 if it is not finished
+     */
+    @RequestMapping(value = "/jobs/{id}/rapport", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<Rapport> getRapport(@PathVariable("id") String id) {
+        ImportJob job = this.jobService.getJob(id);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } else if (!job.getState().isFinished()) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } else if (job.getRapport() == null) {
+            // the job finished before a restart, only its rapport file is left
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job.getRapport(), HttpStatus.OK);
+    }
+
+    /**
+     * Start a chunked upload, for the files too large for a single request.
+     *
+     * @param fileName name of the file, csv or xml
+     * @param size     of the file in bytes, 0 if unknown
+     * @return the upload, or 400 if the format is not supported
+     */
+    @RequestMapping(value = "/uploads", method = RequestMethod.POST, produces = "application/json")
+    public ResponseEntity<UploadDTO> postUpload(@RequestParam("fileName") String fileName,
+                                                @RequestParam(value = "size", defaultValue = "0") long size) {
+        try {
+            return new ResponseEntity<>(this.uploadService.create(fileName, size), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Get the state of an upload, a dropped upload resumes at its received offset.
+     *
+     * @param id of the upload
+     * @return the upload, or 404 if it does not exist
+     */
+    @RequestMapping(value = "/uploads/{id}", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<UploadDTO> getUpload(@PathVariable("id") String id) {
+        UploadDTO upload = this.uploadService.getStatus(id);
+        if (upload == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(upload, HttpStatus.OK);
+    }
+
+    /**
+     * Write a chunk of an upload, the body is the raw content of the chunk.
+     *
+     * @param id       of the upload
+     * @param offset   of the chunk in the file
+     * @param checksum SHA-256 of the chunk in hexadecimal, optional
+     * @param request  to read the body from
+     * @return the upload, 404 if it does not exist, 409 with the upload if the offset is not the one expected
+     * or 400 if the chunk is too large or its checksum does not match
+     * @throws IOException if the body cannot be read
+     */
+    @RequestMapping(value = "/uploads/{id}", method = RequestMethod.PUT, produces = "application/json")
+    public ResponseEntity<UploadDTO> putChunk(@PathVariable("id") String id, @RequestParam("offset") long offset,
+                                              @RequestHeader(value = "X-Checksum-SHA256", required = false) String checksum,
+                                              HttpServletRequest request) throws IOException {
+        UploadDTO upload;
+        try (InputStream input = request.getInputStream()) {
+            upload = this.uploadService.write(id, offset, input, checksum);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(this.uploadService.getStatus(id), HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (upload == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(upload, HttpStatus.OK);
+    }
+
+    /**
+     * Queue the import of a complete upload.
+     *
+     * @param id   of the upload
+     * @param mode CHECKED (default) or STAGED for the very large files
+     * @return the job, 404 if the upload does not exist, 409 if it is not complete or 503 if too many imports
+     * are already queued
+     */
+    @RequestMapping(value = "/uploads/{id}/complete", method = RequestMethod.POST, produces = "application/json")
+    public ResponseEntity<ImportJobDTO> completeUpload(@PathVariable("id") String id,
+                                                       @RequestParam(value = "mode", defaultValue = "CHECKED") ImportJob.Mode mode) {
+        ImportJob job;
+        try {
+            job = this.uploadService.complete(id, mode);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job.toDTO(), HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Abort an upload.
+     *
+     * @param id of the upload
+     * @return 204, or 404 if it does not exist
+     */
+    @RequestMapping(value = "/uploads/{id}", method = RequestMethod.DELETE)
+    public ResponseEntity<UploadDTO> deleteUpload(@PathVariable("id") String id) {
+        return new ResponseEntity<>(this.uploadService.abort(id) ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND);
     }
 
     @RequestMapping(value = "/error", method = RequestMethod.GET)
     public String handleError() {
         return "invalidComputerImport";
     }
+
+    /**
+     * Check the extension of the file and give it to the job service.
+     *
+     * @param file uploaded
+     * @param mode how the rows are written in the database
+     * @return the queued job
+     */
+    private ImportJob submit(MultipartFile file, ImportJob.Mode mode) {
+        String fileName[] = file.getOriginalFilename().split("\\.");
+
+        if (fileName.length != 2) {
+            throw new IllegalArgumentException("File need to have an extension.");
+        }
+
+        try (InputStream input = file.getInputStream()) {
+            return this.jobService.submit(input, file.getOriginalFilename(), fileName[1], mode);
+        } catch (IOException e) {
+            throw new ImportException("Error reading file", e);
+        }
+    }
 }
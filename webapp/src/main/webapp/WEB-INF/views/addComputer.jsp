@@ -13,6 +13,8 @@
 <spring:message code="form.or" var="formOr"/>
 
 <spring:message code="add.computer" var="addComputer"/>
+<spring:message code="add.duplicateWarning" var="duplicateWarning"/>
+<spring:message code="add.duplicateConfirm" var="duplicateConfirm"/>
 
 <spring:message code="column.name" var="columnName"/>
 <spring:message code="column.introduced" var="columnIntroduced"/>
@@ -31,6 +33,20 @@
                 <h1>${addComputer}</h1>
                 <form action="${contextPath}/computer/add" method="POST">
                     <input type="hidden" name="${_csrf.parameterName}" value="${_csrf.token}"/>
+                    <c:if test="${not empty duplicates}">
+                        <div class="alert alert-warning">
+                            ${duplicateWarning}
+                            <ul>
+                                <c:forEach items="${duplicates}" var="duplicate">
+                                    <li><c:out value="${duplicate.name}"/> (${duplicate.introduced} - ${duplicate.discontinued})
+                                        <c:out value="${duplicate.companyName}"/></li>
+                                </c:forEach>
+                            </ul>
+                            <div class="checkbox">
+                                <label><input type="checkbox" name="confirmDuplicate" value="true"> ${duplicateConfirm}</label>
+                            </div>
+                        </div>
+                    </c:if>
                     <fieldset>
                         <div
                                 class="form-group ${fn:contains(errors, 'name') ? 'has-error': ''}">
@@ -64,7 +80,7 @@
                                 class="form-control" name="companyId" id="companyId">
                             <option value="">--</option>
                             <c:forEach items="${companies}" var="company">
-                                <option value="${company.id}">${company.name}</option>
+                                <option value="${company.id}" ${company.id == computer.companyId ? 'selected' : ''}>${company.name}</option>
                             </c:forEach>
                         </select>
                         </div>
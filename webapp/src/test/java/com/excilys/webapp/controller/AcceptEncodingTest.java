@@ -0,0 +1,30 @@
+package com.excilys.webapp.controller;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AcceptEncodingTest {
+
+    @Test
+    public void testGzipAccepted() {
+        assertTrue(AcceptEncoding.gzip("gzip"));
+        assertTrue(AcceptEncoding.gzip("deflate, gzip;q=0.5"));
+        assertTrue(AcceptEncoding.gzip("br;q=1.0, GZIP ; Q = 0.1"));
+        assertTrue(AcceptEncoding.gzip("*"));
+        assertTrue(AcceptEncoding.gzip("x-gzip"));
+    }
+
+    @Test
+    public void testGzipRefused() {
+        assertFalse(AcceptEncoding.gzip(null));
+        assertFalse(AcceptEncoding.gzip(""));
+        assertFalse(AcceptEncoding.gzip("identity"));
+        assertFalse(AcceptEncoding.gzip("gzip;q=0"));
+        assertFalse(AcceptEncoding.gzip("gzip;q=0.000, deflate"));
+        assertFalse(AcceptEncoding.gzip("*;q=1, gzip;q=0"));
+        assertFalse(AcceptEncoding.gzip("*;q=0"));
+        assertFalse(AcceptEncoding.gzip("gzip;q=abc"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.excilys.webapp.controller;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedLineReaderTest {
+
+    private static BoundedLineReader reader(String body, int maxLength) {
+        return new BoundedLineReader(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), maxLength);
+    }
+
+    private static String line(BoundedLineReader reader) {
+        return new String(reader.getBytes(), 0, reader.getLength(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testReadsTheLinesWithTheirNumbers() throws IOException {
+        BoundedLineReader reader = reader("{\"name\":\"a\"}\r\n\n{\"name\":\"b\"}", 64);
+
+        assertTrue(reader.next());
+        assertEquals("{\"name\":\"a\"}", line(reader));
+        assertTrue(reader.next());
+        assertTrue(reader.isBlank());
+        assertTrue(reader.next());
+        assertEquals(3, reader.getNumber());
+        assertEquals("{\"name\":\"b\"}", line(reader));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void testSkipsALineTooLong() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            body.append('x');
+        }
+        body.append("\n{}\n");
+        BoundedLineReader reader = reader(body.toString(), 16);
+
+        assertTrue(reader.next());
+        assertTrue(reader.isTooLong());
+        assertTrue(reader.next());
+        assertFalse(reader.isTooLong());
+        assertEquals(2, reader.getNumber());
+        assertEquals("{}", line(reader));
+        assertFalse(reader.next());
+    }
+}
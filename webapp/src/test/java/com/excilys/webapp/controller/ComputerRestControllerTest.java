@@ -0,0 +1,500 @@
+package com.excilys.webapp.controller;
+
+import com.excilys.binding.mapper.impl.ComputerMapper;
+import com.excilys.binding.mapper.impl.PageParametersMapper;
+import com.excilys.binding.validation.ComputerValidator;
+import com.excilys.core.dto.BatchOperationDTO;
+import com.excilys.core.dto.BatchResultDTO;
+import com.excilys.core.dto.ComputerDTO;
+import com.excilys.core.dto.PageParametersDTO;
+import com.excilys.core.model.Computer;
+import com.excilys.core.model.ComputerField;
+import com.excilys.core.model.Page;
+import com.excilys.core.model.PageParameters;
+import com.excilys.service.computer.ComputerBatch;
+import com.excilys.service.computer.IComputerService;
+import com.excilys.service.doublon.DoublonService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ComputerRestControllerTest {
+
+    private ComputerRestController controller;
+    private IComputerService computerService;
+    private DoublonService doublonService;
+    private final Map<Long, Computer> database = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        this.computerService = Mockito.mock(IComputerService.class);
+        this.doublonService = Mockito.mock(DoublonService.class);
+        this.controller = new ComputerRestController();
+        ReflectionTestUtils.setField(this.controller, "computerService", this.computerService);
+        ReflectionTestUtils.setField(this.controller, "doublonService", this.doublonService);
+        ReflectionTestUtils.setField(this.controller, "computerMapper", new ComputerMapper());
+        ReflectionTestUtils.setField(this.controller, "pageParamMapper", new PageParametersMapper());
+        ReflectionTestUtils.setField(this.controller, "computerValidator", Mockito.mock(ComputerValidator.class));
+        ReflectionTestUtils.setField(this.controller, "dbExecutor", (Executor) Runnable::run);
+        Mockito.when(this.computerService.createComputer(Matchers.any(Computer.class))).thenAnswer(invocation -> {
+            Computer computer = (Computer) invocation.getArguments()[0];
+            computer.setId(42L);
+            return computer;
+        });
+        Mockito.when(this.computerService.getComputersByIds(Matchers.anyCollectionOf(Long.class))).thenAnswer(invocation -> {
+            Collection<?> ids = (Collection<?>) invocation.getArguments()[0];
+            return ids.stream().map(this.database::get).filter(Objects::nonNull).collect(Collectors.toList());
+        });
+    }
+
+    private static Computer stored(long id, String name) {
+        return new Computer.ComputerBuilder().id(id).name(name).build();
+    }
+
+    private static Computer stored(long id, String name, long version) {
+        Computer computer = stored(id, name);
+        ReflectionTestUtils.setField(computer, "version", version);
+        return computer;
+    }
+
+    private ResponseEntity<ComputerDTO> create(String name, boolean checkDuplicates) throws Exception {
+        ComputerDTO dto = new ComputerDTO.Builder().name(name).introduced("").discontinued("").build();
+        return this.controller.create(dto, new BeanPropertyBindingResult(dto, "computer"), checkDuplicates).get();
+    }
+
+    // -------------------------------------- Create tests -------------------------------------------------------------
+    @Test
+    public void createIsRefusedForAnExactDuplicate() throws Exception {
+        Mockito.when(this.computerService.findExactDuplicate(Matchers.any(Computer.class))).thenReturn(stored(7, "iPhone 5"));
+
+        ResponseEntity<ComputerDTO> response = this.create("iPhone 5", false);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("7", response.getBody().getId());
+        Mockito.verify(this.computerService, Mockito.never()).createComputer(Matchers.any(Computer.class));
+    }
+
+    @Test
+    public void createWarnsAboutLikelyDuplicatesInAHeader() throws Exception {
+        Mockito.when(this.doublonService.findLikelyDuplicates(Matchers.any(Computer.class)))
+                .thenReturn(Arrays.asList(stored(6, "iPhone 6"), stored(4, "iPhone 4")));
+
+        ResponseEntity<ComputerDTO> response = this.create("iPhone 5", false);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("42", response.getBody().getId());
+        assertEquals("6,4", response.getHeaders().getFirst(ComputerRestController.LIKELY_DUPLICATES));
+    }
+
+    @Test
+    public void createWithoutLikelyDuplicatesHasNoWarning() throws Exception {
+        Mockito.when(this.doublonService.findLikelyDuplicates(Matchers.any(Computer.class))).thenReturn(Collections.emptyList());
+
+        ResponseEntity<ComputerDTO> response = this.create("iPhone 5", false);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(ComputerRestController.LIKELY_DUPLICATES));
+    }
+
+    @Test
+    public void createChecksLikelyDuplicatesOnlyWhenAsked() throws Exception {
+        Mockito.when(this.doublonService.findLikelyDuplicates(Matchers.any(Computer.class)))
+                .thenReturn(Collections.singletonList(stored(6, "iPhone 6")));
+
+        ResponseEntity<ComputerDTO> response = this.create("iPhone 5", true);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("6", response.getBody().getId());
+        Mockito.verify(this.computerService, Mockito.never()).createComputer(Matchers.any(Computer.class));
+    }
+
+    // -------------------------------------- Batch tests --------------------------------------------------------------
+
+    /**
+     * Do the writes of the batches on the computers of the database, as the service does.
+     */
+    private void writeOnDatabase() {
+        Mockito.doAnswer(invocation -> {
+            ComputerBatch batch = (ComputerBatch) invocation.getArguments()[0];
+            for (ComputerBatch.Write write : batch.getWrites()) {
+                Computer current = this.database.get(write.getId());
+                if (write.getKind() == ComputerBatch.Kind.CREATE) {
+                    write.getComputer().setId(42L);
+                    write.done(ComputerBatch.Outcome.CREATED, write.getComputer());
+                } else if (current == null) {
+                    write.done(ComputerBatch.Outcome.NOT_FOUND, null);
+                } else if (write.getKind() == ComputerBatch.Kind.DELETE) {
+                    this.database.remove(write.getId());
+                    write.done(ComputerBatch.Outcome.DELETED, null);
+                } else if (!write.accepts(current)) {
+                    write.done(ComputerBatch.Outcome.PRECONDITION_FAILED, null);
+                } else {
+                    write.done(ComputerBatch.Outcome.UPDATED, write.getComputer());
+                }
+            }
+            return null;
+        }).when(this.computerService).writeComputers(Matchers.any(ComputerBatch.class));
+    }
+
+    private static BatchOperationDTO operation(String op, Long id, String ifMatch, String name) {
+        ComputerDTO computer = name == null ? null : new ComputerDTO.Builder().name(name).introduced("").discontinued("").build();
+        return new BatchOperationDTO(op, id, ifMatch, computer);
+    }
+
+    private List<BatchResultDTO> batch(BatchOperationDTO... operations) throws Exception {
+        ResponseEntity<List<BatchResultDTO>> response = this.controller.batch(Arrays.asList(operations)).get();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    private static List<Integer> statuses(List<BatchResultDTO> results) {
+        return results.stream().map(BatchResultDTO::getStatus).collect(Collectors.toList());
+    }
+
+    @Test
+    public void batchGivesEachOperationItsStatus() throws Exception {
+        this.database.put(1L, stored(1, "CM-2a", 3));
+        this.database.put(2L, stored(2, "Apple II"));
+        this.writeOnDatabase();
+
+        List<BatchResultDTO> results = this.batch(
+                operation("get", 1L, null, null),
+                operation("get", 99L, null, null),
+                operation("create", null, null, "iMac"),
+                operation("update", 1L, null, "CM-2b"),
+                operation("delete", 2L, null, null),
+                operation("delete", 98L, null, null),
+                operation("explode", 1L, null, null),
+                operation("get", null, null, null),
+                operation("create", null, null, null));
+
+        assertEquals(Arrays.asList(200, 404, 201, 200, 204, 404, 400, 400, 400), statuses(results));
+        assertEquals("CM-2a", results.get(0).getComputer().getName());
+        assertEquals("\"3\"", results.get(0).getEtag());
+        assertEquals(Long.valueOf(42), results.get(2).getId());
+        assertEquals(Collections.singletonList("errors.invalid.op"), results.get(6).getErrors());
+        assertEquals(Collections.singletonList("errors.invalid.id"), results.get(7).getErrors());
+        assertEquals(Collections.singletonList("errors.invalid.json"), results.get(8).getErrors());
+        Mockito.verify(this.computerService, Mockito.times(1)).writeComputers(Matchers.any(ComputerBatch.class));
+    }
+
+    @Test
+    public void batchReadsAfterTheWrites() throws Exception {
+        this.database.put(1L, stored(1, "CM-2a"));
+        this.writeOnDatabase();
+
+        List<BatchResultDTO> results = this.batch(operation("get", 1L, null, null), operation("delete", 1L, null, null));
+
+        assertEquals(Arrays.asList(404, 204), statuses(results));
+    }
+
+    @Test
+    public void batchChecksTheIfMatchOfEachUpdate() throws Exception {
+        this.database.put(1L, stored(1, "CM-2a", 3));
+        this.database.put(2L, stored(2, "Apple II", 5));
+        this.writeOnDatabase();
+
+        List<BatchResultDTO> results = this.batch(
+                operation("update", 1L, "\"3\"", "CM-2b"),
+                operation("update", 2L, "\"4\"", "Apple IIe"),
+                operation("update", 2L, "\"4\", \"5\"", "Apple IIc"),
+                operation("update", 3L, "\"1\"", "Lisa"));
+
+        assertEquals(Arrays.asList(200, 412, 200, 404), statuses(results));
+    }
+
+    @Test
+    public void batchRefusesAnExactDuplicate() throws Exception {
+        Mockito.when(this.computerService.findExactDuplicate(Matchers.any(Computer.class))).thenReturn(stored(7, "iMac"));
+
+        List<BatchResultDTO> results = this.batch(operation("create", null, null, "iMac"));
+
+        assertEquals(Collections.singletonList(409), statuses(results));
+        assertEquals(Long.valueOf(7), results.get(0).getId());
+        Mockito.verify(this.computerService, Mockito.never()).writeComputers(Matchers.any(ComputerBatch.class));
+    }
+
+    @Test
+    public void batchConflictRollsBackEveryWrite() throws Exception {
+        this.database.put(1L, stored(1, "CM-2a"));
+        Mockito.doThrow(new OptimisticLockingFailureException("updated meanwhile"))
+                .when(this.computerService).writeComputers(Matchers.any(ComputerBatch.class));
+
+        List<BatchResultDTO> results = this.batch(
+                operation("create", null, null, "iMac"),
+                operation("update", 1L, null, "CM-2b"),
+                operation("get", 1L, null, null));
+
+        assertEquals(Arrays.asList(412, 412, 200), statuses(results));
+        assertEquals(Collections.singletonList("errors.concurrent.update"), results.get(1).getErrors());
+    }
+
+    @Test
+    public void batchFailureRollsBackEveryWrite() throws Exception {
+        Mockito.doThrow(new IllegalStateException("database down"))
+                .when(this.computerService).writeComputers(Matchers.any(ComputerBatch.class));
+
+        List<BatchResultDTO> results = this.batch(operation("create", null, null, "iMac"), operation("delete", 2L, null, null));
+
+        assertEquals(Arrays.asList(500, 500), statuses(results));
+        assertEquals(Collections.singletonList("errors.write.failed"), results.get(0).getErrors());
+    }
+
+    @Test
+    public void batchRefusesTheDuplicatesOfItsOwnCreates() throws Exception {
+        this.writeOnDatabase();
+
+        List<BatchResultDTO> results = this.batch(
+                operation("create", null, null, "iMac"),
+                operation("create", null, null, "iMac"),
+                operation("create", null, null, "eMac"));
+
+        assertEquals(Arrays.asList(201, 409, 201), statuses(results));
+    }
+
+    @Test
+    public void batchRefusesTooManyOperations() throws Exception {
+        List<BatchOperationDTO> operations = Collections.nCopies(1001, operation("get", 1L, null, null));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, this.controller.batch(operations).get().getStatusCode());
+    }
+
+    // -------------------------------------- ETag tests ---------------------------------------------------------------
+    private ResponseEntity<List<ComputerDTO>> page(int pageNumber, String ifNoneMatch) throws Exception {
+        PageParametersDTO params = new PageParametersDTO();
+        params.setPageNumber(pageNumber);
+        return this.controller.page(params, new BeanPropertyBindingResult(params, "params"), ifNoneMatch).get();
+    }
+
+    private ResponseEntity<ComputerDTO> update(long id, String ifMatch) throws Exception {
+        ComputerDTO dto = new ComputerDTO.Builder().name("CM-2b").introduced("").discontinued("").build();
+        return this.controller.update(id, dto, new BeanPropertyBindingResult(dto, "computer"), ifMatch).get();
+    }
+
+    @Test
+    public void getAnswers304ToItsETag() throws Exception {
+        Mockito.when(this.computerService.getComputer(5L)).thenReturn(stored(5, "CM-2a", 2));
+
+        ResponseEntity<ComputerDTO> response = this.controller.get(5, null).get();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"2\"", response.getHeaders().getETag());
+
+        assertEquals(HttpStatus.NOT_MODIFIED, this.controller.get(5, "\"2\"").get().getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, this.controller.get(5, "\"1\", W/\"2\"").get().getStatusCode());
+        assertEquals(HttpStatus.OK, this.controller.get(5, "\"1\"").get().getStatusCode());
+    }
+
+    @Test
+    public void pageAnswers304OnlyToTheETagOfTheSamePage() throws Exception {
+        Mockito.when(this.computerService.getWriteGeneration()).thenReturn(7L);
+        Mockito.when(this.computerService.getComputersPage(Matchers.any(PageParameters.class)))
+                .thenReturn(new Page.Builder<Computer>().list(Collections.singletonList(stored(1, "CM-2a"))).totalCount(1L).build());
+
+        ResponseEntity<List<ComputerDTO>> response = this.page(0, null);
+        String etag = response.getHeaders().getETag();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(etag.startsWith("W/"));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, this.page(0, etag).getStatusCode());
+        assertEquals(HttpStatus.OK, this.page(1, etag).getStatusCode());
+
+        Mockito.when(this.computerService.getWriteGeneration()).thenReturn(8L);
+        assertEquals(HttpStatus.OK, this.page(0, etag).getStatusCode());
+        Mockito.verify(this.computerService, Mockito.times(3)).getComputersPage(Matchers.any(PageParameters.class));
+    }
+
+    @Test
+    public void updateWithAStaleIfMatchIsRefused() throws Exception {
+        Mockito.when(this.computerService.getComputer(5L)).thenReturn(stored(5, "CM-2a", 2));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, this.update(5, "\"1\"").getStatusCode());
+        Mockito.verify(this.computerService, Mockito.never()).updateComputer(Matchers.any(Computer.class), Matchers.anyLong());
+    }
+
+    @Test
+    public void updateWithTheCurrentIfMatchGivesTheNewETag() throws Exception {
+        Mockito.when(this.computerService.getComputer(5L)).thenReturn(stored(5, "CM-2a", 2));
+        Mockito.when(this.computerService.updateComputer(Matchers.any(Computer.class), Matchers.eq(2L))).thenReturn(stored(5, "CM-2b", 3));
+
+        ResponseEntity<ComputerDTO> response = this.update(5, "\"2\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"3\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    public void updateCommittedMeanwhileIsRefused() throws Exception {
+        Mockito.when(this.computerService.getComputer(5L)).thenReturn(stored(5, "CM-2a", 2));
+        Mockito.when(this.computerService.updateComputer(Matchers.any(Computer.class), Matchers.eq(2L)))
+                .thenThrow(new OptimisticLockingFailureException("updated meanwhile"));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, this.update(5, "\"2\"").getStatusCode());
+    }
+
+    @Test
+    public void updateOfAMissingComputer() throws Exception {
+        assertEquals(HttpStatus.NOT_FOUND, this.update(5, null).getStatusCode());
+        assertEquals(HttpStatus.PRECONDITION_FAILED, this.update(5, "\"2\"").getStatusCode());
+    }
+
+    // -------------------------------------- Export tests -------------------------------------------------------------
+
+    /**
+     * Write a streamed body as the async thread would, and gunzip it if needed.
+     *
+     * @param response with the body
+     * @return the body
+     * @throws IOException if the body cannot be written
+     */
+    private static String body(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        if (!"gzip".equals(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+        ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            byte[] buffer = new byte[1024];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                unzipped.write(buffer, 0, read);
+            }
+        }
+        return new String(unzipped.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void exportTwoComputers() {
+        Mockito.doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Consumer<Computer> consumer = (Consumer<Computer>) invocation.getArguments()[1];
+            consumer.accept(stored(1, "CM-2a"));
+            consumer.accept(new Computer.ComputerBuilder().id(2L).name("Apple II").introduced(LocalDate.of(1977, 4, 1)).build());
+            return null;
+        }).when(this.computerService).exportComputers(Matchers.any(PageParameters.class), Matchers.any());
+    }
+
+    @Test
+    public void exportStreamsTheCsv() throws Exception {
+        this.exportTwoComputers();
+
+        ResponseEntity<StreamingResponseBody> response = this.controller.export(new PageParametersDTO(), "csv", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("attachment; filename=\"computers.csv\"", response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"id\",\"name\",\"introduced\",\"discontinued\",\"company_id\",\"company_name\"\n"
+                + "\"1\",\"CM-2a\",\"\",\"\",\"\",\"\"\n"
+                + "\"2\",\"Apple II\",\"1977-04-01\",\"\",\"\",\"\"\n", body(response));
+    }
+
+    @Test
+    public void exportIsGzippedWhenAccepted() throws Exception {
+        this.exportTwoComputers();
+
+        ResponseEntity<StreamingResponseBody> response = this.controller.export(new PageParametersDTO(), "json", "gzip, deflate");
+
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+        String json = body(response);
+        assertTrue(json, json.startsWith("[") && json.contains("\"Apple II\"") && json.trim().endsWith("]"));
+    }
+
+    @Test
+    public void exportRefusesInvalidParameters() throws Exception {
+        PageParametersDTO params = new PageParametersDTO();
+
+        assertEquals(HttpStatus.BAD_REQUEST, this.controller.export(params, "pdf", null).getStatusCode());
+        params.setOrder("price");
+        assertEquals(HttpStatus.BAD_REQUEST, this.controller.export(params, "csv", null).getStatusCode());
+        Mockito.verify(this.computerService, Mockito.never()).exportComputers(Matchers.any(PageParameters.class), Matchers.any());
+    }
+
+    // -------------------------------------- Sparse fields tests ------------------------------------------------------
+    private ResponseEntity<StreamingResponseBody> fields(String fields, String format) {
+        PageParametersDTO params = new PageParametersDTO();
+        return this.controller.fieldsPage(params, new BeanPropertyBindingResult(params, "params"), fields, format, null, null);
+    }
+
+    private void streamOneComputer(Object... values) {
+        Mockito.doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Consumer<Object[]> consumer = (Consumer<Object[]>) invocation.getArguments()[2];
+            consumer.accept(values);
+            return null;
+        }).when(this.computerService).streamComputerFields(Matchers.any(PageParameters.class), Matchers.anyListOf(ComputerField.class), Matchers.any());
+    }
+
+    @Test
+    public void fieldsPageWritesOnlyTheFields() throws Exception {
+        this.streamOneComputer("CM-2a", 1L);
+
+        ResponseEntity<StreamingResponseBody> response = this.fields("name, id,name", "objects");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getHeaders().getETag().startsWith("W/"));
+        assertEquals("[{\"name\":\"CM-2a\",\"id\":\"1\"}]", body(response));
+        Mockito.verify(this.computerService).streamComputerFields(Matchers.any(PageParameters.class),
+                Matchers.eq(Arrays.asList(ComputerField.NAME, ComputerField.ID)), Matchers.any());
+    }
+
+    @Test
+    public void compactPageWritesArraysOfValues() throws Exception {
+        this.streamOneComputer(1L, "CM-2a", LocalDate.of(1987, 1, 1), null, null, null);
+        PageParametersDTO params = new PageParametersDTO();
+
+        ResponseEntity<StreamingResponseBody> response = this.controller.compactPage(params,
+                new BeanPropertyBindingResult(params, "params"), null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("{\"fields\":[\"id\",\"name\",\"introduced\",\"discontinued\",\"companyId\",\"companyName\"],"
+                + "\"rows\":[[\"1\",\"CM-2a\",\"1987-01-01\",\"\",null,\"\"]]}", body(response));
+    }
+
+    @Test
+    public void fieldsPageETagDependsOnTheFields() {
+        String names = this.fields("id,name", "objects").getHeaders().getETag();
+
+        assertNotEquals(names, this.fields("id", "objects").getHeaders().getETag());
+        assertNotEquals(names, this.fields("id,name", "compact").getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, this.controller.fieldsPage(new PageParametersDTO(), new BeanPropertyBindingResult(
+                new PageParametersDTO(), "params"), "id,name", "objects", names, null).getStatusCode());
+    }
+
+    @Test
+    public void fieldsPageRefusesUnknownFieldsAndFormats() {
+        assertEquals(HttpStatus.BAD_REQUEST, this.fields("id,price", "objects").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, this.fields("id", "table").getStatusCode());
+        Mockito.verify(this.computerService, Mockito.never()).streamComputerFields(Matchers.any(PageParameters.class),
+                Matchers.anyListOf(ComputerField.class), Matchers.any());
+    }
+}
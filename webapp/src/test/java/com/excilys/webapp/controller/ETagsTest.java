@@ -0,0 +1,36 @@
+package com.excilys.webapp.controller;
+
+import com.excilys.core.dto.PageParametersDTO;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ETagsTest {
+
+    @Test
+    public void listETagDependsOnThePage() {
+        PageParametersDTO first = new PageParametersDTO();
+        PageParametersDTO second = new PageParametersDTO();
+        second.setPageNumber(1);
+
+        String etag = ETags.ofList(7, first, "");
+        assertTrue(etag.startsWith("W/\""));
+        assertNotEquals(etag, ETags.ofList(7, second, ""));
+        assertNotEquals(etag, ETags.ofList(7, first, "compact"));
+        assertNotEquals(etag, ETags.ofList(8, first, ""));
+    }
+
+    @Test
+    public void weakETagOnlyMatchesIfNoneMatch() {
+        String etag = ETags.ofList(7, new PageParametersDTO(), "");
+
+        assertTrue(ETags.matches(etag, etag, true));
+        assertTrue(ETags.matches("\"a\", " + etag.substring(2), etag, true));
+        assertFalse(ETags.matches(etag, etag, false));
+        assertTrue(ETags.matches("*", etag, false));
+        assertTrue(ETags.matches("W/\"3\"", "\"3\"", true));
+        assertFalse(ETags.matches("W/\"3\"", "\"3\"", false));
+    }
+}
@@ -0,0 +1,142 @@
+package com.excilys.webapp.controller;
+
+import com.excilys.core.conflict.ImportException;
+import com.excilys.core.dto.ImportJobDTO;
+import com.excilys.core.dto.UploadDTO;
+import com.excilys.core.model.ImportCheckpoint;
+import com.excilys.service.importTool.IImportJobService;
+import com.excilys.service.importTool.IUploadService;
+import com.excilys.service.importTool.ImportJob;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ImportControllerTest {
+
+    private ImportController controller;
+    private IImportJobService jobService;
+    private IUploadService uploadService;
+    private final ImportJob job = new ImportJob(new ImportCheckpoint("job", "computers.csv", "csv", "/tmp/computers.csv"));
+
+    @Before
+    public void setUp() {
+        this.jobService = Mockito.mock(IImportJobService.class);
+        this.uploadService = Mockito.mock(IUploadService.class);
+        this.controller = new ImportController();
+        ReflectionTestUtils.setField(this.controller, "jobService", this.jobService);
+        ReflectionTestUtils.setField(this.controller, "uploadService", this.uploadService);
+    }
+
+    private static MockMultipartFile file() {
+        return new MockMultipartFile("file", "computers.csv", "text/csv", "Amiga 500,,,\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPostJobIsAccepted() {
+        Mockito.when(this.jobService.submit(Matchers.any(InputStream.class), Matchers.eq("computers.csv"),
+                Matchers.eq("csv"), Matchers.eq(ImportJob.Mode.STAGED))).thenReturn(this.job);
+
+        ResponseEntity<ImportJobDTO> response = this.controller.postJob(file(), ImportJob.Mode.STAGED);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("job", response.getBody().getId());
+    }
+
+    @Test
+    public void testPostJobWhenTheQueueIsFull() {
+        Mockito.when(this.jobService.submit(Matchers.any(InputStream.class), Matchers.anyString(), Matchers.anyString(),
+                Matchers.any(ImportJob.Mode.class))).thenThrow(new RejectedExecutionException());
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, this.controller.postJob(file(), ImportJob.Mode.CHECKED).getStatusCode());
+    }
+
+    @Test
+    public void testUnknownJob() {
+        assertEquals(HttpStatus.NOT_FOUND, this.controller.getJob("unknown").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, this.controller.cancelJob("unknown").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, this.controller.resumeJob("unknown").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, this.controller.getRapport("unknown").getStatusCode());
+    }
+
+    @Test
+    public void testCancelJob() {
+        Mockito.when(this.jobService.cancel("job")).thenReturn(this.job);
+
+        ResponseEntity<ImportJobDTO> response = this.controller.cancelJob("job");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("QUEUED", response.getBody().getState());
+    }
+
+    @Test
+    public void testResumeErrors() {
+        Mockito.when(this.jobService.resume("running")).thenThrow(new IllegalStateException());
+        Mockito.when(this.jobService.resume("deleted")).thenThrow(new ImportException("no file"));
+        Mockito.when(this.jobService.resume("full")).thenThrow(new RejectedExecutionException());
+
+        assertEquals(HttpStatus.CONFLICT, this.controller.resumeJob("running").getStatusCode());
+        assertEquals(HttpStatus.GONE, this.controller.resumeJob("deleted").getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, this.controller.resumeJob("full").getStatusCode());
+    }
+
+    @Test
+    public void testRapportOfARunningJob() {
+        Mockito.when(this.jobService.getJob("job")).thenReturn(this.job);
+
+        assertEquals(HttpStatus.CONFLICT, this.controller.getRapport("job").getStatusCode());
+    }
+
+    @Test
+    public void testInvalidConflictPages() {
+        assertEquals(HttpStatus.BAD_REQUEST, this.controller.getConflicts("job", -1, 100).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, this.controller.getConflicts("job", 0, 1001).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, this.controller.getConflictsAfter("job", -1, 100).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, this.controller.getConflictsAfter("job", 0, 0).getStatusCode());
+        Mockito.verifyZeroInteractions(this.jobService);
+    }
+
+    @Test
+    public void testChunkAtTheWrongOffsetGivesTheUpload() throws IOException {
+        UploadDTO upload = new UploadDTO();
+        Mockito.when(this.uploadService.write(Matchers.eq("upload"), Matchers.eq(10L), Matchers.any(InputStream.class),
+                Matchers.anyString())).thenThrow(new IllegalStateException());
+        Mockito.when(this.uploadService.getStatus("upload")).thenReturn(upload);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(new byte[4]);
+
+        ResponseEntity<UploadDTO> response = this.controller.putChunk("upload", 10, "abc", request);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertSame(upload, response.getBody());
+    }
+
+    @Test
+    public void testCompleteAnIncompleteUpload() {
+        Mockito.when(this.uploadService.complete("upload", ImportJob.Mode.CHECKED)).thenThrow(new IllegalStateException());
+
+        assertEquals(HttpStatus.CONFLICT, this.controller.completeUpload("upload", ImportJob.Mode.CHECKED).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, this.controller.completeUpload("unknown", ImportJob.Mode.CHECKED).getStatusCode());
+    }
+
+    @Test
+    public void testDeleteUpload() {
+        Mockito.when(this.uploadService.abort("upload")).thenReturn(true);
+
+        assertEquals(HttpStatus.NO_CONTENT, this.controller.deleteUpload("upload").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, this.controller.deleteUpload("unknown").getStatusCode());
+    }
+}